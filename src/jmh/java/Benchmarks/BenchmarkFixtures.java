@@ -0,0 +1,153 @@
+package Benchmarks;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import Domain.Entities.Product;
+import Domain.Entities.Shop;
+import Domain.Entities.ShoppingBasket;
+import Domain.Entities.Alerts.Alert;
+import Domain.Entities.Discounts.CategoryPercentageDiscount;
+import Domain.Entities.Discounts.ProductPercentageDiscount;
+import Domain.Entities.Discounts.ShopFixedDiscount;
+import Domain.Entities.enums.Category;
+import Domain.Facades.ShopFacade;
+import Domain.Repositories.MemoryDiscountRepository;
+import Domain.Repositories.MemoryPolicyRepository;
+import Domain.Repositories.MemoryProductRepository;
+import Domain.Repositories.MemoryRoleRepository;
+import Domain.Repositories.MemoryShopRepository;
+import Exceptions.StockMarketException;
+import Server.notifications.NotificationHandler;
+
+/**
+ * Builds the shops, products and facades the benchmarks run against.
+ *
+ * Everything is kept in the Memory* repositories and the external services are
+ * the proxy ones, so the benchmarks measure only the domain code - no database,
+ * no network and no web socket.
+ */
+public final class BenchmarkFixtures {
+
+    public static final String FOUNDER = "founder";
+    public static final int STOCK = Integer.MAX_VALUE / 2;
+
+    private static final String[] WORDS = { "red", "blue", "green", "small", "large", "cotton", "steel", "wood",
+            "fresh", "classic", "sport", "home", "digital", "organic", "premium", "basic" };
+
+    private BenchmarkFixtures() {
+    }
+
+    // Keep the INFO logs of the domain out of the measurements
+    public static void silenceLogging() {
+        Logger.getLogger("").setLevel(Level.WARNING);
+    }
+
+    /**
+     * A notification handler that drops the alerts, so purchases don't need a
+     * web socket server or a user repository.
+     */
+    public static class SilentNotificationHandler extends NotificationHandler {
+        @Override
+        public void sendMessage(String targetUsername, Alert alert) {
+        }
+    }
+
+    /**
+     * Create a shop with the given amount of products. The products get ids
+     * starting from firstProductId, spread over all the categories and carry two
+     * extra keywords each.
+     */
+    public static Shop createShop(int shopId, int firstProductId, int productCount, NotificationHandler handler)
+            throws StockMarketException {
+        Shop shop = new Shop("shop" + shopId, FOUNDER, "bank" + shopId, "address" + shopId, shopId);
+        shop.setNotificationHandler(handler);
+        Category[] categories = productCategories();
+        for (int i = 0; i < productCount; i++) {
+            int productId = firstProductId + i;
+            Category category = categories[i % categories.length];
+            Product product = new Product("product" + productId, category, 10.0 + (productId % 90), shop,
+                    productId);
+            product.updateProductQuantity(STOCK);
+            product.addKeyword(WORDS[productId % WORDS.length]);
+            product.addKeyword(WORDS[(productId / WORDS.length) % WORDS.length]);
+            shop.addProductToShop(FOUNDER, product);
+        }
+        return shop;
+    }
+
+    /**
+     * Add discountCount discounts to the shop: a mix of product, category and
+     * shop-wide discounts, all valid for a day.
+     */
+    public static void addDiscounts(Shop shop, List<Product> products, int discountCount)
+            throws StockMarketException {
+        Date expiration = new Date(System.currentTimeMillis() + 24L * 60 * 60 * 1000);
+        Category[] categories = productCategories();
+        for (int i = 0; i < discountCount; i++) {
+            switch (i % 3) {
+                case 0:
+                    Product product = products.get(i % products.size());
+                    shop.addDiscount(new ProductPercentageDiscount(expiration, 5, product.getProductId(), i));
+                    break;
+                case 1:
+                    shop.addDiscount(
+                            new CategoryPercentageDiscount(expiration, 5, categories[i % categories.length], i));
+                    break;
+                default:
+                    shop.addDiscount(new ShopFixedDiscount(expiration, 1, i));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Create a basket of the given shop with basketSize different products, two
+     * units of each.
+     */
+    public static ShoppingBasket createBasket(Shop shop, List<Product> products, int basketSize)
+            throws StockMarketException {
+        ShoppingBasket basket = new ShoppingBasket(shop);
+        for (int i = 0; i < basketSize && i < products.size(); i++) {
+            basket.addProductToShoppingBasket(null, products.get(i).getProductId(), 2);
+        }
+        return basket;
+    }
+
+    /**
+     * Create a shop facade over Memory* repositories that hold the given shops.
+     */
+    public static ShopFacade createShopFacade(List<Shop> shops, NotificationHandler handler) {
+        ShopFacade shopFacade = new ShopFacade(null, null, null, null, handler, null, null);
+        shopFacade.setShopFacadeRepositories(new MemoryShopRepository(shops), new MemoryProductRepository(),
+                new MemoryRoleRepository(), new MemoryDiscountRepository(), new MemoryPolicyRepository());
+        return shopFacade;
+    }
+
+    /**
+     * Create shopCount shops with productsPerShop products each.
+     */
+    public static List<Shop> createShops(int shopCount, int productsPerShop, NotificationHandler handler)
+            throws StockMarketException {
+        List<Shop> shops = new ArrayList<>();
+        for (int i = 0; i < shopCount; i++) {
+            shops.add(createShop(i, i * productsPerShop, productsPerShop, handler));
+        }
+        return shops;
+    }
+
+    // A keyword that is carried by roughly 1/16 of the products
+    public static String keyword(int i) {
+        return WORDS[i % WORDS.length];
+    }
+
+    private static Category[] productCategories() {
+        Category[] all = Category.values();
+        Category[] categories = new Category[all.length - 1];
+        System.arraycopy(all, 0, categories, 0, categories.length); // without DEFAULT_VAL
+        return categories;
+    }
+}
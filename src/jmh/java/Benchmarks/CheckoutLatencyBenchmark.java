@@ -0,0 +1,145 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Domain.ExternalServices.CheckoutPipeline;
+import Domain.ExternalServices.PaymentService.AdapterPaymentInterface;
+import Domain.ExternalServices.SupplyService.AdapterSupplyInterface;
+import Dtos.PaymentInfoDto;
+import Dtos.SupplyInfoDto;
+import Exceptions.StockMarketException;
+
+/**
+ * Concurrent checkouts against slow payment and supply services, with the calls
+ * on the platform thread pool and on virtual threads.
+ *
+ * The virtual thread runs need a Java 21 runtime (build with -P java21); on an
+ * older runtime they fall back to the pool and measure the same as it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(64)
+@Fork(1)
+public class CheckoutLatencyBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean virtualThreads;
+
+    @Param({ "20", "100" })
+    public int serviceLatencyMillis;
+
+    private CheckoutPipeline _pipeline;
+    private AdapterPaymentInterface _payment;
+    private AdapterSupplyInterface _supply;
+    private PaymentInfoDto _paymentInfo;
+    private SupplyInfoDto _supplyInfo;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.silenceLogging();
+        _pipeline = new CheckoutPipeline(CheckoutPipeline.DEFAULT_THREADS, virtualThreads);
+        _payment = new SlowPayment(serviceLatencyMillis);
+        _supply = new SlowSupply(serviceLatencyMillis);
+        _paymentInfo = new PaymentInfoDto("holder", "1111222233334444", "12", "2030", "name", "123", "id");
+        _supplyInfo = new SupplyInfoDto("name", "address", "city", "country", "zip");
+    }
+
+    @TearDown
+    public void tearDown() {
+        _pipeline.shutdown();
+    }
+
+    @Benchmark
+    public CheckoutPipeline.Transactions checkout() throws StockMarketException {
+        return _pipeline.checkout(_payment, _supply, _paymentInfo, 100, _supplyInfo);
+    }
+
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // a payment service that answers every call after the latency
+    private static class SlowPayment implements AdapterPaymentInterface {
+        private final int _latencyMillis;
+
+        SlowPayment(int latencyMillis) {
+            _latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public boolean handshake() {
+            sleep(_latencyMillis);
+            return true;
+        }
+
+        @Override
+        public int payment(PaymentInfoDto paymentInfo, double price) {
+            sleep(_latencyMillis);
+            return 10000;
+        }
+
+        @Override
+        public int cancel_pay(int transactionId) {
+            sleep(_latencyMillis);
+            return 1;
+        }
+
+        @Override
+        public boolean ConnectToService() {
+            return true;
+        }
+    }
+
+    // a supply service that answers every call after the latency
+    private static class SlowSupply implements AdapterSupplyInterface {
+        private final int _latencyMillis;
+
+        SlowSupply(int latencyMillis) {
+            _latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public boolean handshake() {
+            sleep(_latencyMillis);
+            return true;
+        }
+
+        @Override
+        public int supply(SupplyInfoDto supplyInfo) {
+            sleep(_latencyMillis);
+            return 20000;
+        }
+
+        @Override
+        public int cancel_supply(int transaction_id) {
+            sleep(_latencyMillis);
+            return 1;
+        }
+
+        @Override
+        public boolean ConnectToService() {
+            return true;
+        }
+    }
+}
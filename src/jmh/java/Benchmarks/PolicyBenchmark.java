@@ -0,0 +1,67 @@
+package Benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Domain.Entities.Product;
+import Domain.Entities.Shop;
+import Domain.Entities.ShoppingBasket;
+import Domain.Entities.Policies.ShopPolicy;
+import Domain.Entities.Rules.MinBasketPriceRule;
+import Domain.Entities.Rules.MinProductAmountRule;
+import Exceptions.StockMarketException;
+
+/**
+ * Evaluation of a shop policy against a basket. All the rules pass, so every
+ * rule of the policy is evaluated.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolicyBenchmark {
+
+    @Param({ "1", "10", "50" })
+    public int ruleCount;
+
+    private ShopPolicy _policy;
+    private ShoppingBasket _basket;
+
+    @Setup
+    public void setUp() throws StockMarketException {
+        BenchmarkFixtures.silenceLogging();
+        Shop shop = BenchmarkFixtures.createShop(1, 0, 100, new BenchmarkFixtures.SilentNotificationHandler());
+        List<Product> products = new ArrayList<>(shop.getAllProductsList());
+        BenchmarkFixtures.addDiscounts(shop, products, 10);
+        _basket = BenchmarkFixtures.createBasket(shop, products, 20);
+
+        _policy = new ShopPolicy();
+        for (int i = 0; i < ruleCount; i++) {
+            // every 5th rule needs the basket price, the rest only count products
+            if (i % 5 == 4)
+                _policy.addRule(new MinBasketPriceRule(1));
+            else
+                _policy.addRule(new MinProductAmountRule(products.get(i % 20).getProductId(), 1));
+        }
+    }
+
+    @Benchmark
+    public boolean evaluate() {
+        return _policy.evaluate(_basket);
+    }
+}
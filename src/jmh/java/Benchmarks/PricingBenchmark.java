@@ -0,0 +1,69 @@
+package Benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Domain.Entities.Product;
+import Domain.Entities.Shop;
+import Domain.Entities.ShoppingBasket;
+import Exceptions.StockMarketException;
+
+/**
+ * Pricing of a single basket against a shop with many discounts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    @Param({ "0", "10", "100" })
+    public int discountCount;
+
+    @Param({ "5", "50" })
+    public int basketSize;
+
+    private Shop _shop;
+    private ShoppingBasket _basket;
+
+    @Setup
+    public void setUp() throws StockMarketException {
+        BenchmarkFixtures.silenceLogging();
+        _shop = BenchmarkFixtures.createShop(1, 0, 200, new BenchmarkFixtures.SilentNotificationHandler());
+        List<Product> products = new ArrayList<>(_shop.getAllProductsList());
+        BenchmarkFixtures.addDiscounts(_shop, products, discountCount);
+        _basket = BenchmarkFixtures.createBasket(_shop, products, basketSize);
+    }
+
+    @Benchmark
+    public double calculateShoppingBasketPrice() throws StockMarketException {
+        return _basket.calculateShoppingBasketPrice();
+    }
+
+    // the memoized price, when neither the basket nor the shop changed
+    @Benchmark
+    public double getShoppingBasketPrice() throws StockMarketException {
+        return _basket.getShoppingBasketPrice();
+    }
+
+    @Benchmark
+    public ShoppingBasket applyDiscounts() throws StockMarketException {
+        _shop.applyDiscounts(_basket);
+        return _basket;
+    }
+}
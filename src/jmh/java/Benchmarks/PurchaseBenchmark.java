@@ -0,0 +1,92 @@
+package Benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Domain.Entities.Product;
+import Domain.Entities.Shop;
+import Domain.Entities.ShoppingCart;
+import Domain.ExternalServices.PaymentService.ProxyPayment;
+import Domain.ExternalServices.SupplyService.ProxySupply;
+import Domain.Facades.ShopFacade;
+import Domain.Repositories.MemoryOrderRepository;
+import Domain.Repositories.MemoryShopOrderRepository;
+import Domain.Repositories.MemoryShoppingBasketRepository;
+import Dtos.PaymentInfoDto;
+import Dtos.PurchaseCartDetailsDto;
+import Dtos.SupplyInfoDto;
+import Exceptions.StockMarketException;
+
+/**
+ * Checkout of a guest cart with a basket in each shop: policy validation, stock
+ * reservation, pricing, the proxy payment and supply and the order history.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PurchaseBenchmark {
+
+    @Param({ "1", "5" })
+    public int shopCount;
+
+    @Param({ "5", "20" })
+    public int basketSize;
+
+    @Param({ "0", "20" })
+    public int discountCount;
+
+    private ShoppingCart _cart;
+    private PurchaseCartDetailsDto _purchaseDetails;
+
+    // rebuilt every iteration, so the order history of the shops doesn't grow
+    // for the whole run
+    @Setup(Level.Iteration)
+    public void setUp() throws StockMarketException {
+        BenchmarkFixtures.silenceLogging();
+        BenchmarkFixtures.SilentNotificationHandler handler = new BenchmarkFixtures.SilentNotificationHandler();
+        List<Shop> shops = BenchmarkFixtures.createShops(shopCount, 100, handler);
+        ShopFacade shopFacade = BenchmarkFixtures.createShopFacade(shops, handler);
+
+        _cart = new ShoppingCart(shopFacade, new ProxyPayment(), new ProxySupply());
+        _cart.setShoppingBasketsRepository(new MemoryShoppingBasketRepository());
+        _cart.setOrderRepository(new MemoryOrderRepository());
+        _cart.setShopOrderRepository(new MemoryShopOrderRepository());
+
+        List<Integer> basketsToBuy = new ArrayList<>();
+        for (Shop shop : shops) {
+            List<Product> products = new ArrayList<>(shop.getAllProductsList());
+            BenchmarkFixtures.addDiscounts(shop, products, discountCount);
+            for (int i = 0; i < basketSize; i++) {
+                _cart.addProduct(products.get(i).getProductId(), shop.getShopId(), 1);
+            }
+            basketsToBuy.add(basketsToBuy.size());
+        }
+
+        _purchaseDetails = new PurchaseCartDetailsDto(
+                new PaymentInfoDto("holder", "1111222233334444", "12", "2030", "name", "123", "id"),
+                new SupplyInfoDto("name", "address", "city", "country", "zip"), basketsToBuy);
+    }
+
+    @Benchmark
+    public ShoppingCart purchaseCart() throws StockMarketException {
+        _cart.purchaseCart(_purchaseDetails);
+        return _cart;
+    }
+}
@@ -0,0 +1,82 @@
+package Benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Domain.Entities.Product;
+import Domain.Entities.enums.Category;
+import Domain.Facades.ShopFacade;
+import Exceptions.StockMarketException;
+
+/**
+ * The product search methods of the shop facade, over all the shops and over a
+ * single shop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({ "10", "100" })
+    public int shopCount;
+
+    @Param({ "200" })
+    public int productsPerShop;
+
+    private ShopFacade _shopFacade;
+    private List<String> _keywords;
+    private String _productName;
+
+    @Setup
+    public void setUp() throws StockMarketException {
+        BenchmarkFixtures.silenceLogging();
+        BenchmarkFixtures.SilentNotificationHandler handler = new BenchmarkFixtures.SilentNotificationHandler();
+        _shopFacade = BenchmarkFixtures.createShopFacade(
+                BenchmarkFixtures.createShops(shopCount, productsPerShop, handler), handler);
+        _keywords = List.of(BenchmarkFixtures.keyword(3), BenchmarkFixtures.keyword(7));
+        _productName = "product" + (productsPerShop / 2);
+        // build the lazy indexes outside of the measurement
+        _shopFacade.getProductsInShopByKeywords(null, _keywords);
+    }
+
+    @Benchmark
+    public Map<Integer, List<Product>> keywordsInAllShops() throws StockMarketException {
+        return _shopFacade.getProductsInShopByKeywords(null, _keywords);
+    }
+
+    @Benchmark
+    public Map<Integer, List<Product>> keywordsInShop() throws StockMarketException {
+        return _shopFacade.getProductsInShopByKeywords(0, _keywords);
+    }
+
+    @Benchmark
+    public Map<Integer, List<Product>> nameInAllShops() throws StockMarketException {
+        return _shopFacade.getProductInShopByName(null, _productName);
+    }
+
+    @Benchmark
+    public Map<Integer, List<Product>> categoryInAllShops() throws StockMarketException {
+        return _shopFacade.getProductInShopByCategory(null, Category.BOOKS);
+    }
+
+    @Benchmark
+    public Map<Integer, List<Product>> priceRangeInAllShops() throws StockMarketException {
+        return _shopFacade.getProductsInShopByPriceRange(null, 20.0, 30.0);
+    }
+}
@@ -1,22 +1,197 @@
 package Domain.Authenticators;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Hashes and verifies the passwords of the users with BCrypt.
+ *
+ * BCrypt is slow on purpose, so the hashing runs on its own small pool of
+ * threads instead of the request threads: a burst of logins waits in a bounded
+ * queue for the pool while the other requests keep their threads. When the
+ * queue is full the call is rejected right away with a
+ * RejectedExecutionException, and a call that waits longer than the wait limit
+ * for its hash is canceled and rejected the same way. The queue is kept well
+ * below the request threads of the server (200 by default), so a burst of
+ * logins can not hold all of them.
+ */
 @Component
 public class PasswordEncoderUtil{
-    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+
+    private static final Logger logger = Logger.getLogger(PasswordEncoderUtil.class.getName());
+
+    public static final int DEFAULT_STRENGTH = 10;
+    public static final int DEFAULT_QUEUE_CAPACITY = 32;
+    public static final long DEFAULT_WAIT_MILLIS = 5_000;
+
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long waitMillis;
+
+    // metrics
+    private final AtomicLong hashes = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong outdatedHashes = new AtomicLong();
+    private final AtomicLong totalHashNanos = new AtomicLong();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+
+    /**
+     * @param strength      the BCrypt cost factor, between 4 and 31
+     * @param threads       the hashing threads, 0 for half of the processors
+     * @param queueCapacity the calls that may wait for a hashing thread
+     * @param waitMillis    the time a call waits for its hash before it is
+     *                      rejected
+     */
+    @Autowired
+    public PasswordEncoderUtil(@Value("${password.bcrypt.strength:" + DEFAULT_STRENGTH + "}") int strength,
+            @Value("${password.hashing.threads:0}") int threads,
+            @Value("${password.hashing.queue.capacity:" + DEFAULT_QUEUE_CAPACITY + "}") int queueCapacity,
+            @Value("${password.hashing.wait.millis:" + DEFAULT_WAIT_MILLIS + "}") long waitMillis) {
+        if (threads < 0 || queueCapacity <= 0)
+            throw new IllegalArgumentException("Hashing threads can not be negative and queue capacity must be positive.");
+        if (waitMillis <= 0)
+            throw new IllegalArgumentException("Hashing wait time must be positive.");
+        this.waitMillis = waitMillis;
+        passwordEncoder = new BCryptPasswordEncoder(strength);
+        int poolSize = threads == 0 ? Math.max(1, Runtime.getRuntime().availableProcessors() / 2) : threads;
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public PasswordEncoderUtil(int strength, int threads, int queueCapacity) {
+        this(strength, threads, queueCapacity, DEFAULT_WAIT_MILLIS);
+    }
 
     public PasswordEncoderUtil(){
-        
+        this(DEFAULT_STRENGTH, 0, DEFAULT_QUEUE_CAPACITY);
     }
 
     public String encodePassword(String password){
-        return passwordEncoder.encode(password);
+        return run(() -> passwordEncoder.encode(password));
     }
 
     public boolean matches(String rawPassword, String encodedPassword){
-        return passwordEncoder.matches(rawPassword, encodedPassword);
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    // true if the hash was made with a lower cost than the configured one
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null || !passwordEncoder.upgradeEncoding(encodedPassword))
+            return false;
+        outdatedHashes.incrementAndGet();
+        return true;
+    }
+
+    // run a hashing call on the pool and wait for it, at most waitMillis
+    private <T> T run(Callable<T> call) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                record(totalQueueWaitNanos, maxQueueWaitNanos, startedAt - submittedAt);
+                try {
+                    return call.call();
+                } finally {
+                    record(totalHashNanos, maxHashNanos, System.nanoTime() - startedAt);
+                    hashes.incrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            logger.log(Level.WARNING, "PasswordEncoderUtil - run: hashing queue is full, rejecting the call");
+            throw e;
+        }
+        try {
+            return future.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.incrementAndGet();
+            logger.log(Level.WARNING, "PasswordEncoderUtil - run: hashing took longer than " + waitMillis
+                    + " ms, rejecting the call");
+            throw new RejectedExecutionException("Password hashing timed out", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static void record(AtomicLong total, AtomicLong max, long nanos) {
+        total.addAndGet(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static double averageMillis(AtomicLong totalNanos, long count) {
+        return count == 0 ? 0 : totalNanos.get() / (double) count / 1_000_000;
+    }
+
+    public long getHashCount() {
+        return hashes.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getTimedOutCount() {
+        return timedOut.get();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    // the metrics as a map, for the response of the statistics endpoint
+    public Map<String, Object> getStatistics() {
+        long count = hashes.get();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("hashes", count);
+        statistics.put("rejected", getRejectedCount());
+        statistics.put("timedOut", getTimedOutCount());
+        statistics.put("outdatedHashes", outdatedHashes.get());
+        statistics.put("queueSize", getQueueSize());
+        statistics.put("averageHashMillis", averageMillis(totalHashNanos, count));
+        statistics.put("maxHashMillis", maxHashNanos.get() / 1_000_000.0);
+        statistics.put("averageQueueWaitMillis", averageMillis(totalQueueWaitNanos, count));
+        statistics.put("maxQueueWaitMillis", maxQueueWaitNanos.get() / 1_000_000.0);
+        return statistics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,6 @@
 package Domain.Entities.Discounts;
 
 import java.util.Date;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -44,7 +43,7 @@ public class CategoryFixedDiscount extends BaseDiscount {
         _category = category;
         _rule = (basket) -> {
             try {
-                return basket.getProductsList().stream().anyMatch((product) -> product.getCategory().equals(_category));
+                return basket.getDistinctProducts().stream().anyMatch((product) -> product.getCategory().equals(_category));
             } catch (Exception e) {
                 e.printStackTrace();
                 return false;
@@ -63,6 +62,11 @@ public class CategoryFixedDiscount extends BaseDiscount {
         return -1;
     }
 
+    @Override
+    public Category getParticipatingCategory() {
+        return _category;
+    }
+
     /**
      * Applies the fixed discount to the products of the specific in the shopping basket.
      * The price and amount of the product are updated based on the discount.
@@ -72,9 +76,7 @@ public class CategoryFixedDiscount extends BaseDiscount {
      */
     @Override
     protected void applyDiscountLogic(ShoppingBasket basket) throws StockMarketException {
-        if (!_rule.predicate(basket))
-            return;
-        for (Product product : new HashSet<>(basket.getProductsList())) {
+        for (Product product : basket.getDistinctProducts()) {
             if(!product.getCategory().equals(_category)){
                 continue;
             }
@@ -103,7 +105,7 @@ public class CategoryFixedDiscount extends BaseDiscount {
     public void setRules(){
         _rule = (basket) -> {
             try {
-                return basket.getProductsList().stream().anyMatch((product) -> product.getCategory().equals(_category));
+                return basket.getDistinctProducts().stream().anyMatch((product) -> product.getCategory().equals(_category));
             } catch (Exception e) {
                 e.printStackTrace();
                 return false;
@@ -1,7 +1,6 @@
 package Domain.Entities.Discounts;
 
 import java.util.Date;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -44,7 +43,7 @@ public class CategoryPercentageDiscount extends BaseDiscount {
         _category = category;
         _rule = (basket) -> {
             try {
-                return basket.getProductsList().stream().anyMatch((product) -> product.getCategory().equals(_category));
+                return basket.getDistinctProducts().stream().anyMatch((product) -> product.getCategory().equals(_category));
             } catch (Exception e) {
                 e.printStackTrace();
                 return false;
@@ -62,6 +61,11 @@ public class CategoryPercentageDiscount extends BaseDiscount {
     public int getParticipatingProduct() {
         return -1;
     }
+
+    @Override
+    public Category getParticipatingCategory() {
+        return _category;
+    }
     /**
      * Applies the percentage discount to the products with the specific category in the shopping basket.
      * The price and amount of the product are updated based on the discount.
@@ -71,9 +75,7 @@ public class CategoryPercentageDiscount extends BaseDiscount {
      */
     @Override
     protected void applyDiscountLogic(ShoppingBasket basket) throws StockMarketException {
-        if (!_rule.predicate(basket))
-            return;
-        for (Product product : new HashSet<>(basket.getProductsList())) {
+        for (Product product : basket.getDistinctProducts()) {
             if(!product.getCategory().equals(_category)){
                 continue;
             }
@@ -102,7 +104,7 @@ public class CategoryPercentageDiscount extends BaseDiscount {
     public void setRules(){
         _rule = (basket) -> {
             try {
-                return basket.getProductsList().stream().anyMatch((product) -> product.getCategory().equals(_category));
+                return basket.getDistinctProducts().stream().anyMatch((product) -> product.getCategory().equals(_category));
             } catch (Exception e) {
                 e.printStackTrace();
                 return false;
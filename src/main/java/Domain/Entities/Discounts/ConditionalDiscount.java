@@ -1,10 +1,13 @@
 package Domain.Entities.Discounts;
 
+import java.util.Date;
 import java.util.List;
 
 import Domain.Entities.ShoppingBasket;
+import Domain.Entities.enums.Category;
 import Dtos.BasicDiscountDto;
 import Dtos.ConditionalDiscountDto;
+import Exceptions.DiscountExpiredException;
 import Exceptions.StockMarketException;
 
 /**
@@ -45,6 +48,27 @@ public class ConditionalDiscount extends Discount {
         return _discount.getParticipatingProduct();
     }
 
+    @Override
+    public Category getParticipatingCategory() {
+        return _discount.getParticipatingCategory();
+    }
+
+    /**
+     * Applies the base discount if the must-have products are in the basket, using
+     * the same clock reading for the condition and the base discount.
+     * 
+     * @param basket      the shopping basket to apply the discount to
+     * @param currentTime the time of the current pricing pass
+     * @throws StockMarketException if the discount has expired
+     */
+    @Override
+    public void applyDiscount(ShoppingBasket basket, Date currentTime) throws StockMarketException {
+        if (isExpired(currentTime))
+            throw new DiscountExpiredException("Discount has expired");
+        if (_rule.predicate(basket))
+            _discount.applyDiscount(basket, currentTime);
+    }
+
     /**
      * Applies the discount to the given shopping basket if the rule is satisfied.
      * 
@@ -53,8 +77,7 @@ public class ConditionalDiscount extends Discount {
      */
     @Override
     protected void applyDiscountLogic(ShoppingBasket basket) throws StockMarketException {
-        if (_rule.predicate(basket))
-            _discount.applyDiscount(basket);
+        _discount.applyDiscount(basket);
     }
 
     @Override
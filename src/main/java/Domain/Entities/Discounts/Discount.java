@@ -6,6 +6,7 @@ import Domain.Entities.Product;
 import Domain.Entities.Shop;
 import Domain.Entities.ShoppingBasket;
 import Domain.Entities.Rules.Rule;
+import Domain.Entities.enums.Category;
 import Dtos.BasicDiscountDto;
 import Exceptions.DiscountExpiredException;
 import Exceptions.StockMarketException;
@@ -41,13 +42,23 @@ public abstract class Discount {
     }
 
     public void applyDiscount(ShoppingBasket basket) throws StockMarketException {
-        Date currentTime = new Date();
+        applyDiscount(basket, new Date());
+    }
+
+    // Apply the discount with the time of the current pricing pass, so all the
+    // discounts of a basket are checked against the same clock reading.
+    // The rule is evaluated once here, applyDiscountLogic does not check it again.
+    public void applyDiscount(ShoppingBasket basket, Date currentTime) throws StockMarketException {
         if (currentTime.before(_expirationDate) && _rule.predicate(basket))
             applyDiscountLogic(basket);
         else if (currentTime.after(_expirationDate))
             throw new DiscountExpiredException("Discount has expired");
     }
 
+    public boolean isExpired(Date currentTime) {
+        return currentTime.after(_expirationDate);
+    }
+
     public Date getExpirationDate() {
         return _expirationDate;
     }
@@ -70,6 +81,11 @@ public abstract class Discount {
 
     public abstract int getParticipatingProduct();
 
+    // The category the discount is limited to, null if it is not a category discount
+    public Category getParticipatingCategory() {
+        return null;
+    }
+
     public abstract BasicDiscountDto getDto();
 
     protected abstract void applyDiscountLogic(ShoppingBasket basket) throws StockMarketException;
@@ -0,0 +1,123 @@
+package Domain.Entities.Discounts;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import Domain.Entities.Product;
+import Domain.Entities.ShoppingBasket;
+import Domain.Entities.enums.Category;
+
+/**
+ * A precompiled view of the discounts of a shop, indexed by the product and the
+ * category each discount can touch.
+ *
+ * Pricing a basket used to run every discount of the shop against it. With the
+ * plan only the shop-wide discounts and the discounts of the products and
+ * categories that are actually in the basket are evaluated. The discounts are
+ * still applied in the order they were added to the shop, since the order
+ * matters when several discounts touch the same product.
+ *
+ * The plan is immutable - the shop builds a new one when its discounts change.
+ */
+public class DiscountPlan {
+
+    private final Discount[] _discounts; // in the order of the shop discounts
+    private final int[] _shopWide; // positions of the discounts that touch every product
+    private final Map<Integer, int[]> _byProduct; // <productId, positions>
+    private final Map<Category, int[]> _byCategory; // <category, positions>
+    private final Date _earliestExpiration;
+
+    public DiscountPlan(List<Discount> discounts) {
+        _discounts = discounts.toArray(new Discount[0]);
+        List<Integer> shopWide = new ArrayList<>();
+        Map<Integer, List<Integer>> byProduct = new HashMap<>();
+        Map<Category, List<Integer>> byCategory = new EnumMap<>(Category.class);
+        Date earliestExpiration = null;
+
+        for (int i = 0; i < _discounts.length; i++) {
+            Discount discount = _discounts[i];
+            Category category = discount.getParticipatingCategory();
+            int productId = discount.getParticipatingProduct();
+            if (category != null)
+                byCategory.computeIfAbsent(category, k -> new ArrayList<>()).add(i);
+            else if (productId != -1)
+                byProduct.computeIfAbsent(productId, k -> new ArrayList<>()).add(i);
+            else
+                shopWide.add(i);
+
+            Date expiration = discount.getExpirationDate();
+            if (expiration != null && (earliestExpiration == null || expiration.before(earliestExpiration)))
+                earliestExpiration = expiration;
+        }
+
+        _shopWide = toArray(shopWide);
+        _byProduct = new HashMap<>();
+        for (Map.Entry<Integer, List<Integer>> entry : byProduct.entrySet())
+            _byProduct.put(entry.getKey(), toArray(entry.getValue()));
+        _byCategory = new EnumMap<>(Category.class);
+        for (Map.Entry<Category, List<Integer>> entry : byCategory.entrySet())
+            _byCategory.put(entry.getKey(), toArray(entry.getValue()));
+        _earliestExpiration = earliestExpiration;
+    }
+
+    /**
+     * Returns the discounts that can change the price of the basket, in the order
+     * they should be applied.
+     *
+     * @param basket the basket that is being priced
+     * @return the discounts to evaluate for the basket
+     */
+    public List<Discount> getApplicableDiscounts(ShoppingBasket basket) {
+        BitSet positions = new BitSet(_discounts.length);
+        mark(positions, _shopWide);
+        if (!_byProduct.isEmpty() || !_byCategory.isEmpty()) {
+            for (Product product : basket.getDistinctProducts()) {
+                if (product == null)
+                    continue;
+                if (product.getProductId() != null)
+                    mark(positions, _byProduct.get(product.getProductId()));
+                if (product.getCategory() != null)
+                    mark(positions, _byCategory.get(product.getCategory()));
+            }
+        }
+
+        List<Discount> discounts = new ArrayList<>(positions.cardinality());
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1))
+            discounts.add(_discounts[i]);
+        return discounts;
+    }
+
+    // Check if at least one of the discounts in the plan has expired
+    public boolean hasExpiredDiscounts(Date currentTime) {
+        return _earliestExpiration != null && currentTime.after(_earliestExpiration);
+    }
+
+    // The expiration date of the first discount in the plan to expire, null if
+    // there are no discounts
+    public Date getEarliestExpiration() {
+        return _earliestExpiration;
+    }
+
+    public int size() {
+        return _discounts.length;
+    }
+
+    private static void mark(BitSet positions, int[] toMark) {
+        if (toMark == null)
+            return;
+        for (int position : toMark)
+            positions.set(position);
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++)
+            array[i] = list.get(i);
+        return array;
+    }
+}
@@ -58,9 +58,6 @@ public class ProductFixedDiscount extends BaseDiscount {
      */
     @Override
     protected void applyDiscountLogic(ShoppingBasket basket) {
-        if (!_rule.predicate(basket))
-            return;
-
         SortedMap<Double, Integer> priceToAmount = basket.getProductPriceToAmount(_productId);
 
         // get most expensive price and amount
@@ -62,9 +62,6 @@ public class ProductPercentageDiscount extends BaseDiscount {
      */
     @Override
     protected void applyDiscountLogic(ShoppingBasket basket) {
-        if (!_rule.predicate(basket))
-            return;
-
         SortedMap<Double, Integer> priceToAmount = basket.getProductPriceToAmount(_productId);
 
         // get most expensive price and amount
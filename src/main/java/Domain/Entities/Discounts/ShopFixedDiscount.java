@@ -1,7 +1,6 @@
 package Domain.Entities.Discounts;
 
 import java.util.Date;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -60,9 +59,7 @@ public class ShopFixedDiscount extends BaseDiscount {
      */
     @Override
     protected void applyDiscountLogic(ShoppingBasket basket) throws StockMarketException {
-        if (!_rule.predicate(basket))
-            return;
-        for (int product_id : new HashSet<>(basket.getProductIdsList())) {
+        for (int product_id : basket.getProductIdToQuantity().keySet()) {
             SortedMap<Double, Integer> newpriceToAmount = new TreeMap<>();
             SortedMap<Double, Integer> priceToAmount = basket.getProductPriceToAmount(product_id);
             for (Map.Entry<Double, Integer> entry : priceToAmount.entrySet()) {
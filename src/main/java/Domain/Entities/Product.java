@@ -1,5 +1,7 @@
 package Domain.Entities;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -23,6 +25,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -42,8 +45,15 @@ public class Product implements Cloneable {
     @Column(name = "price", nullable = false)
     private double price;
 
+    // the stock is updated lock-free through the QUANTITY var handle
     @Column(name = "quantity", nullable = false)
-    private Integer quantity;
+    private volatile int quantity;
+
+    // optimistic concurrency: bumped on every update of the row, including the
+    // conditional stock updates of InterfaceProductRepository
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0 not null")
+    private long version;
 
     @ElementCollection
     @CollectionTable(name = "product_keyword", joinColumns = @JoinColumn(name = "product_id"))
@@ -73,6 +83,16 @@ public class Product implements Cloneable {
 
     private static final Logger logger = Logger.getLogger(Product.class.getName());
 
+    private static final VarHandle QUANTITY;
+
+    static {
+        try {
+            QUANTITY = MethodHandles.lookup().findVarHandle(Product.class, "quantity", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     // Default constructor
     public Product() {
     }
@@ -121,25 +141,72 @@ public class Product implements Cloneable {
             productRating = ((productRating * productRatersCounter) + newRating) / (productRatersCounter + 1);
         }
         productRatersCounter++;
+        onChanged();
+    }
+
+    /**
+     * Try to take the given amount of units from the stock in one atomic step.
+     * Either all the units are taken or none of them. Lock-free - concurrent
+     * buyers retry the compare-and-set instead of waiting on a monitor.
+     *
+     * @param amount the amount of units to reserve
+     * @return true if the units were taken from the stock, false if there is not
+     *         enough stock
+     */
+    public boolean tryReserve(int amount) {
+        if (amount < 0)
+            throw new IllegalArgumentException("Amount to reserve can not be negative.");
+        int current;
+        do {
+            current = (int) QUANTITY.getVolatile(this);
+            if (current < amount)
+                return false;
+        } while (!QUANTITY.compareAndSet(this, current, current - amount));
+        onChanged();
+        return true;
+    }
+
+    /**
+     * Return the given amount of units to the stock in one atomic step.
+     *
+     * @param amount the amount of units to release
+     */
+    public void release(int amount) {
+        if (amount < 0)
+            throw new IllegalArgumentException("Amount to release can not be negative.");
+        QUANTITY.getAndAdd(this, amount);
+        onChanged();
     }
 
     // this function responsible for purchasing a product: decrease the quantity of
     // the product by 1 and add the product to the user's cart
-    public synchronized void purchaseProduct() throws StockMarketException {
-        if (quantity == 0) {
+    public void purchaseProduct() throws StockMarketException {
+        purchaseProduct(1);
+    }
+
+    public void cancelPurchase() {
+        cancelPurchase(1);
+    }
+
+    // this function responsible for purchasing several units of the product at
+    // once: either all the units are taken from the stock or none of them
+    public void purchaseProduct(int amount) throws StockMarketException {
+        if (!tryReserve(amount)) {
             logger.log(Level.SEVERE, "Product - purchaseProduct - Product " + productName + " with id: " + productId
-                    + " out of stock -- thorwing ProductOutOfStockExepction.");
+                    + " has only " + quantity + " units, " + amount
+                    + " requested -- thorwing ProductOutOfStockExepction.");
             throw new ProductOutOfStockExepction("Product is out of stock");
         }
-        quantity--;
         logger.log(Level.FINE, "Product - purchaseProduct - Product " + productName + " with id: " + productId
-                + " had been purchased -- -1 to stock.");
+                + " had been purchased -- -" + amount + " to stock.");
     }
 
-    public synchronized void cancelPurchase() {
-        quantity++;
+    // this function responsible for returning several units of the product to the
+    // stock
+    public void cancelPurchase(int amount) {
+        release(amount);
         logger.log(Level.FINE, "Product - cancelPurchase - Product " + productName + " with id: " + productId
-                + " had been purchased cancel -- +1 to stock.");
+                + " had been purchased cancel -- +" + amount + " to stock.");
     }
 
     // this function add a review to the product
@@ -175,6 +242,13 @@ public class Product implements Cloneable {
 
     public void updateProductQuantity(int newQuantitiy) {
         quantity = newQuantitiy;
+        onChanged();
+    }
+
+    // let the shop know that the product changed, for the cached searches
+    private void onChanged() {
+        if (shop != null)
+            shop.onCatalogChanged();
     }
 
     @Override
@@ -205,6 +279,10 @@ public class Product implements Cloneable {
         return productId;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public Object getId() {
         return productId;
     }
@@ -251,14 +329,18 @@ public class Product implements Cloneable {
 
     public void setProductName(String productName) {
         this.productName = productName;
+        onChanged();
     }
 
     public void setPrice(double price) {
         this.price = price;
+        if (shop != null)
+            shop.onProductPriceChanged(this);
     }
 
     public void setProductQuantity(Integer productQuantity) {
         this.quantity = productQuantity;
+        onChanged();
     }
 
     public void setKeywords(HashSet<String> keywords) {
@@ -275,6 +357,8 @@ public class Product implements Cloneable {
 
     public void setCategory(Category category) {
         this.category = category;
+        if (shop != null)
+            shop.onProductCategoryChanged(this);
     }
 
     public void setProductPolicy(ProductPolicy productPolicy) {
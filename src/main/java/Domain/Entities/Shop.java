@@ -8,6 +8,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,6 +22,7 @@ import Domain.Entities.Alerts.GeneralAlert;
 import Domain.Entities.Alerts.PurchaseFromShopAlert;
 import Domain.Entities.Alerts.ReOpenShopAlert;
 import Domain.Entities.Discounts.Discount;
+import Domain.Entities.Discounts.DiscountPlan;
 import Domain.Entities.Policies.Policy;
 import Domain.Entities.Policies.ProductPolicy;
 import Domain.Entities.Policies.ShopPolicy;
@@ -26,6 +31,12 @@ import Domain.Entities.Rules.Rule;
 import Domain.Entities.Rules.RuleFactory;
 import Domain.Entities.enums.Category;
 import Domain.Entities.enums.Permission;
+import Domain.Indexes.CatalogVersions;
+import Domain.Indexes.ProductCategoryIndex;
+import Domain.Indexes.ProductKeywordIndex;
+import Domain.Indexes.ProductPriceIndex;
+import Domain.Indexes.ShopNameIndex;
+import Domain.Locks.ShopLockRegistry;
 import Domain.Repositories.InterfaceProductRepository;
 import Domain.Repositories.InterfaceRoleRepository;
 import Dtos.DiscountDto;
@@ -41,6 +52,8 @@ import Exceptions.ShopException;
 import Exceptions.ShopPolicyException;
 import Exceptions.StockMarketException;
 import Server.notifications.NotificationHandler;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.OptimisticLock;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -50,15 +63,44 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.MapKeyColumn;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedEntityGraphs;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 
+// The associations of the shop are lazy, every use case loads the shop with
+// the graph of what it reads (see InterfaceShopRepository). Associations that
+// are not in the graph are loaded on access, in batches when iterating shops.
+// The discounts list is a bag, fetching it with the roles would duplicate its
+// rows, so it is always left to the batch loading.
 @Entity
 @Table(name = "[shop]")
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = Shop.GRAPH_SEARCH, attributeNodes = {
+                @NamedAttributeNode("productMap") }),
+        @NamedEntityGraph(name = Shop.GRAPH_MANAGEMENT, attributeNodes = {
+                @NamedAttributeNode("userToRole"),
+                @NamedAttributeNode("shopPolicy") }),
+        @NamedEntityGraph(name = Shop.GRAPH_PURCHASE, attributeNodes = {
+                @NamedAttributeNode("productMap"),
+                @NamedAttributeNode("shopPolicy") }),
+        @NamedEntityGraph(name = Shop.GRAPH_HISTORY, attributeNodes = {
+                @NamedAttributeNode(value = "orderHistory", subgraph = "orderBasket") }, subgraphs = {
+                        @NamedSubgraph(name = "orderBasket", attributeNodes = {
+                                @NamedAttributeNode("shoppingBasket") }) })
+})
 public class Shop {
 
+    public static final String GRAPH_SEARCH = "Shop.search";
+    public static final String GRAPH_MANAGEMENT = "Shop.management";
+    public static final String GRAPH_PURCHASE = "Shop.purchase";
+    public static final String GRAPH_HISTORY = "Shop.history";
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     @Column(name = "_shop_id", nullable = false)
@@ -70,18 +112,27 @@ public class Shop {
     @Column(name = "shopFounder", unique = false, nullable = true)
     private String shopFounder; // Shop founder username
 
-    @OneToMany(mappedBy = "shop", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    // optimistic concurrency between nodes that loaded the same shop
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0 not null")
+    private long version;
+
+    @OneToMany(mappedBy = "shop", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 16)
     private Map<Integer, Product> productMap; // <ProductId, Product>
 
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
-    @JoinColumn(name = "shop_id") // This will be added to the ShopOrder table as a foreign key
-    private List<ShopOrder> orderHistory;
+    // purchases add orders concurrently, they must not bump the version of the shop
+    @OneToMany(mappedBy = "shop", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @OptimisticLock(excluded = true)
+    private List<ShopOrder> orderHistory; // read in pages with InterfaceShopRepository.findPurchaseHistoryPage
 
-    @OneToMany(mappedBy = "shop", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "shop", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 16)
     @MapKeyColumn(name = "username")
     private Map<String, Role> userToRole = new HashMap<>(); // <userName, Role>
 
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 16)
     @JoinColumn(name = "shop_id")
     private List<Discount> discounts;
 
@@ -116,6 +167,37 @@ public class Shop {
     @Transient
     private InterfaceRoleRepository roleRepository;
 
+    @Transient
+    private ProductKeywordIndex _keywordIndex;
+
+    @Transient
+    private ProductPriceIndex _priceIndex;
+
+    @Transient
+    private ProductCategoryIndex _categoryIndex;
+
+    @Transient
+    private ShopNameIndex _nameIndex;
+
+    @Transient
+    private CatalogVersions _catalogVersions;
+
+    @Transient
+    private ShopLockRegistry _lockRegistry;
+
+    // used until the shop has an id and a lock registry
+    @Transient
+    private ReadWriteLock _localLock = new ReentrantReadWriteLock();
+
+    // compiled from the discounts list, rebuilt only when the discounts change
+    @Transient
+    private volatile DiscountPlan _discountPlan;
+
+    // bumped whenever something that affects basket prices changes: the discounts
+    // of the shop or the price / category of one of its products
+    @Transient
+    private final AtomicLong _pricingVersion = new AtomicLong();
+
     // Default constructor
     public Shop() {
         productMap = new HashMap<>(); // Initialize the product map
@@ -198,23 +280,54 @@ public class Shop {
     }
 
     public void closeShop() {
-        isClosed = true;
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            isClosed = true;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public boolean isShopClosed() {
-        return isClosed;
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            return isClosed;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void setProductPrice(int productId, double price) {
-        productMap.get(productId).setPrice(price);
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            productMap.get(productId).setPrice(price);
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void reopenShop() {
-        isClosed = false;
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            isClosed = false;
+        } finally {
+            lock.unlock();
+        }
     }
 
+    // a copy of the products, the map itself is guarded by the shop lock
     public Map<Integer, Product> getAllProducts() {
-        return productMap;
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            return new HashMap<>(productMap);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -225,21 +338,33 @@ public class Shop {
      * @throws StockMarketException
      */
     public boolean checkIfHasRole(String usernameToCheck) throws StockMarketException {
-        logger.log(Level.FINE,
-                "Shop - checkIfHasRole: Checking if user " + usernameToCheck + " has a role in shop with id: "
-                        + shopId);
-        if (usernameToCheck == null) {
-            return false;
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            logger.log(Level.FINE,
+                    "Shop - checkIfHasRole: Checking if user " + usernameToCheck + " has a role in shop with id: "
+                            + shopId);
+            if (usernameToCheck == null) {
+                return false;
+            }
+            return userToRole.containsKey(usernameToCheck);
+        } finally {
+            lock.unlock();
         }
-        return userToRole.containsKey(usernameToCheck);
     }
 
     // get role of the user in the shop
     public Role getRole(String username) throws StockMarketException {
-        if (!checkIfHasRole(username)) {
-            throw new ShopException("User " + username + " doesn't have a role in this shop with id " + shopId);
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            if (!checkIfHasRole(username)) {
+                throw new ShopException("User " + username + " doesn't have a role in this shop with id " + shopId);
+            }
+            return userToRole.get(username);
+        } finally {
+            lock.unlock();
         }
-        return userToRole.get(username);
     }
 
     /**
@@ -250,17 +375,23 @@ public class Shop {
      * @throws StockMarketException
      */
     public Map<String, Role> getUserToRoleMap(String username, boolean subordinates) throws StockMarketException {
-        logger.log(Level.INFO,
-                "Shop - getUserToRoleMap: " + username + " trying get all roles info from the shop with id " + shopId);
-        if (!checkPermission(username, Permission.GET_ROLES_INFO)) {
-            logger.log(Level.SEVERE, "Shop - getUserToRoleMap: user " + username
-                    + " doesn't have permission to get roles info in shop with id " + shopId);
-            throw new PermissionException(
-                    "User " + username + " doesn't have permission to get roles info in shop with id " + shopId);
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            logger.log(Level.INFO,
+                    "Shop - getUserToRoleMap: " + username + " trying get all roles info from the shop with id " + shopId);
+            if (!checkPermission(username, Permission.GET_ROLES_INFO)) {
+                logger.log(Level.SEVERE, "Shop - getUserToRoleMap: user " + username
+                        + " doesn't have permission to get roles info in shop with id " + shopId);
+                throw new PermissionException(
+                        "User " + username + " doesn't have permission to get roles info in shop with id " + shopId);
+            }
+            logger.log(Level.INFO, "Shop - getUserToRoleMap: " + username
+                    + " successfuly got all roles info from the shop with id " + shopId);
+            return new HashMap<>(userToRole);
+        } finally {
+            lock.unlock();
         }
-        logger.log(Level.INFO, "Shop - getUserToRoleMap: " + username
-                + " successfuly got all roles info from the shop with id " + shopId);
-        return userToRole;
     }
 
     /**
@@ -272,42 +403,54 @@ public class Shop {
      * @throws StockMarketException if the user doesn't have a role in the shop.
      */
     public boolean checkPermission(String username, Permission p) throws StockMarketException {
-        logger.log(Level.FINE, "Shop - checkPermission: Checking if user " + username + " has permission: " + p);
-        if (!checkIfHasRole(username)) {
-            logger.log(Level.SEVERE,
-                    "Shop - checkPermission: user " + username + " doesn't have a role in the shop with id " + shopId);
-            return false;
-        }
-        Role role = userToRole.get(username);
-        if (!isOwnerOrFounder(role) && !role.hasPermission(p)) {
-            return false;
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            logger.log(Level.FINE, "Shop - checkPermission: Checking if user " + username + " has permission: " + p);
+            if (!checkIfHasRole(username)) {
+                logger.log(Level.SEVERE,
+                        "Shop - checkPermission: user " + username + " doesn't have a role in the shop with id " + shopId);
+                return false;
+            }
+            Role role = userToRole.get(username);
+            if (!isOwnerOrFounder(role) && !role.hasPermission(p)) {
+                return false;
+            }
+            return true;
+        } finally {
+            lock.unlock();
         }
-        return true;
     }
 
     public Map<Integer, Discount> getDiscountsOfProduct(int productId) throws StockMarketException {
-        // check if the product exists
-        if (!productMap.containsKey(productId)) {
-            logger.log(Level.SEVERE,
-                    "Shop - getDiscountsOfProduct: Error while trying to get discounts of product with id: "
-                            + productId + " from shop with id " + shopId);
-            throw new ProductDoesNotExistsException("Product with ID " + productId + " does not exist.");
-        }
-
-        Map<Integer, Discount> productDiscounts = new HashMap<>();
-        for (Discount discout : discounts) {
-            if (new Date().after(discout.getExpirationDate())) {
-                removeDiscount(discout.getDiscountId());
-            } else {
-                int participating_product_id = discout.getParticipatingProduct();
-                Product product = productMap.get(productId);
-                if (productId == participating_product_id
-                        || (participating_product_id == -1 && discout.specialPredicate(product))) {
-                    productDiscounts.put(discout.getDiscountId(), discout);
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            // check if the product exists
+            if (!productMap.containsKey(productId)) {
+                logger.log(Level.SEVERE,
+                        "Shop - getDiscountsOfProduct: Error while trying to get discounts of product with id: "
+                                + productId + " from shop with id " + shopId);
+                throw new ProductDoesNotExistsException("Product with ID " + productId + " does not exist.");
+            }
+
+            // expired discounts are skipped here, applyDiscounts removes them under the
+            // write lock
+            Map<Integer, Discount> productDiscounts = new HashMap<>();
+            for (Discount discout : discounts) {
+                if (!new Date().after(discout.getExpirationDate())) {
+                    int participating_product_id = discout.getParticipatingProduct();
+                    Product product = productMap.get(productId);
+                    if (productId == participating_product_id
+                            || (participating_product_id == -1 && discout.specialPredicate(product))) {
+                        productDiscounts.put(discout.getDiscountId(), discout);
+                    }
                 }
             }
+            return productDiscounts;
+        } finally {
+            lock.unlock();
         }
-        return productDiscounts;
     }
 
     /**
@@ -319,18 +462,24 @@ public class Shop {
      * @throws StockMarketException
      */
     public boolean checkAtLeastOnePermission(String username, Set<Permission> permissions) throws StockMarketException {
-        logger.log(Level.FINE, "Shop - checkAtLeastOnePermission: Checking if user " + username
-                + " has at least one permission from the set: " + permissions);
-        if (!checkIfHasRole(username)) {
-            logger.log(Level.SEVERE, "Shop - checkAtLeastOnePermission: user " + username
-                    + " doesn't have a role in the shop with id " + shopId);
-            throw new ShopException("User " + username + " doesn't have a role in this shop with id " + shopId);
-        }
-        Role role = userToRole.get(username);
-        if (!isOwnerOrFounder(role) && !role.hasAtLeastOnePermission(permissions)) {
-            return false;
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            logger.log(Level.FINE, "Shop - checkAtLeastOnePermission: Checking if user " + username
+                    + " has at least one permission from the set: " + permissions);
+            if (!checkIfHasRole(username)) {
+                logger.log(Level.SEVERE, "Shop - checkAtLeastOnePermission: user " + username
+                        + " doesn't have a role in the shop with id " + shopId);
+                throw new ShopException("User " + username + " doesn't have a role in this shop with id " + shopId);
+            }
+            Role role = userToRole.get(username);
+            if (!isOwnerOrFounder(role) && !role.hasAtLeastOnePermission(permissions)) {
+                return false;
+            }
+            return true;
+        } finally {
+            lock.unlock();
         }
-        return true;
     }
 
     /**
@@ -342,22 +491,34 @@ public class Shop {
      * @throws StockMarketException
      */
     public boolean checkAllPermission(String username, Set<Permission> permissions) throws StockMarketException {
-        logger.log(Level.FINE, "Shop - checkAllPermission: Checking if user " + username
-                + " has all permissions from the set: " + permissions);
-        if (!checkIfHasRole(username)) {
-            logger.log(Level.SEVERE, "Shop - checkAllPermission: user " + username
-                    + " doesn't have a role in the shop with id " + shopId);
-            throw new ShopException("User " + username + " doesn't have a role in this shop with id " + shopId);
-        }
-        Role role = userToRole.get(username);
-        if (!isOwnerOrFounder(role) && !role.hasAllPermissions(permissions)) {
-            return false;
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            logger.log(Level.FINE, "Shop - checkAllPermission: Checking if user " + username
+                    + " has all permissions from the set: " + permissions);
+            if (!checkIfHasRole(username)) {
+                logger.log(Level.SEVERE, "Shop - checkAllPermission: user " + username
+                        + " doesn't have a role in the shop with id " + shopId);
+                throw new ShopException("User " + username + " doesn't have a role in this shop with id " + shopId);
+            }
+            Role role = userToRole.get(username);
+            if (!isOwnerOrFounder(role) && !role.hasAllPermissions(permissions)) {
+                return false;
+            }
+            return true;
+        } finally {
+            lock.unlock();
         }
-        return true;
     }
 
     public double getProductPriceById(int product) {
-        return productMap.get(product).getPrice();
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            return productMap.get(product).getPrice();
+        } finally {
+            lock.unlock();
+        }
     }
 
     public boolean isOwnerOrFounder(Role role) {
@@ -376,45 +537,51 @@ public class Shop {
      */
     public void AppointManager(String username, String newManagerUserName, Set<Permission> permissions)
             throws StockMarketException {
-        logger.log(Level.INFO, "Shop - AppointManager: " + username + " trying to appoint " + newManagerUserName
-                + " as a new manager with permissions: " + permissions);
-        if (!checkAtLeastOnePermission(username,
-                EnumSet.of(Permission.FOUNDER, Permission.OWNER, Permission.APPOINT_MANAGER))) {
-            logger.log(Level.SEVERE, "Shop - AppointManager: user " + username
-                    + " doesn't have permission to add new manager to shop with id " + shopId);
-            throw new PermissionException(
-                    "User " + username + " doesn't have permission to add new manager to shop with id " + shopId);
-        }
-        if (checkIfHasRole(newManagerUserName)) {
-            logger.log(Level.SEVERE,
-                    "Shop - AppointManager: user " + newManagerUserName + " already in shop with id " + shopId);
-            throw new ShopException("User " + newManagerUserName + " already in shop with id " + shopId);
-        }
-        if (permissions.isEmpty()) {
-            logger.log(Level.SEVERE, "Shop - AppointManager: Error while appointing a new manager with 0 permissions.");
-            throw new PermissionException("Cannot create a manager with 0 permissions.");
-        }
-        if (permissions.contains(Permission.OWNER) || permissions.contains(Permission.FOUNDER)) {
-            logger.log(Level.SEVERE,
-                    "Shop - AppointManager: Error while appointing a new manager with founder of owner permissions.");
-            throw new PermissionException("Cannot appoint manager with owner or founder permissions.");
-        }
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            logger.log(Level.INFO, "Shop - AppointManager: " + username + " trying to appoint " + newManagerUserName
+                    + " as a new manager with permissions: " + permissions);
+            if (!checkAtLeastOnePermission(username,
+                    EnumSet.of(Permission.FOUNDER, Permission.OWNER, Permission.APPOINT_MANAGER))) {
+                logger.log(Level.SEVERE, "Shop - AppointManager: user " + username
+                        + " doesn't have permission to add new manager to shop with id " + shopId);
+                throw new PermissionException(
+                        "User " + username + " doesn't have permission to add new manager to shop with id " + shopId);
+            }
+            if (checkIfHasRole(newManagerUserName)) {
+                logger.log(Level.SEVERE,
+                        "Shop - AppointManager: user " + newManagerUserName + " already in shop with id " + shopId);
+                throw new ShopException("User " + newManagerUserName + " already in shop with id " + shopId);
+            }
+            if (permissions.isEmpty()) {
+                logger.log(Level.SEVERE, "Shop - AppointManager: Error while appointing a new manager with 0 permissions.");
+                throw new PermissionException("Cannot create a manager with 0 permissions.");
+            }
+            if (permissions.contains(Permission.OWNER) || permissions.contains(Permission.FOUNDER)) {
+                logger.log(Level.SEVERE,
+                        "Shop - AppointManager: Error while appointing a new manager with founder of owner permissions.");
+                throw new PermissionException("Cannot appoint manager with owner or founder permissions.");
+            }
 
-        if (isShopClosed())
-            throw new StockMarketException("Shop is closed, cannot appoint new manager.");
-        // All constraints checked
-        Role appointer = userToRole.get(username);
-        // Here we make sure that a manager doesn't give permissions that he doesn't
-        // have to his assignee.
-        if (!isOwnerOrFounder(appointer)) {
-            permissions.retainAll(appointer.getPermissions());
-        }
-        Role manager = new Role(newManagerUserName, this, username, permissions);
+            if (isShopClosed())
+                throw new StockMarketException("Shop is closed, cannot appoint new manager.");
+            // All constraints checked
+            Role appointer = userToRole.get(username);
+            // Here we make sure that a manager doesn't give permissions that he doesn't
+            // have to his assignee.
+            if (!isOwnerOrFounder(appointer)) {
+                permissions.retainAll(appointer.getPermissions());
+            }
+            Role manager = new Role(newManagerUserName, this, username, permissions);
 
-        userToRole.putIfAbsent(newManagerUserName, manager);
-        appointer.addAppointment(newManagerUserName);
-        logger.log(Level.INFO, "Shop - AppointManager: " + username + " successfully appointed " + newManagerUserName
-                + " as a new manager with permissions: " + permissions + "in the shop with id " + shopId);
+            userToRole.putIfAbsent(newManagerUserName, manager);
+            appointer.addAppointment(newManagerUserName);
+            logger.log(Level.INFO, "Shop - AppointManager: " + username + " successfully appointed " + newManagerUserName
+                    + " as a new manager with permissions: " + permissions + "in the shop with id " + shopId);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -429,29 +596,35 @@ public class Shop {
      */
     public void AppointOwner(String username, String newOwnerUserName)
             throws ShopException, PermissionException, RoleException, StockMarketException {
-        logger.log(Level.INFO,
-                "Shop - AppointOwner: " + username + " trying to appoint " + newOwnerUserName + " as a new owner.");
-        if (!checkAtLeastOnePermission(username, EnumSet.of(Permission.FOUNDER, Permission.OWNER))) {
-            logger.log(Level.SEVERE, "Shop - AppointOwner: user " + username
-                    + " doesn't have permission to add new owner to shop with id " + shopId);
-            throw new PermissionException(
-                    "User " + username + " doesn't have permission to add new owner to shop with id " + shopId);
-        }
-        if (checkIfHasRole(newOwnerUserName)) {
-            logger.log(Level.SEVERE,
-                    "Shop - AppointOwner: user " + newOwnerUserName + " already in shop with id " + shopId);
-            throw new ShopException("User " + newOwnerUserName + " already in shop with id " + shopId);
-        }
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            logger.log(Level.INFO,
+                    "Shop - AppointOwner: " + username + " trying to appoint " + newOwnerUserName + " as a new owner.");
+            if (!checkAtLeastOnePermission(username, EnumSet.of(Permission.FOUNDER, Permission.OWNER))) {
+                logger.log(Level.SEVERE, "Shop - AppointOwner: user " + username
+                        + " doesn't have permission to add new owner to shop with id " + shopId);
+                throw new PermissionException(
+                        "User " + username + " doesn't have permission to add new owner to shop with id " + shopId);
+            }
+            if (checkIfHasRole(newOwnerUserName)) {
+                logger.log(Level.SEVERE,
+                        "Shop - AppointOwner: user " + newOwnerUserName + " already in shop with id " + shopId);
+                throw new ShopException("User " + newOwnerUserName + " already in shop with id " + shopId);
+            }
 
-        if (isShopClosed())
-            throw new StockMarketException("Shop is closed, cannot appoint new owner.");
-        // All constraints checked
-        Role appointer = userToRole.get(username);
-        Role owner = new Role(newOwnerUserName, this, username, EnumSet.of(Permission.OWNER));
-        userToRole.putIfAbsent(newOwnerUserName, owner);
-        appointer.addAppointment(newOwnerUserName);
-        logger.log(Level.INFO, "Shop - AppointOwner: " + username + " successfully appointed " + newOwnerUserName
-                + " as a new owner in the shop with id " + shopId);
+            if (isShopClosed())
+                throw new StockMarketException("Shop is closed, cannot appoint new owner.");
+            // All constraints checked
+            Role appointer = userToRole.get(username);
+            Role owner = new Role(newOwnerUserName, this, username, EnumSet.of(Permission.OWNER));
+            userToRole.putIfAbsent(newOwnerUserName, owner);
+            appointer.addAppointment(newOwnerUserName);
+            logger.log(Level.INFO, "Shop - AppointOwner: " + username + " successfully appointed " + newOwnerUserName
+                    + " as a new owner in the shop with id " + shopId);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -466,54 +639,60 @@ public class Shop {
      */
     public void modifyPermissions(String username, String userRole, Set<Permission> permissions)
             throws StockMarketException {
-        logger.log(Level.INFO, "Shop - modifyPermissions: " + username + " trying to add permissions " + permissions
-                + " to user " + userRole + " in the shop with id " + shopId);
-        if (isShopClosed())
-            throw new StockMarketException("Shop is closed, cannot add permissions.");
-        if (!checkIfHasRole(username)) {
-            logger.log(Level.SEVERE,
-                    "Shop - modifyPermissions: user " + username + " doesn't have a role in shop with id " + shopId);
-            throw new ShopException("User " + username + " doesn't have a role in this shop with id " + shopId);
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            logger.log(Level.INFO, "Shop - modifyPermissions: " + username + " trying to add permissions " + permissions
+                    + " to user " + userRole + " in the shop with id " + shopId);
+            if (isShopClosed())
+                throw new StockMarketException("Shop is closed, cannot add permissions.");
+            if (!checkIfHasRole(username)) {
+                logger.log(Level.SEVERE,
+                        "Shop - modifyPermissions: user " + username + " doesn't have a role in shop with id " + shopId);
+                throw new ShopException("User " + username + " doesn't have a role in this shop with id " + shopId);
+            }
+            if (!checkIfHasRole(userRole)) {
+                logger.log(Level.SEVERE,
+                        "Shop - modifyPermissions: user " + userRole + " doesn't have a role in shop with id " + shopId);
+                throw new ShopException("User " + userRole + " doesn't have a role in this shop with id " + shopId);
+            }
+            if (!checkAtLeastOnePermission(username,
+                    EnumSet.of(Permission.FOUNDER, Permission.OWNER, Permission.CHANGE_PERMISSION))) {
+                logger.log(Level.SEVERE, "Shop - modifyPermissions: user " + username
+                        + " doesn't have permission to modify permissions to other roles in shop with id " + shopId);
+                throw new PermissionException("User " + username
+                        + " doesn't have permission to change permissions in the shop with id " + shopId);
+            }
+            if (permissions.isEmpty()) {
+                logger.log(Level.SEVERE, "Shop - modifyPermissions: user " + username
+                        + " cannot remove all permission from " + userRole + " in shop with id " + shopId);
+                throw new PermissionException("User " + username +
+                        " cannot remove all permission from " + userRole + " in shop with id " + shopId);
+            }
+            Role appointer = userToRole.get(username);
+            // Here we make sure that a manager doesn't give permissions that he doesn't
+            // have to his assignee.
+            if (!isOwnerOrFounder(appointer)) {
+                permissions.retainAll(appointer.getPermissions());
+            }
+            Role manager = userToRole.get(userRole);
+            if (!manager.getAppointedBy().equals(username)) {
+                logger.log(Level.SEVERE,
+                        "Shop - modifyPermissions: User " + username + " didn't appoint manager " + userRole
+                                + ". Can't change his permissions.");
+                throw new PermissionException(
+                        "User " + username + " didn't appoint manager " + userRole + ". Can't change his permissions.");
+            }
+            // All constraints checked
+            manager.modifyPermissions(username, permissions);
+            notifyModifiedPermissions(username, userRole, permissions, getShopId());
+            logger.log(Level.INFO,
+                    "Shop - modifyPermissions: " + username + " successfuly modified permissions. Now the permission are: "
+                            + permissions
+                            + " to user " + userRole + " in the shop with id " + shopId);
+        } finally {
+            lock.unlock();
         }
-        if (!checkIfHasRole(userRole)) {
-            logger.log(Level.SEVERE,
-                    "Shop - modifyPermissions: user " + userRole + " doesn't have a role in shop with id " + shopId);
-            throw new ShopException("User " + userRole + " doesn't have a role in this shop with id " + shopId);
-        }
-        if (!checkAtLeastOnePermission(username,
-                EnumSet.of(Permission.FOUNDER, Permission.OWNER, Permission.CHANGE_PERMISSION))) {
-            logger.log(Level.SEVERE, "Shop - modifyPermissions: user " + username
-                    + " doesn't have permission to modify permissions to other roles in shop with id " + shopId);
-            throw new PermissionException("User " + username
-                    + " doesn't have permission to change permissions in the shop with id " + shopId);
-        }
-        if (permissions.isEmpty()) {
-            logger.log(Level.SEVERE, "Shop - modifyPermissions: user " + username
-                    + " cannot remove all permission from " + userRole + " in shop with id " + shopId);
-            throw new PermissionException("User " + username +
-                    " cannot remove all permission from " + userRole + " in shop with id " + shopId);
-        }
-        Role appointer = userToRole.get(username);
-        // Here we make sure that a manager doesn't give permissions that he doesn't
-        // have to his assignee.
-        if (!isOwnerOrFounder(appointer)) {
-            permissions.retainAll(appointer.getPermissions());
-        }
-        Role manager = userToRole.get(userRole);
-        if (!manager.getAppointedBy().equals(username)) {
-            logger.log(Level.SEVERE,
-                    "Shop - modifyPermissions: User " + username + " didn't appoint manager " + userRole
-                            + ". Can't change his permissions.");
-            throw new PermissionException(
-                    "User " + username + " didn't appoint manager " + userRole + ". Can't change his permissions.");
-        }
-        // All constraints checked
-        manager.modifyPermissions(username, permissions);
-        notifyModifiedPermissions(username, userRole, permissions, getShopId());
-        logger.log(Level.INFO,
-                "Shop - modifyPermissions: " + username + " successfuly modified permissions. Now the permission are: "
-                        + permissions
-                        + " to user " + userRole + " in the shop with id " + shopId);
     }
 
     /**
@@ -525,41 +704,47 @@ public class Shop {
      * @implNote Founder can fire anyone.
      */
     public Set<String> fireRole(String username, String managerUserName) throws StockMarketException {
-        logger.log(Level.INFO, "Shop - fireRole: " + username + " trying to fire user " + managerUserName
-                + " from the shop with id " + shopId);
-        if (isShopClosed())
-            throw new StockMarketException("Shop is closed, cannot fire roles.");
-        if (!checkIfHasRole(username)) {
-            logger.log(Level.SEVERE,
-                    "Shop - fireRole: user " + username + " doesn't have a role in shop with id " + shopId);
-            throw new ShopException("User " + username + " doesn't have a role in this shop with id " + shopId);
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            logger.log(Level.INFO, "Shop - fireRole: " + username + " trying to fire user " + managerUserName
+                    + " from the shop with id " + shopId);
+            if (isShopClosed())
+                throw new StockMarketException("Shop is closed, cannot fire roles.");
+            if (!checkIfHasRole(username)) {
+                logger.log(Level.SEVERE,
+                        "Shop - fireRole: user " + username + " doesn't have a role in shop with id " + shopId);
+                throw new ShopException("User " + username + " doesn't have a role in this shop with id " + shopId);
+            }
+            if (!checkIfHasRole(managerUserName)) {
+                logger.log(Level.SEVERE,
+                        "Shop - fireRole: user " + managerUserName + " doesn't have a role in shop with id " + shopId);
+                throw new ShopException("User " + managerUserName + " doesn't have a role in this shop with id " + shopId);
+            }
+            if (!checkAtLeastOnePermission(username, EnumSet.of(Permission.FOUNDER, Permission.OWNER))) {
+                logger.log(Level.SEVERE, "Shop - fireRole: user " + username
+                        + " doesn't have permission to fire users from shop with id " + shopId);
+                throw new PermissionException(
+                        "User " + username + " doesn't have permission to fire people in the shop with id " + shopId);
+            }
+            Role manager = userToRole.get(managerUserName);
+            if (!manager.getAppointedBy().equals(username)) {
+                logger.log(Level.SEVERE, "Shop - fireRole: User " + username + " didn't appoint manager " + managerUserName
+                        + ". Can't fire him.");
+                throw new PermissionException(
+                        "User " + username + " didn't appoint role " + managerUserName + ". Can't fire him.");
+            }
+            // All constraints checked
+            Set<String> appointed = getAllAppointed(managerUserName);
+            for (String user : appointed) {
+                userToRole.remove(user);
+            }
+            logger.log(Level.INFO, "Shop - fireRole: " + username + " successfuly fired " + managerUserName
+                    + " and all the users he appointed:" + appointed.remove(username) + "from the shop with id " + shopId);
+            return appointed;
+        } finally {
+            lock.unlock();
         }
-        if (!checkIfHasRole(managerUserName)) {
-            logger.log(Level.SEVERE,
-                    "Shop - fireRole: user " + managerUserName + " doesn't have a role in shop with id " + shopId);
-            throw new ShopException("User " + managerUserName + " doesn't have a role in this shop with id " + shopId);
-        }
-        if (!checkAtLeastOnePermission(username, EnumSet.of(Permission.FOUNDER, Permission.OWNER))) {
-            logger.log(Level.SEVERE, "Shop - fireRole: user " + username
-                    + " doesn't have permission to fire users from shop with id " + shopId);
-            throw new PermissionException(
-                    "User " + username + " doesn't have permission to fire people in the shop with id " + shopId);
-        }
-        Role manager = userToRole.get(managerUserName);
-        if (!manager.getAppointedBy().equals(username)) {
-            logger.log(Level.SEVERE, "Shop - fireRole: User " + username + " didn't appoint manager " + managerUserName
-                    + ". Can't fire him.");
-            throw new PermissionException(
-                    "User " + username + " didn't appoint role " + managerUserName + ". Can't fire him.");
-        }
-        // All constraints checked
-        Set<String> appointed = getAllAppointed(managerUserName);
-        for (String user : appointed) {
-            userToRole.remove(user);
-        }
-        logger.log(Level.INFO, "Shop - fireRole: " + username + " successfuly fired " + managerUserName
-                + " and all the users he appointed:" + appointed.remove(username) + "from the shop with id " + shopId);
-        return appointed;
     }
 
     /**
@@ -569,26 +754,32 @@ public class Shop {
      * @throws StockMarketException
      */
     public Set<String> resign(String username) throws StockMarketException {
-        logger.log(Level.INFO, "Shop - resign: " + username + " trying to resign from the shop with id " + shopId);
-        if (isShopClosed())
-            throw new StockMarketException("Shop is closed, cannot resign.");
-        if (!checkIfHasRole(username)) {
-            logger.log(Level.SEVERE,
-                    "Shop - resign: user " + username + " doesn't have a role in shop with id " + shopId);
-            throw new ShopException("User " + username + " doesn't have a role in this shop with id " + shopId);
-        }
-        if (username.equals(shopFounder)) {
-            logger.log(Level.SEVERE, "Shop - resign: user " + username
-                    + " is the founder and cannot resign from his shop with id " + shopId);
-            throw new ShopException("Founder cannot resign from his shop.");
-        }
-        Set<String> appointed = getAllAppointed(username);
-        for (String user : appointed) {
-            userToRole.remove(user);
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            logger.log(Level.INFO, "Shop - resign: " + username + " trying to resign from the shop with id " + shopId);
+            if (isShopClosed())
+                throw new StockMarketException("Shop is closed, cannot resign.");
+            if (!checkIfHasRole(username)) {
+                logger.log(Level.SEVERE,
+                        "Shop - resign: user " + username + " doesn't have a role in shop with id " + shopId);
+                throw new ShopException("User " + username + " doesn't have a role in this shop with id " + shopId);
+            }
+            if (username.equals(shopFounder)) {
+                logger.log(Level.SEVERE, "Shop - resign: user " + username
+                        + " is the founder and cannot resign from his shop with id " + shopId);
+                throw new ShopException("Founder cannot resign from his shop.");
+            }
+            Set<String> appointed = getAllAppointed(username);
+            for (String user : appointed) {
+                userToRole.remove(user);
+            }
+            logger.log(Level.INFO, "Shop - resign: " + username + " successfuly resigned with all the users he appointed:"
+                    + appointed.remove(username) + "from the shop with id " + shopId);
+            return appointed;
+        } finally {
+            lock.unlock();
         }
-        logger.log(Level.INFO, "Shop - resign: " + username + " successfuly resigned with all the users he appointed:"
-                + appointed.remove(username) + "from the shop with id " + shopId);
-        return appointed;
     }
 
     /**
@@ -630,37 +821,50 @@ public class Shop {
     }
 
     public String getRolesInfo(String username) throws StockMarketException {
-        logger.log(Level.INFO,
-                "Shop - getRolesInfo: " + username + " trying get all roles info from the shop with id " + shopId);
-        if (!checkPermission(username, Permission.GET_ROLES_INFO)) {
-            logger.log(Level.SEVERE, "Shop - getRolesInfo: user " + username
-                    + " doesn't have permission to get roles info in shop with id " + shopId);
-            throw new PermissionException(
-                    "User " + username + " doesn't have permission to get roles info in shop with id " + shopId);
-        }
-        StringBuilder sb = new StringBuilder();
-        sb.append("SHOP " + shopId + " ROLES:\n");
-        for (Map.Entry<String, Role> entry : userToRole.entrySet()) {
-            sb.append(
-                    "Username: " + entry.getKey() + " | ROLES:" + entry.getValue().getPermissions().toString() + "\n");
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            logger.log(Level.INFO,
+                    "Shop - getRolesInfo: " + username + " trying get all roles info from the shop with id " + shopId);
+            if (!checkPermission(username, Permission.GET_ROLES_INFO)) {
+                logger.log(Level.SEVERE, "Shop - getRolesInfo: user " + username
+                        + " doesn't have permission to get roles info in shop with id " + shopId);
+                throw new PermissionException(
+                        "User " + username + " doesn't have permission to get roles info in shop with id " + shopId);
+            }
+            StringBuilder sb = new StringBuilder();
+            sb.append("SHOP " + shopId + " ROLES:\n");
+            for (Map.Entry<String, Role> entry : userToRole.entrySet()) {
+                sb.append(
+                        "Username: " + entry.getKey() + " | ROLES:" + entry.getValue().getPermissions().toString() + "\n");
+            }
+            logger.log(Level.INFO, "Shop - getRolesInfo: " + username
+                    + " successfuly got all roles info from the shop with id " + shopId);
+            return sb.toString();
+        } finally {
+            lock.unlock();
         }
-        logger.log(Level.INFO, "Shop - getRolesInfo: " + username
-                + " successfuly got all roles info from the shop with id " + shopId);
-        return sb.toString();
     }
 
     public void addShopRating(Integer rating) throws StockMarketException {
-        // limit the rating to 1-5
-        if (rating < 1 || rating > 5) {
-            throw new StockMarketException("Rating must be between 1-5.");
-        }
-        Double newRating = Double.valueOf(rating);
-        if (shopRating == -1.0) {
-            shopRating = newRating;
-        } else {
-            shopRating = ((shopRating * shopRatersCounter) + newRating) / (shopRatersCounter + 1);
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            // limit the rating to 1-5
+            if (rating < 1 || rating > 5) {
+                throw new StockMarketException("Rating must be between 1-5.");
+            }
+            Double newRating = Double.valueOf(rating);
+            if (shopRating == -1.0) {
+                shopRating = newRating;
+            } else {
+                shopRating = ((shopRating * shopRatersCounter) + newRating) / (shopRatersCounter + 1);
+            }
+            shopRatersCounter++;
+            onCatalogChanged();
+        } finally {
+            lock.unlock();
         }
-        shopRatersCounter++;
     }
 
     /**
@@ -671,37 +875,49 @@ public class Shop {
      * @throws StockMarketException
      */
     public void addProductToShop(String username, Product product) throws StockMarketException {
-        // print logs to inform about the action
-        logger.log(Level.INFO, "Shop - addProductToShop: " + username + " trying add product "
-                + product.getProductName() + " in the shop with id " + shopId);
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            // print logs to inform about the action
+            logger.log(Level.INFO, "Shop - addProductToShop: " + username + " trying add product "
+                    + product.getProductName() + " in the shop with id " + shopId);
+
+            // check if shop is closed
+            if (isShopClosed())
+                throw new StockMarketException("Shop is closed, cannot add product.");
+
+            // check if user has permission to add product
+            if (!checkPermission(username, Permission.ADD_PRODUCT)) {
+                logger.log(Level.SEVERE, "Shop - addProductToShop: user " + username
+                        + " doesn't have permission to add products in shop with id " + shopId);
+                throw new PermissionException(
+                        "User " + username + " doesn't have permission to add product in shop with id " + shopId);
+            }
 
-        // check if shop is closed
-        if (isShopClosed())
-            throw new StockMarketException("Shop is closed, cannot add product.");
+            // check if product already exists
+            if (productMap.containsKey(product.getProductId())) {
+                logger.log(Level.SEVERE, "Shop - addProductToShop: Error while trying to add product with id: "
+                        + product.getProductId() + " to shop with id " + shopId);
+                throw new ProductAlreadyExistsException("Product with ID " +
+                        product.getProductId() + " already exists.");
+            }
 
-        // check if user has permission to add product
-        if (!checkPermission(username, Permission.ADD_PRODUCT)) {
-            logger.log(Level.SEVERE, "Shop - addProductToShop: user " + username
-                    + " doesn't have permission to add products in shop with id " + shopId);
-            throw new PermissionException(
-                    "User " + username + " doesn't have permission to add product in shop with id " + shopId);
-        }
+            // All constraints checked - add product to the shop
+            productMap.put(product.getProductId(), product);
+            if (_keywordIndex != null)
+                _keywordIndex.indexProduct(shopId, product);
+            if (_priceIndex != null)
+                _priceIndex.indexProduct(shopId, product);
+            if (_categoryIndex != null)
+                _categoryIndex.indexProduct(shopId, product);
+            onCatalogChanged();
 
-        // check if product already exists
-        if (productMap.containsKey(product.getProductId())) {
-            logger.log(Level.SEVERE, "Shop - addProductToShop: Error while trying to add product with id: "
-                    + product.getProductId() + " to shop with id " + shopId);
-            throw new ProductAlreadyExistsException("Product with ID " +
-                    product.getProductId() + " already exists.");
+            // print logs to inform about the action
+            logger.log(Level.INFO, "Shop - addProductToShop: " + username + " successfully added product "
+                    + product.getProductName() + " in the shop with id " + shopId);
+        } finally {
+            lock.unlock();
         }
-
-        // All constraints checked - add product to the shop
-        productMap.put(product.getProductId(), product);
-        productMap.put(product.getProductId(), product);
-
-        // print logs to inform about the action
-        logger.log(Level.INFO, "Shop - addProductToShop: " + username + " successfully added product "
-                + product.getProductName() + " in the shop with id " + shopId);
     }
 
     /**
@@ -711,47 +927,60 @@ public class Shop {
      * @param _productName the product name we want to remove
      * @throws StockMarketException
      */
-    public synchronized void removeProductFromShop(String userName, String _productName,
+    public void removeProductFromShop(String userName, String _productName,
             InterfaceProductRepository productRepository) throws StockMarketException {
-        // print logs to inform about the action
-        logger.log(Level.INFO, "Shop - removeProductFromShop: " + userName + " trying get remove product "
-                + _productName + " in the shop with id " + shopId);
-
-        // check if shop is closed
-        if (isShopClosed())
-            throw new StockMarketException("Shop is closed, cannot remove product.");
-
-        // check if user has permission to remove product, or the user is the founder or
-        // the owner (dont need specific permission to remove products)
-        if (!checkPermission(userName, Permission.DELETE_PRODUCT) && !checkPermission(userName, Permission.FOUNDER)
-                && !checkPermission(userName, Permission.OWNER)) {
-            logger.log(Level.SEVERE, "Shop - removeProductFromShop: user " + userName
-                    + " doesn't have permission to remove products in shop with id " + shopId);
-            throw new PermissionException(
-                    "User " + userName + " doesn't have permission to remove product in shop with id " + shopId);
-        }
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            // print logs to inform about the action
+            logger.log(Level.INFO, "Shop - removeProductFromShop: " + userName + " trying get remove product "
+                    + _productName + " in the shop with id " + shopId);
+
+            // check if shop is closed
+            if (isShopClosed())
+                throw new StockMarketException("Shop is closed, cannot remove product.");
+
+            // check if user has permission to remove product, or the user is the founder or
+            // the owner (dont need specific permission to remove products)
+            if (!checkPermission(userName, Permission.DELETE_PRODUCT) && !checkPermission(userName, Permission.FOUNDER)
+                    && !checkPermission(userName, Permission.OWNER)) {
+                logger.log(Level.SEVERE, "Shop - removeProductFromShop: user " + userName
+                        + " doesn't have permission to remove products in shop with id " + shopId);
+                throw new PermissionException(
+                        "User " + userName + " doesn't have permission to remove product in shop with id " + shopId);
+            }
 
-        // check if product exists
-        Product product = null;
-        for (Product p : productMap.values()) {
-            if (p.getProductName().equals(_productName)) {
-                product = p;
-                break;
+            // check if product exists
+            Product product = null;
+            for (Product p : productMap.values()) {
+                if (p.getProductName().equals(_productName)) {
+                    product = p;
+                    break;
+                }
+            }
+            if (product == null) {
+                logger.log(Level.SEVERE, "Shop - removeProductFromShop: Error while trying to remove product with name: "
+                        + _productName + " from shop with id " + shopId);
+                throw new ProductDoesNotExistsException("Product with name " + _productName + " does not exist.");
             }
-        }
-        if (product == null) {
-            logger.log(Level.SEVERE, "Shop - removeProductFromShop: Error while trying to remove product with name: "
-                    + _productName + " from shop with id " + shopId);
-            throw new ProductDoesNotExistsException("Product with name " + _productName + " does not exist.");
-        }
 
-        // All constraints checked - remove product from the shop
-        productMap.remove(product.getProductId());
-        productRepository.delete(product);
+            // All constraints checked - remove product from the shop
+            productMap.remove(product.getProductId());
+            productRepository.delete(product);
+            if (_keywordIndex != null)
+                _keywordIndex.removeProduct(shopId, product.getProductId());
+            if (_priceIndex != null)
+                _priceIndex.removeProduct(shopId, product.getProductId());
+            if (_categoryIndex != null)
+                _categoryIndex.removeProduct(shopId, product.getProductId());
+            onCatalogChanged();
 
-        // print logs to inform about the action
-        logger.log(Level.INFO, "Shop - removeProductFromShop: " + userName + " successfully removed product "
-                + _productName + " in the shop with id " + shopId);
+            // print logs to inform about the action
+            logger.log(Level.INFO, "Shop - removeProductFromShop: " + userName + " successfully removed product "
+                    + _productName + " in the shop with id " + shopId);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -764,35 +993,44 @@ public class Shop {
      * @param productPriceNew    the new product price
      * @throws StockMarketException
      */
-    public synchronized void editProductInShop(String userName, Product product, String productNameNew,
+    public void editProductInShop(String userName, Product product, String productNameNew,
             Category productCategoryNew, double productPriceNew) throws StockMarketException {
-        // print logs to inform about the action
-        logger.log(Level.INFO,
-                "Shop - editProductInShop: " + userName + " trying get edit product " + product.getProductName()
-                        + " in the shop with id " + shopId);
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            // print logs to inform about the action
+            logger.log(Level.INFO,
+                    "Shop - editProductInShop: " + userName + " trying get edit product " + product.getProductName()
+                            + " in the shop with id " + shopId);
+
+            // check if shop is closed
+            if (isShopClosed())
+                throw new StockMarketException("Shop is closed, cannot remove product.");
+
+            // check if user has permission to edit product, or the user is the founder or
+            // the owner (dont need specific permission to remove products)
+            if (!checkPermission(userName, Permission.EDIT_PRODUCT) && !checkPermission(userName, Permission.FOUNDER)
+                    && !checkPermission(userName, Permission.OWNER)) {
+                logger.log(Level.SEVERE, "Shop - editProductInShop: user " + userName
+                        + " doesn't have permission to edit products in shop with id " + shopId);
+                throw new PermissionException(
+                        "User " + userName + " doesn't have permission to edit product in shop with id " + shopId);
+            }
 
-        // check if shop is closed
-        if (isShopClosed())
-            throw new StockMarketException("Shop is closed, cannot remove product.");
+            // All constraints checked - edit product in the shop
+            product.setProductName(productNameNew);
+            product.setCategory(productCategoryNew);
+            product.setPrice(productPriceNew);
+            if (_keywordIndex != null)
+                _keywordIndex.indexProduct(shopId, product);
+            onCatalogChanged();
 
-        // check if user has permission to edit product, or the user is the founder or
-        // the owner (dont need specific permission to remove products)
-        if (!checkPermission(userName, Permission.EDIT_PRODUCT) && !checkPermission(userName, Permission.FOUNDER)
-                && !checkPermission(userName, Permission.OWNER)) {
-            logger.log(Level.SEVERE, "Shop - editProductInShop: user " + userName
-                    + " doesn't have permission to edit products in shop with id " + shopId);
-            throw new PermissionException(
-                    "User " + userName + " doesn't have permission to edit product in shop with id " + shopId);
+            // print logs to inform about the action
+            logger.log(Level.INFO, "Shop - removeProductFromShop: " + userName + " successfully edit product "
+                    + productNameNew + " in the shop with id " + shopId);
+        } finally {
+            lock.unlock();
         }
-
-        // All constraints checked - edit product in the shop
-        product.setProductName(productNameNew);
-        product.setCategory(productCategoryNew);
-        product.setPrice(productPriceNew);
-
-        // print logs to inform about the action
-        logger.log(Level.INFO, "Shop - removeProductFromShop: " + userName + " successfully edit product "
-                + productNameNew + " in the shop with id " + shopId);
     }
 
     /**
@@ -805,68 +1043,83 @@ public class Shop {
      * @param productPriceNew    the new product price
      * @throws StockMarketException
      */
-    public synchronized void editProductInShopByName(String userName, String productNameOld, String productNameNew,
+    public void editProductInShopByName(String userName, String productNameOld, String productNameNew,
             Category productCategoryNew, double productPriceNew) throws StockMarketException {
-        // print logs to inform about the action
-        logger.log(Level.INFO, "Shop - editProductInShop: " + userName + " trying get edit product " + productNameOld
-                + " in the shop with id " + shopId);
-
-        // check if shop is closed
-        if (isShopClosed())
-            throw new StockMarketException("Shop is closed, cannot remove product.");
-
-        // check if user has permission to edit product, or the user is the founder or
-        // the owner (dont need specific permission to remove products)
-        if (!checkPermission(userName, Permission.EDIT_PRODUCT) && !checkPermission(userName, Permission.FOUNDER)
-                && !checkPermission(userName, Permission.OWNER)) {
-            logger.log(Level.SEVERE, "Shop - editProductInShop: user " + userName
-                    + " doesn't have permission to edit products in shop with id " + shopId);
-            throw new PermissionException(
-                    "User " + userName + " doesn't have permission to edit product in shop with id " + shopId);
-        }
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            // print logs to inform about the action
+            logger.log(Level.INFO, "Shop - editProductInShop: " + userName + " trying get edit product " + productNameOld
+                    + " in the shop with id " + shopId);
+
+            // check if shop is closed
+            if (isShopClosed())
+                throw new StockMarketException("Shop is closed, cannot remove product.");
+
+            // check if user has permission to edit product, or the user is the founder or
+            // the owner (dont need specific permission to remove products)
+            if (!checkPermission(userName, Permission.EDIT_PRODUCT) && !checkPermission(userName, Permission.FOUNDER)
+                    && !checkPermission(userName, Permission.OWNER)) {
+                logger.log(Level.SEVERE, "Shop - editProductInShop: user " + userName
+                        + " doesn't have permission to edit products in shop with id " + shopId);
+                throw new PermissionException(
+                        "User " + userName + " doesn't have permission to edit product in shop with id " + shopId);
+            }
 
-        // check if product exists
-        Product product = null;
-        for (Product p : productMap.values()) {
-            if (p.getProductName().equals(productNameOld)) {
-                product = p;
+            // check if product exists
+            Product product = null;
+            for (Product p : productMap.values()) {
+                if (p.getProductName().equals(productNameOld)) {
+                    product = p;
+                }
+            }
+            if (product == null) {
+                logger.log(Level.SEVERE, "Shop - editProductInShop: Error while trying to edit product with name: "
+                        + productNameOld + " from shop with id " + shopId);
+                throw new ProductDoesNotExistsException("Product with name " + productNameOld + " does not exist.");
             }
-        }
-        if (product == null) {
-            logger.log(Level.SEVERE, "Shop - editProductInShop: Error while trying to edit product with name: "
-                    + productNameOld + " from shop with id " + shopId);
-            throw new ProductDoesNotExistsException("Product with name " + productNameOld + " does not exist.");
-        }
 
-        for (Product p : productMap.values()) {
-            if (p.getProductName().equals(productNameNew)) {
-                if (p != product) {
-                    logger.log(Level.SEVERE, "Shop - editProductInShop: Error while trying to edit product with name: "
-                            + productNameOld + " from shop with id " + shopId);
-                    throw new ProductAlreadyExistsException("Product with name " + productNameNew + " already exists.");
+            for (Product p : productMap.values()) {
+                if (p.getProductName().equals(productNameNew)) {
+                    if (p != product) {
+                        logger.log(Level.SEVERE, "Shop - editProductInShop: Error while trying to edit product with name: "
+                                + productNameOld + " from shop with id " + shopId);
+                        throw new ProductAlreadyExistsException("Product with name " + productNameNew + " already exists.");
+                    }
                 }
             }
-        }
 
-        // All constraints checked - edit product in the shop
-        product.setProductName(productNameNew);
-        product.setCategory(productCategoryNew);
-        product.setPrice(productPriceNew);
+            // All constraints checked - edit product in the shop
+            product.setProductName(productNameNew);
+            product.setCategory(productCategoryNew);
+            product.setPrice(productPriceNew);
+            if (_keywordIndex != null)
+                _keywordIndex.indexProduct(shopId, product);
+            onCatalogChanged();
 
-        // print logs to inform about the action
-        logger.log(Level.INFO, "Shop - removeProductFromShop: " + userName + " successfully edit product "
-                + productNameNew + " in the shop with id " + shopId);
+            // print logs to inform about the action
+            logger.log(Level.INFO, "Shop - removeProductFromShop: " + userName + " successfully edit product "
+                    + productNameNew + " in the shop with id " + shopId);
+        } finally {
+            lock.unlock();
+        }
     }
 
     // Get product by ID
     public Product getProductById(int productId) throws ProductDoesNotExistsException {
-        // check if product exists
-        if (!productMap.containsKey(productId)) {
-            logger.log(Level.SEVERE, "Shop - getProductById: Error while trying to get product with id: " + productId
-                    + " from shop with id " + shopId);
-            throw new ProductDoesNotExistsException("Product with ID " + productId + " does not exist.");
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            // check if product exists
+            if (!productMap.containsKey(productId)) {
+                logger.log(Level.SEVERE, "Shop - getProductById: Error while trying to get product with id: " + productId
+                        + " from shop with id " + shopId);
+                throw new ProductDoesNotExistsException("Product with ID " + productId + " does not exist.");
+            }
+            return productMap.get(productId); // Get product by ID from the map
+        } finally {
+            lock.unlock();
         }
-        return productMap.get(productId); // Get product by ID from the map
     }
 
     /**
@@ -876,108 +1129,286 @@ public class Shop {
      * @return the ID of the added discount
      */
     public Integer addDiscount(Discount discount) throws StockMarketException {
-        // check if shop is closed
-        if (isShopClosed())
-            throw new StockMarketException("Shop is closed, cannot add discount.");
-        // check if discount is expired
-        if (new Date().after(discount.getExpirationDate())) {
-            throw new StockMarketException("Discount is expired, cannot add discount.");
-        }
-        // check if discount already exists
-        for (Discount d : discounts) {
-            if (d.equals(discount)) {
-                throw new StockMarketException("Discount already exists, cannot add discount.");
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            // check if shop is closed
+            if (isShopClosed())
+                throw new StockMarketException("Shop is closed, cannot add discount.");
+            // check if discount is expired
+            if (new Date().after(discount.getExpirationDate())) {
+                throw new StockMarketException("Discount is expired, cannot add discount.");
+            }
+            // check if discount already exists
+            for (Discount d : discounts) {
+                if (d.equals(discount)) {
+                    throw new StockMarketException("Discount already exists, cannot add discount.");
+                }
             }
-        }
 
-        // int discountId = nextDiscountId++;
-        discounts.add(discount);
-        return discount.getDiscountId();
+            // int discountId = nextDiscountId++;
+            discounts.add(discount);
+            onDiscountsChanged();
+            return discount.getDiscountId();
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void removeDiscount(int discountId) throws StockMarketException {
-        // check if shop is closed
-        if (isShopClosed())
-            throw new StockMarketException("Shop is closed, cannot remove discount.");
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            // check if shop is closed
+            if (isShopClosed())
+                throw new StockMarketException("Shop is closed, cannot remove discount.");
 
-        // check if no discounts
-        if (discounts.isEmpty()) {
-            throw new StockMarketException("No discounts to remove.");
-        }
+            // check if no discounts
+            if (discounts.isEmpty()) {
+                throw new StockMarketException("No discounts to remove.");
+            }
 
-        // check if discount exists
-        for (Discount d : discounts) {
-            if ((d.getId() != null && d.getId() == discountId)
-                    || (d.getTempId() != null && d.getTempId() == discountId)) {
-                discounts.remove(d);
-                return;
+            // check if discount exists
+            for (Discount d : discounts) {
+                if ((d.getId() != null && d.getId() == discountId)
+                        || (d.getTempId() != null && d.getTempId() == discountId)) {
+                    discounts.remove(d);
+                    onDiscountsChanged();
+                    return;
+                }
             }
+        } finally {
+            lock.unlock();
         }
     }
 
+    /**
+     * Apply the discounts of the shop to the basket. Only the discounts that can
+     * touch the products of the basket are evaluated, all of them against the same
+     * clock reading.
+     * 
+     * @param basket the basket to apply the discounts to
+     * @throws StockMarketException
+     */
     public void applyDiscounts(ShoppingBasket basket) throws StockMarketException {
         if (isShopClosed())
             throw new StockMarketException("Shop is closed, cannot apply discounts.");
-        List<Discount> expiredDiscounts = new ArrayList<>();
+        Date currentTime = new Date();
         basket.resetProductToPriceToAmount();
-        for (Discount discount : discounts) {
+
+        DiscountPlan plan = getDiscountPlan();
+        if (plan.hasExpiredDiscounts(currentTime)) {
+            removeExpiredDiscounts(currentTime);
+            plan = getDiscountPlan();
+        }
+
+        List<Discount> expiredDiscounts = new ArrayList<>();
+        for (Discount discount : plan.getApplicableDiscounts(basket)) {
             try {
-                discount.applyDiscount(basket);
+                discount.applyDiscount(basket, currentTime);
             } catch (DiscountExpiredException e) {
                 logger.info(
                         "Shop - applyDiscounts: discount: " + discount.getDiscountId() + " has expired, removing it.");
                 expiredDiscounts.add(discount);
             }
         }
-        for (Discount discountToRemove : expiredDiscounts) {
-            discounts.remove(discountToRemove);
+        if (!expiredDiscounts.isEmpty()) {
+            Lock lock = writeLock();
+            if (lock.tryLock()) {
+                try {
+                    discounts.removeAll(expiredDiscounts);
+                    onDiscountsChanged();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    // Return the compiled discount plan, build it if the discounts were changed.
+    // Two readers may build it at the same time, both plans are the same.
+    private DiscountPlan getDiscountPlan() {
+        DiscountPlan plan = _discountPlan;
+        if (plan == null) {
+            Lock lock = readLock();
+            lock.lock();
+            try {
+                plan = new DiscountPlan(discounts);
+                _discountPlan = plan;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return plan;
+    }
+
+    // Remove all the expired discounts of the shop. The removal is only tried: a
+    // basket can be priced while its shop policy is checked under the read lock,
+    // and an expired discount is never applied anyway, so the next basket removes it.
+    private void removeExpiredDiscounts(Date currentTime) {
+        Lock lock = writeLock();
+        if (!lock.tryLock())
+            return;
+        try {
+            List<Discount> expiredDiscounts = new ArrayList<>();
+            for (Discount discount : discounts) {
+                if (discount.isExpired(currentTime)) {
+                    logger.info("Shop - applyDiscounts: discount: " + discount.getDiscountId()
+                            + " has expired, removing it.");
+                    expiredDiscounts.add(discount);
+                }
+            }
+            discounts.removeAll(expiredDiscounts);
+            onDiscountsChanged();
+        } finally {
+            lock.unlock();
         }
     }
 
+    // Drop the compiled discount plan and the cached basket prices
+    private void onDiscountsChanged() {
+        _discountPlan = null;
+        _pricingVersion.incrementAndGet();
+    }
+
+    // Called when the price or the category of a product of the shop changes
+    public void onProductPricingChanged() {
+        _pricingVersion.incrementAndGet();
+    }
+
+    // Called when the price of a product of the shop changes
+    public void onProductPriceChanged(Product product) {
+        onProductPricingChanged();
+        if (_priceIndex != null && product.getProductId() != null && productMap.containsKey(product.getProductId()))
+            _priceIndex.indexProduct(shopId, product);
+        onCatalogChanged();
+    }
+
+    // Called when the category of a product of the shop changes
+    public void onProductCategoryChanged(Product product) {
+        onProductPricingChanged();
+        if (_categoryIndex != null && product.getProductId() != null
+                && productMap.containsKey(product.getProductId()))
+            _categoryIndex.indexProduct(shopId, product);
+        onCatalogChanged();
+    }
+
+    // Called when anything that the product searches return changes, so the
+    // cached search results of the shop are dropped
+    public void onCatalogChanged() {
+        if (_catalogVersions != null)
+            _catalogVersions.bump(shopId);
+    }
+
+    /**
+     * Returns the pricing version of the shop. A basket price that was
+     * calculated at the same version is still valid (until
+     * getDiscountsValidUntil()).
+     */
+    public long getPricingVersion() {
+        return _pricingVersion.get();
+    }
+
+    /**
+     * Returns the time (in milliseconds) until which the current discounts are
+     * all valid, after that a basket price has to be recalculated.
+     */
+    public long getDiscountsValidUntil() {
+        Date earliestExpiration = getDiscountPlan().getEarliestExpiration();
+        return earliestExpiration == null ? Long.MAX_VALUE : earliestExpiration.getTime();
+    }
+
     public void addOrderToOrderHistory(ShopOrder order) throws StockMarketException {
-        if (isShopClosed())
-            throw new StockMarketException("Shop is closed, cannot add order.");
-        orderHistory.add(order); // Add order to the history
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            if (isShopClosed())
+                throw new StockMarketException("Shop is closed, cannot add order.");
+            order.setShop(this);
+            orderHistory.add(order); // Add order to the history
+        } finally {
+            lock.unlock();
+        }
     }
 
     public List<Product> getProductsByName(String productName) {
-        List<Product> products = new ArrayList<>();
-        for (Product product : productMap.values()) {
-            if (product.getProductName().equals(productName)) {
-                products.add(product);
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            List<Product> products = new ArrayList<>();
+            for (Product product : productMap.values()) {
+                if (product.getProductName().equals(productName)) {
+                    products.add(product);
+                }
             }
+            return products;
+        } finally {
+            lock.unlock();
         }
-        return products;
     }
 
     public List<Product> getProductsByCategory(Category productCategory) {
-        List<Product> products = new ArrayList<>();
-        for (Product product : productMap.values()) {
-            if (product.getCategory() == productCategory) {
-                products.add(product);
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            List<Product> products = new ArrayList<>();
+            if (_categoryIndex != null && _categoryIndex.isShopIndexed(shopId)) {
+                for (Integer productId : _categoryIndex.search(shopId, productCategory)) {
+                    Product product = productMap.get(productId);
+                    if (product != null)
+                        products.add(product);
+                }
+                return products;
+            }
+            for (Product product : productMap.values()) {
+                if (product.getCategory() == productCategory) {
+                    products.add(product);
+                }
             }
+            return products;
+        } finally {
+            lock.unlock();
         }
-        return products;
     }
 
     public List<Product> getProductsByKeywords(List<String> keywords) {
-        List<Product> products = new ArrayList<>();
-        for (Product product : productMap.values()) {
-            if (product.isKeywordListExist(keywords)) {
-                products.add(product);
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            List<Product> products = new ArrayList<>();
+            for (Product product : productMap.values()) {
+                if (product.isKeywordListExist(keywords)) {
+                    products.add(product);
+                }
             }
+            return products;
+        } finally {
+            lock.unlock();
         }
-        return products;
     }
 
     public List<Product> getProductsByPriceRange(Double minPrice, Double maxPrice) {
-        List<Product> products = new ArrayList<>();
-        for (Product product : productMap.values()) {
-            if (product.isPriceInRange(minPrice, maxPrice)) {
-                products.add(product);
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            List<Product> products = new ArrayList<>();
+            if (_priceIndex != null && _priceIndex.isShopIndexed(shopId)) {
+                for (Integer productId : _priceIndex.search(shopId, minPrice, maxPrice)) {
+                    Product product = productMap.get(productId);
+                    if (product != null)
+                        products.add(product);
+                }
+                return products;
+            }
+            for (Product product : productMap.values()) {
+                if (product.isPriceInRange(minPrice, maxPrice)) {
+                    products.add(product);
+                }
             }
+            return products;
+        } finally {
+            lock.unlock();
         }
-        return products;
     }
 
     public Boolean isOwnerOrFounderOwner(String userId) throws StockMarketException {
@@ -986,140 +1417,188 @@ public class Shop {
     }
 
     public void addProductRating(Product product, Integer rating) throws StockMarketException {
-        if (!isProductExist(product.getProductId()))
-            throw new StockMarketException(String.format("Product ID: %d doesn't exist.", product.getProductId()));
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            if (!isProductExist(product.getProductId()))
+                throw new StockMarketException(String.format("Product ID: %d doesn't exist.", product.getProductId()));
 
-        logger.info("Shop - addProductRating: Adding rating " + rating + " to product " + product.getProductId());
-        product.addProductRating(rating);
+            logger.info("Shop - addProductRating: Adding rating " + rating + " to product " + product.getProductId());
+            product.addProductRating(rating);
+        } finally {
+            lock.unlock();
+        }
     }
 
     public Double getProductRating(int productId) {
-        Product product = productMap.get(productId);
-        return product.getProductRating();
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            Product product = productMap.get(productId);
+            return product.getProductRating();
+        } finally {
+            lock.unlock();
+        }
     }
 
     public Boolean isProductExist(int productId) throws StockMarketException {
-        if (!productMap.containsKey(productId)) {
-            logger.log(Level.SEVERE, String.format(
-                    "Shop : Error while trying to find product with id: %d in shopId: %d. Product does not exist",
-                    productId, shopId));
-            throw new ProductDoesNotExistsException(String.format("Product: %d does not exist", productId));
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            if (!productMap.containsKey(productId)) {
+                logger.log(Level.SEVERE, String.format(
+                        "Shop : Error while trying to find product with id: %d in shopId: %d. Product does not exist",
+                        productId, shopId));
+                throw new ProductDoesNotExistsException(String.format("Product: %d does not exist", productId));
+            }
+            return true;
+        } finally {
+            lock.unlock();
         }
-        return true;
     }
 
     public Boolean isProductNameExist(String productName) {
-        for (Product product : productMap.values()) {
-            if (product.getProductName().equals(productName)) {
-                return true;
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            for (Product product : productMap.values()) {
+                if (product.getProductName().equals(productName)) {
+                    return true;
+                }
             }
+            return false;
+        } finally {
+            lock.unlock();
         }
-        return false;
     }
 
     public void updateProductQuantity(String username, Product product, Integer productQuantity)
             throws StockMarketException {
+        Lock lock = writeLock();
+        lock.lock();
         try {
-            if (!checkPermission(username, Permission.EDIT_PRODUCT)) {
-                logger.log(Level.SEVERE, String.format(
-                        "Shop - updateProductQuantity: Error while trying to update product with id: %d to shopId: %d. User: %s does not have permissions",
-                        product.getProductId(), shopId, username));
-                throw new PermissionException(
-                        String.format("User: %s does not have permission to Update product: %d", username,
-                                product.getProductId()));
-            }
+            try {
+                if (!checkPermission(username, Permission.EDIT_PRODUCT)) {
+                    logger.log(Level.SEVERE, String.format(
+                            "Shop - updateProductQuantity: Error while trying to update product with id: %d to shopId: %d. User: %s does not have permissions",
+                            product.getProductId(), shopId, username));
+                    throw new PermissionException(
+                            String.format("User: %s does not have permission to Update product: %d", username,
+                                    product.getProductId()));
+                }
 
-            if (isShopClosed()) {
-                logger.log(Level.SEVERE,
-                        String.format("Shop: %d is close, product: %d can't be updated", shopId,
-                                product.getProductId()));
-                throw new ShopException(
-                        String.format("Shop: %d is close, product: %d can't be updated", shopId,
-                                product.getProductId()));
-            }
+                if (isShopClosed()) {
+                    logger.log(Level.SEVERE,
+                            String.format("Shop: %d is close, product: %d can't be updated", shopId,
+                                    product.getProductId()));
+                    throw new ShopException(
+                            String.format("Shop: %d is close, product: %d can't be updated", shopId,
+                                    product.getProductId()));
+                }
 
-            product.updateProductQuantity(productQuantity);
-        } catch (StockMarketException e) {
-            throw new StockMarketException(e.getMessage());
+                product.updateProductQuantity(productQuantity);
+            } catch (StockMarketException e) {
+                throw new StockMarketException(e.getMessage());
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
     public void updateProductName(String username, Product product, String ProdcutName) throws StockMarketException {
+        Lock lock = writeLock();
+        lock.lock();
         try {
-            if (!checkPermission(username, Permission.EDIT_PRODUCT)) {
-                logger.log(Level.SEVERE, String.format(
-                        "Shop - updateProductName: Error while trying to update product with id: %d to shopId: %d. User: %s does not have permissions",
-                        product.getProductId(), shopId, username));
-                throw new PermissionException(
-                        String.format("User: %s does not have permission to Update product: %d", username,
-                                product.getProductId()));
-            }
+            try {
+                if (!checkPermission(username, Permission.EDIT_PRODUCT)) {
+                    logger.log(Level.SEVERE, String.format(
+                            "Shop - updateProductName: Error while trying to update product with id: %d to shopId: %d. User: %s does not have permissions",
+                            product.getProductId(), shopId, username));
+                    throw new PermissionException(
+                            String.format("User: %s does not have permission to Update product: %d", username,
+                                    product.getProductId()));
+                }
 
-            if (isShopClosed()) {
-                logger.log(Level.SEVERE,
-                        String.format("Shop: %d is close, product: %d can't be updated", shopId,
-                                product.getProductId()));
-                throw new ShopException(
-                        String.format("Shop: %d is close, product: %d can't be updated", shopId,
-                                product.getProductId()));
+                if (isShopClosed()) {
+                    logger.log(Level.SEVERE,
+                            String.format("Shop: %d is close, product: %d can't be updated", shopId,
+                                    product.getProductId()));
+                    throw new ShopException(
+                            String.format("Shop: %d is close, product: %d can't be updated", shopId,
+                                    product.getProductId()));
+                }
+
+                product.setProductName(ProdcutName);
+            } catch (StockMarketException e) {
+                throw new StockMarketException(e.getMessage());
             }
 
-            product.setProductName(ProdcutName);
-        } catch (StockMarketException e) {
-            throw new StockMarketException(e.getMessage());
+        } finally {
+            lock.unlock();
         }
-
     }
 
     public void updateProductPrice(String username, Product product, Double productPrice) throws StockMarketException {
+        Lock lock = writeLock();
+        lock.lock();
         try {
-            if (!checkPermission(username, Permission.EDIT_PRODUCT)) {
-                logger.log(Level.SEVERE, String.format(
-                        "Shop - updateProductName: Error while trying to update product with id: %d to shopId: %d. User: %s does not have permissions",
-                        product.getProductId(), shopId, username));
-                throw new PermissionException(
-                        String.format("User: %s does not have permission to Update product: %d", username,
-                                product.getProductId()));
-            }
+            try {
+                if (!checkPermission(username, Permission.EDIT_PRODUCT)) {
+                    logger.log(Level.SEVERE, String.format(
+                            "Shop - updateProductName: Error while trying to update product with id: %d to shopId: %d. User: %s does not have permissions",
+                            product.getProductId(), shopId, username));
+                    throw new PermissionException(
+                            String.format("User: %s does not have permission to Update product: %d", username,
+                                    product.getProductId()));
+                }
 
-            if (isShopClosed()) {
-                logger.log(Level.SEVERE,
-                        String.format("Shop: %d is close, product: %d can't be updated", shopId,
-                                product.getProductId()));
-                throw new ShopException(
-                        String.format("Shop: %d is close, product: %d can't be updated", shopId,
-                                product.getProductId()));
-            }
+                if (isShopClosed()) {
+                    logger.log(Level.SEVERE,
+                            String.format("Shop: %d is close, product: %d can't be updated", shopId,
+                                    product.getProductId()));
+                    throw new ShopException(
+                            String.format("Shop: %d is close, product: %d can't be updated", shopId,
+                                    product.getProductId()));
+                }
 
-            product.setPrice(productPrice);
-        } catch (StockMarketException e) {
-            throw new StockMarketException(e.getMessage());
+                product.setPrice(productPrice);
+            } catch (StockMarketException e) {
+                throw new StockMarketException(e.getMessage());
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
     public void updateProductCategory(String username, Product product, Category category) throws StockMarketException {
+        Lock lock = writeLock();
+        lock.lock();
         try {
-            if (!checkPermission(username, Permission.EDIT_PRODUCT)) {
-                logger.log(Level.SEVERE, String.format(
-                        "Shop - updateProductName: Error while trying to update product with id: %d to shopId: %d. User: %s does not have permissions",
-                        product.getProductId(), shopId, username));
-                throw new PermissionException(
-                        String.format("User: %s does not have permission to Update product: %d", username,
-                                product.getProductId()));
-            }
+            try {
+                if (!checkPermission(username, Permission.EDIT_PRODUCT)) {
+                    logger.log(Level.SEVERE, String.format(
+                            "Shop - updateProductName: Error while trying to update product with id: %d to shopId: %d. User: %s does not have permissions",
+                            product.getProductId(), shopId, username));
+                    throw new PermissionException(
+                            String.format("User: %s does not have permission to Update product: %d", username,
+                                    product.getProductId()));
+                }
 
-            if (isShopClosed()) {
-                logger.log(Level.SEVERE,
-                        String.format("Shop: %d is close, product: %d can't be updated", shopId,
-                                product.getProductId()));
-                throw new ShopException(
-                        String.format("Shop: %d is close, product: %d can't be updated", shopId,
-                                product.getProductId()));
-            }
+                if (isShopClosed()) {
+                    logger.log(Level.SEVERE,
+                            String.format("Shop: %d is close, product: %d can't be updated", shopId,
+                                    product.getProductId()));
+                    throw new ShopException(
+                            String.format("Shop: %d is close, product: %d can't be updated", shopId,
+                                    product.getProductId()));
+                }
 
-            product.setCategory(category);
-        } catch (StockMarketException e) {
-            throw new StockMarketException(e.getMessage());
+                product.setCategory(category);
+            } catch (StockMarketException e) {
+                throw new StockMarketException(e.getMessage());
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -1130,13 +1609,19 @@ public class Shop {
      * @throws StockMarketException
      */
     public void ValidateBasketMeetsShopPolicy(ShoppingBasket sb) throws StockMarketException {
-        logger.log(Level.FINE,
-                "Shop - ValidateBasketMeetsShopPolicy: Starting validation of basket for shop with id: " + shopId);
-        if (!shopPolicy.evaluate(sb)) {
-            logger.log(Level.SEVERE,
-                    "Shop - ValidateBasketMeetsShopPolicy: Basket violates the shop policy of shop with id: "
-                            + shopId);
-            throw new ShopPolicyException("Basket violates the shop policy of shop with id: " + shopId);
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            logger.log(Level.FINE,
+                    "Shop - ValidateBasketMeetsShopPolicy: Starting validation of basket for shop with id: " + shopId);
+            if (!shopPolicy.evaluate(sb)) {
+                logger.log(Level.SEVERE,
+                        "Shop - ValidateBasketMeetsShopPolicy: Basket violates the shop policy of shop with id: "
+                                + shopId);
+                throw new ShopPolicyException("Basket violates the shop policy of shop with id: " + shopId);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -1148,26 +1633,32 @@ public class Shop {
      * @throws StockMarketException
      */
     public void ValidateProdcutPolicy(User u, Product p) throws StockMarketException {
-        logger.log(Level.FINE,
-                "Shop - ValidateProdcutPolicy: Starting validation of product in shop with id: " + shopId);
-
-        // if the user recived is null, means its a guest user in the system, so we need
-        // to check if the product policy allows guest users (have any policy)
-        if (u == null) {
-            if (p.getProductPolicy().getRules().size() > 0) {
-                logger.log(Level.SEVERE, "Shop - ValidateProdcutPolicy: the product " + p.getProductName()
-                        + " in shop with id: " + shopId + " doesn't allow guest users");
-                throw new ProdcutPolicyException("Guest user violates the shop policy of shop with id: " + shopId);
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            logger.log(Level.FINE,
+                    "Shop - ValidateProdcutPolicy: Starting validation of product in shop with id: " + shopId);
+
+            // if the user recived is null, means its a guest user in the system, so we need
+            // to check if the product policy allows guest users (have any policy)
+            if (u == null) {
+                if (p.getProductPolicy().getRules().size() > 0) {
+                    logger.log(Level.SEVERE, "Shop - ValidateProdcutPolicy: the product " + p.getProductName()
+                            + " in shop with id: " + shopId + " doesn't allow guest users");
+                    throw new ProdcutPolicyException("Guest user violates the shop policy of shop with id: " + shopId);
+                }
+                return;
             }
-            return;
-        }
 
-        if (!p.getProductPolicy().evaluate(u)) {
-            logger.log(Level.SEVERE, "Shop - ValidateProdcutPolicy: User " + u.getUserName()
-                    + " violates the product policy of product " + p.getProductName() + " in shop with id: " + shopId);
-            throw new ProdcutPolicyException(
-                    "User " + u.getUserName() + " violates the product policy " + p.getProductName()
-                            + " in shop with id: " + shopId);
+            if (!p.getProductPolicy().evaluate(u)) {
+                logger.log(Level.SEVERE, "Shop - ValidateProdcutPolicy: User " + u.getUserName()
+                        + " violates the product policy of product " + p.getProductName() + " in shop with id: " + shopId);
+                throw new ProdcutPolicyException(
+                        "User " + u.getUserName() + " violates the product policy " + p.getProductName()
+                                + " in shop with id: " + shopId);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -1179,12 +1670,18 @@ public class Shop {
      * @throws StockMarketException
      */
     public void addRuleToShopPolicy(String username, AbstractRule<ShoppingBasket> rule) throws StockMarketException {
-        logger.log(Level.INFO, "Shop - addRuleToShopPolicy: User " + username
-                + " trying to add rule to shop policy of shop with id: " + shopId);
-        if (checkPermission(username, Permission.CHANGE_SHOP_POLICY))
-            shopPolicy.addRule(rule);
-        logger.log(Level.FINE, "Shop - addRuleToShopPolicy: User " + username
-                + " successfuly added a rule to shop policy of shop with id: " + shopId);
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            logger.log(Level.INFO, "Shop - addRuleToShopPolicy: User " + username
+                    + " trying to add rule to shop policy of shop with id: " + shopId);
+            if (checkPermission(username, Permission.CHANGE_SHOP_POLICY))
+                shopPolicy.addRule(rule);
+            logger.log(Level.FINE, "Shop - addRuleToShopPolicy: User " + username
+                    + " successfuly added a rule to shop policy of shop with id: " + shopId);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1196,12 +1693,18 @@ public class Shop {
      */
     public void removeRuleFromShopPolicy(String username, AbstractRule<ShoppingBasket> rule)
             throws StockMarketException {
-        logger.log(Level.INFO, "Shop - removeRuleFromShopPolicy: User " + username
-                + " trying to remove rule from shop policy of shop with id: " + shopId);
-        if (checkPermission(username, Permission.CHANGE_SHOP_POLICY))
-            shopPolicy.deleteRule(rule);
-        logger.log(Level.FINE, "Shop - removeRuleFromShopPolicy: User " + username
-                + " successfuly removed a rule from shop policy of shop with id: " + shopId);
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            logger.log(Level.INFO, "Shop - removeRuleFromShopPolicy: User " + username
+                    + " trying to remove rule from shop policy of shop with id: " + shopId);
+            if (checkPermission(username, Permission.CHANGE_SHOP_POLICY))
+                shopPolicy.deleteRule(rule);
+            logger.log(Level.FINE, "Shop - removeRuleFromShopPolicy: User " + username
+                    + " successfuly removed a rule from shop policy of shop with id: " + shopId);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1216,8 +1719,14 @@ public class Shop {
             throws StockMarketException {
         logger.log(Level.INFO, "Shop - addRuleToProductPolicy: User " + username
                 + " trying to add rule to product policy of shop with id: " + shopId);
-        if (checkPermission(username, Permission.CHANGE_PRODUCT_POLICY)) {
-            productMap.get(productId).getProductPolicy().addRule(rule);
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            if (checkPermission(username, Permission.CHANGE_PRODUCT_POLICY)) {
+                productMap.get(productId).getProductPolicy().addRule(rule);
+            }
+        } finally {
+            lock.unlock();
         }
         logger.log(Level.FINE, "Shop - addRuleToProductPolicy: User " + username
                 + " successfuly added a rule to product policy of shop with id: " + shopId);
@@ -1235,48 +1744,78 @@ public class Shop {
             throws StockMarketException {
         logger.log(Level.INFO, "Shop - removeRuleFromProductPolicy: User " + username
                 + " trying to remove rule from product policy of shop with id: " + shopId);
-        if (checkPermission(username, Permission.CHANGE_PRODUCT_POLICY)) {
-            productMap.get(productId).getProductPolicy().deleteRule(rule);
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            if (checkPermission(username, Permission.CHANGE_PRODUCT_POLICY)) {
+                productMap.get(productId).getProductPolicy().deleteRule(rule);
+            }
+        } finally {
+            lock.unlock();
         }
         logger.log(Level.FINE, "Shop - removeRuleFromProductPolicy: User " + username
                 + " successfuly removed a rule from product policy of shop with id: " + shopId);
     }
 
     public String getProductPolicyInfo(int productId) throws StockMarketException {
-        if (isProductExist(productId)) {
-            return productMap.get(productId).getProductPolicyInfo();
-        } else {
-            return null;
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            if (isProductExist(productId)) {
+                return productMap.get(productId).getProductPolicyInfo();
+            } else {
+                return null;
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
     public String getShopDiscountsInfo() {
-        StringBuilder discountsBuilder = new StringBuilder();
-        for (Discount d : discounts) {
-            discountsBuilder.append("Discount ID: ").append(d.getDiscountId()).append(" | Discount: ")
-                    .append(d.toString()).append("\n");
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            StringBuilder discountsBuilder = new StringBuilder();
+            for (Discount d : discounts) {
+                discountsBuilder.append("Discount ID: ").append(d.getDiscountId()).append(" | Discount: ")
+                        .append(d.toString()).append("\n");
+            }
+            return discountsBuilder.toString();
+        } finally {
+            lock.unlock();
         }
-        return discountsBuilder.toString();
     }
 
     public String getProductDiscountsInfo(int productId) throws StockMarketException {
-        if (isProductExist(productId)) {
-            StringBuilder discountsBuilder = new StringBuilder();
-            for (Map.Entry<Integer, Discount> entry : getDiscountsOfProduct(productId).entrySet()) {
-                discountsBuilder.append("Discount ID: ").append(entry.getKey()).append(" | Discount: ")
-                        .append(entry.getValue().toString()).append("\n");
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            if (isProductExist(productId)) {
+                StringBuilder discountsBuilder = new StringBuilder();
+                for (Map.Entry<Integer, Discount> entry : getDiscountsOfProduct(productId).entrySet()) {
+                    discountsBuilder.append("Discount ID: ").append(entry.getKey()).append(" | Discount: ")
+                            .append(entry.getValue().toString()).append("\n");
+                }
+                return discountsBuilder.toString();
+            } else {
+                return null;
             }
-            return discountsBuilder.toString();
-        } else {
-            return null;
+        } finally {
+            lock.unlock();
         }
     }
 
     public String getProductGeneralInfo(int productId) throws StockMarketException {
-        if (isProductExist(productId)) {
-            return productMap.get(productId).getProductGeneralInfo();
-        } else {
-            return null;
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            if (isProductExist(productId)) {
+                return productMap.get(productId).getProductGeneralInfo();
+            } else {
+                return null;
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -1288,10 +1827,16 @@ public class Shop {
      * @throws StockMarketException
      */
     public void notfyOwnerPurchaseFromShop(String buyingUser, List<Integer> productIdList) throws StockMarketException {
-        for (Map.Entry<String, Role> entry : userToRole.entrySet()) {
-            String owner = entry.getKey();
-            Alert alert = new PurchaseFromShopAlert(owner, buyingUser, productIdList, shopId);
-            _notificationHandler.sendMessage(owner, alert);
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            for (Map.Entry<String, Role> entry : userToRole.entrySet()) {
+                String owner = entry.getKey();
+                Alert alert = new PurchaseFromShopAlert(owner, buyingUser, productIdList, shopId);
+                _notificationHandler.sendMessage(owner, alert);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -1302,10 +1847,16 @@ public class Shop {
      * @throws StockMarketException
      */
     public void notifyCloseShop(String username) throws StockMarketException {
-        for (Map.Entry<String, Role> entry : userToRole.entrySet()) {
-            String owner = entry.getKey();
-            Alert alert = new CloseShopAlert(owner, username, shopId);
-            _notificationHandler.sendMessage(owner, alert);
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            for (Map.Entry<String, Role> entry : userToRole.entrySet()) {
+                String owner = entry.getKey();
+                Alert alert = new CloseShopAlert(owner, username, shopId);
+                _notificationHandler.sendMessage(owner, alert);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -1316,10 +1867,16 @@ public class Shop {
      * @throws StockMarketException
      */
     public void openComplaint(String fromUsername, String message) throws StockMarketException {
-        for (Map.Entry<String, Role> entry : userToRole.entrySet()) {
-            String owner = entry.getKey();
-            Alert alert = new GeneralAlert(fromUsername, owner, message);
-            _notificationHandler.sendMessage(owner, alert);
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            for (Map.Entry<String, Role> entry : userToRole.entrySet()) {
+                String owner = entry.getKey();
+                Alert alert = new GeneralAlert(fromUsername, owner, message);
+                _notificationHandler.sendMessage(owner, alert);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -1330,10 +1887,16 @@ public class Shop {
      * @throws StockMarketException
      */
     public void notifyReOpenShop(String username) throws StockMarketException {
-        for (Map.Entry<String, Role> entry : userToRole.entrySet()) {
-            String owner = entry.getKey();
-            Alert alert = new ReOpenShopAlert(owner, username, shopId);
-            _notificationHandler.sendMessage(owner, alert);
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            for (Map.Entry<String, Role> entry : userToRole.entrySet()) {
+                String owner = entry.getKey();
+                Alert alert = new ReOpenShopAlert(owner, username, shopId);
+                _notificationHandler.sendMessage(owner, alert);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -1358,88 +1921,121 @@ public class Shop {
 
     // this function adds a new review to the product in the shop
     public void addReview(String username, int productID, String review) {
-        Product product = productMap.get(productID);
-        product.addReview(username, review);
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            Product product = productMap.get(productID);
+            product.addReview(username, review);
+        } finally {
+            lock.unlock();
+        }
     }
 
     // this function changes the shop policy
     public ShopPolicy changeShopPolicy(String username, List<ShoppingBasketRuleDto> shopRules)
             throws StockMarketException {
-        ShopPolicy oldShopPolicy = shopPolicy;
-        if (checkPermission(username, Permission.CHANGE_SHOP_POLICY)) {
-            shopPolicy = new ShopPolicy();
-            for (ShoppingBasketRuleDto rule : shopRules) {
-                AbstractRule<ShoppingBasket> newRule = RuleFactory.createShoppingBasketRule(rule);
-                shopPolicy.addRule(newRule);
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            ShopPolicy oldShopPolicy = shopPolicy;
+            if (checkPermission(username, Permission.CHANGE_SHOP_POLICY)) {
+                shopPolicy = new ShopPolicy();
+                for (ShoppingBasketRuleDto rule : shopRules) {
+                    AbstractRule<ShoppingBasket> newRule = RuleFactory.createShoppingBasketRule(rule);
+                    shopPolicy.addRule(newRule);
+                }
+                return shopPolicy;
             }
-            return shopPolicy;
+            return oldShopPolicy;
+        } finally {
+            lock.unlock();
         }
-        return oldShopPolicy;
     }
 
     // this function changes the shop policy
     public ProductPolicy changeProductPolicy(String username, int productId, List<UserRuleDto> productRules)
             throws StockMarketException {
-        Product product = productMap.get(productId);
-        ProductPolicy oldProductPolicy = product.getProductPolicy();
-        if (checkPermission(username, Permission.CHANGE_PRODUCT_POLICY)) {
-            ProductPolicy policy = new ProductPolicy();
-            for (UserRuleDto rule : productRules) {
-                AbstractRule<User> newRule = RuleFactory.createUserRule(rule);
-                policy.addRule(newRule);
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            Product product = productMap.get(productId);
+            ProductPolicy oldProductPolicy = product.getProductPolicy();
+            if (checkPermission(username, Permission.CHANGE_PRODUCT_POLICY)) {
+                ProductPolicy policy = new ProductPolicy();
+                for (UserRuleDto rule : productRules) {
+                    AbstractRule<User> newRule = RuleFactory.createUserRule(rule);
+                    policy.addRule(newRule);
+                }
+                product.setProductPolicy(policy);
+                return policy;
             }
-            product.setProductPolicy(policy);
-            return policy;
+            return oldProductPolicy;
+        } finally {
+            lock.unlock();
         }
-        return oldProductPolicy;
     }
 
-    public synchronized void addKeywordsToProduct(String userName, int productId, List<String> keywords)
+    public void addKeywordsToProduct(String userName, int productId, List<String> keywords)
             throws StockMarketException {
-        // print logs to inform about the action
-        logger.log(Level.INFO,
-                "Shop - addKeywordsToProduct: " + userName + " trying add key words to product " + productId
-                        + " in the shop with id " + shopId + " keywords: " + keywords);
-
-        // check if shop is closed
-        if (isShopClosed())
-            throw new StockMarketException("Shop is closed, cannot edit product.");
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            // print logs to inform about the action
+            logger.log(Level.INFO,
+                    "Shop - addKeywordsToProduct: " + userName + " trying add key words to product " + productId
+                            + " in the shop with id " + shopId + " keywords: " + keywords);
+
+            // check if shop is closed
+            if (isShopClosed())
+                throw new StockMarketException("Shop is closed, cannot edit product.");
+
+            // check if user has permission to edit product, or the user is the founder or
+            // the owner (dont need specific permission to remove products)
+            if (!checkPermission(userName, Permission.EDIT_PRODUCT) && !checkPermission(userName, Permission.FOUNDER)
+                    && !checkPermission(userName, Permission.OWNER)) {
+                logger.log(Level.SEVERE, "Shop - addKeywordsToProduct: user " + userName
+                        + " doesn't have permission to edit products in shop with id " + shopId);
+                throw new PermissionException(
+                        "User " + userName + " doesn't have permission to edit product in shop with id " + shopId);
+            }
 
-        // check if user has permission to edit product, or the user is the founder or
-        // the owner (dont need specific permission to remove products)
-        if (!checkPermission(userName, Permission.EDIT_PRODUCT) && !checkPermission(userName, Permission.FOUNDER)
-                && !checkPermission(userName, Permission.OWNER)) {
-            logger.log(Level.SEVERE, "Shop - addKeywordsToProduct: user " + userName
-                    + " doesn't have permission to edit products in shop with id " + shopId);
-            throw new PermissionException(
-                    "User " + userName + " doesn't have permission to edit product in shop with id " + shopId);
-        }
+            // check if product exists
+            if (!productMap.containsKey(productId)) {
+                logger.log(Level.SEVERE,
+                        "Shop - addKeywordsToProduct: Error while trying to get product with id: " + productId
+                                + " from shop with id " + shopId);
+                throw new ProductDoesNotExistsException("Product with ID " + productId + " does not exist.");
+            }
 
-        // check if product exists
-        if (!productMap.containsKey(productId)) {
-            logger.log(Level.SEVERE,
-                    "Shop - addKeywordsToProduct: Error while trying to get product with id: " + productId
-                            + " from shop with id " + shopId);
-            throw new ProductDoesNotExistsException("Product with ID " + productId + " does not exist.");
-        }
+            // All constraints checked - edit product in the shop
+            Product product = productMap.get(productId);
+            for (String keyword : keywords) {
+                product.addKeyword(keyword);
+                logger.log(Level.INFO, "Added keyword: " + keyword + " to product: " + product.getProductName());
+            }
+            if (_keywordIndex != null)
+                _keywordIndex.indexProduct(shopId, product);
+            onCatalogChanged();
 
-        // All constraints checked - edit product in the shop
-        Product product = productMap.get(productId);
-        for (String keyword : keywords) {
-            product.addKeyword(keyword);
-            logger.log(Level.INFO, "Added keyword: " + keyword + " to product: " + product.getProductName());
+            // print logs to inform about the action
+            logger.log(Level.INFO, "Shop - addKeywordsToProduct: " + userName + " successfully added keywords to product "
+                    + productId + " in the shop with id " + shopId);
+        } finally {
+            lock.unlock();
         }
-
-        // print logs to inform about the action
-        logger.log(Level.INFO, "Shop - addKeywordsToProduct: " + userName + " successfully added keywords to product "
-                + productId + " in the shop with id " + shopId);
     }
 
     /**
      * Get all the products in the shop.
      */
     public List<Product> getAllProductsList() {
-        return new ArrayList<>(productMap.values());
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            return new ArrayList<>(productMap.values());
+        } finally {
+            lock.unlock();
+        }
     }
 
     public String getShopGeneralInfo() {
@@ -1463,6 +2059,10 @@ public class Shop {
         return shopId;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public Object getId() {
         return shopId;
     }
@@ -1473,6 +2073,9 @@ public class Shop {
 
     public void setShopName(String shopName) {
         this.shopName = shopName;
+        if (_nameIndex != null && shopId != null)
+            _nameIndex.indexShop(shopId, shopName);
+        onCatalogChanged();
     }
 
     public String getFounderName() {
@@ -1480,29 +2083,41 @@ public class Shop {
     }
 
     public void setShopFounder(String shopFounderUserName) {
-        logger.log(Level.INFO, "Shop - setShopFounder: " + shopFounderUserName
-                + " trying to set the founder of the shop with id: " + shopId);
-
-        this.shopFounder = shopFounderUserName;
+        Lock lock = writeLock();
+        lock.lock();
         try {
-            Role founder = new Role(shopFounderUserName, this, null, EnumSet.of(Permission.FOUNDER));
-            userToRole.putIfAbsent(shopFounderUserName, founder);
-            roleRepository.save(founder);
-        } catch (StockMarketException e) {
-            logger.log(Level.SEVERE,
-                    "Shop - setShopFounder: Error while trying to set the founder of the shop with id: " + shopId);
-        }
+            logger.log(Level.INFO, "Shop - setShopFounder: " + shopFounderUserName
+                    + " trying to set the founder of the shop with id: " + shopId);
 
-        logger.log(Level.INFO, "Shop - setShopFounder: " + shopFounderUserName
-                + " successfuly set the founder of the shop with id: " + shopId);
+            this.shopFounder = shopFounderUserName;
+            try {
+                Role founder = new Role(shopFounderUserName, this, null, EnumSet.of(Permission.FOUNDER));
+                userToRole.putIfAbsent(shopFounderUserName, founder);
+                roleRepository.save(founder);
+            } catch (StockMarketException e) {
+                logger.log(Level.SEVERE,
+                        "Shop - setShopFounder: Error while trying to set the founder of the shop with id: " + shopId);
+            }
+
+            logger.log(Level.INFO, "Shop - setShopFounder: " + shopFounderUserName
+                    + " successfuly set the founder of the shop with id: " + shopId);
+        } finally {
+            lock.unlock();
+        }
     }
 
     public Map<Integer, Product> getShopProducts() {
-        return productMap;
+        return getAllProducts();
     }
 
     public List<ShopOrder> getPurchaseHistory() {
-        return orderHistory;
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            return new ArrayList<>(orderHistory);
+        } finally {
+            lock.unlock();
+        }
     }
 
     public String getBankDetails() {
@@ -1511,25 +2126,43 @@ public class Shop {
 
     // return the anoumt of product
     public Integer getAmoutOfProductInShop() {
-        return productMap.size();
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            return productMap.size();
+        } finally {
+            lock.unlock();
+        }
     }
 
     // get all discount in the shop
     public Map<Integer, Discount> getDiscounts() {
-        Map<Integer, Discount> discounts = new HashMap<>();
-        for (Discount d : this.discounts) {
-            discounts.put(d.getDiscountId(), d);
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            Map<Integer, Discount> discounts = new HashMap<>();
+            for (Discount d : this.discounts) {
+                discounts.put(d.getDiscountId(), d);
+            }
+            return discounts;
+        } finally {
+            lock.unlock();
         }
-        return discounts;
     }
 
     // get all discount in the shop in DiscountDto
     public Map<Integer, DiscountDto> getDiscountDtos() {
-        Map<Integer, DiscountDto> discountDtos = new HashMap<>();
-        for (Discount d : discounts) {
-            discountDtos.put(d.getDiscountId(), new DiscountDto(d));
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            Map<Integer, DiscountDto> discountDtos = new HashMap<>();
+            for (Discount d : discounts) {
+                discountDtos.put(d.getDiscountId(), new DiscountDto(d));
+            }
+            return discountDtos;
+        } finally {
+            lock.unlock();
         }
-        return discountDtos;
     }
 
     public void setBankDetails(String bankDetails) {
@@ -1557,15 +2190,33 @@ public class Shop {
     }
 
     public String getShopPolicyInfo() {
-        return shopPolicy.toString();
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            return shopPolicy.toString();
+        } finally {
+            lock.unlock();
+        }
     }
 
     public ShopPolicy getShopPolicy() {
-        return shopPolicy;
+        Lock lock = readLock();
+        lock.lock();
+        try {
+            return shopPolicy;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void setShopPolicy(ShopPolicy shopPolicy) {
-        this.shopPolicy = shopPolicy;
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+            this.shopPolicy = shopPolicy;
+        } finally {
+            lock.unlock();
+        }
     }
 
     // returns shopID, name and Rating for response.
@@ -1586,6 +2237,53 @@ public class Shop {
         _notificationHandler = notificationHandler;
     }
 
+    // set the keyword index that is updated when the products of the shop change
+    public void setKeywordIndex(ProductKeywordIndex keywordIndex) {
+        _keywordIndex = keywordIndex;
+    }
+
+    // set the price index that is updated when the products or their prices change
+    public void setPriceIndex(ProductPriceIndex priceIndex) {
+        _priceIndex = priceIndex;
+    }
+
+    // set the category index that is updated when the products or their categories change
+    public void setCategoryIndex(ProductCategoryIndex categoryIndex) {
+        _categoryIndex = categoryIndex;
+    }
+
+    // set the name index that is updated when the shop is renamed
+    public void setShopNameIndex(ShopNameIndex nameIndex) {
+        _nameIndex = nameIndex;
+    }
+
+    // set the registry of the shop locks, shared by all the instances of the shop
+    public void setLockRegistry(ShopLockRegistry lockRegistry) {
+        _lockRegistry = lockRegistry;
+    }
+
+    // The lock of the shop: the products are changed under the write lock and
+    // read under the read lock. All the instances of the same shop share it
+    // through the registry.
+    private ReadWriteLock lock() {
+        if (_lockRegistry != null && shopId != null)
+            return _lockRegistry.getLock(shopId);
+        return _localLock;
+    }
+
+    private Lock readLock() {
+        return lock().readLock();
+    }
+
+    private Lock writeLock() {
+        return lock().writeLock();
+    }
+
+    // set the catalog versions that are bumped when the catalog of the shop changes
+    public void setCatalogVersions(CatalogVersions catalogVersions) {
+        _catalogVersions = catalogVersions;
+    }
+
     // for memory repository
     public void setShopId(int _shopIdCounter) {
         logger.log(Level.INFO, "Shop - setShopId: setting shop id to: " + _shopIdCounter);
@@ -9,6 +9,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.CascadeType; // Add this line
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 
@@ -20,12 +21,18 @@ public class ShopOrder {
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Integer shopOrderId;
 
-    @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JoinColumn(name = "basket_id")
     private ShoppingBasket shoppingBasket;
 
     @Column(name = "total_order_amount", nullable = false)
     private double totalOrderAmount;
+
+    // owns the shop_id column, so adding an order to the history of the shop
+    // doesn't load the whole history
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "shop_id")
+    private Shop shop;
     
 
     // Default constructor
@@ -54,6 +61,10 @@ public class ShopOrder {
         this.shoppingBasket = shoppingBasket;
     }
 
+    void setShop(Shop shop) {
+        this.shop = shop;
+    }
+
     //Helper method to print all products in the order
      private String printAllProduct() 
         {
@@ -1,32 +1,38 @@
 package Domain.Entities;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import Domain.Repositories.InterfaceProductRepository;
 import Exceptions.ProductDoesNotExistsException;
-import Exceptions.ProductOutOfStockExepction;
 import Exceptions.StockMarketException;
+import org.hibernate.annotations.BatchSize;
+import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
-import jakarta.persistence.JoinTable;
-import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.MapKeyJoinColumn;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import Exceptions.ShopPolicyException;
 
-// This class represents a shopping basket that contains a list of products.
+// This class represents a shopping basket that contains products and the
+// quantity of each one of them.
 // The shopping basket can belongs to one and only shop and one user.
 
 @Entity
@@ -36,13 +42,17 @@ public class ShoppingBasket implements Cloneable {
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Integer shoppingBasketId;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "shop_id", nullable = false)
     private Shop shop;
 
-    @ManyToMany(fetch = FetchType.EAGER)
-    @JoinTable(name = "basket_product", joinColumns = @JoinColumn(name = "basket_id"), inverseJoinColumns = @JoinColumn(name = "product_id"))
-    private List<Product> productsList;
+    // one row per product in the basket, with the amount of units of it
+    @ElementCollection(fetch = FetchType.LAZY)
+    @BatchSize(size = 16)
+    @CollectionTable(name = "basket_product_quantity", joinColumns = @JoinColumn(name = "basket_id"))
+    @MapKeyJoinColumn(name = "product_id")
+    @Column(name = "quantity", nullable = false)
+    private Map<Product, Integer> productToQuantity; // <Product, Quantity>
 
     @Column(name = "total_basket_amount", nullable = false)
     private double basketTotalAmount;
@@ -50,6 +60,28 @@ public class ShoppingBasket implements Cloneable {
     @Transient
     private Map<Integer, SortedMap<Double, Integer>> _productToPriceToAmount;
 
+    // bumped on every change of the basket contents
+    @Transient
+    private long _contentsVersion;
+
+    // the versions and validity of the cached basketTotalAmount
+    @Transient
+    private boolean _isPriceCached;
+
+    @Transient
+    private long _pricedContentsVersion;
+
+    @Transient
+    private long _pricedShopVersion;
+
+    @Transient
+    private long _priceValidUntil;
+
+    // when set, the stock is taken and returned with conditional updates of the
+    // product rows instead of in the product entities
+    @Transient
+    private InterfaceProductRepository productRepository;
+
     @Transient
     private static final Logger logger = Logger.getLogger(ShoppingBasket.class.getName());
 
@@ -60,7 +92,7 @@ public class ShoppingBasket implements Cloneable {
     // Constructor
     public ShoppingBasket(Shop shop) {
         this.shop = shop;
-        productsList = new ArrayList<>();
+        productToQuantity = new LinkedHashMap<>();
         basketTotalAmount = 0.0;
         _productToPriceToAmount = new HashMap<>();
     }
@@ -88,8 +120,10 @@ public class ShoppingBasket implements Cloneable {
         }
 
         // add the product to the basket
-        for (int i = 0; i < quantity; i++)
-            productsList.add(shop.getProductById(productId));
+        if (quantity > 0) {
+            productToQuantity.merge(shop.getProductById(productId), quantity, Integer::sum);
+            _contentsVersion++;
+        }
 
         if (user == null) {
             logger.log(Level.FINE,
@@ -104,21 +138,43 @@ public class ShoppingBasket implements Cloneable {
     }
 
     public void removeProductFromShoppingBasket(Product product, int quantity) throws StockMarketException {
-        // check if the product is in the basket
-        for (int i = 0; i < quantity; i++) {
-            if (!getProductIdsList().contains(product.getProductId())) {
-                logger.log(Level.SEVERE,
-                        "ShoppingBasket - removeProductFromShoppingBasket - Product with id " + product.getProductId()
-                                + " is not in the basket of shop with id " + shop.getShopId());
-                throw new ProductDoesNotExistsException(
-                        "Product with id " + product.getProductId() + " is not in the basket");
-            }
-            productsList.remove(product);
+        // check if the product is in the basket, with enough units to remove
+        Product basketProduct = findProductInBasket(product);
+        if (basketProduct == null || productToQuantity.get(basketProduct) < quantity) {
+            logger.log(Level.SEVERE,
+                    "ShoppingBasket - removeProductFromShoppingBasket - Product with id " + product.getProductId()
+                            + " is not in the basket of shop with id " + shop.getShopId());
+            throw new ProductDoesNotExistsException(
+                    "Product with id " + product.getProductId() + " is not in the basket");
         }
+        int newQuantity = productToQuantity.get(basketProduct) - quantity;
+        if (newQuantity == 0)
+            productToQuantity.remove(basketProduct);
+        else
+            productToQuantity.put(basketProduct, newQuantity);
+        _contentsVersion++;
+    }
+
+    // Find the basket entry of the given product - the same instance, or another
+    // instance with the same product id
+    private Product findProductInBasket(Product product) {
+        if (productToQuantity.containsKey(product))
+            return product;
+        if (product == null || product.getProductId() == null)
+            return null;
+        for (Product basketProduct : productToQuantity.keySet()) {
+            if (basketProduct != null && product.getProductId().equals(basketProduct.getProductId()))
+                return basketProduct;
+        }
+        return null;
     }
 
     // Calculate and return the total price of all products in the basket
     public double calculateShoppingBasketPrice() throws StockMarketException {
+        // take the versions before pricing, so a change during the calculation
+        // invalidates the result
+        long contentsVersion = _contentsVersion;
+        long shopVersion = shop.getPricingVersion();
         resetProductToPriceToAmount();
         shop.applyDiscounts(this);
         basketTotalAmount = 0.0;
@@ -136,30 +192,71 @@ public class ShoppingBasket implements Cloneable {
             }
         }
         // }
+        _pricedContentsVersion = contentsVersion;
+        _pricedShopVersion = shopVersion;
+        _priceValidUntil = shop.getDiscountsValidUntil();
+        _isPriceCached = true;
         return basketTotalAmount;
     }
 
-    // Return the total price of all products in the basket
+    // Return the total price of all products in the basket. The price is
+    // calculated again only if the basket contents, the prices of the shop
+    // products or the shop discounts changed since it was last calculated, or if
+    // one of the discounts expired.
     public double getShoppingBasketPrice() throws StockMarketException {
-        if (basketTotalAmount == 0.0)
+        if (!isPriceCacheValid())
             return calculateShoppingBasketPrice();
         return basketTotalAmount;
     }
 
-    // Return the list of products in the basket
+    private boolean isPriceCacheValid() {
+        return _isPriceCached
+                && _pricedContentsVersion == _contentsVersion
+                && _pricedShopVersion == shop.getPricingVersion()
+                && System.currentTimeMillis() < _priceValidUntil;
+    }
+
+    // Return the list of products in the basket, one entry per unit.
+    // Prefer getProductToQuantity() which does not expand the quantities.
     public List<Product> getProductsList() {
-        return productsList;
+        List<Product> products = new ArrayList<>();
+        for (Map.Entry<Product, Integer> entry : productToQuantity.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++)
+                products.add(entry.getKey());
+        }
+        return products;
     }
 
-    // Return the list of product IDs in the basket
+    // Return the list of product IDs in the basket, one entry per unit.
+    // Prefer getProductIdToQuantity() which does not expand the quantities.
     public List<Integer> getProductIdsList() throws StockMarketException {
         List<Integer> products = new ArrayList<>();
-        for (Product product : productsList) {
-            products.add(product.getProductId());
+        for (Map.Entry<Product, Integer> entry : productToQuantity.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++)
+                products.add(entry.getKey().getProductId());
         }
         return products;
     }
 
+    // Return the products in the basket and the quantity of each one of them
+    public Map<Product, Integer> getProductToQuantity() {
+        return Collections.unmodifiableMap(productToQuantity);
+    }
+
+    // Return the distinct products in the basket
+    public Set<Product> getDistinctProducts() {
+        return Collections.unmodifiableSet(productToQuantity.keySet());
+    }
+
+    // Return the product IDs in the basket and the quantity of each one of them
+    public Map<Integer, Integer> getProductIdToQuantity() {
+        Map<Integer, Integer> productIdToQuantity = new LinkedHashMap<>();
+        for (Map.Entry<Product, Integer> entry : productToQuantity.entrySet()) {
+            productIdToQuantity.merge(entry.getKey().getProductId(), entry.getValue(), Integer::sum);
+        }
+        return productIdToQuantity;
+    }
+
     /*
      * Go through the list of products in the basket and purchase them.
      * If an exception is thrown, cancel the purchase of all the products that were
@@ -168,7 +265,7 @@ public class ShoppingBasket implements Cloneable {
     public boolean purchaseBasket(String username) throws StockMarketException {
         logger.log(Level.FINE,
                 "ShoppingBasket - purchaseBasket - Start purchasing basket from shodId: " + shop.getShopId());
-        List<Integer> boughtProductIdList = new ArrayList<>();
+        Map<Product, Integer> reservedProducts = new HashMap<>();
 
         // HERE WE CHECK IF THE SHOP Policy is met.
         try {
@@ -181,23 +278,24 @@ public class ShoppingBasket implements Cloneable {
             throw e;
         }
 
-        for (int productId : getProductIdsList()) {
-            try {
-                shop.getProductById(productId).purchaseProduct();
-                boughtProductIdList.add(productId);
-            } catch (ProductOutOfStockExepction e) {
+        // reserve each line of the basket in one atomic step, if one of them fails
+        // release all the lines that were reserved before it
+        for (Map.Entry<Product, Integer> entry : productToQuantity.entrySet()) {
+            Product product = shop.getProductById(entry.getKey().getProductId());
+            if (!reserve(product, entry.getValue())) {
                 logger.log(Level.SEVERE,
-                        "ShoppingBasket - purchaseBasket - Product out of stock in basket from shopId: "
-                                + shop.getShopId() + ". Exception: " + e.getMessage(),
-                        e);
+                        "ShoppingBasket - purchaseBasket - Product " + product.getProductId()
+                                + " out of stock in basket from shopId: " + shop.getShopId() + ". Requested "
+                                + entry.getValue() + " units.");
                 logger.log(Level.FINE,
                         "ShoppingBasket - purchaseBasket - Canceling purchase of all products from basket from shopId: "
                                 + shop.getShopId());
-                for (int boughtProductId : boughtProductIdList) {
-                    shop.getProductById(boughtProductId).cancelPurchase();
+                for (Map.Entry<Product, Integer> reserved : reservedProducts.entrySet()) {
+                    release(reserved.getKey(), reserved.getValue());
                 }
                 return false;
             }
+            reservedProducts.merge(product, entry.getValue(), Integer::sum);
         }
         notfyPurchaseFromShop(username, getProductIdsList(), shop);
         System.out.println("Finished method purchaseBasket - Returning true.");
@@ -214,18 +312,41 @@ public class ShoppingBasket implements Cloneable {
         logger.log(Level.FINE,
                 "ShoppingBasket - cancelPurchase - Canceling purchase of all products from basket from shodId: "
                         + shop.getShopId());
-        for (Product product : productsList) {
-            product.cancelPurchase();
+        for (Map.Entry<Product, Integer> entry : productToQuantity.entrySet()) {
+            release(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // Take the units from the stock in one atomic step. With a repository the
+    // condition is checked by the database, so buyers on other nodes can't
+    // oversell the stock that was loaded here.
+    private boolean reserve(Product product, int amount) {
+        if (productRepository == null)
+            return product.tryReserve(amount);
+        if (productRepository.decrementStock(product.getProductId(), amount) == 0)
+            return false;
+        shop.onCatalogChanged();
+        return true;
+    }
+
+    private void release(Product product, int amount) {
+        if (productRepository == null) {
+            product.release(amount);
+            return;
         }
+        productRepository.incrementStock(product.getProductId(), amount);
+        shop.onCatalogChanged();
     }
 
-    // Return the number of times a product appears in the basket
+    // Return the number of units of a product in the basket
     public int getProductCount(int productId) {
         int count = 0;
 
-        for (Product product : productsList)
-            if (product.getProductId() == productId)
-                count++;
+        for (Map.Entry<Product, Integer> entry : productToQuantity.entrySet()) {
+            Integer id = entry.getKey().getProductId();
+            if (id != null && id == productId)
+                count += entry.getValue();
+        }
 
         return count;
     }
@@ -240,15 +361,10 @@ public class ShoppingBasket implements Cloneable {
     public void resetProductToPriceToAmount() throws StockMarketException {
         _productToPriceToAmount = new HashMap<>();
 
-        for (Product product : productsList) {
-            double price = product.getPrice();
-            if (!_productToPriceToAmount.containsKey(product.getProductId()))
-                _productToPriceToAmount.put(product.getProductId(), new TreeMap<>());
-            if (!_productToPriceToAmount.get(product.getProductId()).containsKey(price))
-                _productToPriceToAmount.get(product.getProductId()).put(price, 0);
-
-            int oldAmount = _productToPriceToAmount.get(product.getProductId()).get(price);
-            _productToPriceToAmount.get(product.getProductId()).put(price, oldAmount + 1);
+        for (Map.Entry<Product, Integer> entry : productToQuantity.entrySet()) {
+            Product product = entry.getKey();
+            _productToPriceToAmount.computeIfAbsent(product.getProductId(), k -> new TreeMap<>())
+                    .merge(product.getPrice(), entry.getValue(), Integer::sum);
         }
     }
 
@@ -259,7 +375,7 @@ public class ShoppingBasket implements Cloneable {
             ShoppingBasket cloned = (ShoppingBasket) super.clone();
             cloned.shoppingBasketId = null;
             cloned.shop = this.shop;
-            cloned.productsList = new ArrayList<>(productsList);
+            cloned.productToQuantity = new LinkedHashMap<>(productToQuantity);
             cloned._productToPriceToAmount = cloneProductToPriceToAmount();
             return cloned;
         } catch (CloneNotSupportedException e) {
@@ -280,7 +396,7 @@ public class ShoppingBasket implements Cloneable {
     // Print all products in the basket
     public String printAllProducts() {
         StringBuilder sb = new StringBuilder();
-        for (Product product : productsList) {
+        for (Product product : getProductsList()) {
             try {
                 sb.append(product.toString());
             } catch (Exception e) {
@@ -309,7 +425,7 @@ public class ShoppingBasket implements Cloneable {
     }
 
     public boolean isEmpty() {
-        return this.productsList.isEmpty();
+        return this.productToQuantity.isEmpty();
     }
 
     // getters and setters
@@ -342,11 +458,25 @@ public class ShoppingBasket implements Cloneable {
         this.shoppingBasketId = id;
     }
 
+    // Set the products of the basket from a list with one entry per unit
     public void setProductsList(List<Product> productsList) {
-        this.productsList = productsList;
+        this.productToQuantity = new LinkedHashMap<>();
+        for (Product product : productsList)
+            this.productToQuantity.merge(product, 1, Integer::sum);
+        _contentsVersion++;
+    }
+
+    public void setProductToQuantity(Map<Product, Integer> productToQuantity) {
+        this.productToQuantity = new LinkedHashMap<>(productToQuantity);
+        _contentsVersion++;
+    }
+
+    public void setProductRepository(InterfaceProductRepository productRepository) {
+        this.productRepository = productRepository;
     }
 
     public void setShop(Shop shop) {
         this.shop = shop;
+        _isPriceCached = false;
     }
 }
@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import Domain.ExternalServices.CheckoutPipeline;
 import Domain.ExternalServices.PaymentService.AdapterPaymentImp;
 import Domain.ExternalServices.PaymentService.AdapterPaymentInterface;
 import Domain.ExternalServices.PaymentService.ProxyPayment;
@@ -18,8 +19,11 @@ import Domain.ExternalServices.SupplyService.AdapterSupplyInterface;
 import Domain.ExternalServices.SupplyService.ProxySupply;
 import Domain.Facades.ShopFacade;
 import Domain.Repositories.InterfaceOrderRepository;
+import Domain.Repositories.InterfaceProductRepository;
 import Domain.Repositories.InterfaceShopOrderRepository;
 import Domain.Repositories.InterfaceShoppingBasketRepository;
+import Domain.Reservations.StockReservation;
+import Domain.Reservations.StockReservationManager;
 import Dtos.PurchaseCartDetailsDto;
 
 import java.util.Optional;
@@ -78,6 +82,15 @@ public class ShoppingCart {
     @Transient
     private InterfaceShopOrderRepository shopOrderRepository;
 
+    @Transient
+    private InterfaceProductRepository productRepository;
+
+    @Transient
+    private StockReservationManager reservationManager;
+
+    @Transient
+    private CheckoutPipeline checkoutPipeline;
+
     @Column(name = "user_or_guest_name")
     private String user_or_guest_name; // or guestToken string
 
@@ -150,50 +163,99 @@ public class ShoppingCart {
         this.shopOrderRepository = shopOrderRepository;
     }
 
+    // set the repository that takes the stock of the purchased products
+    public void setProductRepository(InterfaceProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    // set the manager that expires the stock reservations of the purchases
+    public void setReservationManager(StockReservationManager reservationManager) {
+        this.reservationManager = reservationManager;
+    }
+
+    // set the pipeline that calls the payment and supply services
+    public void setCheckoutPipeline(CheckoutPipeline checkoutPipeline) {
+        this.checkoutPipeline = checkoutPipeline;
+    }
+
     /*
      * This method is responsible for purchasing the cart.
      * It first calls the purchaseCart method of the shopping cart which reaponsible
-     * for changing the item's stock.
-     * Then it tries to pay and deliver the items.
-     * If the payment or the delivery fails, it cancels the purchase and restock the
-     * item.
+     * for changing the item's stock, and keeps the taken stock as a reservation.
+     * Then it pays and delivers the items, with the calls to the payment and the
+     * supply services running concurrently.
+     * If the payment or the delivery fails, it releases the reservation and restock
+     * the items. If the external services take longer than the ttl of the
+     * reservation, the stock goes back to the shop on its own and the payment and
+     * the delivery are canceled. The payment and the delivery are canceled too if
+     * the purchase fails after them, including when its transaction rolls back,
+     * and then the stock goes back to the shop as well.
      */
     public void purchaseCart(PurchaseCartDetailsDto purchaseCartDetailsDto)
             throws PaymentFailedException, ShippingFailedException, StockMarketException {
+        for (ShoppingBasket shoppingBasket : shoppingBaskets) {
+            shoppingBasket.setProductRepository(productRepository);
+        }
         try {
             purchaseCartEditStock(purchaseCartDetailsDto.getBasketsToBuy());
         } catch (StockMarketException e) {
             logger.log(Level.SEVERE, "StockMarketException has been thrown: " + e.getMessage(), e);
             throw e;
         }
+        StockReservation reservation = reserveStock(purchaseCartDetailsDto.getBasketsToBuy());
+        try {
+            // write the pending changes before paying, so a conflict with another
+            // node fails the purchase while it can still be retried
+            if (productRepository != null)
+                productRepository.flush();
+        } catch (RuntimeException e) {
+            reservation.release();
+            throw e;
+        }
 
         Map<Double, String> priceToShopDetails = new HashMap<>();
         double overallPrice = 0;
 
         for (Integer basketNum : purchaseCartDetailsDto.getBasketsToBuy()) {
             ShoppingBasket shoppingBasket = shoppingBaskets.get(basketNum);
-            double amountToPay = shoppingBasket.calculateShoppingBasketPrice();
+            double amountToPay = shoppingBasket.getShoppingBasketPrice();
             overallPrice += amountToPay;
             priceToShopDetails.put(amountToPay, shoppingBasket.getShopBankDetails());
         }
 
-        int paymentTransactionId = -1;
-        int supplyTransactionId = -1;
+        CheckoutPipeline pipeline = checkoutPipeline != null ? checkoutPipeline
+                : CheckoutPipeline.getDefaultPipeline();
 
+        CheckoutPipeline.Transactions transactions;
         try {
-            if (!paymentMethod.handshake())
-                throw new PaymentFailedException("Payment service is not available");
-
-            if (!supplyMethod.handshake())
-                throw new ShippingFailedException("Shipping service is not available");
+            // fails with the payment or the delivery canceled if only one of them went through
+            transactions = pipeline.checkout(paymentMethod, supplyMethod,
+                    purchaseCartDetailsDto.getPaymentInfo(), overallPrice, purchaseCartDetailsDto.getSupplyInfo());
+        } catch (PaymentFailedException e) {
+            logger.log(Level.SEVERE, "Payment has been failed with exception: " + e.getMessage(), e);
+            reservation.release();
+            throw new PaymentFailedException("Payment failed");
+        } catch (ShippingFailedException e) {
+            logger.log(Level.SEVERE, "Shipping has been failed with exception: " + e.getMessage(), e);
+            reservation.release();
+            throw new ShippingFailedException("Shipping failed");
+        } catch (RuntimeException e) {
+            reservation.release();
+            throw e;
+        }
 
-            paymentTransactionId = paymentMethod.payment(purchaseCartDetailsDto.getPaymentInfo(), overallPrice);
-            if (paymentTransactionId == -1)
-                throw new PaymentFailedException("Payment failed");
+        if (!reservation.confirm()) {
+            logger.log(Level.SEVERE, "ShoppingCart - purchaseCart: the stock reservation expired before the "
+                    + "payment and the delivery completed, canceling them.");
+            pipeline.cancel(paymentMethod, supplyMethod, transactions);
+            throw new PaymentFailedException("The reservation of the products expired");
+        }
 
-            supplyTransactionId = supplyMethod.supply(purchaseCartDetailsDto.getSupplyInfo());
-            if (supplyTransactionId == -1)
-                throw new ShippingFailedException("Shipping failed");
+        // the buyer paid: from here a failure cancels the payment and the delivery,
+        // and the purchase must not be retried
+        try {
+            int paymentTransactionId = transactions.getPaymentTransactionId();
+            int supplyTransactionId = transactions.getSupplyTransactionId();
 
             List<ShoppingBasket> shoppingBasketsForOrder = new ArrayList<>();
             for (Integer basketNum : purchaseCartDetailsDto.getBasketsToBuy()) {
@@ -212,16 +274,17 @@ public class ShoppingCart {
                 shopOrder = shopOrderRepository.save(shopOrder);
                 shoppingBasket.getShop().addOrderToOrderHistory(shopOrder);
             }
-
-        } catch (PaymentFailedException e) {
-            logger.log(Level.SEVERE, "Payment has been failed with exception: " + e.getMessage(), e);
-            cancelPurchaseEditStock(purchaseCartDetailsDto.getBasketsToBuy());
-            throw new PaymentFailedException("Payment failed");
-        } catch (ShippingFailedException e) {
-            logger.log(Level.SEVERE, "Shipping has been failed with exception: " + e.getMessage(), e);
-            cancelPurchaseEditStock(purchaseCartDetailsDto.getBasketsToBuy());
-            throw new ShippingFailedException("Shipping failed");
+        } catch (StockMarketException | RuntimeException e) {
+            logger.log(Level.SEVERE, "ShoppingCart - purchaseCart: failed to save the orders after the payment, "
+                    + "canceling the payment and the delivery. " + e.getMessage(), e);
+            pipeline.cancel(paymentMethod, supplyMethod, transactions);
+            reservation.revoke();
+            throw new PaymentFailedException("The purchase could not be saved, the payment was canceled");
         }
+        // the orders are written when the surrounding transaction commits, the
+        // stock was already taken in transactions of its own
+        pipeline.cancelOnRollback(paymentMethod, supplyMethod, transactions);
+        reservation.revokeOnRollback();
     }
 
     public String getUsernameString() {
@@ -283,6 +346,22 @@ public class ShoppingCart {
         }
     }
 
+    // Keep the stock that was taken for the baskets as a reservation, that
+    // returns it to the shops when it is released or expires.
+    private StockReservation reserveStock(List<Integer> busketsToBuy) {
+        List<Integer> baskets = new ArrayList<>(busketsToBuy);
+        Runnable release = () -> {
+            try {
+                cancelPurchaseEditStock(baskets);
+            } catch (StockMarketException e) {
+                throw new IllegalStateException("Failed to return the reserved stock: " + e.getMessage(), e);
+            }
+        };
+        if (reservationManager == null)
+            return new StockReservation(release);
+        return reservationManager.reserve(release);
+    }
+
     public int getCartSize() {
         return shoppingBaskets.size();
     }
@@ -398,7 +477,7 @@ public class ShoppingCart {
     public Map<Integer, Product> getProducts() throws StockMarketException {
         Map<Integer, Product> products = new HashMap<Integer, Product>();
         for (ShoppingBasket basket : shoppingBaskets) {
-            for (Product product : basket.getProductsList()) {
+            for (Product product : basket.getDistinctProducts()) {
                 products.put(product.getProductId(), product);
             }
         }
@@ -435,7 +514,7 @@ public class ShoppingCart {
     public double getTotalPrice() throws StockMarketException {
         double totalPrice = 0;
         for (ShoppingBasket basket : shoppingBaskets) {
-            totalPrice += basket.calculateShoppingBasketPrice();
+            totalPrice += basket.getShoppingBasketPrice();
         }
         return totalPrice;
     }
@@ -0,0 +1,257 @@
+package Domain.ExternalServices;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import Domain.ExternalServices.PaymentService.AdapterPaymentInterface;
+import Domain.ExternalServices.SupplyService.AdapterSupplyInterface;
+import Dtos.PaymentInfoDto;
+import Dtos.SupplyInfoDto;
+import Exceptions.PaymentFailedException;
+import Exceptions.ShippingFailedException;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Calls the payment and the supply services of a checkout concurrently.
+ *
+ * The two handshakes are sent together, and then the payment and the delivery
+ * are sent together, so a checkout takes about the two slowest calls instead
+ * of the sum of the four. When only one of the payment and the delivery goes
+ * through, it is canceled before the checkout fails.
+ */
+@Component
+public class CheckoutPipeline {
+
+    private static final Logger logger = Logger.getLogger(CheckoutPipeline.class.getName());
+
+    public static final int DEFAULT_THREADS = 16;
+
+    // the calls that don't fit in the queue run on the caller thread
+    private static final int QUEUE_CAPACITY = 1_000;
+
+    private static volatile CheckoutPipeline _defaultPipeline;
+
+    private final ExecutorService _executor;
+
+    /**
+     * @param threads        the size of the pool of the calls
+     * @param virtualThreads run every call on its own virtual thread instead of
+     *                       the pool, when the runtime supports them. The calls
+     *                       mostly wait for the services, so under slow
+     *                       services the pool would limit the concurrent
+     *                       checkouts; the bulkheads of the service clients
+     *                       still limit the calls to each service.
+     */
+    @Autowired
+    public CheckoutPipeline(@Value("${checkout.pipeline.threads:" + DEFAULT_THREADS + "}") int threads,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("Checkout pipeline threads must be positive.");
+        if (virtualThreads && VirtualThreads.isSupported()) {
+            logger.log(Level.INFO, "CheckoutPipeline - CheckoutPipeline: running the calls on virtual threads");
+            _executor = VirtualThreads.newThreadPerTaskExecutor("checkout-");
+        } else {
+            if (virtualThreads)
+                logger.log(Level.WARNING, "CheckoutPipeline - CheckoutPipeline: virtual threads need Java 21, using "
+                        + threads + " platform threads");
+            _executor = newPlatformPool(threads);
+        }
+    }
+
+    public CheckoutPipeline(int threads) {
+        this(threads, false);
+    }
+
+    private static ExecutorService newPlatformPool(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "checkout-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    // the pipeline of the carts that were not given one, e.g. in tests
+    public static CheckoutPipeline getDefaultPipeline() {
+        if (_defaultPipeline == null) {
+            synchronized (CheckoutPipeline.class) {
+                if (_defaultPipeline == null)
+                    _defaultPipeline = new CheckoutPipeline(DEFAULT_THREADS);
+            }
+        }
+        return _defaultPipeline;
+    }
+
+    /**
+     * Pay for a checkout and dispatch its delivery.
+     *
+     * @param paymentMethod the payment service
+     * @param supplyMethod  the supply service
+     * @param paymentInfo   the payment details of the buyer
+     * @param price         the amount to pay
+     * @param supplyInfo    the delivery details of the buyer
+     * @return the transaction ids of the payment and of the delivery
+     * @throws PaymentFailedException  if the payment service is not available or
+     *                                 the payment failed
+     * @throws ShippingFailedException if the supply service is not available or
+     *                                 the delivery failed
+     */
+    public Transactions checkout(AdapterPaymentInterface paymentMethod, AdapterSupplyInterface supplyMethod,
+            PaymentInfoDto paymentInfo, double price, SupplyInfoDto supplyInfo)
+            throws PaymentFailedException, ShippingFailedException {
+        CompletableFuture<Boolean> paymentHandshake = call(paymentMethod::handshake, false, "payment handshake");
+        CompletableFuture<Boolean> supplyHandshake = call(supplyMethod::handshake, false, "supply handshake");
+        if (!paymentHandshake.join())
+            throw new PaymentFailedException("Payment service is not available");
+        if (!supplyHandshake.join())
+            throw new ShippingFailedException("Shipping service is not available");
+
+        CompletableFuture<Transactions> transactions = call(() -> paymentMethod.payment(paymentInfo, price), -1,
+                "payment")
+                .thenCombine(call(() -> supplyMethod.supply(supplyInfo), -1, "supply"), Transactions::new);
+        Transactions result = transactions.join();
+
+        if (result.getPaymentTransactionId() == -1) {
+            if (result.getSupplyTransactionId() != -1)
+                cancelSupply(supplyMethod, result.getSupplyTransactionId());
+            throw new PaymentFailedException("Payment failed");
+        }
+        if (result.getSupplyTransactionId() == -1) {
+            cancelPayment(paymentMethod, result.getPaymentTransactionId());
+            throw new ShippingFailedException("Shipping failed");
+        }
+        return result;
+    }
+
+    /**
+     * Cancel both the payment and the delivery of a checkout that completed,
+     * concurrently.
+     */
+    public void cancel(AdapterPaymentInterface paymentMethod, AdapterSupplyInterface supplyMethod,
+            Transactions transactions) {
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> cancelPayment(paymentMethod, transactions.getPaymentTransactionId()),
+                        _executor),
+                CompletableFuture.runAsync(() -> cancelSupply(supplyMethod, transactions.getSupplyTransactionId()),
+                        _executor))
+                .join();
+    }
+
+    /**
+     * Cancel the payment and the delivery of a checkout if the transaction it
+     * is part of rolls back, e.g. when the orders fail to commit. Outside of a
+     * transaction it does nothing.
+     */
+    public void cancelOnRollback(AdapterPaymentInterface paymentMethod, AdapterSupplyInterface supplyMethod,
+            Transactions transactions) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+        TransactionSynchronizationManager
+                .registerSynchronization(new PaidCheckout(paymentMethod, supplyMethod, transactions));
+    }
+
+    // true if a checkout was paid in the current transaction, so running the
+    // transaction again would charge the buyer again
+    public static boolean isPaidInTransaction() {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.getSynchronizations().stream()
+                        .anyMatch(synchronization -> synchronization instanceof PaidCheckout);
+    }
+
+    // run a call on the pool, a call that throws counts as failed
+    private <T> CompletableFuture<T> call(Supplier<T> call, T failed, String name) {
+        return CompletableFuture.supplyAsync(call, _executor).exceptionally(e -> {
+            logger.log(Level.SEVERE, "CheckoutPipeline - call: " + name + " failed with exception: " + e.getMessage(),
+                    e);
+            return failed;
+        });
+    }
+
+    private static void cancelPayment(AdapterPaymentInterface paymentMethod, int paymentTransactionId) {
+        logger.log(Level.WARNING, "CheckoutPipeline - cancelPayment: canceling payment " + paymentTransactionId);
+        try {
+            if (paymentMethod.cancel_pay(paymentTransactionId) == -1)
+                logger.log(Level.SEVERE,
+                        "CheckoutPipeline - cancelPayment: failed to cancel payment " + paymentTransactionId);
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "CheckoutPipeline - cancelPayment: " + e.getMessage(), e);
+        }
+    }
+
+    private static void cancelSupply(AdapterSupplyInterface supplyMethod, int supplyTransactionId) {
+        logger.log(Level.WARNING, "CheckoutPipeline - cancelSupply: canceling supply " + supplyTransactionId);
+        try {
+            if (supplyMethod.cancel_supply(supplyTransactionId) == -1)
+                logger.log(Level.SEVERE,
+                        "CheckoutPipeline - cancelSupply: failed to cancel supply " + supplyTransactionId);
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "CheckoutPipeline - cancelSupply: " + e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        _executor.shutdown();
+    }
+
+    // cancels a paid checkout when its transaction rolls back
+    private class PaidCheckout implements TransactionSynchronization {
+        private final AdapterPaymentInterface _paymentMethod;
+        private final AdapterSupplyInterface _supplyMethod;
+        private final Transactions _transactions;
+
+        private PaidCheckout(AdapterPaymentInterface paymentMethod, AdapterSupplyInterface supplyMethod,
+                Transactions transactions) {
+            _paymentMethod = paymentMethod;
+            _supplyMethod = supplyMethod;
+            _transactions = transactions;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status != STATUS_ROLLED_BACK)
+                return;
+            logger.log(Level.SEVERE, "CheckoutPipeline - afterCompletion: the purchase rolled back after it was "
+                    + "paid, canceling the payment and the delivery");
+            cancel(_paymentMethod, _supplyMethod, _transactions);
+        }
+    }
+
+    /**
+     * The transaction ids of the payment and of the delivery of a checkout, -1
+     * for a call that failed.
+     */
+    public static class Transactions {
+        private final int _paymentTransactionId;
+        private final int _supplyTransactionId;
+
+        public Transactions(int paymentTransactionId, int supplyTransactionId) {
+            _paymentTransactionId = paymentTransactionId;
+            _supplyTransactionId = supplyTransactionId;
+        }
+
+        public int getPaymentTransactionId() {
+            return _paymentTransactionId;
+        }
+
+        public int getSupplyTransactionId() {
+            return _supplyTransactionId;
+        }
+    }
+}
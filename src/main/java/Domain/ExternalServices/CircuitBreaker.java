@@ -0,0 +1,94 @@
+package Domain.ExternalServices;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Circuit breaker of an external service.
+ *
+ * Closed, the calls go through. After failureThreshold failures in a row the
+ * breaker opens, and for openMillis every call fails right away without
+ * reaching the service. Then it is half open: a single trial call goes
+ * through, and closes the breaker if it succeeds or opens it again if it
+ * fails.
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = Logger.getLogger(CircuitBreaker.class.getName());
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String _name;
+    private final int _failureThreshold;
+    private final long _openNanos;
+
+    private State _state;
+    private int _failures;
+    private long _openedAt;
+    private boolean _isTrialRunning;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        if (failureThreshold <= 0 || openMillis <= 0)
+            throw new IllegalArgumentException("Failure threshold and open time must be positive.");
+        _name = name;
+        _failureThreshold = failureThreshold;
+        _openNanos = openMillis * 1_000_000;
+        _state = State.CLOSED;
+    }
+
+    /**
+     * Returns true if a call may go to the service now. A caller that got true
+     * must report the outcome with onSuccess or onFailure.
+     */
+    public synchronized boolean allowRequest() {
+        switch (_state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - _openedAt < _openNanos)
+                    return false;
+                _state = State.HALF_OPEN;
+                _isTrialRunning = true;
+                logger.log(Level.INFO, "CircuitBreaker - allowRequest: " + _name + " is half open, trying a call");
+                return true;
+            default:
+                // half open: only the trial call goes through
+                if (_isTrialRunning)
+                    return false;
+                _isTrialRunning = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (_state != State.CLOSED)
+            logger.log(Level.INFO, "CircuitBreaker - onSuccess: " + _name + " is closed again");
+        _state = State.CLOSED;
+        _failures = 0;
+        _isTrialRunning = false;
+    }
+
+    public synchronized void onFailure() {
+        _isTrialRunning = false;
+        if (_state == State.HALF_OPEN || ++_failures >= _failureThreshold) {
+            if (_state != State.OPEN)
+                logger.log(Level.WARNING, "CircuitBreaker - onFailure: " + _name + " is open after " + _failures
+                        + " failures");
+            _state = State.OPEN;
+            _openedAt = System.nanoTime();
+        }
+    }
+
+    public synchronized State getState() {
+        // an open breaker whose time passed reports half open, as the next call would find it
+        if (_state == State.OPEN && System.nanoTime() - _openedAt >= _openNanos)
+            return State.HALF_OPEN;
+        return _state;
+    }
+
+    public String getName() {
+        return _name;
+    }
+}
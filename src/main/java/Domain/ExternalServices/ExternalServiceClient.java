@@ -0,0 +1,141 @@
+package Domain.ExternalServices;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * HTTP client of an external service: the payment or the supply system.
+ *
+ * All the services share one JDK HttpClient, which keeps the connections alive
+ * and reuses them, with a connect timeout. Every call has a deadline (the read
+ * timeout), goes through a bulkhead that limits the concurrent calls to the
+ * service, and through the circuit breaker of the service. When the bulkhead
+ * is full or the breaker is open the call fails right away, so a slow or dead
+ * service can't take over the request threads of the checkouts.
+ */
+public class ExternalServiceClient {
+
+    private static final Logger logger = Logger.getLogger(ExternalServiceClient.class.getName());
+
+    public static final long DEFAULT_CONNECT_TIMEOUT_MILLIS = 2_000;
+    public static final long DEFAULT_READ_TIMEOUT_MILLIS = 5_000;
+    public static final int DEFAULT_MAX_CONCURRENT_CALLS = 20;
+    public static final long DEFAULT_BULKHEAD_WAIT_MILLIS = 100;
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_MILLIS = 30_000;
+
+    private static volatile HttpClient _sharedHttpClient;
+
+    private final String _url;
+    private final RestTemplate _restTemplate;
+    private final Semaphore _bulkhead;
+    private final long _bulkheadWaitMillis;
+    private final CircuitBreaker _circuitBreaker;
+
+    public ExternalServiceClient(String url, long readTimeoutMillis, int maxConcurrentCalls, long bulkheadWaitMillis,
+            CircuitBreaker circuitBreaker) {
+        if (maxConcurrentCalls <= 0)
+            throw new IllegalArgumentException("Max concurrent calls must be positive.");
+        _url = url;
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(getSharedHttpClient());
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+        _restTemplate = new RestTemplate(requestFactory);
+        _bulkhead = new Semaphore(maxConcurrentCalls);
+        _bulkheadWaitMillis = bulkheadWaitMillis;
+        _circuitBreaker = circuitBreaker;
+    }
+
+    public ExternalServiceClient(String name, String url) {
+        this(url, DEFAULT_READ_TIMEOUT_MILLIS, DEFAULT_MAX_CONCURRENT_CALLS, DEFAULT_BULKHEAD_WAIT_MILLIS,
+                new CircuitBreaker(name, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS));
+    }
+
+    private static HttpClient getSharedHttpClient() {
+        if (_sharedHttpClient == null) {
+            synchronized (ExternalServiceClient.class) {
+                if (_sharedHttpClient == null) {
+                    _sharedHttpClient = HttpClient.newBuilder()
+                            .version(HttpClient.Version.HTTP_1_1)
+                            .connectTimeout(Duration.ofMillis(DEFAULT_CONNECT_TIMEOUT_MILLIS))
+                            .build();
+                }
+            }
+        }
+        return _sharedHttpClient;
+    }
+
+    /**
+     * Post a form to the service.
+     *
+     * @param request the form and its headers
+     * @return the response of the service
+     * @throws ExternalServiceUnavailableException if the call was rejected by
+     *                                             the bulkhead or the breaker
+     * @throws RuntimeException                    if the call failed or timed out
+     */
+    public ResponseEntity<String> post(HttpEntity<?> request) {
+        if (!acquire())
+            throw new ExternalServiceUnavailableException(
+                    "Too many concurrent calls to " + _circuitBreaker.getName());
+        try {
+            if (!_circuitBreaker.allowRequest()) {
+                logger.log(Level.FINE, "ExternalServiceClient - post: " + _circuitBreaker.getName()
+                        + " breaker is open, failing fast");
+                throw new ExternalServiceUnavailableException(_circuitBreaker.getName() + " is unavailable");
+            }
+            try {
+                ResponseEntity<String> response = _restTemplate.postForEntity(_url, request, String.class);
+                _circuitBreaker.onSuccess();
+                return response;
+            } catch (HttpClientErrorException e) {
+                // the service answered, the request was wrong
+                _circuitBreaker.onSuccess();
+                throw e;
+            } catch (RuntimeException e) {
+                // a timeout, a connection error or a 5xx response
+                _circuitBreaker.onFailure();
+                throw e;
+            }
+        } finally {
+            _bulkhead.release();
+        }
+    }
+
+    private boolean acquire() {
+        try {
+            return _bulkhead.tryAcquire(_bulkheadWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // false while the breaker is open, calls would fail right away
+    public boolean isAvailable() {
+        return _circuitBreaker.getState() != CircuitBreaker.State.OPEN;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return _circuitBreaker;
+    }
+
+    /**
+     * Thrown when a call is not sent because the service is known to be
+     * unavailable or overloaded.
+     */
+    public static class ExternalServiceUnavailableException extends RuntimeException {
+        public ExternalServiceUnavailableException(String message) {
+            super(message);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import java.util.Map;
 
 import org.springframework.stereotype.Component;
 
+import Domain.ExternalServices.PaymentService.AdapterPaymentImp;
+import Domain.ExternalServices.SupplyService.AdapterSupplyImp;
 import Dtos.ExternalServiceDto;
 
 /**
@@ -23,6 +25,8 @@ public class ExternalServiceHandler {
 
     /**
      * Connects to all external services.
+     * The payment and the supply systems are not connected while their circuit
+     * breakers are open.
      * @return true if all services are successfully connected, false otherwise.
      */
     public boolean connectToServices() {
@@ -31,7 +35,8 @@ public class ExternalServiceHandler {
                 return false;
             }
         }
-        return true;
+        return AdapterPaymentImp.getRealAdapterPayment().ConnectToService()
+                && AdapterSupplyImp.getAdapterSupply().ConnectToService();
     }
 
     // add payment service when initializing the system
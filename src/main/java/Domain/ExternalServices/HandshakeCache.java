@@ -0,0 +1,57 @@
+package Domain.ExternalServices;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Remembers a successful handshake with an external service for a short
+ * validity window, so back to back purchases don't pay a round trip each to
+ * learn that the service is up.
+ *
+ * Only successes are remembered: a failed handshake is tried again on the next
+ * call, so a service that comes back is used right away.
+ */
+public class HandshakeCache {
+
+    public static final long DEFAULT_VALIDITY_MILLIS = 30_000;
+
+    private final long _validityMillis;
+
+    // the time in nanos until which the last successful handshake is trusted
+    private volatile long _validUntil;
+    private volatile boolean _isValid;
+
+    public HandshakeCache(long validityMillis) {
+        if (validityMillis < 0)
+            throw new IllegalArgumentException("Handshake validity can not be negative.");
+        _validityMillis = validityMillis;
+    }
+
+    public HandshakeCache() {
+        this(DEFAULT_VALIDITY_MILLIS);
+    }
+
+    /**
+     * Returns true if a handshake succeeded within the validity window, and
+     * otherwise makes a new handshake.
+     *
+     * @param handshake makes a handshake with the service
+     * @return the result of the handshake
+     */
+    public boolean check(BooleanSupplier handshake) {
+        if (_isValid && System.nanoTime() - _validUntil < 0)
+            return true;
+        boolean result = handshake.getAsBoolean();
+        if (result) {
+            _validUntil = System.nanoTime() + _validityMillis * 1_000_000;
+            _isValid = true;
+        } else {
+            _isValid = false;
+        }
+        return result;
+    }
+
+    // forget the last handshake, e.g. after a call to the service failed
+    public void invalidate() {
+        _isValid = false;
+    }
+}
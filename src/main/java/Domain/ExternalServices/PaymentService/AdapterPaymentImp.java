@@ -3,6 +3,7 @@ package Domain.ExternalServices.PaymentService;
 import java.util.logging.Logger;
 
 import Domain.ExternalServices.ExternalService;
+import Domain.ExternalServices.HandshakeCache;
 import Dtos.PaymentInfoDto;
 
 public class AdapterPaymentImp extends ExternalService implements AdapterPaymentInterface{
@@ -10,6 +11,7 @@ public class AdapterPaymentImp extends ExternalService implements AdapterPayment
     // private fields
     private static AdapterPaymentImp _adapterPayment;
     private RealPayment _paymentService;
+    private final HandshakeCache _handshakeCache = new HandshakeCache();
     private static final Logger logger = Logger.getLogger(AdapterPaymentImp.class.getName());
 
     public AdapterPaymentImp(int id, String newSerivceName, String informationPersonName, String informationPersonPhone) {
@@ -28,19 +30,23 @@ public class AdapterPaymentImp extends ExternalService implements AdapterPayment
     public boolean ConnectToService() {
         // Connect to the payment service
         logger.info("Connecting to the payment service");
-        return true;
+        // not connected while the circuit breaker of the service is open
+        return _paymentService.isAvailable();
     }
 
     @Override
     public boolean handshake() {
         logger.info("Starting handshake with the payment service");
-        return _paymentService.handshake();
+        return _handshakeCache.check(_paymentService::handshake);
     }
 
     @Override
     public int payment(PaymentInfoDto paymentInfo, double price) {
         logger.info("Paying for the cart");
-        return _paymentService.payment(paymentInfo, price);
+        int transactionId = _paymentService.payment(paymentInfo, price);
+        if (transactionId == -1)
+            _handshakeCache.invalidate();
+        return transactionId;
     }
 
     @Override
@@ -1,18 +1,32 @@
 package Domain.ExternalServices.PaymentService;
 
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 import org.springframework.http.*;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
 
+import Domain.ExternalServices.ExternalServiceClient;
 import Dtos.PaymentInfoDto;
 
 public class RealPayment{
     private String externalSystemUrl = "https://damp-lynna-wsep-1984852e.koyeb.app/";
-    RestTemplate restTemplate;
+    private final ExternalServiceClient _client;
+    private static final Logger logger = Logger.getLogger(RealPayment.class.getName());
 
     public RealPayment() {
-        restTemplate = new RestTemplate();
+        _client = new ExternalServiceClient("payment service", externalSystemUrl);
+    }
+
+    // for tests, e.g. against a local stub of the service
+    public RealPayment(ExternalServiceClient client) {
+        _client = client;
+    }
+
+    // false while the breaker of the service is open
+    public boolean isAvailable() {
+        return _client.isAvailable();
     }
     
     public boolean handshake(){
@@ -23,14 +37,14 @@ public class RealPayment{
         HttpEntity<String> request = new HttpEntity<>("action_type=handshake", headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.postForEntity(externalSystemUrl, request, String.class);
+            ResponseEntity<String> response = _client.post(request);
 
             // Check if response is "OK"
             if (response.getStatusCode() == HttpStatus.OK && "OK".equals(response.getBody())) {
                 return true;
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.log(Level.WARNING, "RealPayment - call to the payment service failed: " + e.getMessage());
         }
 
         return false;
@@ -58,14 +72,14 @@ public class RealPayment{
 
         try {
             // Send POST request
-            ResponseEntity<String> response = restTemplate.postForEntity(externalSystemUrl, request, String.class);
+            ResponseEntity<String> response = _client.post(request);
 
             // Parse the response to an integer
             if (response.getStatusCode() == HttpStatus.OK) {
                 return Integer.parseInt(response.getBody());
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.log(Level.WARNING, "RealPayment - call to the payment service failed: " + e.getMessage());
         }
 
         return -1; // Return -1 if payment failed
@@ -81,14 +95,14 @@ public class RealPayment{
         HttpEntity<String> request = new HttpEntity<>(formData, headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.postForEntity(externalSystemUrl, request, String.class);
+            ResponseEntity<String> response = _client.post(request);
 
             // Check the response and parse it to integer
             if (response.getStatusCode() == HttpStatus.OK) {
                 return Integer.parseInt(response.getBody());
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.log(Level.WARNING, "RealPayment - call to the payment service failed: " + e.getMessage());
         }
 
         return -1; // Return -1 if cancellation failed
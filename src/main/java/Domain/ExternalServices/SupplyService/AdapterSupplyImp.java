@@ -3,6 +3,7 @@ package Domain.ExternalServices.SupplyService;
 import java.util.logging.Logger;
 
 import Domain.ExternalServices.ExternalService;
+import Domain.ExternalServices.HandshakeCache;
 import Dtos.SupplyInfoDto;
 
 public class AdapterSupplyImp extends ExternalService implements AdapterSupplyInterface{
@@ -10,6 +11,7 @@ public class AdapterSupplyImp extends ExternalService implements AdapterSupplyIn
     // private fields
     private static AdapterSupplyImp _AdapterSupply;
     private RealSupply _supplyService;
+    private final HandshakeCache _handshakeCache = new HandshakeCache();
     private static final Logger logger = Logger.getLogger(AdapterSupplyImp.class.getName());
 
     private AdapterSupplyImp(int id, String newSerivceName, String informationPersonName, String informationPersonPhone) {
@@ -33,20 +35,23 @@ public class AdapterSupplyImp extends ExternalService implements AdapterSupplyIn
     public boolean ConnectToService() {
         // Connect to the supply service
         logger.info("Connecting to the Supply service");
-
-        return true;
+        // not connected while the circuit breaker of the service is open
+        return _supplyService.isAvailable();
     }
 
     @Override
     public boolean handshake() {
         logger.info("Starting handshake with the supply service");
-        return _supplyService.handshake();
+        return _handshakeCache.check(_supplyService::handshake);
     }
 
     @Override
     public int supply(SupplyInfoDto supplyInfo) {
         logger.info("Supplying the cart");
-        return _supplyService.supply(supplyInfo);
+        int transactionId = _supplyService.supply(supplyInfo);
+        if (transactionId == -1)
+            _handshakeCache.invalidate();
+        return transactionId;
     }
 
     @Override
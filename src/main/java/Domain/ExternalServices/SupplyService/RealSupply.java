@@ -1,19 +1,33 @@
 package Domain.ExternalServices.SupplyService;
 
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 import org.springframework.http.*;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
 
+import Domain.ExternalServices.ExternalServiceClient;
 import Dtos.SupplyInfoDto;
 
 public class RealSupply {
 
     private String externalSystemUrl = "https://damp-lynna-wsep-1984852e.koyeb.app/";
-    RestTemplate restTemplate;
+    private final ExternalServiceClient _client;
+    private static final Logger logger = Logger.getLogger(RealSupply.class.getName());
 
     public RealSupply() {
-        restTemplate = new RestTemplate();
+        _client = new ExternalServiceClient("supply service", externalSystemUrl);
+    }
+
+    // for tests, e.g. against a local stub of the service
+    public RealSupply(ExternalServiceClient client) {
+        _client = client;
+    }
+
+    // false while the breaker of the service is open
+    public boolean isAvailable() {
+        return _client.isAvailable();
     }
 
     public boolean handshake() {
@@ -24,14 +38,14 @@ public class RealSupply {
         HttpEntity<String> request = new HttpEntity<>("action_type=handshake", headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.postForEntity(externalSystemUrl, request, String.class);
+            ResponseEntity<String> response = _client.post(request);
 
             // Check if response is "OK"
             if (response.getStatusCode() == HttpStatus.OK && "OK".equals(response.getBody())) {
                 return true;
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.log(Level.WARNING, "RealSupply - call to the supply service failed: " + e.getMessage());
         }
 
         return false;
@@ -56,14 +70,14 @@ public class RealSupply {
 
         try {
             // Send POST request
-            ResponseEntity<String> response = restTemplate.postForEntity(externalSystemUrl, request, String.class);
+            ResponseEntity<String> response = _client.post(request);
 
             // Parse the response to an integer
             if (response.getStatusCode() == HttpStatus.OK) {
                 return Integer.parseInt(response.getBody());
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.log(Level.WARNING, "RealSupply - call to the supply service failed: " + e.getMessage());
         }
 
         return -1; // Return -1 if supply failed
@@ -79,14 +93,14 @@ public class RealSupply {
         HttpEntity<String> request = new HttpEntity<>(formData, headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.postForEntity(externalSystemUrl, request, String.class);
+            ResponseEntity<String> response = _client.post(request);
 
             // Check the response and parse it to integer
             if (response.getStatusCode() == HttpStatus.OK) {
                 return Integer.parseInt(response.getBody());
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.log(Level.WARNING, "RealSupply - call to the supply service failed: " + e.getMessage());
         }
 
         return -1; // Return -1 if cancellation failed
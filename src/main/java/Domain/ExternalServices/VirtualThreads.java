@@ -0,0 +1,61 @@
+package Domain.ExternalServices;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates executors that run each task on its own virtual thread.
+ *
+ * The project still compiles for Java 17, where virtual threads don't exist, so
+ * they are looked up by reflection: on a Java 21 runtime (see the java21 maven
+ * profile) the executors are created, and on an older runtime isSupported
+ * returns false and the callers keep their platform thread pools.
+ */
+public final class VirtualThreads {
+
+    // Java 19 and 20 have them only as a preview feature
+    private static final Method OF_VIRTUAL = Runtime.version().feature() >= 21
+            ? findMethod(Thread.class, "ofVirtual")
+            : null;
+
+    private VirtualThreads() {
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Create an executor that starts a new virtual thread for every task.
+     *
+     * @param namePrefix the prefix of the names of the threads, followed by a
+     *                   counter
+     * @throws UnsupportedOperationException if the runtime has no virtual
+     *                                       threads
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        if (!isSupported())
+            throw new UnsupportedOperationException(
+                    "Virtual threads need Java 21, running on Java " + Runtime.version().feature());
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create a virtual thread executor", e);
+        }
+    }
+}
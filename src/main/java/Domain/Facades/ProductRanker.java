@@ -0,0 +1,132 @@
+package Domain.Facades;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import Domain.Entities.Product;
+import Domain.Entities.Shop;
+
+/**
+ * Keeps the best products of a search by score, without sorting all of them.
+ *
+ * The score of a product is a weighted sum of the amount of query keywords
+ * it matches, its rating, the rating of its shop, and a bonus when it is in
+ * stock. The products are offered one by one to a min-heap bounded to
+ * offset + limit entries: a product that doesn't beat the worst kept entry is
+ * dropped right away, so ranking n products costs O(n log K) and the memory
+ * stays at K entries whatever the size of the catalog.
+ */
+public class ProductRanker {
+
+    public static final double KEYWORD_WEIGHT = 2.0;
+    public static final double PRODUCT_RATING_WEIGHT = 1.0;
+    public static final double SHOP_RATING_WEIGHT = 0.5;
+    public static final double IN_STOCK_BONUS = 1.0;
+
+    // the worst kept entry first, ties broken by ids so the order is stable
+    private static final Comparator<Ranked> WORST_FIRST = Comparator.comparingDouble(Ranked::getScore)
+            .thenComparing(Ranked::getShopId, Comparator.reverseOrder())
+            .thenComparing(Ranked::getProductId, Comparator.reverseOrder());
+
+    private final List<String> _keywords;
+    private final int _offset;
+    private final int _limit;
+    private final PriorityQueue<Ranked> _heap;
+
+    /**
+     * @param keywords the keywords of the query, or null
+     * @param offset   the amount of best products to skip
+     * @param limit    the amount of products to return after the offset
+     */
+    public ProductRanker(List<String> keywords, int offset, int limit) {
+        if (offset < 0 || limit <= 0)
+            throw new IllegalArgumentException("Offset must not be negative and limit must be positive.");
+        _keywords = keywords == null ? Collections.emptyList() : keywords;
+        _offset = offset;
+        _limit = limit;
+        _heap = new PriorityQueue<>(offset + limit + 1, WORST_FIRST);
+    }
+
+    /**
+     * Offer a product of a shop to the ranking.
+     *
+     * @param shop    the shop of the product
+     * @param product the product
+     */
+    public void offer(Shop shop, Product product) {
+        Ranked ranked = new Ranked(shop, product, score(shop, product));
+        if (_heap.size() < _offset + _limit) {
+            _heap.add(ranked);
+        } else if (WORST_FIRST.compare(ranked, _heap.peek()) > 0) {
+            _heap.poll();
+            _heap.add(ranked);
+        }
+    }
+
+    /**
+     * Returns the ranked products, best first, after skipping the offset.
+     */
+    public List<Ranked> getResults() {
+        List<Ranked> best = new ArrayList<>(_heap);
+        best.sort(WORST_FIRST.reversed());
+        if (_offset >= best.size())
+            return new ArrayList<>();
+        return new ArrayList<>(best.subList(_offset, best.size()));
+    }
+
+    public double score(Shop shop, Product product) {
+        int keywordMatches = 0;
+        for (String keyword : _keywords) {
+            if (keyword != null && product.isKeywordExist(keyword))
+                keywordMatches++;
+        }
+        Integer quantity = product.getProductQuantity();
+        return KEYWORD_WEIGHT * keywordMatches
+                + PRODUCT_RATING_WEIGHT * rating(product.getProductRating())
+                + SHOP_RATING_WEIGHT * rating(shop.getShopRating())
+                + (quantity != null && quantity > 0 ? IN_STOCK_BONUS : 0);
+    }
+
+    // an unrated product or shop has the rating -1, it counts as 0
+    private static double rating(Double rating) {
+        return rating == null || rating < 0 ? 0 : rating;
+    }
+
+    /**
+     * A product with its shop and score.
+     */
+    public static class Ranked {
+        private final Shop _shop;
+        private final Product _product;
+        private final double _score;
+
+        private Ranked(Shop shop, Product product, double score) {
+            _shop = shop;
+            _product = product;
+            _score = score;
+        }
+
+        public Shop getShop() {
+            return _shop;
+        }
+
+        public Product getProduct() {
+            return _product;
+        }
+
+        public double getScore() {
+            return _score;
+        }
+
+        private Integer getShopId() {
+            return _shop.getId() == null ? -1 : _shop.getShopId();
+        }
+
+        private Integer getProductId() {
+            return _product.getProductId() == null ? -1 : _product.getProductId();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package Domain.Facades;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -10,6 +12,7 @@ import java.util.stream.Collectors;
 import java.util.logging.Logger;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -39,6 +42,12 @@ import Domain.Entities.Rules.Rule;
 import Domain.Entities.Rules.RuleFactory;
 import Domain.Entities.enums.Category;
 import Domain.Entities.enums.Permission;
+import Domain.Indexes.CatalogVersions;
+import Domain.Indexes.ProductCategoryIndex;
+import Domain.Indexes.ProductKeywordIndex;
+import Domain.Indexes.ProductPriceIndex;
+import Domain.Indexes.ShopNameIndex;
+import Domain.Locks.ShopLockRegistry;
 import Domain.Repositories.DbDiscountRepository;
 import Domain.Repositories.DbPolicyRepository;
 import Domain.Repositories.DbProductRepository;
@@ -51,6 +60,7 @@ import Domain.Repositories.InterfaceRoleRepository;
 import Domain.Repositories.InterfaceShopRepository;
 import Dtos.BasicDiscountDto;
 import Dtos.ConditionalDiscountDto;
+import Dtos.CursorPageDto;
 import Dtos.ProductDto;
 import Dtos.ProductGetterDto;
 import Dtos.ShopDto;
@@ -74,8 +84,44 @@ public class ShopFacade {
     private InterfacePolicyRepository _policyRepository;
     private NotificationHandler _notificationHandler;
 
+    // keyword -> (shopId -> productIds), built lazily on the first keyword search
+    private final ProductKeywordIndex _keywordIndex = new ProductKeywordIndex();
+    private volatile boolean _isKeywordIndexBuilt = false;
+
+    // products sorted by price, per shop and global, built lazily on the first
+    // price range search
+    private final ProductPriceIndex _priceIndex = new ProductPriceIndex();
+    private volatile boolean _isPriceIndexBuilt = false;
+
+    // category -> bitmap of product ordinals, also used to intersect the results
+    // of the other indexes, built lazily on the first category or combined search
+    private final ProductCategoryIndex _categoryIndex = new ProductCategoryIndex();
+    private volatile boolean _isCategoryIndexBuilt = false;
+
+    // shop name -> shopId and trigram -> shopIds, built lazily on the first
+    // lookup of a shop by its name
+    private final ShopNameIndex _shopNameIndex = new ShopNameIndex();
+    private volatile boolean _isShopNameIndexBuilt = false;
+
+    // bumped on every change to the products of a shop, for the search cache
+    private final CatalogVersions _catalogVersions = new CatalogVersions();
+
+    // the read/write locks of the shops, by shop id
+    private final ShopLockRegistry _lockRegistry = new ShopLockRegistry();
+
+    // runs the cross-shop searches that have no index, in parallel for big
+    // catalogs. Replaced by the configured bean when running in Spring.
+    private ShopSearchExecutor _searchExecutor = new ShopSearchExecutor();
+
     private static final Logger logger = Logger.getLogger(ShopFacade.class.getName());
 
+    // the largest page of purchase history returned by a single call
+    public static final int MAX_HISTORY_PAGE_SIZE = 100;
+
+    // the largest page of a ranked search, and the deepest offset + limit
+    public static final int MAX_RANKED_LIMIT = 100;
+    public static final int MAX_RANKED_WINDOW = 1000;
+
     @Autowired
     public ShopFacade(DbShopRepository shopRepository, DbProductRepository productRepository,
             DbRoleRepository roleRepository, UserFacade userFacade, NotificationHandler notificationHandler,
@@ -106,14 +152,154 @@ public class ShopFacade {
         _roleRepository = roleRepository;
         _discountRepository = discountRepository;
         _policyRepository = policyRepository;
+        resetIndexes();
+    }
+
+    @Autowired(required = false)
+    public void setShopSearchExecutor(ShopSearchExecutor searchExecutor) {
+        _searchExecutor = searchExecutor;
     }
 
     public Shop getShopByShopId(Integer shopId) {
-        Shop shop = _shopRepository.findByShopId(shopId);
+        return attachShop(_shopRepository.findByShopId(shopId));
+    }
+
+    // Get a shop with its products and policy already loaded, for pricing and
+    // purchasing the baskets of the shop.
+    public Shop getShopForPurchase(Integer shopId) {
+        return attachShop(_shopRepository.findForPurchaseByShopId(shopId));
+    }
+
+    private Shop attachShop(Shop shop) {
         shop.setNotificationHandler(_notificationHandler);
+        shop.setKeywordIndex(_keywordIndex);
+        shop.setPriceIndex(_priceIndex);
+        shop.setCategoryIndex(_categoryIndex);
+        shop.setShopNameIndex(_shopNameIndex);
+        shop.setCatalogVersions(_catalogVersions);
+        shop.setLockRegistry(_lockRegistry);
         return shop;
     }
 
+    // Build the keyword index from all the shops in the system, only once.
+    // Afterwards the shops keep it up to date when their products change.
+    private void ensureKeywordIndexBuilt() {
+        if (_isKeywordIndexBuilt)
+            return;
+        synchronized (_keywordIndex) {
+            if (_isKeywordIndexBuilt)
+                return;
+            logger.info("ShopFacade - ensureKeywordIndexBuilt: building the product keyword index.");
+            for (Shop shop : _shopRepository.findAllForSearch()) {
+                shop.setKeywordIndex(_keywordIndex);
+                shop.setCatalogVersions(_catalogVersions);
+                shop.setLockRegistry(_lockRegistry);
+                _keywordIndex.indexShop(shop);
+            }
+            _isKeywordIndexBuilt = true;
+        }
+    }
+
+    // Same as the keyword index, for the price index
+    private void ensurePriceIndexBuilt() {
+        if (_isPriceIndexBuilt)
+            return;
+        synchronized (_priceIndex) {
+            if (_isPriceIndexBuilt)
+                return;
+            logger.info("ShopFacade - ensurePriceIndexBuilt: building the product price index.");
+            Collection<Shop> shops = _shopRepository.findAllForSearch();
+            for (Shop shop : shops) {
+                shop.setPriceIndex(_priceIndex);
+                shop.setCatalogVersions(_catalogVersions);
+                shop.setLockRegistry(_lockRegistry);
+            }
+            _priceIndex.indexShops(shops);
+            _isPriceIndexBuilt = true;
+        }
+    }
+
+    // Same as the keyword index, for the category index
+    private void ensureCategoryIndexBuilt() {
+        if (_isCategoryIndexBuilt)
+            return;
+        synchronized (_categoryIndex) {
+            if (_isCategoryIndexBuilt)
+                return;
+            logger.info("ShopFacade - ensureCategoryIndexBuilt: building the product category index.");
+            Collection<Shop> shops = _shopRepository.findAllForSearch();
+            for (Shop shop : shops) {
+                shop.setCategoryIndex(_categoryIndex);
+                shop.setCatalogVersions(_catalogVersions);
+                shop.setLockRegistry(_lockRegistry);
+            }
+            _categoryIndex.indexShops(shops);
+            _isCategoryIndexBuilt = true;
+        }
+    }
+
+    // Same as the keyword index, for the shop name index. Only the names are
+    // needed, so the shops are read as DTOs without loading the entities.
+    private void ensureShopNameIndexBuilt() {
+        if (_isShopNameIndexBuilt)
+            return;
+        synchronized (_shopNameIndex) {
+            if (_isShopNameIndexBuilt)
+                return;
+            logger.info("ShopFacade - ensureShopNameIndexBuilt: building the shop name index.");
+            for (ShopDto shopDto : _shopRepository.findAllShopDtos()) {
+                _shopNameIndex.indexShop(shopDto.shopId, shopDto.shopName);
+            }
+            _isShopNameIndexBuilt = true;
+        }
+    }
+
+    private void resetIndexes() {
+        synchronized (_keywordIndex) {
+            _keywordIndex.clear();
+            _isKeywordIndexBuilt = false;
+        }
+        synchronized (_priceIndex) {
+            _priceIndex.clear();
+            _isPriceIndexBuilt = false;
+        }
+        synchronized (_categoryIndex) {
+            _categoryIndex.clear();
+            _isCategoryIndexBuilt = false;
+        }
+        synchronized (_shopNameIndex) {
+            _shopNameIndex.clear();
+            _isShopNameIndexBuilt = false;
+        }
+    }
+
+    // Resolve the product ids found in one of the indexes to the products of the
+    // shop, skipping products that no longer exist.
+    private List<Product> getProductsByIds(Shop shop, Collection<Integer> productIds) {
+        List<Product> products = new ArrayList<>();
+        for (Integer productId : productIds) {
+            try {
+                products.add(shop.getProductById(productId));
+            } catch (ProductDoesNotExistsException e) {
+                logger.warning("ShopFacade - getProductsByIds: product " + productId
+                        + " is in the index but not in shop " + shop.getShopId());
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Returns the catalog version of a shop, or of all the shops. A search
+     * result computed at this version is valid while the version doesn't
+     * change.
+     *
+     * @param shopId the shop, or null for all the shops
+     * @return the current catalog version
+     */
+    public long getCatalogVersion(Integer shopId) {
+        return _catalogVersions.getVersion(shopId);
+    }
+
     // Checks if a shop ID exists.
     public Boolean isShopIdExist(Integer shopId) {
         return _shopRepository.findByShopId(shopId) == null ? false : true;
@@ -123,11 +309,9 @@ public class ShopFacade {
     @Transactional
     public Integer openNewShop(String userName, ShopDto shopDto) throws StockMarketException {
         // check if the shop name already exists in the system, should be unique
-        for (Shop shop : getAllShops()) {
-            if (shop.getShopName().equals(shopDto.shopName)) {
-                throw new StockMarketException(String.format("Shop name: %s already exists in the system.",
-                        shopDto.shopName));
-            }
+        if (shopDto.shopName != null && _shopRepository.findByShopName(shopDto.shopName) != null) {
+            throw new StockMarketException(String.format("Shop name: %s already exists in the system.",
+                    shopDto.shopName));
         }
 
         // check and validate the shop details
@@ -147,7 +331,14 @@ public class ShopFacade {
         shop.setShopAddress(shopDto.shopAddress);
         shop.setNotificationHandler(_notificationHandler);
         shop.setRoleRepository(_roleRepository);
+        shop.setKeywordIndex(_keywordIndex);
+        shop.setPriceIndex(_priceIndex);
+        shop.setCategoryIndex(_categoryIndex);
+        shop.setShopNameIndex(_shopNameIndex);
+        shop.setCatalogVersions(_catalogVersions);
+        shop.setLockRegistry(_lockRegistry);
         shop = _shopRepository.save(shop);
+        _shopNameIndex.indexShop(shop.getShopId(), shop.getShopName());
         shop.setShopFounder(userName);
         shop.notifyReOpenShop(userName);
         shop.setShopPolicy(_policyRepository.save(shop.getShopPolicy()));
@@ -224,7 +415,7 @@ public class ShopFacade {
 
     // Remove a product from a shop by its ID.
     @Transactional
-    public synchronized void removeProductFromShop(Integer shopId, ProductDto productDto, String userName)
+    public void removeProductFromShop(Integer shopId, ProductDto productDto, String userName)
             throws StockMarketException {
         // If the shop ID does not exist, raise an error
         if (!isShopIdExist(shopId))
@@ -258,7 +449,7 @@ public class ShopFacade {
 
     // Edit a product in a shop by its ID.
     @Transactional
-    public synchronized void editProductInShop(Integer shopId, ProductDto productDtoOld, ProductDto productDtoNew,
+    public void editProductInShop(Integer shopId, ProductDto productDtoOld, ProductDto productDtoNew,
             String userName) throws StockMarketException {
         logger.info("Trying to edit product in shop with id: " + shopId);
         // If the shop ID does not exist, raise an error
@@ -301,7 +492,7 @@ public class ShopFacade {
     @Transactional
     public List<ShopOrder> getPurchaseHistory(Integer shopId) {
         List<ShopOrder> purchaseHistory = new ArrayList<>();
-        Shop shop = getShopByShopId(shopId);
+        Shop shop = _shopRepository.findWithHistoryByShopId(shopId);
         if (shop != null) {
             purchaseHistory = shop.getPurchaseHistory();
         }
@@ -320,6 +511,29 @@ public class ShopFacade {
         return purchaseHistoryDto;
     }
 
+    // Retrieves a page of the purchase history of a shop: up to pageSize orders
+    // with an id greater than the cursor (all of them when the cursor is null).
+    @Transactional
+    public CursorPageDto<ShopOrderDto> getPurchaseHistoryPage(Integer shopId, Integer cursor, int pageSize)
+            throws StockMarketException {
+        if (pageSize <= 0 || pageSize > MAX_HISTORY_PAGE_SIZE)
+            throw new StockMarketException(
+                    String.format("Page size must be between 1 and %d.", MAX_HISTORY_PAGE_SIZE));
+        // one extra order tells whether there is a next page
+        List<ShopOrder> orders = _shopRepository.findPurchaseHistoryPage(shopId, cursor == null ? -1 : cursor,
+                PageRequest.of(0, pageSize + 1));
+        Integer nextCursor = null;
+        if (orders.size() > pageSize) {
+            orders = orders.subList(0, pageSize);
+            nextCursor = orders.get(pageSize - 1).getShopOrderId();
+        }
+        List<ShopOrderDto> items = new ArrayList<>(orders.size());
+        for (ShopOrder order : orders) {
+            items.add(new ShopOrderDto(order));
+        }
+        return new CursorPageDto<>(items, nextCursor);
+    }
+
     // Checks if a user is the owner of a shop.
     @Transactional
     public Boolean isShopOwner(Integer shopId, String userId) throws StockMarketException {
@@ -405,12 +619,8 @@ public class ShopFacade {
         }
         // If shopId is null, search in all shops
         if (shopId == null) {
-            for (Shop shop : getAllShops()) {
-                List<Product> products = shop.getProductsByName(productName);
-                if (!products.isEmpty()) {
-                    productsByShop.put(shop.getShopId(), products);
-                }
-            }
+            productsByShop.putAll(_searchExecutor.search(_shopRepository.findAllForSearch(),
+                    shop -> shop.getProductsByName(productName)));
         }
         // Search in a specific shop
         else {
@@ -434,12 +644,7 @@ public class ShopFacade {
     // this function is responsible return all the shops in the system as DTO
     @Transactional
     public List<ShopDto> getAllShopsDto() {
-        List<ShopDto> shops = new ArrayList<>();
-        for (Shop shop : getAllShops()) {
-            ShopDto shopDto = new ShopDto(shop);
-            shops.add(shopDto);
-        }
-        return shops;
+        return _shopRepository.findAllShopDtos();
     }
 
     // this function is responsible getting all the products in a shop by its name
@@ -451,14 +656,10 @@ public class ShopFacade {
         if (productCategory == Category.DEFAULT_VAL) {
             throw new StockMarketException("Product category is null.");
         }
+        ensureCategoryIndexBuilt();
         // If shopId is null, search in all shops
         if (shopId == null) {
-            for (Shop shop : getAllShops()) {
-                List<Product> products = shop.getProductsByCategory(productCategory);
-                if (!products.isEmpty()) {
-                    productsByShop.put(shop.getShopId(), products);
-                }
-            }
+            productsByShop.putAll(getProductsByShopIds(_categoryIndex.search(productCategory)));
         }
         // Search in a specific shop
         else {
@@ -483,20 +684,16 @@ public class ShopFacade {
             throw new StockMarketException("Product keywords is null or empty.");
         }
         Map<Integer, List<Product>> productsByShop = new HashMap<>();
+        ensureKeywordIndexBuilt();
         // If shopId is null, search in all shops
         if (shopId == null) {
-            for (Shop shop : getAllShops()) {
-                List<Product> products = shop.getProductsByKeywords(keywords);
-                if (!products.isEmpty()) {
-                    productsByShop.put(shop.getShopId(), products);
-                }
-            }
+            productsByShop.putAll(getProductsByShopIds(_keywordIndex.search(keywords)));
         }
         // Search in a specific shop
         else {
             if (isShopIdExist(shopId)) {
                 Shop shop = getShopByShopId(shopId);
-                List<Product> products = shop.getProductsByKeywords(keywords);
+                List<Product> products = getProductsByIds(shop, _keywordIndex.search(shopId, keywords));
                 productsByShop.put(shop.getShopId(), products);
             } else {
                 throw new StockMarketException(String.format("Shop ID: %d doesn't exist.", shopId));
@@ -510,21 +707,21 @@ public class ShopFacade {
     @Transactional
     public Map<Integer, List<Product>> getProductsInShopByPriceRange(Integer shopId, Double minPrice, Double maxPrice)
             throws StockMarketException {
+        // If one of the prices is null, raise an error
+        if (minPrice == null || maxPrice == null) {
+            throw new StockMarketException("Product price range is null.");
+        }
         Map<Integer, List<Product>> productsByShop = new HashMap<>();
+        ensurePriceIndexBuilt();
         // If shopId is null, search in all shops
         if (shopId == null) {
-            for (Shop shop : getAllShops()) {
-                List<Product> products = shop.getProductsByPriceRange(minPrice, maxPrice);
-                if (!products.isEmpty()) {
-                    productsByShop.put(shop.getShopId(), products);
-                }
-            }
+            productsByShop.putAll(getProductsByShopIds(_priceIndex.search(minPrice, maxPrice)));
         }
         // Search in a specific shop
         else {
             if (isShopIdExist(shopId)) {
                 Shop shop = getShopByShopId(shopId);
-                List<Product> products = shop.getProductsByPriceRange(minPrice, maxPrice);
+                List<Product> products = getProductsByIds(shop, _priceIndex.search(shopId, minPrice, maxPrice));
                 productsByShop.put(shop.getShopId(), products);
             } else {
                 throw new StockMarketException(String.format("Shop ID: %d doesn't exist.", shopId));
@@ -533,6 +730,156 @@ public class ShopFacade {
         return productsByShop;
     }
 
+    /**
+     * Search the products that match all the given filters, in one shop or in
+     * all the shops. Every filter is answered by its index as a bitmap of
+     * product ordinals, and the bitmaps are intersected.
+     *
+     * @param shopId   the shop to search in, or null for all the shops
+     * @param category the category of the products, or null for any category
+     * @param keywords the products must have at least one of them, or null
+     * @param minPrice the minimal price, or null together with maxPrice
+     * @param maxPrice the maximal price, or null together with minPrice
+     * @return <shopId, products> of the matching products
+     * @throws StockMarketException if no filter was given or the shop doesn't
+     *                              exist
+     */
+    @Transactional
+    public Map<Integer, List<Product>> searchProducts(Integer shopId, Category category, List<String> keywords,
+            Double minPrice, Double maxPrice) throws StockMarketException {
+        boolean byCategory = category != null && category != Category.DEFAULT_VAL;
+        boolean byKeywords = keywords != null && !keywords.isEmpty();
+        if ((minPrice == null) != (maxPrice == null)) {
+            throw new StockMarketException("Product price range is null.");
+        }
+        boolean byPrice = minPrice != null;
+        if (!byCategory && !byKeywords && !byPrice) {
+            throw new StockMarketException("No search filter was given.");
+        }
+        if (shopId != null && !isShopIdExist(shopId)) {
+            throw new StockMarketException(String.format("Shop ID: %d doesn't exist.", shopId));
+        }
+
+        ensureCategoryIndexBuilt();
+        if (byKeywords)
+            ensureKeywordIndexBuilt();
+        if (byPrice)
+            ensurePriceIndexBuilt();
+        // the bitmaps are combined again if the category index renumbered its
+        // ordinals in the middle
+        Map<Integer, List<Integer>> found;
+        long ordinalEpoch;
+        do {
+            ordinalEpoch = _categoryIndex.getOrdinalEpoch();
+            found = _categoryIndex.resolve(matchOrdinals(shopId, byCategory ? category : null,
+                    byKeywords ? keywords : null, minPrice, maxPrice));
+        } while (ordinalEpoch % 2 != 0 || ordinalEpoch != _categoryIndex.getOrdinalEpoch());
+        return getProductsByShopIds(found);
+    }
+
+    // The category index ordinals of the products that match all the given
+    // filters, a null filter matches everything
+    private BitSet matchOrdinals(Integer shopId, Category category, List<String> keywords, Double minPrice,
+            Double maxPrice) {
+        BitSet matches = shopId == null ? null : _categoryIndex.shopBitmap(shopId);
+        if (category != null) {
+            matches = intersect(matches, _categoryIndex.bitmap(category));
+        }
+        if (keywords != null) {
+            Map<Integer, ? extends Collection<Integer>> found = shopId == null ? _keywordIndex.search(keywords)
+                    : Map.of(shopId, _keywordIndex.search(shopId, keywords));
+            matches = intersect(matches, _categoryIndex.toBitmap(found));
+        }
+        if (minPrice != null) {
+            Map<Integer, ? extends Collection<Integer>> found = shopId == null
+                    ? _priceIndex.search(minPrice, maxPrice)
+                    : Map.of(shopId, _priceIndex.search(shopId, minPrice, maxPrice));
+            matches = intersect(matches, _categoryIndex.toBitmap(found));
+        }
+        return matches;
+    }
+
+    /**
+     * Search the products that match all the given filters, and return the best
+     * ones by score (keyword matches, product rating, shop rating, stock). With
+     * no filter at all every product is ranked.
+     *
+     * @param shopId   the shop to search in, or null for all the shops
+     * @param category the category of the products, or null for any category
+     * @param keywords the keywords of the query, or null
+     * @param minPrice the minimal price, or null together with maxPrice
+     * @param maxPrice the maximal price, or null together with minPrice
+     * @param limit    the amount of products to return
+     * @param offset   the amount of best products to skip
+     * @return the ranked products, best first
+     * @throws StockMarketException if the page is out of bounds or the shop
+     *                              doesn't exist
+     */
+    @Transactional
+    public List<ProductRanker.Ranked> searchProductsRanked(Integer shopId, Category category, List<String> keywords,
+            Double minPrice, Double maxPrice, int limit, int offset) throws StockMarketException {
+        if (limit < 1 || limit > MAX_RANKED_LIMIT) {
+            throw new StockMarketException(
+                    String.format("Limit must be between 1 and %d.", MAX_RANKED_LIMIT));
+        }
+        if (offset < 0 || offset + limit > MAX_RANKED_WINDOW) {
+            throw new StockMarketException(
+                    String.format("Offset must not be negative and offset + limit must be at most %d.",
+                            MAX_RANKED_WINDOW));
+        }
+        ProductRanker ranker = new ProductRanker(keywords, offset, limit);
+        boolean hasFilter = (category != null && category != Category.DEFAULT_VAL)
+                || (keywords != null && !keywords.isEmpty()) || minPrice != null || maxPrice != null;
+        if (hasFilter) {
+            for (Map.Entry<Integer, List<Product>> entry : searchProducts(shopId, category, keywords, minPrice,
+                    maxPrice).entrySet()) {
+                Shop shop = getShopByShopId(entry.getKey());
+                for (Product product : entry.getValue()) {
+                    ranker.offer(shop, product);
+                }
+            }
+        } else if (shopId != null) {
+            if (!isShopIdExist(shopId)) {
+                throw new StockMarketException(String.format("Shop ID: %d doesn't exist.", shopId));
+            }
+            Shop shop = getShopByShopId(shopId);
+            for (Product product : shop.getAllProductsList()) {
+                ranker.offer(shop, product);
+            }
+        } else {
+            for (Shop shop : _shopRepository.findAllForSearch()) {
+                for (Product product : shop.getAllProductsList()) {
+                    ranker.offer(shop, product);
+                }
+            }
+        }
+        return ranker.getResults();
+    }
+
+    // intersect the bitmap of a filter into the bitmap of the previous filters
+    private static BitSet intersect(BitSet matches, BitSet filter) {
+        if (matches == null)
+            return filter;
+        matches.and(filter);
+        return matches;
+    }
+
+    // Resolve <shopId, productIds> found in the indexes to the products, skipping
+    // shops without any product left
+    private Map<Integer, List<Product>> getProductsByShopIds(Map<Integer, ? extends Collection<Integer>> productIds) {
+        Map<Integer, List<Product>> productsByShop = new HashMap<>();
+        for (Map.Entry<Integer, ? extends Collection<Integer>> entry : productIds.entrySet()) {
+            Shop shop = _shopRepository.findByShopId(entry.getKey());
+            if (shop == null)
+                continue;
+            List<Product> products = getProductsByIds(shop, entry.getValue());
+            if (!products.isEmpty()) {
+                productsByShop.put(shop.getShopId(), products);
+            }
+        }
+        return productsByShop;
+    }
+
     // this function is responsible update the quantity of a product in a shop
     @Transactional
     public void updateProductQuantity(String userName, Integer shopId, Integer productId, Integer productQuantity)
@@ -902,11 +1249,11 @@ public class ShopFacade {
     // Returns all shopIds of shops with the input name.
     @Transactional
     public List<Integer> getShopIdsByName(String shopName) {
+        ensureShopNameIndexBuilt();
         List<Integer> shopIds = new ArrayList<>();
-        for (Shop shop : getAllShops()) {
-            if (shop.getShopName().equals(shopName)) {
-                shopIds.add(shop.getShopId());
-            }
+        Integer shopId = _shopNameIndex.findShopId(shopName);
+        if (shopId != null) {
+            shopIds.add(shopId);
         }
         return shopIds;
     }
@@ -914,14 +1261,8 @@ public class ShopFacade {
     // Returns all shopIds of shops that contain the input name.
     @Transactional
     public List<Integer> getShopIdsThatContainName(String shopName) {
-        shopName = shopName.toLowerCase();
-        List<Integer> shopIds = new ArrayList<>();
-        for (Shop shop : getAllShops()) {
-            if (shop.getShopName().toLowerCase().contains(shopName)) {
-                shopIds.add(shop.getShopId());
-            }
-        }
-        return shopIds;
+        ensureShopNameIndexBuilt();
+        return _shopNameIndex.searchContaining(shopName);
     }
 
     // this function is responsible for changing the shop policy
@@ -972,9 +1313,8 @@ public class ShopFacade {
     // This function is responsible for getting all the shops in the system
     @Transactional
     public List<ShopGetterDto> getShopsEntities() {
-        List<Shop> shops = getAllShops();
         List<ShopGetterDto> shopsDto = new ArrayList<>();
-        for (Shop shop : shops) {
+        for (Shop shop : _shopRepository.findAllForManagement()) {
             shopsDto.add(new ShopGetterDto(shop));
         }
         return shopsDto;
@@ -1006,7 +1346,7 @@ public class ShopFacade {
     @Transactional
     public List<Integer> getUserShops(String username) throws StockMarketException {
         List<Integer> shops = new ArrayList<>();
-        for (Shop shop : getAllShops()) {
+        for (Shop shop : _shopRepository.findAllForManagement()) {
             if (shop.checkIfHasRole(username)) {
                 shops.add(shop.getShopId());
             }
@@ -1018,7 +1358,7 @@ public class ShopFacade {
     @Transactional
     public List<String> getUserShopsNames(String username) throws StockMarketException {
         List<String> shops = new ArrayList<>();
-        for (Shop shop : getAllShops()) {
+        for (Shop shop : _shopRepository.findAllForManagement()) {
             if (shop.checkIfHasRole(username)) {
                 shops.add(shop.getShopName());
             }
@@ -1260,22 +1600,22 @@ public class ShopFacade {
 
     // this function returns the shop id by its name and founder
     public int getShopIdByShopNameAndFounder(String founder, String shopName) {
-        for (Shop shop : getAllShops()) {
-            if (shop.getShopName().equals(shopName) && shop.getFounderName().equals(founder)) {
-                return shop.getShopId();
-            }
+        ensureShopNameIndexBuilt();
+        Integer shopId = _shopNameIndex.findShopId(shopName);
+        if (shopId == null)
+            return -1;
+        Shop shop = _shopRepository.findByShopId(shopId);
+        if (shop != null && shop.getFounderName().equals(founder)) {
+            return shop.getShopId();
         }
         return -1;
     }
 
     // shop names are unique, so we can get the shop id by its name
     public int getShopIdByShopName(String string) {
-        for (Shop shop : getAllShops()) {
-            if (shop.getShopName().equals(string)) {
-                return shop.getShopId();
-            }
-        }
-        return -1;
+        ensureShopNameIndexBuilt();
+        Integer shopId = _shopNameIndex.findShopId(string);
+        return shopId == null ? -1 : shopId;
     }
 
     // this function returns the product id by its name and shop id
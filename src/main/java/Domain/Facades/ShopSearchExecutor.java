@@ -0,0 +1,148 @@
+package Domain.Facades;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import Domain.Entities.Shop;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs a filter over many shops and collects the results by shop, for the
+ * cross-shop searches that have no index.
+ *
+ * Below the threshold the shops are filtered on the caller thread. Above it the
+ * shop list is split in halves until a chunk has at most threshold shops, and
+ * the chunks are filtered in parallel on a dedicated ForkJoin pool, so a big
+ * search doesn't take over the common pool that the rest of the application
+ * uses.
+ *
+ * The filter runs on the pool threads, outside the caller's persistence
+ * context, so it must only read state that is already loaded - e.g. shops
+ * fetched with the search entity graph.
+ */
+@Component
+public class ShopSearchExecutor {
+
+    private static final Logger logger = Logger.getLogger(ShopSearchExecutor.class.getName());
+
+    public static final int DEFAULT_THRESHOLD = 64;
+
+    private final int _parallelism;
+    private final int _threshold;
+    private volatile ForkJoinPool _pool;
+
+    @Autowired
+    public ShopSearchExecutor(@Value("${search.parallel.parallelism:0}") int parallelism,
+            @Value("${search.parallel.threshold:" + DEFAULT_THRESHOLD + "}") int threshold) {
+        if (threshold <= 0)
+            throw new IllegalArgumentException("Search threshold must be positive.");
+        _parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        _threshold = threshold;
+    }
+
+    public ShopSearchExecutor() {
+        this(0, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Apply the filter to every shop.
+     *
+     * @param shops  the shops to search in
+     * @param filter returns the matches of a shop
+     * @return <shopId, matches> of the shops that have at least one match
+     */
+    public <R> Map<Integer, List<R>> search(Collection<Shop> shops, Function<Shop, List<R>> filter) {
+        List<Shop> shopList = shops instanceof List ? (List<Shop>) shops : new ArrayList<>(shops);
+        if (shopList.size() <= _threshold)
+            return filterChunk(shopList, 0, shopList.size(), filter);
+        return getPool().invoke(new SearchTask<>(shopList, 0, shopList.size(), filter, _threshold));
+    }
+
+    // the pool is created on the first search that is big enough to need it
+    private ForkJoinPool getPool() {
+        ForkJoinPool pool = _pool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = _pool;
+                if (pool == null) {
+                    logger.info("ShopSearchExecutor - getPool: starting a search pool with parallelism "
+                            + _parallelism);
+                    pool = new ForkJoinPool(_parallelism, ShopSearchExecutor::newWorker, null, false);
+                    _pool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("shop-search-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ForkJoinPool pool = _pool;
+        if (pool != null)
+            pool.shutdown();
+    }
+
+    public int getThreshold() {
+        return _threshold;
+    }
+
+    private static <R> Map<Integer, List<R>> filterChunk(List<Shop> shops, int from, int to,
+            Function<Shop, List<R>> filter) {
+        Map<Integer, List<R>> result = new HashMap<>();
+        for (int i = from; i < to; i++) {
+            Shop shop = shops.get(i);
+            List<R> matches = filter.apply(shop);
+            if (matches != null && !matches.isEmpty())
+                result.put(shop.getShopId(), matches);
+        }
+        return result;
+    }
+
+    private static class SearchTask<R> extends RecursiveTask<Map<Integer, List<R>>> {
+        private final List<Shop> _shops;
+        private final int _from;
+        private final int _to;
+        private final Function<Shop, List<R>> _filter;
+        private final int _threshold;
+
+        private SearchTask(List<Shop> shops, int from, int to, Function<Shop, List<R>> filter, int threshold) {
+            _shops = shops;
+            _from = from;
+            _to = to;
+            _filter = filter;
+            _threshold = threshold;
+        }
+
+        @Override
+        protected Map<Integer, List<R>> compute() {
+            if (_to - _from <= _threshold)
+                return filterChunk(_shops, _from, _to, _filter);
+            int middle = (_from + _to) >>> 1;
+            SearchTask<R> left = new SearchTask<>(_shops, _from, middle, _filter, _threshold);
+            SearchTask<R> right = new SearchTask<>(_shops, middle, _to, _filter, _threshold);
+            left.fork();
+            Map<Integer, List<R>> result = right.compute();
+            result.putAll(left.join());
+            return result;
+        }
+    }
+}
@@ -16,22 +16,26 @@ import Domain.Entities.Product;
 import Domain.Entities.ShoppingBasket;
 import Domain.Entities.ShoppingCart;
 import Domain.Entities.User;
+import Domain.ExternalServices.CheckoutPipeline;
 import Domain.ExternalServices.PaymentService.AdapterPaymentImp;
 import Domain.ExternalServices.PaymentService.ProxyPayment;
 import Domain.ExternalServices.SupplyService.AdapterSupplyImp;
 import Domain.ExternalServices.SupplyService.ProxySupply;
 import Domain.Repositories.DbGuestRepository;
 import Domain.Repositories.DbOrderRepository;
+import Domain.Repositories.DbProductRepository;
 import Domain.Repositories.DbShopOrderRepository;
 import Domain.Repositories.DbShoppingBasketRepository;
 import Domain.Repositories.DbShoppingCartRepository;
 import Domain.Repositories.DbUserRepository;
 import Domain.Repositories.InterfaceGuestRepository;
 import Domain.Repositories.InterfaceOrderRepository;
+import Domain.Repositories.InterfaceProductRepository;
 import Domain.Repositories.InterfaceShopOrderRepository;
 import Domain.Repositories.InterfaceShoppingBasketRepository;
 import Domain.Repositories.InterfaceShoppingCartRepository;
 import Domain.Repositories.InterfaceUserRepository;
+import Domain.Reservations.StockReservationManager;
 import Dtos.BasketDto;
 import Dtos.PurchaseCartDetailsDto;
 import Exceptions.StockMarketException;
@@ -48,6 +52,15 @@ public class ShoppingCartFacade {
     InterfaceUserRepository _userRepository;
     InterfaceShoppingBasketRepository _basketRepository;
     InterfaceShopOrderRepository _shopOrderRepository;
+    // takes the stock of purchased products with conditional updates, null in
+    // the test system where the products are updated in memory
+    InterfaceProductRepository _productRepository;
+    // expires the stock reservations of purchases that don't complete in time,
+    // null in the test system where reservations don't expire
+    StockReservationManager _reservationManager;
+    // calls the payment and supply services of the purchases, the shared default
+    // pipeline when null
+    CheckoutPipeline _checkoutPipeline;
     private static final Logger logger = Logger.getLogger(ShoppingCartFacade.class.getName());
 
     @Autowired
@@ -66,17 +79,45 @@ public class ShoppingCartFacade {
         _guestsCarts = new HashMap<>();
     }
 
-    // set repositories to be used in test system
+    // set repositories to be used in test system, the stock is taken on the
+    // products in memory
     public void setShoppingCartFacadeRepositories(InterfaceShoppingCartRepository cartsRepository,
             InterfaceOrderRepository orderRepository, InterfaceGuestRepository guestRepository,
             InterfaceUserRepository userRepository, InterfaceShoppingBasketRepository basketRepository,
             InterfaceShopOrderRepository shopOrderRepository) {
+        setShoppingCartFacadeRepositories(cartsRepository, orderRepository, guestRepository, userRepository,
+                basketRepository, shopOrderRepository, null);
+    }
+
+    // set repositories to be used in test system, with the repository of the
+    // products the stock is taken from, or null to take it on the products in memory
+    public void setShoppingCartFacadeRepositories(InterfaceShoppingCartRepository cartsRepository,
+            InterfaceOrderRepository orderRepository, InterfaceGuestRepository guestRepository,
+            InterfaceUserRepository userRepository, InterfaceShoppingBasketRepository basketRepository,
+            InterfaceShopOrderRepository shopOrderRepository, InterfaceProductRepository productRepository) {
         _cartsRepository = cartsRepository;
         _orderRepository = orderRepository;
         _shopOrderRepository = shopOrderRepository;
         _guestRepository = guestRepository;
         _userRepository = userRepository;
         _basketRepository = basketRepository;
+        _productRepository = productRepository;
+    }
+
+    // use conditional stock updates in the database for purchases
+    @Autowired(required = false)
+    public void setProductRepository(DbProductRepository productRepository) {
+        _productRepository = productRepository;
+    }
+
+    @Autowired(required = false)
+    public void setStockReservationManager(StockReservationManager reservationManager) {
+        _reservationManager = reservationManager;
+    }
+
+    @Autowired(required = false)
+    public void setCheckoutPipeline(CheckoutPipeline checkoutPipeline) {
+        _checkoutPipeline = checkoutPipeline;
     }
 
     // Add a cart for a guest by token.
@@ -327,11 +368,14 @@ public class ShoppingCartFacade {
         returnedCart.setOrderRepository(_orderRepository);
         returnedCart.setShopOrderRepository(_shopOrderRepository);
         returnedCart.setShoppingBasketsRepository(_basketRepository);
+        returnedCart.setProductRepository(_productRepository);
+        returnedCart.setReservationManager(_reservationManager);
+        returnedCart.setCheckoutPipeline(_checkoutPipeline);
         returnedCart.setShopFacade(shopFacade);
         returnedCart.setPaymentMethod(AdapterPaymentImp.getRealAdapterPayment());
         returnedCart.setSupplyMethod(AdapterSupplyImp.getAdapterSupply());
         for (ShoppingBasket basket : returnedCart.getShoppingBaskets()) {
-            basket.setShop(shopFacade.getShopByShopId(basket.getShopId()));
+            basket.setShop(shopFacade.getShopForPurchase(basket.getShopId()));
         }
         return returnedCart;
     }
@@ -352,7 +396,7 @@ public class ShoppingCartFacade {
         List<BasketDto> baskets = new ArrayList<>();
         for (ShoppingBasket basket : cart.getShoppingBaskets()) {
             baskets.add(new BasketDto(basket.getShopId(), basket.getProductIdsList(),
-                    basket.calculateShoppingBasketPrice()));
+                    basket.getShoppingBasketPrice()));
         }
         return baskets;
     }
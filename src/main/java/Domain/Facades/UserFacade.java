@@ -2,11 +2,14 @@ package Domain.Facades;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Logger;
 
 import org.aspectj.lang.annotation.SuppressAjWarnings;
 import org.aspectj.weaver.ast.Not;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,6 +29,7 @@ import Domain.Repositories.InterfaceGuestRepository;
 import Domain.Repositories.InterfaceOrderRepository;
 import Domain.Repositories.InterfaceShoppingCartRepository;
 import Domain.Repositories.InterfaceUserRepository;
+import Dtos.CursorPageDto;
 import Dtos.OrderDto;
 import Dtos.UserDto;
 import Exceptions.StockMarketException;
@@ -45,6 +49,9 @@ public class UserFacade {
 
     private static final Logger logger = Logger.getLogger(UserFacade.class.getName());
 
+    // the largest page of order history returned by a single call
+    public static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     @Autowired
     public UserFacade( List<User> registeredUsers, List<String> guestIds, PasswordEncoderUtil passwordEncoder, EmailValidator EmailValidator, 
     DbUserRepository repository, DbGuestRepository guestRepo, DbShoppingCartRepository shoppingCartRepository, DbOrderRepository orderRepository, NotificationHandler notificationHandler) {
@@ -117,7 +124,20 @@ public class UserFacade {
     public boolean AreCredentialsCorrect(String username, String raw_password) throws StockMarketException {
         User user = getUserByUsername(username);
         if (user != null) {
-            return _passwordEncoder.matches(raw_password, user.getPassword());
+            try {
+                if (!_passwordEncoder.matches(raw_password, user.getPassword()))
+                    return false;
+                // a hash made with a lower cost than the configured one is upgraded
+                // now, the only time the raw password is known
+                if (_passwordEncoder.needsRehash(user.getPassword())) {
+                    logger.info("Upgrading the password hash of user " + username + ".");
+                    user.setPassword(_passwordEncoder.encodePassword(raw_password));
+                    _userRepository.flush();
+                }
+                return true;
+            } catch (RejectedExecutionException e) {
+                throw new UserException("The server is busy, please try again later.");
+            }
         }
         return false;
     }
@@ -137,7 +157,12 @@ public class UserFacade {
         if (!_EmailValidator.isValidEmail(userDto.email)) {
             throw new StockMarketException("Email is not valid.");
         }
-        String encodedPass = this._passwordEncoder.encodePassword(userDto.password);
+        String encodedPass;
+        try {
+            encodedPass = this._passwordEncoder.encodePassword(userDto.password);
+        } catch (RejectedExecutionException e) {
+            throw new UserException("The server is busy, please try again later.");
+        }
         userDto.password = encodedPass;
         if (!doesUserExist(userDto.username)) {
             User user = new User();
@@ -152,6 +177,11 @@ public class UserFacade {
         logger.info("User " + userDto.username + " registered successfully.");
     }
 
+    // the metrics of the password hashing: hash time and queue wait
+    public Map<String, Object> getPasswordHashingStatistics() {
+        return _passwordEncoder.getStatistics();
+    }
+
     // function to add an order to a user
     @Transactional
     public void addOrderToUser(String username, Order order) throws StockMarketException {
@@ -293,6 +323,31 @@ public class UserFacade {
         return orderDtos;
     }
 
+    // A page of the order history of a user: up to pageSize orders with an id
+    // greater than the cursor, ordered by id.
+    @Transactional
+    public CursorPageDto<OrderDto> viewOrderHistoryPage(String username, Integer cursor, int pageSize)
+            throws StockMarketException {
+        if (pageSize <= 0 || pageSize > MAX_HISTORY_PAGE_SIZE)
+            throw new StockMarketException(
+                    String.format("Page size must be between 1 and %d.", MAX_HISTORY_PAGE_SIZE));
+        if (!_userRepository.existsByusername(username))
+            throw new UserException(String.format("Username %s does not exist.", username));
+
+        List<Order> orders = _userRepository.findPurchaseHistoryPage(username, cursor == null ? -1 : cursor,
+                PageRequest.of(0, pageSize + 1));
+        Integer nextCursor = null;
+        if (orders.size() > pageSize) {
+            orders = orders.subList(0, pageSize);
+            nextCursor = orders.get(pageSize - 1).getOrderId();
+        }
+        List<OrderDto> items = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            items.add(new OrderDto(order));
+        }
+        return new CursorPageDto<>(items, nextCursor);
+    }
+
     public void reportToAdmin(String user, String message) {
         logger.info("Reporting to admin " + user + " with message " + message);
         Alert alert = new IntegrityRuleBreakAlert(user, message);
@@ -0,0 +1,73 @@
+package Domain.Indexes;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Version counters of the shop catalogs, for caching search results.
+ *
+ * Every shop has a counter that is bumped whenever something a search can
+ * return changes - a product is added, removed or edited, its price, quantity,
+ * category or keywords change, or the shop is renamed. A global counter is
+ * bumped together with every shop counter, for the searches in all the shops.
+ * A cached result is valid as long as the counter it was computed at didn't
+ * move.
+ *
+ * The shop entities are loaded again in every transaction, so the counters are
+ * kept here, by shop id, and not on the entity.
+ */
+public class CatalogVersions {
+
+    private final Map<Integer, AtomicLong> _shopVersions;
+    private final AtomicLong _globalVersion;
+
+    public CatalogVersions() {
+        _shopVersions = new ConcurrentHashMap<>();
+        _globalVersion = new AtomicLong();
+    }
+
+    /**
+     * Mark the catalog of a shop as changed.
+     *
+     * Inside a transaction the counters are bumped again when the transaction
+     * completes: a search that read the counter after the first bump, but the
+     * data before the commit, would otherwise cache the old data at the new
+     * version.
+     *
+     * @param shopId the shop whose catalog changed
+     */
+    public void bump(Integer shopId) {
+        bumpNow(shopId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    bumpNow(shopId);
+                }
+            });
+        }
+    }
+
+    private void bumpNow(Integer shopId) {
+        if (shopId != null)
+            _shopVersions.computeIfAbsent(shopId, k -> new AtomicLong()).incrementAndGet();
+        _globalVersion.incrementAndGet();
+    }
+
+    /**
+     * Returns the catalog version of a shop, or of all the shops.
+     *
+     * @param shopId the shop, or null for all the shops
+     * @return the current version
+     */
+    public long getVersion(Integer shopId) {
+        if (shopId == null)
+            return _globalVersion.get();
+        AtomicLong version = _shopVersions.get(shopId);
+        return version == null ? 0 : version.get();
+    }
+}
@@ -0,0 +1,433 @@
+package Domain.Indexes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import Domain.Entities.Product;
+import Domain.Entities.Shop;
+import Domain.Entities.enums.Category;
+
+/**
+ * Bitmap index from a product category to the products of that category, in
+ * all the shops.
+ *
+ * Every indexed product gets a global ordinal, and every category (and every
+ * shop) has a bitmap of the ordinals of its products. A category search is an
+ * iteration over the set bits of one bitmap, and a search in a single shop is
+ * the intersection of the category bitmap with the shop bitmap.
+ *
+ * The ordinals are also used to intersect the results of the other indexes:
+ * toBitmap turns a result of the keyword or the price index into a bitmap,
+ * so a combined filter is a few BitSet.and calls instead of repeated scans.
+ *
+ * The bitmaps are copy-on-write: writers are serialized on the index and
+ * publish a new snapshot, readers work on the current snapshot without locking.
+ * A whole shop is indexed into local bitmaps that are published once.
+ *
+ * Ordinals are not reused, so a reader of an older snapshot never sees an
+ * ordinal that was given to another product. Once most of the ordinals belong
+ * to removed products the index is compacted: the live products get new dense
+ * ordinals and the ordinal epoch changes, so callers that combine bitmaps over
+ * several calls check getOrdinalEpoch() and retry.
+ */
+public class ProductCategoryIndex {
+
+    private static final Logger logger = Logger.getLogger(ProductCategoryIndex.class.getName());
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // the index is compacted once there are this many dead ordinals, and more
+    // dead ordinals than live ones
+    private static final int COMPACTION_MIN_DEAD = 1024;
+
+    private volatile Snapshot _snapshot;
+
+    // <(shopId, productId), ordinal>
+    private final Map<Long, Integer> _ordinals;
+
+    // <ordinal, indexed category> - to find the bitmap to remove from when the
+    // category changes
+    private final Map<Integer, Category> _indexedCategories;
+
+    private int _nextOrdinal;
+
+    // odd while the ordinals are renumbered, changed by every compaction
+    private volatile long _ordinalEpoch;
+
+    public ProductCategoryIndex() {
+        _snapshot = Snapshot.empty();
+        _ordinals = new HashMap<>();
+        _indexedCategories = new HashMap<>();
+        _nextOrdinal = 0;
+    }
+
+    /**
+     * Index all the products of the given shop, replacing its previous entries.
+     *
+     * @param shop the shop to index
+     */
+    public void indexShop(Shop shop) {
+        indexShops(Collections.singletonList(shop));
+    }
+
+    /**
+     * Index all the products of the given shops, replacing their previous
+     * entries. The bitmaps of a shop are built locally and all of them are
+     * published in one snapshot, instead of a copy for every product.
+     *
+     * @param shops the shops to index
+     */
+    public void indexShops(Collection<Shop> shops) {
+        // the products are read before taking the index, the shops call the index
+        // while they hold their own lock
+        Map<Integer, List<Product>> productsByShop = new LinkedHashMap<>();
+        for (Shop shop : shops) {
+            if (shop != null && shop.getId() != null)
+                productsByShop.put(shop.getShopId(), shop.getAllProductsList());
+        }
+        if (!productsByShop.isEmpty())
+            indexProducts(productsByShop);
+    }
+
+    // Replace the entries of the shops with the given products and publish one
+    // snapshot
+    private synchronized void indexProducts(Map<Integer, List<Product>> productsByShop) {
+        Snapshot snapshot = _snapshot.copy();
+        // the category bitmaps changed by this build, cloned once
+        Map<Category, BitSet> changedCategories = new EnumMap<>(Category.class);
+        for (Map.Entry<Integer, List<Product>> entry : productsByShop.entrySet()) {
+            int shopId = entry.getKey();
+            BitSet shopBits = new BitSet();
+            for (Product product : entry.getValue()) {
+                if (product == null || product.getProductId() == null || product.getCategory() == null) {
+                    logger.log(Level.FINE, "ProductCategoryIndex - indexProducts: skipping product without id or "
+                            + "category in shop " + shopId);
+                    continue;
+                }
+                Category category = product.getCategory();
+                long key = key(shopId, product.getProductId());
+                Integer ordinal = _ordinals.get(key);
+                if (ordinal == null) {
+                    ordinal = _nextOrdinal++;
+                    snapshot.ensureCapacity(ordinal + 1);
+                    snapshot.shopIds[ordinal] = shopId;
+                    snapshot.productIds[ordinal] = product.getProductId();
+                    _ordinals.put(key, ordinal);
+                } else if (_indexedCategories.get(ordinal) != category) {
+                    changedBits(snapshot, changedCategories, _indexedCategories.get(ordinal)).clear(ordinal);
+                }
+                changedBits(snapshot, changedCategories, category).set(ordinal);
+                _indexedCategories.put(ordinal, category);
+                shopBits.set(ordinal);
+            }
+            // the products that were indexed but are no longer in the shop
+            BitSet oldShopBits = snapshot.shops.get(shopId);
+            if (oldShopBits != null) {
+                BitSet removed = (BitSet) oldShopBits.clone();
+                removed.andNot(shopBits);
+                for (int ordinal = removed.nextSetBit(0); ordinal >= 0; ordinal = removed.nextSetBit(ordinal + 1)) {
+                    _ordinals.remove(key(shopId, snapshot.productIds[ordinal]));
+                    changedBits(snapshot, changedCategories, _indexedCategories.remove(ordinal)).clear(ordinal);
+                }
+            }
+            snapshot.shops.put(shopId, shopBits);
+        }
+        snapshot.categories.putAll(changedCategories);
+        _snapshot = snapshot;
+        compactIfNeeded();
+    }
+
+    /**
+     * Index (or re-index) a product with its current category.
+     *
+     * @param shopId  the shop the product belongs to
+     * @param product the product to index
+     */
+    public synchronized void indexProduct(Integer shopId, Product product) {
+        if (shopId == null || product == null || product.getProductId() == null || product.getCategory() == null) {
+            logger.log(Level.FINE, "ProductCategoryIndex - indexProduct: skipping product without id or category in shop "
+                    + shopId);
+            return;
+        }
+        Category category = product.getCategory();
+        Integer ordinal = _ordinals.get(key(shopId, product.getProductId()));
+        if (ordinal != null && _indexedCategories.get(ordinal) == category)
+            return;
+
+        Snapshot snapshot = _snapshot.copy();
+        if (ordinal == null) {
+            ordinal = _nextOrdinal++;
+            snapshot.ensureCapacity(ordinal + 1);
+            snapshot.shopIds[ordinal] = shopId;
+            snapshot.productIds[ordinal] = product.getProductId();
+            _ordinals.put(key(shopId, product.getProductId()), ordinal);
+            snapshot.shops.put(shopId, withBit(snapshot.shops.get(shopId), ordinal, true));
+        } else {
+            Category oldCategory = _indexedCategories.get(ordinal);
+            snapshot.categories.put(oldCategory, withBit(snapshot.categories.get(oldCategory), ordinal, false));
+        }
+        snapshot.categories.put(category, withBit(snapshot.categories.get(category), ordinal, true));
+        _indexedCategories.put(ordinal, category);
+        _snapshot = snapshot;
+    }
+
+    /**
+     * Remove a product from the index.
+     *
+     * @param shopId    the shop the product belonged to
+     * @param productId the product to remove
+     */
+    public synchronized void removeProduct(Integer shopId, Integer productId) {
+        if (shopId == null || productId == null)
+            return;
+        Integer ordinal = _ordinals.remove(key(shopId, productId));
+        if (ordinal == null)
+            return;
+        Category category = _indexedCategories.remove(ordinal);
+        Snapshot snapshot = _snapshot.copy();
+        snapshot.categories.put(category, withBit(snapshot.categories.get(category), ordinal, false));
+        snapshot.shops.put(shopId, withBit(snapshot.shops.get(shopId), ordinal, false));
+        _snapshot = snapshot;
+        compactIfNeeded();
+    }
+
+    /**
+     * Remove all the products of a shop from the index.
+     *
+     * @param shopId the shop to remove
+     */
+    public synchronized void removeShop(Integer shopId) {
+        if (shopId == null)
+            return;
+        Snapshot snapshot = _snapshot.copy();
+        BitSet shopBits = snapshot.shops.remove(shopId);
+        if (shopBits == null)
+            return;
+        for (Map.Entry<Category, BitSet> entry : snapshot.categories.entrySet()) {
+            BitSet bits = (BitSet) entry.getValue().clone();
+            bits.andNot(shopBits);
+            entry.setValue(bits);
+        }
+        for (int ordinal = shopBits.nextSetBit(0); ordinal >= 0; ordinal = shopBits.nextSetBit(ordinal + 1)) {
+            _ordinals.remove(key(shopId, snapshot.productIds[ordinal]));
+            _indexedCategories.remove(ordinal);
+        }
+        _snapshot = snapshot;
+        compactIfNeeded();
+    }
+
+    /**
+     * Find all the products, in all the shops, of the given category.
+     *
+     * @param category the category to look for
+     * @return <shopId, productIds> of the matching products
+     */
+    public Map<Integer, List<Integer>> search(Category category) {
+        Snapshot snapshot = _snapshot;
+        return resolve(snapshot, copyOf(category == null ? null : snapshot.categories.get(category)));
+    }
+
+    /**
+     * Find the products of a specific shop of the given category.
+     *
+     * @param shopId   the shop to search in
+     * @param category the category to look for
+     * @return the ids of the matching products
+     */
+    public List<Integer> search(Integer shopId, Category category) {
+        Snapshot snapshot = _snapshot;
+        BitSet bits = copyOf(category == null ? null : snapshot.categories.get(category));
+        bits.and(copyOf(shopId == null ? null : snapshot.shops.get(shopId)));
+        List<Integer> result = resolve(snapshot, bits).get(shopId);
+        return result == null ? new ArrayList<>() : result;
+    }
+
+    /**
+     * Returns the bitmap of the products of a category. The bitmap is a copy
+     * that the caller may change, e.g. intersect with other bitmaps.
+     *
+     * @param category the category
+     * @return the ordinals of the products of the category
+     */
+    public BitSet bitmap(Category category) {
+        return copyOf(category == null ? null : _snapshot.categories.get(category));
+    }
+
+    // Returns a copy of the bitmap of the products of a shop
+    public BitSet shopBitmap(Integer shopId) {
+        return copyOf(shopId == null ? null : _snapshot.shops.get(shopId));
+    }
+
+    /**
+     * Turn the products found by another index into a bitmap of ordinals, so
+     * it can be intersected with the category bitmaps. Products that are not
+     * in this index are left out.
+     *
+     * @param productsByShop <shopId, productIds>
+     * @return the ordinals of the given products
+     */
+    public synchronized BitSet toBitmap(Map<Integer, ? extends Collection<Integer>> productsByShop) {
+        BitSet bits = new BitSet();
+        for (Map.Entry<Integer, ? extends Collection<Integer>> entry : productsByShop.entrySet()) {
+            for (Integer productId : entry.getValue()) {
+                Integer ordinal = _ordinals.get(key(entry.getKey(), productId));
+                if (ordinal != null)
+                    bits.set(ordinal);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Turn a bitmap of ordinals back into product ids, grouped by shop.
+     *
+     * @param bits the ordinals
+     * @return <shopId, productIds>, in ordinal order
+     */
+    public Map<Integer, List<Integer>> resolve(BitSet bits) {
+        return resolve(_snapshot, bits);
+    }
+
+    private static Map<Integer, List<Integer>> resolve(Snapshot snapshot, BitSet bits) {
+        Map<Integer, List<Integer>> result = new LinkedHashMap<>();
+        for (int ordinal = bits.nextSetBit(0); ordinal >= 0 && ordinal < snapshot.shopIds.length;
+                ordinal = bits.nextSetBit(ordinal + 1)) {
+            result.computeIfAbsent(snapshot.shopIds[ordinal], k -> new ArrayList<>())
+                    .add(snapshot.productIds[ordinal]);
+        }
+        return result;
+    }
+
+    // Check if the shop was already indexed
+    public boolean isShopIndexed(Integer shopId) {
+        return shopId != null && _snapshot.shops.containsKey(shopId);
+    }
+
+    /**
+     * Returns the ordinal epoch. Bitmaps taken from the index at different
+     * epochs must not be combined; the epoch is odd while the ordinals are being
+     * renumbered.
+     */
+    public long getOrdinalEpoch() {
+        return _ordinalEpoch;
+    }
+
+    // Remove everything from the index
+    public synchronized void clear() {
+        _ordinalEpoch++;
+        _snapshot = Snapshot.empty();
+        _ordinals.clear();
+        _indexedCategories.clear();
+        _nextOrdinal = 0;
+        _ordinalEpoch++;
+    }
+
+    // Give the live products new dense ordinals once most of the ordinals belong
+    // to removed products, so the tables and the bitmaps stop growing
+    private void compactIfNeeded() {
+        int live = _ordinals.size();
+        int dead = _nextOrdinal - live;
+        if (dead < COMPACTION_MIN_DEAD || dead <= live)
+            return;
+        logger.log(Level.FINE, "ProductCategoryIndex - compactIfNeeded: compacting " + dead + " dead ordinals, "
+                + live + " live");
+        Snapshot old = _snapshot;
+        Snapshot compacted = Snapshot.empty();
+        compacted.ensureCapacity(live);
+        for (Integer shopId : old.shops.keySet()) {
+            compacted.shops.put(shopId, new BitSet());
+        }
+        Map<Integer, Category> newCategories = new HashMap<>();
+        int next = 0;
+        // in ordinal order, so the search results keep their order
+        for (int ordinal = 0; ordinal < _nextOrdinal; ordinal++) {
+            Category category = _indexedCategories.get(ordinal);
+            if (category == null)
+                continue;
+            int shopId = old.shopIds[ordinal];
+            int productId = old.productIds[ordinal];
+            compacted.shopIds[next] = shopId;
+            compacted.productIds[next] = productId;
+            compacted.categories.computeIfAbsent(category, k -> new BitSet()).set(next);
+            compacted.shops.get(shopId).set(next);
+            _ordinals.put(key(shopId, productId), next);
+            newCategories.put(next, category);
+            next++;
+        }
+        _indexedCategories.clear();
+        _indexedCategories.putAll(newCategories);
+        _nextOrdinal = next;
+        _ordinalEpoch++;
+        _snapshot = compacted;
+        _ordinalEpoch++;
+    }
+
+    private static long key(int shopId, int productId) {
+        return ((long) shopId << 32) | (productId & 0xFFFFFFFFL);
+    }
+
+    // a copy of the bitmap that the caller may change, empty for no bitmap
+    private static BitSet copyOf(BitSet bits) {
+        return bits == null ? new BitSet() : (BitSet) bits.clone();
+    }
+
+    // the bitmap of the category in the build, cloned from the snapshot on first use
+    private static BitSet changedBits(Snapshot snapshot, Map<Category, BitSet> changedCategories,
+            Category category) {
+        return changedCategories.computeIfAbsent(category, k -> copyOf(snapshot.categories.get(k)));
+    }
+
+    // a copy of the bitmap with one bit changed, the given bitmap is not changed
+    private static BitSet withBit(BitSet bits, int ordinal, boolean value) {
+        BitSet newBits = bits == null ? new BitSet() : (BitSet) bits.clone();
+        newBits.set(ordinal, value);
+        return newBits;
+    }
+
+    /**
+     * The bitmaps and the ordinal table. A published snapshot is never changed,
+     * except for table slots of ordinals that none of its bitmaps contain.
+     */
+    private static final class Snapshot {
+        private final Map<Category, BitSet> categories;
+        private final Map<Integer, BitSet> shops;
+        private int[] shopIds;
+        private int[] productIds;
+
+        private Snapshot(Map<Category, BitSet> categories, Map<Integer, BitSet> shops, int[] shopIds,
+                int[] productIds) {
+            this.categories = categories;
+            this.shops = shops;
+            this.shopIds = shopIds;
+            this.productIds = productIds;
+        }
+
+        private static Snapshot empty() {
+            return new Snapshot(new EnumMap<>(Category.class), new HashMap<>(), new int[INITIAL_CAPACITY],
+                    new int[INITIAL_CAPACITY]);
+        }
+
+        // a shallow copy - the bitmaps are replaced, never changed in place
+        private Snapshot copy() {
+            return new Snapshot(new EnumMap<>(categories), new HashMap<>(shops), shopIds, productIds);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= shopIds.length)
+                return;
+            int newLength = Math.max(capacity, shopIds.length * 2);
+            shopIds = Arrays.copyOf(shopIds, newLength);
+            productIds = Arrays.copyOf(productIds, newLength);
+        }
+    }
+}
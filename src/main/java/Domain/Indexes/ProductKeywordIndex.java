@@ -0,0 +1,217 @@
+package Domain.Indexes;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import Domain.Entities.Product;
+import Domain.Entities.Shop;
+
+/**
+ * Inverted index from a normalized product keyword to the products that carry
+ * it, grouped by shop: keyword -> (shopId -> productIds).
+ *
+ * Keyword search across all shops used to scan every product of every shop
+ * and compare every keyword with equalsIgnoreCase. With this index a query
+ * costs one posting-list lookup per requested keyword and a union of the
+ * results.
+ *
+ * The index is kept up to date by the shop whenever a product is added,
+ * removed, edited or gets new keywords. Writers are serialized on the index,
+ * readers work lock-free on the concurrent posting lists.
+ */
+public class ProductKeywordIndex {
+
+    // <keyword, <shopId, productIds>>
+    private final Map<String, Map<Integer, Set<Integer>>> _postings;
+
+    // <shopId, <productId, keywords>> - what is currently indexed for each
+    // product, used to remove stale postings on re-index
+    private final Map<Integer, Map<Integer, Set<String>>> _indexedKeywords;
+
+    private static final Logger logger = Logger.getLogger(ProductKeywordIndex.class.getName());
+
+    public ProductKeywordIndex() {
+        _postings = new ConcurrentHashMap<>();
+        _indexedKeywords = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Normalize a keyword the same way for indexing and for querying, so the
+     * lookup matches the case-insensitive comparison of Product.isKeywordExist.
+     *
+     * @param keyword the keyword to normalize
+     * @return the normalized keyword, or null if the keyword is null
+     */
+    public static String normalize(String keyword) {
+        return keyword == null ? null : keyword.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Index all the products of the given shop.
+     *
+     * @param shop the shop to index
+     */
+    public synchronized void indexShop(Shop shop) {
+        if (shop == null || shop.getId() == null)
+            return;
+        _indexedKeywords.computeIfAbsent(shop.getShopId(), k -> new ConcurrentHashMap<>());
+        for (Product product : shop.getAllProductsList()) {
+            indexProduct(shop.getShopId(), product);
+        }
+    }
+
+    /**
+     * Index (or re-index) a product with its current keywords. Keywords that
+     * were indexed for the product before and no longer exist are removed.
+     *
+     * @param shopId  the shop the product belongs to
+     * @param product the product to index
+     */
+    public synchronized void indexProduct(Integer shopId, Product product) {
+        if (shopId == null || product == null || product.getProductId() == null) {
+            logger.log(Level.FINE, "ProductKeywordIndex - indexProduct: skipping product without id in shop "
+                    + shopId);
+            return;
+        }
+        Integer productId = product.getProductId();
+        Set<String> newKeywords = new HashSet<>();
+        for (String keyword : product.getKeywords()) {
+            if (keyword != null)
+                newKeywords.add(normalize(keyword));
+        }
+
+        Map<Integer, Set<String>> shopProducts = _indexedKeywords.computeIfAbsent(shopId,
+                k -> new ConcurrentHashMap<>());
+        Set<String> oldKeywords = shopProducts.getOrDefault(productId, Collections.emptySet());
+
+        for (String keyword : oldKeywords) {
+            if (!newKeywords.contains(keyword))
+                removePosting(keyword, shopId, productId);
+        }
+        for (String keyword : newKeywords) {
+            if (!oldKeywords.contains(keyword))
+                _postings.computeIfAbsent(keyword, k -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(shopId, k -> new ConcurrentSkipListSet<>())
+                        .add(productId);
+        }
+        shopProducts.put(productId, newKeywords);
+    }
+
+    /**
+     * Remove a product from the index.
+     *
+     * @param shopId    the shop the product belonged to
+     * @param productId the product to remove
+     */
+    public synchronized void removeProduct(Integer shopId, Integer productId) {
+        if (shopId == null || productId == null)
+            return;
+        Map<Integer, Set<String>> shopProducts = _indexedKeywords.get(shopId);
+        if (shopProducts == null)
+            return;
+        Set<String> oldKeywords = shopProducts.remove(productId);
+        if (oldKeywords == null)
+            return;
+        for (String keyword : oldKeywords) {
+            removePosting(keyword, shopId, productId);
+        }
+    }
+
+    /**
+     * Remove all the products of a shop from the index.
+     *
+     * @param shopId the shop to remove
+     */
+    public synchronized void removeShop(Integer shopId) {
+        if (shopId == null)
+            return;
+        Map<Integer, Set<String>> shopProducts = _indexedKeywords.remove(shopId);
+        if (shopProducts == null)
+            return;
+        for (Map.Entry<Integer, Set<String>> entry : shopProducts.entrySet()) {
+            for (String keyword : entry.getValue()) {
+                removePosting(keyword, shopId, entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Find all the products, in all the shops, that have at least one of the
+     * given keywords.
+     *
+     * @param keywords the keywords to look for
+     * @return <shopId, productIds> of the matching products, sorted by id
+     */
+    public Map<Integer, Set<Integer>> search(Collection<String> keywords) {
+        Map<Integer, Set<Integer>> result = new HashMap<>();
+        if (keywords == null)
+            return result;
+        for (String keyword : keywords) {
+            if (keyword == null)
+                continue;
+            Map<Integer, Set<Integer>> posting = _postings.get(normalize(keyword));
+            if (posting == null)
+                continue;
+            for (Map.Entry<Integer, Set<Integer>> entry : posting.entrySet()) {
+                result.computeIfAbsent(entry.getKey(), k -> new TreeSet<>()).addAll(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the products of a specific shop that have at least one of the given
+     * keywords.
+     *
+     * @param shopId   the shop to search in
+     * @param keywords the keywords to look for
+     * @return the ids of the matching products, sorted
+     */
+    public Set<Integer> search(Integer shopId, Collection<String> keywords) {
+        Set<Integer> result = new TreeSet<>();
+        if (shopId == null || keywords == null)
+            return result;
+        for (String keyword : keywords) {
+            if (keyword == null)
+                continue;
+            Map<Integer, Set<Integer>> posting = _postings.get(normalize(keyword));
+            if (posting == null)
+                continue;
+            Set<Integer> productIds = posting.get(shopId);
+            if (productIds != null)
+                result.addAll(productIds);
+        }
+        return result;
+    }
+
+    // Check if the shop was already indexed
+    public boolean isShopIndexed(Integer shopId) {
+        return shopId != null && _indexedKeywords.containsKey(shopId);
+    }
+
+    // Remove everything from the index
+    public synchronized void clear() {
+        _postings.clear();
+        _indexedKeywords.clear();
+    }
+
+    private void removePosting(String keyword, Integer shopId, Integer productId) {
+        _postings.computeIfPresent(keyword, (k, shops) -> {
+            shops.computeIfPresent(shopId, (s, productIds) -> {
+                productIds.remove(productId);
+                return productIds.isEmpty() ? null : productIds;
+            });
+            return shops.isEmpty() ? null : shops;
+        });
+    }
+}
@@ -0,0 +1,411 @@
+package Domain.Indexes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import Domain.Entities.Product;
+import Domain.Entities.Shop;
+
+/**
+ * Sorted index of the product prices, for each shop and for all the shops
+ * together.
+ *
+ * The entries are kept sorted by (price, shopId, productId) in parallel
+ * primitive arrays, so a price range query is a binary search for the lower
+ * bound and a scan of the contiguous entries up to the upper bound, without
+ * touching the products that are out of the range.
+ *
+ * The arrays are copy-on-write: writers are serialized on the index and
+ * publish a new snapshot, readers search the current snapshot without locking.
+ * Price changes are rare compared to searches, so a change costs a copy of the
+ * arrays and a search costs nothing extra. Whole shops are indexed in bulk: their
+ * entries are sorted once and merged into the global entries.
+ */
+public class ProductPriceIndex {
+
+    private static final Logger logger = Logger.getLogger(ProductPriceIndex.class.getName());
+
+    // the entries of all the shops
+    private volatile Snapshot _global;
+
+    // <shopId, the entries of the shop>
+    private final Map<Integer, Snapshot> _shops;
+
+    // <shopId, <productId, indexed price>> - the key of every entry, needed to
+    // find the entry again when the price changes
+    private final Map<Integer, Map<Integer, Double>> _indexedPrices;
+
+    public ProductPriceIndex() {
+        _global = Snapshot.EMPTY;
+        _shops = new ConcurrentHashMap<>();
+        _indexedPrices = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Index all the products of the given shop, replacing its previous entries.
+     *
+     * @param shop the shop to index
+     */
+    public void indexShop(Shop shop) {
+        indexShops(Collections.singletonList(shop));
+    }
+
+    /**
+     * Index all the products of the given shops, replacing their previous
+     * entries. The entries of each shop are sorted once, and all of them are
+     * merged into the global entries in one pass, so a single snapshot is
+     * published instead of a copy of the arrays for every product.
+     *
+     * @param shops the shops to index
+     */
+    public void indexShops(Collection<Shop> shops) {
+        // the products are read before taking the index, the shops call the index
+        // while they hold their own lock
+        Map<Integer, List<Product>> productsByShop = new LinkedHashMap<>();
+        for (Shop shop : shops) {
+            if (shop != null && shop.getId() != null)
+                productsByShop.put(shop.getShopId(), shop.getAllProductsList());
+        }
+        if (!productsByShop.isEmpty())
+            indexProducts(productsByShop);
+    }
+
+    // Replace the entries of the shops with the given products and publish one
+    // global snapshot
+    private synchronized void indexProducts(Map<Integer, List<Product>> productsByShop) {
+        Entries allEntries = new Entries();
+        for (Map.Entry<Integer, List<Product>> entry : productsByShop.entrySet()) {
+            int shopId = entry.getKey();
+            Map<Integer, Double> shopPrices = new ConcurrentHashMap<>();
+            Entries shopEntries = new Entries();
+            for (Product product : entry.getValue()) {
+                if (product == null || product.getProductId() == null) {
+                    logger.log(Level.FINE, "ProductPriceIndex - indexProducts: skipping product without id in shop "
+                            + shopId);
+                    continue;
+                }
+                if (shopPrices.putIfAbsent(product.getProductId(), product.getPrice()) == null)
+                    shopEntries.add(product.getPrice(), shopId, product.getProductId());
+            }
+            _indexedPrices.put(shopId, shopPrices);
+            _shops.put(shopId, shopEntries.toSnapshot());
+            allEntries.addAll(shopEntries);
+        }
+        _global = _global.withoutShops(productsByShop.keySet()).merge(allEntries.toSnapshot());
+    }
+
+    /**
+     * Index (or re-index) a product with its current price.
+     *
+     * @param shopId  the shop the product belongs to
+     * @param product the product to index
+     */
+    public synchronized void indexProduct(Integer shopId, Product product) {
+        if (shopId == null || product == null || product.getProductId() == null) {
+            logger.log(Level.FINE, "ProductPriceIndex - indexProduct: skipping product without id in shop "
+                    + shopId);
+            return;
+        }
+        int productId = product.getProductId();
+        double price = product.getPrice();
+        Map<Integer, Double> shopPrices = _indexedPrices.computeIfAbsent(shopId, k -> new ConcurrentHashMap<>());
+        Double oldPrice = shopPrices.get(productId);
+        if (oldPrice != null && Double.compare(oldPrice, price) == 0)
+            return;
+
+        Snapshot shopEntries = _shops.getOrDefault(shopId, Snapshot.EMPTY);
+        Snapshot global = _global;
+        if (oldPrice != null) {
+            shopEntries = shopEntries.without(oldPrice, shopId, productId);
+            global = global.without(oldPrice, shopId, productId);
+        }
+        _shops.put(shopId, shopEntries.with(price, shopId, productId));
+        _global = global.with(price, shopId, productId);
+        shopPrices.put(productId, price);
+    }
+
+    /**
+     * Remove a product from the index.
+     *
+     * @param shopId    the shop the product belonged to
+     * @param productId the product to remove
+     */
+    public synchronized void removeProduct(Integer shopId, Integer productId) {
+        if (shopId == null || productId == null)
+            return;
+        Map<Integer, Double> shopPrices = _indexedPrices.get(shopId);
+        if (shopPrices == null)
+            return;
+        Double oldPrice = shopPrices.remove(productId);
+        if (oldPrice == null)
+            return;
+        _shops.computeIfPresent(shopId, (k, entries) -> entries.without(oldPrice, shopId, productId));
+        _global = _global.without(oldPrice, shopId, productId);
+    }
+
+    /**
+     * Remove all the products of a shop from the index.
+     *
+     * @param shopId the shop to remove
+     */
+    public synchronized void removeShop(Integer shopId) {
+        if (shopId == null)
+            return;
+        _indexedPrices.remove(shopId);
+        if (_shops.remove(shopId) != null)
+            _global = _global.withoutShops(Collections.singleton(shopId));
+    }
+
+    /**
+     * Find all the products, in all the shops, with a price in the given range
+     * (inclusive).
+     *
+     * @param minPrice the minimal price
+     * @param maxPrice the maximal price
+     * @return <shopId, productIds> of the matching products, by ascending price
+     */
+    public Map<Integer, List<Integer>> search(double minPrice, double maxPrice) {
+        Map<Integer, List<Integer>> result = new LinkedHashMap<>();
+        Snapshot global = _global;
+        for (int i = global.lowerBound(minPrice); i < global.size && global.prices[i] <= maxPrice; i++) {
+            result.computeIfAbsent(global.shopIds[i], k -> new ArrayList<>()).add(global.productIds[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Find the products of a specific shop with a price in the given range
+     * (inclusive).
+     *
+     * @param shopId   the shop to search in
+     * @param minPrice the minimal price
+     * @param maxPrice the maximal price
+     * @return the ids of the matching products, by ascending price
+     */
+    public List<Integer> search(Integer shopId, double minPrice, double maxPrice) {
+        List<Integer> result = new ArrayList<>();
+        Snapshot entries = shopId == null ? null : _shops.get(shopId);
+        if (entries == null)
+            return result;
+        for (int i = entries.lowerBound(minPrice); i < entries.size && entries.prices[i] <= maxPrice; i++) {
+            result.add(entries.productIds[i]);
+        }
+        return result;
+    }
+
+    // Check if the shop was already indexed
+    public boolean isShopIndexed(Integer shopId) {
+        return shopId != null && _shops.containsKey(shopId);
+    }
+
+    // Remove everything from the index
+    public synchronized void clear() {
+        _global = Snapshot.EMPTY;
+        _shops.clear();
+        _indexedPrices.clear();
+    }
+
+    /**
+     * An immutable array of entries sorted by (price, shopId, productId).
+     */
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(new double[0], new int[0], new int[0], 0);
+
+        private final double[] prices;
+        private final int[] shopIds;
+        private final int[] productIds;
+        private final int size;
+
+        private Snapshot(double[] prices, int[] shopIds, int[] productIds, int size) {
+            this.prices = prices;
+            this.shopIds = shopIds;
+            this.productIds = productIds;
+            this.size = size;
+        }
+
+        // the first position with a price >= minPrice
+        private int lowerBound(double minPrice) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] < minPrice)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+
+        // the position of the entry, or -(insertion point) - 1 if it's not there
+        private int find(double price, int shopId, int productId) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compare(prices[mid], shopIds[mid], productIds[mid], price, shopId, productId);
+                if (cmp < 0)
+                    low = mid + 1;
+                else if (cmp > 0)
+                    high = mid - 1;
+                else
+                    return mid;
+            }
+            return -(low + 1);
+        }
+
+        private Snapshot with(double price, int shopId, int productId) {
+            int position = find(price, shopId, productId);
+            if (position >= 0)
+                return this;
+            int insertAt = -position - 1;
+            double[] newPrices = new double[size + 1];
+            int[] newShopIds = new int[size + 1];
+            int[] newProductIds = new int[size + 1];
+            copyAround(newPrices, newShopIds, newProductIds, insertAt, 0, 1);
+            newPrices[insertAt] = price;
+            newShopIds[insertAt] = shopId;
+            newProductIds[insertAt] = productId;
+            return new Snapshot(newPrices, newShopIds, newProductIds, size + 1);
+        }
+
+        private Snapshot without(double price, int shopId, int productId) {
+            int position = find(price, shopId, productId);
+            if (position < 0)
+                return this;
+            double[] newPrices = new double[size - 1];
+            int[] newShopIds = new int[size - 1];
+            int[] newProductIds = new int[size - 1];
+            copyAround(newPrices, newShopIds, newProductIds, position, 1, 0);
+            return new Snapshot(newPrices, newShopIds, newProductIds, size - 1);
+        }
+
+        private Snapshot withoutShops(Set<Integer> removedShopIds) {
+            double[] newPrices = new double[size];
+            int[] newShopIds = new int[size];
+            int[] newProductIds = new int[size];
+            int newSize = 0;
+            for (int i = 0; i < size; i++) {
+                if (removedShopIds.contains(shopIds[i]))
+                    continue;
+                newPrices[newSize] = prices[i];
+                newShopIds[newSize] = shopIds[i];
+                newProductIds[newSize] = productIds[i];
+                newSize++;
+            }
+            return new Snapshot(Arrays.copyOf(newPrices, newSize), Arrays.copyOf(newShopIds, newSize),
+                    Arrays.copyOf(newProductIds, newSize), newSize);
+        }
+
+        // merge two sorted snapshots without common entries
+        private Snapshot merge(Snapshot other) {
+            if (other.size == 0)
+                return this;
+            if (size == 0)
+                return other;
+            int newSize = size + other.size;
+            double[] newPrices = new double[newSize];
+            int[] newShopIds = new int[newSize];
+            int[] newProductIds = new int[newSize];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < newSize; k++) {
+                boolean takeThis = j == other.size || (i < size && compare(prices[i], shopIds[i], productIds[i],
+                        other.prices[j], other.shopIds[j], other.productIds[j]) < 0);
+                if (takeThis) {
+                    newPrices[k] = prices[i];
+                    newShopIds[k] = shopIds[i];
+                    newProductIds[k] = productIds[i];
+                    i++;
+                } else {
+                    newPrices[k] = other.prices[j];
+                    newShopIds[k] = other.shopIds[j];
+                    newProductIds[k] = other.productIds[j];
+                    j++;
+                }
+            }
+            return new Snapshot(newPrices, newShopIds, newProductIds, newSize);
+        }
+
+        // copy the entries before position as is, and the entries from
+        // position + skip on, shifted by shift
+        private void copyAround(double[] newPrices, int[] newShopIds, int[] newProductIds, int position, int skip,
+                int shift) {
+            System.arraycopy(prices, 0, newPrices, 0, position);
+            System.arraycopy(shopIds, 0, newShopIds, 0, position);
+            System.arraycopy(productIds, 0, newProductIds, 0, position);
+            int tail = size - position - skip;
+            System.arraycopy(prices, position + skip, newPrices, position + shift, tail);
+            System.arraycopy(shopIds, position + skip, newShopIds, position + shift, tail);
+            System.arraycopy(productIds, position + skip, newProductIds, position + shift, tail);
+        }
+
+        private static int compare(double price1, int shopId1, int productId1, double price2, int shopId2,
+                int productId2) {
+            int cmp = Double.compare(price1, price2);
+            if (cmp != 0)
+                return cmp;
+            cmp = Integer.compare(shopId1, shopId2);
+            if (cmp != 0)
+                return cmp;
+            return Integer.compare(productId1, productId2);
+        }
+    }
+
+    /**
+     * Unsorted entries collected for a bulk index, sorted once into a snapshot.
+     */
+    private static final class Entries {
+        private double[] prices = new double[16];
+        private int[] shopIds = new int[16];
+        private int[] productIds = new int[16];
+        private int size;
+
+        private void add(double price, int shopId, int productId) {
+            if (size == prices.length) {
+                prices = Arrays.copyOf(prices, size * 2);
+                shopIds = Arrays.copyOf(shopIds, size * 2);
+                productIds = Arrays.copyOf(productIds, size * 2);
+            }
+            prices[size] = price;
+            shopIds[size] = shopId;
+            productIds[size] = productId;
+            size++;
+        }
+
+        private void addAll(Entries other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.prices[i], other.shopIds[i], other.productIds[i]);
+            }
+        }
+
+        private Snapshot toSnapshot() {
+            if (size == 0)
+                return Snapshot.EMPTY;
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Snapshot.compare(prices[a], shopIds[a], productIds[a], prices[b],
+                    shopIds[b], productIds[b]));
+            double[] sortedPrices = new double[size];
+            int[] sortedShopIds = new int[size];
+            int[] sortedProductIds = new int[size];
+            for (int i = 0; i < size; i++) {
+                sortedPrices[i] = prices[order[i]];
+                sortedShopIds[i] = shopIds[order[i]];
+                sortedProductIds[i] = productIds[order[i]];
+            }
+            return new Snapshot(sortedPrices, sortedShopIds, sortedProductIds, size);
+        }
+    }
+}
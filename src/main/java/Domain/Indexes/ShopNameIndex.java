@@ -0,0 +1,171 @@
+package Domain.Indexes;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Index of the shop names: an exact name -> shopId hash index, and a trigram
+ * index for substring search.
+ *
+ * Every shop name is lowercased once, when it is indexed, and split into its
+ * trigrams (all the substrings of length 3). A substring query is split the
+ * same way; only the shops that have all the trigrams of the query can contain
+ * it, so the posting lists of the query trigrams are intersected, smallest
+ * first, and only the remaining candidates are verified with contains.
+ * Queries shorter than a trigram are verified against the lowercased names
+ * directly.
+ *
+ * Writers are serialized on the index, readers work lock-free on the
+ * concurrent maps.
+ */
+public class ShopNameIndex {
+
+    private static final Logger logger = Logger.getLogger(ShopNameIndex.class.getName());
+
+    private static final int GRAM_LENGTH = 3;
+
+    // <shop name, shopId> - shop names are unique
+    private final Map<String, Integer> _shopIdsByName;
+
+    // <shopId, shop name>
+    private final Map<Integer, String> _names;
+
+    // <shopId, lowercased shop name>
+    private final Map<Integer, String> _lowerNames;
+
+    // <trigram, shopIds>
+    private final Map<String, Set<Integer>> _postings;
+
+    public ShopNameIndex() {
+        _shopIdsByName = new ConcurrentHashMap<>();
+        _names = new ConcurrentHashMap<>();
+        _lowerNames = new ConcurrentHashMap<>();
+        _postings = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Index (or re-index) a shop with its current name.
+     *
+     * @param shopId   the shop to index
+     * @param shopName the name of the shop
+     */
+    public synchronized void indexShop(Integer shopId, String shopName) {
+        if (shopId == null || shopName == null) {
+            logger.log(Level.FINE, "ShopNameIndex - indexShop: skipping shop without id or name " + shopId);
+            return;
+        }
+        removeShop(shopId);
+        String lowerName = normalize(shopName);
+        _shopIdsByName.put(shopName, shopId);
+        _names.put(shopId, shopName);
+        _lowerNames.put(shopId, lowerName);
+        for (String gram : trigrams(lowerName)) {
+            _postings.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(shopId);
+        }
+    }
+
+    /**
+     * Remove a shop from the index.
+     *
+     * @param shopId the shop to remove
+     */
+    public synchronized void removeShop(Integer shopId) {
+        if (shopId == null)
+            return;
+        String lowerName = _lowerNames.remove(shopId);
+        if (lowerName == null)
+            return;
+        _shopIdsByName.remove(_names.remove(shopId), shopId);
+        for (String gram : trigrams(lowerName)) {
+            _postings.computeIfPresent(gram, (k, shopIds) -> {
+                shopIds.remove(shopId);
+                return shopIds.isEmpty() ? null : shopIds;
+            });
+        }
+    }
+
+    /**
+     * Find the shop with exactly the given name.
+     *
+     * @param shopName the name of the shop
+     * @return the id of the shop, or null if there is no such shop
+     */
+    public Integer findShopId(String shopName) {
+        return shopName == null ? null : _shopIdsByName.get(shopName);
+    }
+
+    /**
+     * Find all the shops whose name contains the given text, ignoring case.
+     *
+     * @param text the text to look for
+     * @return the ids of the matching shops, sorted
+     */
+    public List<Integer> searchContaining(String text) {
+        if (text == null)
+            return new ArrayList<>();
+        String query = normalize(text);
+        Set<String> grams = trigrams(query);
+        if (grams.isEmpty())
+            return verify(_lowerNames.keySet(), query);
+
+        List<Set<Integer>> postings = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            Set<Integer> shopIds = _postings.get(gram);
+            if (shopIds == null)
+                return new ArrayList<>();
+            postings.add(shopIds);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<Integer> candidates = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !candidates.isEmpty(); i++) {
+            candidates.retainAll(postings.get(i));
+        }
+        return verify(candidates, query);
+    }
+
+    // Check if the shop was already indexed
+    public boolean isShopIndexed(Integer shopId) {
+        return shopId != null && _lowerNames.containsKey(shopId);
+    }
+
+    // Remove everything from the index
+    public synchronized void clear() {
+        _shopIdsByName.clear();
+        _names.clear();
+        _lowerNames.clear();
+        _postings.clear();
+    }
+
+    // keep the candidates whose name really contains the query - having all the
+    // trigrams of the query doesn't mean having them in the right order
+    private List<Integer> verify(Set<Integer> candidates, String query) {
+        Set<Integer> result = new TreeSet<>();
+        for (Integer shopId : candidates) {
+            String lowerName = _lowerNames.get(shopId);
+            if (lowerName != null && lowerName.contains(query))
+                result.add(shopId);
+        }
+        return new ArrayList<>(result);
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,61 @@
+package Domain.Locks;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read/write locks of the shops, by shop id.
+ *
+ * A shop entity is loaded again in every transaction, so locking the entity
+ * instance doesn't isolate anything; the lock of a shop is looked up here by
+ * the shop id instead, and all the instances of the same shop share it.
+ *
+ * The locks are striped: a fixed array of locks, and a shop uses the lock at
+ * the hash of its id. The memory doesn't grow with the amount of shops, and
+ * two shops share a lock only when their ids fall on the same stripe. The
+ * locks are reentrant, so a shop method that holds the write lock can call
+ * the readers of the shop.
+ */
+public class ShopLockRegistry {
+
+    public static final int DEFAULT_STRIPES = 256;
+
+    private final ReadWriteLock[] _stripes;
+    private final int _mask;
+
+    public ShopLockRegistry() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes the amount of locks, rounded up to a power of two
+     */
+    public ShopLockRegistry(int stripes) {
+        if (stripes <= 0)
+            throw new IllegalArgumentException("The amount of stripes must be positive.");
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes)
+            size <<= 1;
+        _stripes = new ReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            _stripes[i] = new ReentrantReadWriteLock();
+        }
+        _mask = size - 1;
+    }
+
+    /**
+     * Returns the lock of a shop.
+     *
+     * @param shopId the shop
+     * @return the read/write lock of the shop
+     */
+    public ReadWriteLock getLock(int shopId) {
+        // mix the high bits of the id into the low bits that pick the stripe
+        int hash = shopId * 0x9E3779B9;
+        return _stripes[(hash ^ (hash >>> 16)) & _mask];
+    }
+
+    public int getStripeCount() {
+        return _stripes.length;
+    }
+}
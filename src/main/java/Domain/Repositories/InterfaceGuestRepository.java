@@ -1,4 +1,6 @@
 package Domain.Repositories;
+import java.util.Collection;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import Domain.Entities.Guest;
 
@@ -6,4 +8,9 @@ public interface InterfaceGuestRepository extends JpaRepository<Guest, Integer>
     boolean existsByGuestId(String guestId);
     void deleteByGuestId(String guestId);
     Guest findByGuestId(String id);
+
+    // Read-only view of all the guests, findAll() for the database
+    default Collection<Guest> findAllView() {
+        return findAll();
+    }
 }
\ No newline at end of file
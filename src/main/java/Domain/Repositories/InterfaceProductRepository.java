@@ -1,10 +1,34 @@
 package Domain.Repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import Domain.Entities.Product;
 
 @NoRepositoryBean
 public interface InterfaceProductRepository extends JpaRepository<Product, Integer> {
+
+    // Take amount units from the stock of a product in one conditional update,
+    // only if there are enough. Returns the amount of updated rows: 1 if the
+    // units were taken, 0 if there was not enough stock.
+    // The managed product entity is not refreshed, its quantity stays as loaded.
+    // Commits on its own: the row isn't locked by the purchase transaction while
+    // paying, the stock reservation returns the units if the purchase fails.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE Product p SET p.quantity = p.quantity - ?2, p.version = p.version + 1 "
+            + "WHERE p.productId = ?1 AND p.quantity >= ?2")
+    int decrementStock(Integer productId, int amount);
+
+    // Return amount units to the stock of a product. Returns the amount of
+    // updated rows. Commits on its own.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE Product p SET p.quantity = p.quantity + ?2, p.version = p.version + 1 "
+            + "WHERE p.productId = ?1")
+    int incrementStock(Integer productId, int amount);
 }
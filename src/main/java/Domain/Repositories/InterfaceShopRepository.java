@@ -1,9 +1,16 @@
 package Domain.Repositories;
 
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.NoRepositoryBean;
 import Domain.Entities.Shop;
+import Domain.Entities.ShopOrder;
+import Dtos.ShopDto;
 
 @NoRepositoryBean
 public interface InterfaceShopRepository extends JpaRepository<Shop, Integer> {
@@ -14,4 +21,41 @@ public interface InterfaceShopRepository extends JpaRepository<Shop, Integer> {
     Shop findByShopName(String shopName);
 
     Shop findByShopId(Integer shopId);
+
+    // All the shops, for read-only iteration. The memory repository returns a
+    // live view without copying, the database repository falls back to findAll.
+    default Collection<Shop> findAllView() {
+        return findAll();
+    }
+
+    // All the shops with their products, for the product searches.
+    @EntityGraph(Shop.GRAPH_SEARCH)
+    @Query("SELECT s FROM Shop s")
+    Collection<Shop> findAllForSearch();
+
+    // All the shops with their roles and policy, the discounts are batch loaded.
+    @EntityGraph(Shop.GRAPH_MANAGEMENT)
+    @Query("SELECT s FROM Shop s")
+    Collection<Shop> findAllForManagement();
+
+    // A shop with its products and policy, for pricing and purchasing baskets.
+    @EntityGraph(Shop.GRAPH_PURCHASE)
+    @Query("SELECT s FROM Shop s WHERE s.shopId = ?1")
+    Shop findForPurchaseByShopId(Integer shopId);
+
+    // A shop with its order history and the baskets of the orders.
+    @EntityGraph(Shop.GRAPH_HISTORY)
+    @Query("SELECT s FROM Shop s WHERE s.shopId = ?1")
+    Shop findWithHistoryByShopId(Integer shopId);
+
+    // The columns of all the shops, without loading the shop entities.
+    @Query("SELECT new Dtos.ShopDto(s.shopId, s.shopName, s.bankDetails, s.shopAddress, s.shopRating, "
+            + "s.shopRatersCounter, s.isClosed) FROM Shop s")
+    List<ShopDto> findAllShopDtos();
+
+    // The orders of a shop with an id greater than afterOrderId, ordered by id.
+    // Only the page size of the pageable is used, the cursor replaces the offset.
+    @Query("SELECT o FROM Shop s JOIN s.orderHistory o JOIN FETCH o.shoppingBasket "
+            + "WHERE s.shopId = ?1 AND o.shopOrderId > ?2 ORDER BY o.shopOrderId")
+    List<ShopOrder> findPurchaseHistoryPage(Integer shopId, Integer afterOrderId, Pageable pageable);
 }
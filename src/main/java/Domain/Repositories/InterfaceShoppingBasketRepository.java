@@ -14,6 +14,7 @@ public interface InterfaceShoppingBasketRepository extends JpaRepository<Shoppin
     @Query("SELECT c FROM ShoppingBasket c WHERE c.shoppingBasketId = ?1")
     List<ShoppingBasket> getShoppingBasketsByCartId(int cartId);
 
-    @Query("SELECT p.productId FROM ShoppingBasket sb JOIN sb.productsList p WHERE sb.shoppingBasketId = :basketId")
+    // the distinct product ids in the basket, the quantities are in the map values
+    @Query("SELECT KEY(q).productId FROM ShoppingBasket sb JOIN sb.productToQuantity q WHERE sb.shoppingBasketId = :basketId")
     List<Integer> getProductIdsList(int basketId);
 }
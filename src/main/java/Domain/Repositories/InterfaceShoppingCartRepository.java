@@ -1,5 +1,7 @@
 package Domain.Repositories;
 
+import java.util.Collection;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.NoRepositoryBean;
@@ -13,4 +15,9 @@ public interface InterfaceShoppingCartRepository extends JpaRepository<ShoppingC
 
     @Query("SELECT CASE WHEN COUNT(c) > 0 THEN true ELSE false END FROM Order c")
     int getUniqueOrderID();
+
+    // Read-only view of all the carts, findAll() for the database
+    default Collection<ShoppingCart> findAllView() {
+        return findAll();
+    }
 }
@@ -1,12 +1,15 @@
 package Domain.Repositories;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.query.Param;
 
+import Domain.Entities.Order;
 import Domain.Entities.User;
 
 @NoRepositoryBean
@@ -19,7 +22,14 @@ public interface InterfaceUserRepository extends JpaRepository<User, Integer> {
     @Query("SELECT u.messages FROM User u WHERE u.username = :username")
     List<String> findMessagesByUsername(@Param("username") String username);
 
+    // A page of the orders of a user, the ones after the cursor ordered by id
+    @Query("SELECT o FROM User u JOIN u.purchaseHistory o WHERE u.username = :username "
+            + "AND o.orderId > :afterOrderId ORDER BY o.orderId")
+    List<Order> findPurchaseHistoryPage(@Param("username") String username,
+            @Param("afterOrderId") Integer afterOrderId, Pageable pageable);
 
-
-    
+    // Iterate over all the users without copying them in memory mode
+    default Collection<User> findAllView() {
+        return findAll();
+    }
 }
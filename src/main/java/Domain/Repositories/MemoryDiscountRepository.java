@@ -1,6 +1,7 @@
 package Domain.Repositories;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
@@ -15,16 +16,16 @@ import Domain.Entities.Discounts.Discount;
 
 public class MemoryDiscountRepository implements InterfaceDiscountRepository {
 
-    private List<Discount> discounts;
+    private final List<Discount> discounts;
 
     // Constructor
     public MemoryDiscountRepository(List<Discount> discounts){
-        this.discounts = discounts;
+        this.discounts = Collections.synchronizedList(new ArrayList<Discount>(discounts));
     }
 
     // empty constructor
     public MemoryDiscountRepository(){
-        discounts = new ArrayList<Discount>();
+        this(new ArrayList<Discount>());
     }
 
     @Override
@@ -69,9 +70,11 @@ public class MemoryDiscountRepository implements InterfaceDiscountRepository {
 
     @Override
     public Discount getById(Integer id) {
-        for(Discount d : discounts){
-            if((d.getId()!=null && d.getId() == id)|| (d.getTempId() != null && d.getTempId() == id)){
-                return d;
+        synchronized (discounts) {
+            for(Discount d : discounts){
+                if((d.getId()!=null && d.getId() == id)|| (d.getTempId() != null && d.getTempId() == id)){
+                    return d;
+                }
             }
         }
         return null;
@@ -120,12 +123,7 @@ public class MemoryDiscountRepository implements InterfaceDiscountRepository {
 
     @Override
     public Optional<Discount> findById(Integer id) {
-        for(Discount d : discounts){
-            if((d.getId()!=null && d.getId() == id)|| (d.getTempId() != null && d.getTempId() == id)){
-                return Optional.of(d);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(getById(id));
     }
 
     @Override
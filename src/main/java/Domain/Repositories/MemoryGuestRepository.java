@@ -1,8 +1,13 @@
 package Domain.Repositories;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import org.springframework.data.domain.Example;
@@ -16,49 +21,46 @@ import Domain.Entities.Guest;
 
 @Repository
 public class MemoryGuestRepository implements InterfaceGuestRepository {
-    private List<Guest> _guestIds;
+    private final Map<String, Guest> _guestIds; // <guestId, guest>
+    private final AtomicInteger _guestIdCounter;
 
     public MemoryGuestRepository(){
-        _guestIds = new ArrayList<>();
+        _guestIds = new ConcurrentHashMap<>();
+        _guestIdCounter = new AtomicInteger();
     } 
     
     public MemoryGuestRepository(List<Guest> _guestIds2) {
-        _guestIds = _guestIds2;
+        this();
+        for (Guest guest : _guestIds2) {
+            _guestIds.put(guest.getGuestId(), guest);
+        }
+        _guestIdCounter.set(_guestIds2.size());
     }
 
     @Override
     public boolean existsByGuestId(String guestId){
-        for (Guest guest : _guestIds) {
-            if (guest.getGuestId().equals(guestId)) {
-                return true;
-            }
-        }
-        return false;
+        return guestId != null && _guestIds.containsKey(guestId);
     }
 
     @Override
     public void deleteByGuestId(String guestId){
-        _guestIds.removeIf(guest -> guest.getGuestId().equals(guestId));
+        if (guestId != null)
+            _guestIds.remove(guestId);
     }
 
     @Override
     public <S extends Guest> S save(S entity) {
         if(entity.getId() == null)
-            entity.setId(_guestIds.size());
+            entity.setId(_guestIdCounter.getAndIncrement());
 
-        _guestIds.add(entity);
+        _guestIds.put(entity.getGuestId(), entity);
 
         return entity;
     }
 
     @Override
     public Guest findByGuestId(String id) {
-        for (Guest guest : _guestIds) {
-            if (guest.getGuestId().equals(id)) {
-                return guest;
-            }
-        }
-        return null;
+        return id == null ? null : _guestIds.get(id);
     }
 
     @Override
@@ -109,7 +111,12 @@ public class MemoryGuestRepository implements InterfaceGuestRepository {
 
     @Override
     public List<Guest> findAll() {
-        return _guestIds;
+        return new ArrayList<>(_guestIds.values());
+    }
+
+    @Override
+    public Collection<Guest> findAllView() {
+        return Collections.unmodifiableCollection(_guestIds.values());
     }
 
     @Override
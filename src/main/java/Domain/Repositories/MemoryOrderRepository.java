@@ -1,8 +1,10 @@
 package Domain.Repositories;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import org.springframework.data.domain.Example;
@@ -17,16 +19,18 @@ import Domain.Entities.Order;
 @Repository
 public class MemoryOrderRepository implements InterfaceOrderRepository{
 
-    private List<Order> _orders;
+    private final List<Order> _orders;
+    private final AtomicInteger _orderIdCounter;
 
     // Constructor
     public MemoryOrderRepository(List<Order> order){
-        this._orders = order;
+        this._orders = Collections.synchronizedList(new ArrayList<>(order));
+        this._orderIdCounter = new AtomicInteger(order.size());
     }
 
     // empty constructor
     public MemoryOrderRepository() {
-        _orders = new ArrayList<>();
+        this(new ArrayList<>());
     }
 
     @Override
@@ -83,7 +87,7 @@ public class MemoryOrderRepository implements InterfaceOrderRepository{
     @Override
     public <S extends Order> S save(S entity) {
         if(entity.getId() == null){
-            entity.setId(_orders.size());
+            entity.setId(_orderIdCounter.getAndIncrement());
         }
         _orders.add(entity);
         return entity;
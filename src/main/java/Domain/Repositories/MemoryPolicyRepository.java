@@ -1,6 +1,7 @@
 package Domain.Repositories;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
@@ -15,16 +16,16 @@ import Domain.Entities.Discounts.Discount;
 import Domain.Entities.Policies.Policy;
 
 public class MemoryPolicyRepository implements InterfacePolicyRepository {
-    private List<Policy> policies;
+    private final List<Policy> policies;
 
     // Constructor
     public MemoryPolicyRepository(List<Policy> policies){
-        this.policies = policies;
+        this.policies = Collections.synchronizedList(new ArrayList<Policy>(policies));
     }
 
     // empty constructor
     public MemoryPolicyRepository(){
-        policies = new ArrayList<Policy>();
+        this(new ArrayList<Policy>());
     }
 
     @Override
@@ -70,9 +71,11 @@ public class MemoryPolicyRepository implements InterfacePolicyRepository {
 
     @Override
     public Policy getById(Integer id) {
-        for(Policy p : policies){
-            if(p.getId() == id){
-                return p;
+        synchronized (policies) {
+            for(Policy p : policies){
+                if(p.getId() == id){
+                    return p;
+                }
             }
         }
         return null;
@@ -121,12 +124,7 @@ public class MemoryPolicyRepository implements InterfacePolicyRepository {
 
     @Override
     public Optional<Policy> findById(Integer id) {
-        for(Policy p : policies){
-            if(p.getId() == id){
-                return Optional.of(p);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(getById(id));
     }
 
     @Override
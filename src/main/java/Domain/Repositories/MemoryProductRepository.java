@@ -2,7 +2,10 @@ package Domain.Repositories;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import org.springframework.data.domain.Example;
@@ -19,15 +22,19 @@ public class MemoryProductRepository implements InterfaceProductRepository {
 
     // TODO: Implement the methods of the InterfaceProductRepository
 
-    List<Product> products;
+    private final Map<Integer, Product> products; // <productId, product>
+    private final AtomicInteger productIdCounter;
 
     public MemoryProductRepository(List<Product> products) {
-        this.products = products;
+        this();
+        for (Product product : products)
+            save(product);
     }
 
     // empty constructor
     public MemoryProductRepository() {
-        this.products = new ArrayList<Product>();
+        this.products = new ConcurrentHashMap<>();
+        this.productIdCounter = new AtomicInteger();
     }
 
     @Override
@@ -72,7 +79,7 @@ public class MemoryProductRepository implements InterfaceProductRepository {
 
     @Override
     public Product getById(Integer id) {
-        return products.get(id);
+        return id == null ? null : products.get(id);
     }
 
     @Override
@@ -101,7 +108,7 @@ public class MemoryProductRepository implements InterfaceProductRepository {
 
     @Override
     public List<Product> findAll() {
-        return products;
+        return new ArrayList<>(products.values());
     }
 
     @Override
@@ -113,20 +120,31 @@ public class MemoryProductRepository implements InterfaceProductRepository {
     @Override
     public <S extends Product> S save(S entity) {
         if (entity.getId() == null) {
-            entity.setProductId(products.size());
+            entity.setProductId(productIdCounter.getAndIncrement());
         }
-        products.add(entity);
+        // saving a product again replaces it instead of adding a duplicate
+        products.put(entity.getProductId(), entity);
         return entity;
     }
 
     @Override
     public Optional<Product> findById(Integer id) {
-        for (Product product : products) {
-            if (product.getProductId() == id) {
-                return Optional.of(product);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(getById(id));
+    }
+
+    @Override
+    public int decrementStock(Integer productId, int amount) {
+        Product product = getById(productId);
+        return product != null && product.tryReserve(amount) ? 1 : 0;
+    }
+
+    @Override
+    public int incrementStock(Integer productId, int amount) {
+        Product product = getById(productId);
+        if (product == null)
+            return 0;
+        product.release(amount);
+        return 1;
     }
 
     @Override
@@ -149,7 +167,8 @@ public class MemoryProductRepository implements InterfaceProductRepository {
 
     @Override
     public void delete(Product entity) {
-        products.remove(entity);
+        if (entity.getProductId() != null)
+            products.remove(entity.getProductId(), entity);
     }
 
     @Override
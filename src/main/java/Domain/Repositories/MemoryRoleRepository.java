@@ -1,7 +1,9 @@
 package Domain.Repositories;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -15,16 +17,18 @@ import Domain.Entities.Role;
 
 public class MemoryRoleRepository implements InterfaceRoleRepository{
 
-    private List<Role> roles;
+    private final List<Role> roles;
+    private final AtomicInteger roleIdCounter;
 
     // Constructor
     public MemoryRoleRepository(List<Role> roles){
-        this.roles = roles;
+        this.roles = Collections.synchronizedList(new ArrayList<Role>(roles));
+        this.roleIdCounter = new AtomicInteger(roles.size());
     }
 
     // empty constructor
     public MemoryRoleRepository(){
-        roles = new ArrayList<Role>();
+        this(new ArrayList<Role>());
     }
 
     @Override
@@ -111,7 +115,7 @@ public class MemoryRoleRepository implements InterfaceRoleRepository{
     @Override
     public <S extends Role> S save(S entity) {
         if(entity.getId() == null){
-            entity.setId(roles.size() + 1);
+            entity.setId(roleIdCounter.incrementAndGet());
         }
         roles.add(entity);
         return entity;
@@ -1,8 +1,10 @@
 package Domain.Repositories;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import org.springframework.data.domain.Example;
@@ -17,16 +19,18 @@ import Domain.Entities.ShopOrder;
 @Repository
 public class MemoryShopOrderRepository implements InterfaceShopOrderRepository{
 
-    private List<ShopOrder> _shopOrders;
+    private final List<ShopOrder> _shopOrders;
+    private final AtomicInteger _shopOrderIdCounter;
 
     // constructor
     public MemoryShopOrderRepository(List<ShopOrder> shopOrders) {
-        _shopOrders = shopOrders;
+        _shopOrders = Collections.synchronizedList(new ArrayList<>(shopOrders));
+        _shopOrderIdCounter = new AtomicInteger(shopOrders.size());
     }
 
     // empty constructor
     public MemoryShopOrderRepository() {
-        _shopOrders = new ArrayList<>();
+        this(new ArrayList<>());
     }
 
     @Override
@@ -83,7 +87,7 @@ public class MemoryShopOrderRepository implements InterfaceShopOrderRepository{
     @Override
     public <S extends ShopOrder> S save(S entity) {
         if(entity.getId() == null) {
-            entity.setId(_shopOrders.size());
+            entity.setId(_shopOrderIdCounter.getAndIncrement());
         }
         _shopOrders.add(entity);
         return entity;
@@ -1,10 +1,14 @@
 package Domain.Repositories;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import org.springframework.data.domain.Example;
@@ -15,33 +19,57 @@ import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuer
 import org.springframework.stereotype.Repository;
 
 import Domain.Entities.Shop;
+import Domain.Entities.ShopOrder;
+import Dtos.ShopDto;
 
 @Repository
 public class MemoryShopRepository implements InterfaceShopRepository {
-    private Map<Integer, Shop> _shops;
-    private int _shopIdCounter;
-    private int _productIdCounter;
+    private final Map<Integer, Shop> _shops;
+    private final Map<String, Shop> _shopsByName; // secondary index, shop names are unique
+    private final Map<Integer, String> _indexedNames; // <shopId, name in _shopsByName>, to follow renames
+    private final AtomicInteger _shopIdCounter;
+    private final AtomicInteger _productIdCounter;
 
     public MemoryShopRepository(List<Shop> shops) {
-        _shops = new HashMap<>();
-        _shopIdCounter = 0;
-        _productIdCounter = 0;
+        this();
         for (Shop shop : shops) {
-            _shops.put(shop.getShopId(), shop);
-            _shopIdCounter++;
-            _productIdCounter += shop.getAmoutOfProductInShop();
+            if (shop.getId() != null) {
+                _shops.put(shop.getShopId(), shop);
+                indexShopName(shop.getShopId(), shop);
+            } else if (shop.getShopName() != null) {
+                _shopsByName.putIfAbsent(shop.getShopName(), shop);
+            }
+            _shopIdCounter.incrementAndGet();
+            _productIdCounter.addAndGet(shop.getAmoutOfProductInShop());
         }
     }
 
     // empty constructor
     public MemoryShopRepository() {
-        _shops = new HashMap<>();
-        _shopIdCounter = 0;
-        _productIdCounter = 0;
+        _shops = new ConcurrentHashMap<>();
+        _shopsByName = new ConcurrentHashMap<>();
+        _indexedNames = new ConcurrentHashMap<>();
+        _shopIdCounter = new AtomicInteger();
+        _productIdCounter = new AtomicInteger();
+    }
+
+    // Point the name of the shop at the saved instance, and drop the old name if
+    // the shop was renamed. A name that belongs to another shop is not taken.
+    private void indexShopName(int shopId, Shop shop) {
+        String oldName = _indexedNames.remove(shopId);
+        if (oldName != null && !oldName.equals(shop.getShopName()))
+            _shopsByName.remove(oldName);
+        if (shop.getShopName() == null)
+            return;
+        Shop owner = _shopsByName.get(shop.getShopName());
+        if (owner == null || owner == shop || shop.getShopName().equals(oldName)) {
+            _shopsByName.put(shop.getShopName(), shop);
+            _indexedNames.put(shopId, shop.getShopName());
+        }
     }
 
     @Override
-    public synchronized int getUniqueProductID() { return _productIdCounter++;}
+    public int getUniqueProductID() { return _productIdCounter.getAndIncrement();}
 
     @Override
     public void flush() {
@@ -118,6 +146,11 @@ public class MemoryShopRepository implements InterfaceShopRepository {
         return new ArrayList<>(_shops.values());
     }
 
+    @Override
+    public Collection<Shop> findAllView() {
+        return Collections.unmodifiableCollection(_shops.values());
+    }
+
     @Override
     public List<Shop> findAllById(Iterable<Integer> ids) {
         // TODO Auto-generated method stub
@@ -125,18 +158,21 @@ public class MemoryShopRepository implements InterfaceShopRepository {
     }
 
     @Override
-    public <S extends Shop> S save(S entity) {
+    public synchronized <S extends Shop> S save(S entity) {
+        // a shop that was saved before keeps its id, an update replaces it
         if (entity.getId() == null) {
-            entity.setShopId(_shopIdCounter);
+            entity.setShopId(_shopIdCounter.getAndIncrement());
+        } else {
+            _shopIdCounter.accumulateAndGet(entity.getShopId() + 1, Math::max);
         }
-        _shops.put(_shopIdCounter, entity);
-        _shopIdCounter++;
+        _shops.put(entity.getShopId(), entity);
+        indexShopName(entity.getShopId(), entity);
         return entity;
     }
 
     @Override
     public Optional<Shop> findById(Integer id) {
-        return Optional.ofNullable(_shops.get(id));
+        return Optional.ofNullable(findByShopId(id));
     }
 
     @Override
@@ -158,8 +194,15 @@ public class MemoryShopRepository implements InterfaceShopRepository {
     }
 
     @Override
-    public void delete(Shop entity) {
-        _shops.remove(entity.getShopId());
+    public synchronized void delete(Shop entity) {
+        if (entity.getId() != null) {
+            _shops.remove(entity.getShopId());
+            String indexedName = _indexedNames.remove(entity.getShopId());
+            if (indexedName != null)
+                _shopsByName.remove(indexedName);
+        }
+        if (entity.getShopName() != null)
+            _shopsByName.remove(entity.getShopName(), entity);
     }
 
     @Override
@@ -224,16 +267,59 @@ public class MemoryShopRepository implements InterfaceShopRepository {
 
     @Override
     public Shop findByShopName(String shopName) {
+        return shopName == null ? null : _shopsByName.get(shopName);
+    }
+
+    @Override
+    public Shop findByShopId(Integer shopId) {
+        return shopId == null ? null : _shops.get(shopId);
+    }
+
+    // the shops are all in memory, the entity graphs have nothing to load
+
+    @Override
+    public Collection<Shop> findAllForSearch() {
+        return findAllView();
+    }
+
+    @Override
+    public Collection<Shop> findAllForManagement() {
+        return findAllView();
+    }
+
+    @Override
+    public Shop findForPurchaseByShopId(Integer shopId) {
+        return findByShopId(shopId);
+    }
+
+    @Override
+    public Shop findWithHistoryByShopId(Integer shopId) {
+        return findByShopId(shopId);
+    }
+
+    @Override
+    public List<ShopDto> findAllShopDtos() {
+        List<ShopDto> shops = new ArrayList<>();
         for (Shop shop : _shops.values()) {
-            if (shop.getShopName().equals(shopName)) {
-                return shop;
-            }
+            shops.add(new ShopDto(shop));
         }
-        return null;
+        return shops;
     }
 
     @Override
-    public Shop findByShopId(Integer shopId) {
-        return _shops.get(shopId);
+    public List<ShopOrder> findPurchaseHistoryPage(Integer shopId, Integer afterOrderId, Pageable pageable) {
+        List<ShopOrder> page = new ArrayList<>();
+        Shop shop = findByShopId(shopId);
+        if (shop == null)
+            return page;
+        // orders that were never saved have no id and can't be paged
+        for (ShopOrder order : shop.getPurchaseHistory()) {
+            if (order.getShopOrderId() != null && order.getShopOrderId() > afterOrderId)
+                page.add(order);
+        }
+        page.sort(Comparator.comparing(ShopOrder::getShopOrderId));
+        if (page.size() > pageable.getPageSize())
+            return new ArrayList<>(page.subList(0, pageable.getPageSize()));
+        return page;
     }
 }
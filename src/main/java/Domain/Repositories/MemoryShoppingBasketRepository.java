@@ -1,6 +1,9 @@
 package Domain.Repositories;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import org.springframework.data.domain.Example;
@@ -15,16 +18,18 @@ import Domain.Entities.ShoppingBasket;
 @Repository
 public class MemoryShoppingBasketRepository implements InterfaceShoppingBasketRepository{
 
-    private List<ShoppingBasket> _shoppingBaskets;
+    private final List<ShoppingBasket> _shoppingBaskets;
+    private final AtomicInteger _shoppingBasketIdCounter;
 
     //  constructor
     public MemoryShoppingBasketRepository(List<ShoppingBasket> shoppingBaskets) {
-        _shoppingBaskets = shoppingBaskets;
+        _shoppingBaskets = Collections.synchronizedList(new ArrayList<ShoppingBasket>(shoppingBaskets));
+        _shoppingBasketIdCounter = new AtomicInteger(shoppingBaskets.size());
     }
 
     // empty constructor
     public MemoryShoppingBasketRepository() {
-        _shoppingBaskets = new java.util.ArrayList<ShoppingBasket>();
+        this(new ArrayList<ShoppingBasket>());
     }
 
     @Override
@@ -81,7 +86,7 @@ public class MemoryShoppingBasketRepository implements InterfaceShoppingBasketRe
     @Override
     public <S extends ShoppingBasket> S save(S entity) {
         if (entity.getId() == null) {
-            entity.setId(_shoppingBaskets.size());          
+            entity.setId(_shoppingBasketIdCounter.getAndIncrement());
         }
         _shoppingBaskets.add(entity);
         return entity;
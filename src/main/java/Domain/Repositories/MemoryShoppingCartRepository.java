@@ -1,9 +1,13 @@
 package Domain.Repositories;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import org.springframework.data.domain.Example;
@@ -17,22 +21,24 @@ import Domain.Entities.ShoppingCart;
 
 @Repository
 public class MemoryShoppingCartRepository implements InterfaceShoppingCartRepository {
-    Map<String, ShoppingCart> _shoppingCarts;
-    private int _orderIdCounter;
+    private final Map<String, ShoppingCart> _shoppingCarts; // <owner name (username or guestId), cart>
+    private final Map<Integer, ShoppingCart> _shoppingCartsById; // secondary index
+    private final AtomicInteger _orderIdCounter;
 
     public MemoryShoppingCartRepository() {
-        _shoppingCarts = new HashMap<>();
-        _orderIdCounter = 0;
+        _shoppingCarts = new ConcurrentHashMap<>();
+        _shoppingCartsById = new ConcurrentHashMap<>();
+        _orderIdCounter = new AtomicInteger();
     }
 
     @Override
     public ShoppingCart getCartByUsername(String username) {
-        return _shoppingCarts.get(username);
+        return username == null ? null : _shoppingCarts.get(username);
     }
 
     @Override
-    public synchronized int getUniqueOrderID() {
-        return _orderIdCounter++;
+    public int getUniqueOrderID() {
+        return _orderIdCounter.getAndIncrement();
     }
 
     @Override
@@ -107,7 +113,12 @@ public class MemoryShoppingCartRepository implements InterfaceShoppingCartReposi
 
     @Override
     public List<ShoppingCart> findAll() {
-        return (List<ShoppingCart>) _shoppingCarts.values();
+        return new ArrayList<>(_shoppingCartsById.values());
+    }
+
+    @Override
+    public Collection<ShoppingCart> findAllView() {
+        return Collections.unmodifiableCollection(_shoppingCartsById.values());
     }
 
     @Override
@@ -117,22 +128,25 @@ public class MemoryShoppingCartRepository implements InterfaceShoppingCartReposi
     }
 
     @Override
-    public <S extends ShoppingCart> S save(S entity) {
+    public synchronized <S extends ShoppingCart> S save(S entity) {
         if(entity.getId() == null) {
-            entity.setId(_orderIdCounter++);
+            entity.setId(_orderIdCounter.getAndIncrement());
+        }
+        // drop the entries of the instances this cart replaces in either map
+        ShoppingCart previous = _shoppingCartsById.put(entity.getId(), entity);
+        if (previous != null && previous != entity && previous.getUsernameString() != null)
+            _shoppingCarts.remove(previous.getUsernameString(), previous);
+        if (entity.getUsernameString() != null) {
+            ShoppingCart previousOfOwner = _shoppingCarts.put(entity.getUsernameString(), entity);
+            if (previousOfOwner != null && previousOfOwner != entity && previousOfOwner.getId() != null)
+                _shoppingCartsById.remove(previousOfOwner.getId(), previousOfOwner);
         }
-        _shoppingCarts.put(entity.getUsernameString(), entity);
         return entity;
     }
 
     @Override
     public Optional<ShoppingCart> findById(Integer id) {
-        for (ShoppingCart cart : _shoppingCarts.values()) {
-            if (cart.getId() == id) {
-                return Optional.of(cart);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(id == null ? null : _shoppingCartsById.get(id));
     }
 
     @Override
@@ -154,8 +168,11 @@ public class MemoryShoppingCartRepository implements InterfaceShoppingCartReposi
     }
 
     @Override
-    public void delete(ShoppingCart entity) {
-        _shoppingCarts.remove(entity.getUsernameString());
+    public synchronized void delete(ShoppingCart entity) {
+        if (entity.getUsernameString() != null)
+            _shoppingCarts.remove(entity.getUsernameString());
+        if (entity.getId() != null)
+            _shoppingCartsById.remove(entity.getId(), entity);
     }
 
     @Override
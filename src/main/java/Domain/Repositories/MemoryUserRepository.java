@@ -1,10 +1,14 @@
 package Domain.Repositories;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import org.springframework.data.domain.Example;
@@ -15,21 +19,40 @@ import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuer
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import Domain.Entities.Order;
 import Domain.Entities.User;
 
 @Repository
 public class MemoryUserRepository implements InterfaceUserRepository {
-    private Map<String, User> _registeredUsers;
+    private final Map<String, User> _registeredUsers; // <username, user>
+    private final Map<Integer, User> _usersById; // secondary index
+    private final AtomicInteger _userIdCounter;
 
     public MemoryUserRepository(List<User> registeredUsers) {
-        _registeredUsers = new HashMap<>();
+        this();
         for (User user : registeredUsers)
-            _registeredUsers.put(user.getUserName(), user);
+            addUser(user);
+        _userIdCounter.set(_registeredUsers.size());
     }
 
     // empty constructor
     public MemoryUserRepository() {
-        _registeredUsers = new HashMap<>();
+        _registeredUsers = new ConcurrentHashMap<>();
+        _usersById = new ConcurrentHashMap<>();
+        _userIdCounter = new AtomicInteger();
+    }
+
+    private synchronized void addUser(User user) {
+        User previous = _registeredUsers.put(user.getUserName(), user);
+        if (previous != null && previous.getId() != null)
+            _usersById.remove(previous.getId(), previous);
+        if (user.getId() != null) {
+            // a user saved again under another username drops its old name
+            User previousOfId = _usersById.put((Integer) user.getId(), user);
+            if (previousOfId != null && previousOfId != previous
+                    && !previousOfId.getUserName().equals(user.getUserName()))
+                _registeredUsers.remove(previousOfId.getUserName(), previousOfId);
+        }
     }
 
     @Override
@@ -39,7 +62,7 @@ public class MemoryUserRepository implements InterfaceUserRepository {
 
     @Override
     public User findByusername(String username) {
-        return _registeredUsers.get(username);
+        return username == null ? null : _registeredUsers.get(username);
     }
 
     @Override
@@ -47,12 +70,17 @@ public class MemoryUserRepository implements InterfaceUserRepository {
         return new ArrayList<User>(_registeredUsers.values());
     }
 
+    @Override
+    public Collection<User> findAllView() {
+        return Collections.unmodifiableCollection(_registeredUsers.values());
+    }
+
     @Override
     public <S extends User> S save(S entity) {
         if (entity.getId() == null) {
-            entity.setId((_registeredUsers.size()));
+            entity.setId(_userIdCounter.getAndIncrement());
         }
-        _registeredUsers.put(entity.getUserName(), entity);
+        addUser(entity);
         return entity;
     }
 
@@ -103,8 +131,7 @@ public class MemoryUserRepository implements InterfaceUserRepository {
 
     @Override
     public Optional<User> findById(Integer id) {
-        User user = _registeredUsers.values().stream().filter(u -> u.getId().equals(id)).findFirst().orElse(null);
-        return Optional.ofNullable(user);
+        return Optional.ofNullable(id == null ? null : _usersById.get(id));
     }
 
     @Override
@@ -114,8 +141,10 @@ public class MemoryUserRepository implements InterfaceUserRepository {
     }
 
     @Override
-    public void delete(User entity) {
-        _registeredUsers.remove(entity.getUserName());
+    public synchronized void delete(User entity) {
+        User removed = _registeredUsers.remove(entity.getUserName());
+        if (removed != null && removed.getId() != null)
+            _usersById.remove(removed.getId(), removed);
     }
 
     @Override
@@ -225,4 +254,20 @@ public class MemoryUserRepository implements InterfaceUserRepository {
         return new ArrayList<String>(); 
     }
 
+    @Override
+    public List<Order> findPurchaseHistoryPage(String username, Integer afterOrderId, Pageable pageable) {
+        List<Order> page = new ArrayList<>();
+        User user = findByusername(username);
+        if (user == null)
+            return page;
+        for (Order order : user.getPurchaseHistory()) {
+            if (order.getOrderId() != null && order.getOrderId() > afterOrderId)
+                page.add(order);
+        }
+        page.sort(Comparator.comparing(Order::getOrderId));
+        if (page.size() > pageable.getPageSize())
+            return new ArrayList<>(page.subList(0, pageable.getPageSize()));
+        return page;
+    }
+
 }
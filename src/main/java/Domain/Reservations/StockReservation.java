@@ -0,0 +1,126 @@
+package Domain.Reservations;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Stock that was taken for a purchase that is not complete yet.
+ *
+ * A reservation starts held, and ends exactly once: confirmed when the payment
+ * went through and the stock is sold, or released - by the purchase when it
+ * fails, or by the StockReservationManager when it expires - and then the
+ * stock goes back to the shop.
+ *
+ * The stock is taken and returned in transactions of their own, so a confirmed
+ * reservation is revoked, and its stock goes back to the shop, when the
+ * purchase that confirmed it fails to be saved.
+ */
+public class StockReservation {
+
+    private static final Logger logger = Logger.getLogger(StockReservation.class.getName());
+
+    public enum State {
+        HELD, CONFIRMED, RELEASED
+    }
+
+    private final AtomicReference<State> _state;
+    private final Runnable _release;
+    private final long _expiresAt;
+
+    // the wheel tick the reservation expires at, set by the manager
+    long deadlineTick;
+
+    /**
+     * @param release   returns the reserved stock to the shop
+     * @param expiresAt the time in millis the reservation expires at, or
+     *                  Long.MAX_VALUE if it doesn't expire
+     */
+    public StockReservation(Runnable release, long expiresAt) {
+        _state = new AtomicReference<>(State.HELD);
+        _release = release;
+        _expiresAt = expiresAt;
+    }
+
+    // a reservation that is held until it is confirmed or released
+    public StockReservation(Runnable release) {
+        this(release, Long.MAX_VALUE);
+    }
+
+    /**
+     * Make the reservation permanent.
+     *
+     * @return true if the stock is sold, false if the reservation was already
+     *         released and the stock went back to the shop
+     */
+    public boolean confirm() {
+        return _state.compareAndSet(State.HELD, State.CONFIRMED);
+    }
+
+    /**
+     * Return the reserved stock to the shop, if the reservation is still held.
+     *
+     * @return true if the stock was returned by this call
+     */
+    public boolean release() {
+        if (!_state.compareAndSet(State.HELD, State.RELEASED))
+            return false;
+        returnStock("release");
+        return true;
+    }
+
+    /**
+     * Return the stock of a confirmed reservation to the shop, when the
+     * purchase that confirmed it was not saved.
+     *
+     * @return true if the stock was returned by this call
+     */
+    public boolean revoke() {
+        if (!_state.compareAndSet(State.CONFIRMED, State.RELEASED))
+            return false;
+        returnStock("revoke");
+        return true;
+    }
+
+    /**
+     * Revoke the reservation if the current transaction rolls back. Outside of
+     * a transaction it does nothing.
+     */
+    public void revokeOnRollback() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK && revoke())
+                    logger.log(Level.WARNING, "StockReservation - revokeOnRollback: the purchase rolled back, "
+                            + "its stock went back to the shop.");
+            }
+        });
+    }
+
+    private void returnStock(String method) {
+        try {
+            _release.run();
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "StockReservation - " + method + ": failed to return the reserved stock. "
+                    + e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    public State getState() {
+        return _state.get();
+    }
+
+    public boolean isHeld() {
+        return _state.get() == State.HELD;
+    }
+
+    public long getExpiresAt() {
+        return _expiresAt;
+    }
+}
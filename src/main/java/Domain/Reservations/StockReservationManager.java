@@ -0,0 +1,178 @@
+package Domain.Reservations;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Creates the stock reservations of the purchases and expires them.
+ *
+ * The pending reservations are kept in a hashed timer wheel: a ring of
+ * WHEEL_SIZE buckets, one per tick. A reservation goes into the bucket of the
+ * tick it expires at, in O(1), and a single sweeper thread visits one bucket
+ * per tick and releases the held reservations whose tick has come. A
+ * reservation that expires more than a full turn of the wheel away just stays
+ * in its bucket for the next turns. Confirmed reservations are not looked up
+ * and removed, they are dropped when the sweeper reaches them.
+ *
+ * A reservation expires at the earliest after its ttl, and at the latest two
+ * ticks after it.
+ */
+@Component
+public class StockReservationManager {
+
+    private static final Logger logger = Logger.getLogger(StockReservationManager.class.getName());
+
+    public static final long DEFAULT_TTL_MILLIS = 120_000;
+    public static final long DEFAULT_TICK_MILLIS = 1_000;
+    public static final int WHEEL_SIZE = 512;
+
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    private final long _ttlMillis;
+    private final long _tickMillis;
+    private final Queue<StockReservation>[] _wheel;
+    private final long _startNanos;
+
+    // the next tick to sweep, only the sweeper thread moves it
+    private volatile long _nextTick;
+    private volatile ScheduledExecutorService _sweeper;
+
+    // metrics
+    private final AtomicLong _reserved = new AtomicLong();
+    private final AtomicLong _expired = new AtomicLong();
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public StockReservationManager(@Value("${reservation.ttl.millis:" + DEFAULT_TTL_MILLIS + "}") long ttlMillis,
+            @Value("${reservation.tick.millis:" + DEFAULT_TICK_MILLIS + "}") long tickMillis) {
+        if (ttlMillis <= 0 || tickMillis <= 0)
+            throw new IllegalArgumentException("Reservation ttl and tick must be positive.");
+        _ttlMillis = ttlMillis;
+        _tickMillis = tickMillis;
+        _wheel = new Queue[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            _wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        _startNanos = System.nanoTime();
+    }
+
+    public StockReservationManager() {
+        this(DEFAULT_TTL_MILLIS, DEFAULT_TICK_MILLIS);
+    }
+
+    /**
+     * Reserve stock for the default ttl.
+     *
+     * @param release returns the reserved stock to the shop
+     * @return the held reservation
+     */
+    public StockReservation reserve(Runnable release) {
+        return reserve(release, _ttlMillis);
+    }
+
+    /**
+     * Reserve stock for the given time.
+     *
+     * @param release   returns the reserved stock to the shop
+     * @param ttlMillis the time after which the stock goes back to the shop,
+     *                  unless the reservation was confirmed
+     * @return the held reservation
+     */
+    public StockReservation reserve(Runnable release, long ttlMillis) {
+        if (ttlMillis <= 0)
+            throw new IllegalArgumentException("Reservation ttl must be positive.");
+        StockReservation reservation = new StockReservation(release, System.currentTimeMillis() + ttlMillis);
+        // round up, so the reservation is never released before its ttl. If the
+        // sweeper already passed the tick, the reservation waits a turn of the wheel
+        long deadlineTick = currentTick() + (ttlMillis + _tickMillis - 1) / _tickMillis + 1;
+        reservation.deadlineTick = Math.max(deadlineTick, _nextTick);
+        _wheel[(int) (reservation.deadlineTick & MASK)].add(reservation);
+        _reserved.incrementAndGet();
+        startSweeper();
+        return reservation;
+    }
+
+    private long currentTick() {
+        return (System.nanoTime() - _startNanos) / TimeUnit.MILLISECONDS.toNanos(_tickMillis);
+    }
+
+    // the sweeper is started with the first reservation
+    private void startSweeper() {
+        if (_sweeper != null)
+            return;
+        synchronized (this) {
+            if (_sweeper != null)
+                return;
+            ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "stock-reservation-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweeper.scheduleAtFixedRate(this::sweep, _tickMillis, _tickMillis, TimeUnit.MILLISECONDS);
+            _sweeper = sweeper;
+        }
+    }
+
+    // visit the buckets of all the ticks that passed since the last sweep
+    private void sweep() {
+        long now = currentTick();
+        for (long tick = _nextTick; tick <= now; tick++) {
+            Iterator<StockReservation> iterator = _wheel[(int) (tick & MASK)].iterator();
+            while (iterator.hasNext()) {
+                StockReservation reservation = iterator.next();
+                if (!reservation.isHeld()) {
+                    iterator.remove();
+                } else if (reservation.deadlineTick <= tick) {
+                    iterator.remove();
+                    expire(reservation);
+                }
+            }
+            _nextTick = tick + 1;
+        }
+    }
+
+    // an exception must not escape, it would cancel the next sweeps
+    private void expire(StockReservation reservation) {
+        try {
+            if (reservation.release()) {
+                _expired.incrementAndGet();
+                logger.log(Level.INFO,
+                        "StockReservationManager - expire: a reservation expired, its stock went back to the shop.");
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "StockReservationManager - expire: " + e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ScheduledExecutorService sweeper = _sweeper;
+        if (sweeper != null)
+            sweeper.shutdownNow();
+    }
+
+    public long getTtlMillis() {
+        return _ttlMillis;
+    }
+
+    public long getReservedCount() {
+        return _reserved.get();
+    }
+
+    public long getExpiredCount() {
+        return _expired.get();
+    }
+}
@@ -0,0 +1,34 @@
+package Dtos;
+
+import java.util.List;
+
+// A page of a list ordered by id. To get the next page, pass nextCursor as the
+// cursor of the next request; it is null on the last page.
+public class CursorPageDto<T> {
+    private List<T> _items;
+    private Integer _nextCursor;
+
+    public CursorPageDto() {
+    }
+
+    public CursorPageDto(List<T> items, Integer nextCursor) {
+        _items = items;
+        _nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return _items;
+    }
+
+    public void setItems(List<T> items) {
+        _items = items;
+    }
+
+    public Integer getNextCursor() {
+        return _nextCursor;
+    }
+
+    public void setNextCursor(Integer nextCursor) {
+        _nextCursor = nextCursor;
+    }
+}
@@ -14,6 +14,10 @@ public class ProductSearchDto {
 
     private List<String> keywords;
 
+    private Double minPrice;
+
+    private Double maxPrice;
+
     // Constructor
     public ProductSearchDto(){}
 
@@ -62,4 +66,20 @@ public class ProductSearchDto {
     public void setKeywords(List<String> newKeywords) {
         this.keywords = newKeywords;
     }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double newMinPrice) {
+        this.minPrice = newMinPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double newMaxPrice) {
+        this.maxPrice = newMaxPrice;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package Dtos;
+
+import Domain.Entities.Product;
+import Domain.Entities.Shop;
+
+// A product of a ranked search, with its shop and score
+public class RankedProductDto {
+    private ProductDto product;
+
+    private Integer shopId;
+
+    private String shopName;
+
+    private double score;
+
+    // Constructor
+    public RankedProductDto() {}
+
+    public RankedProductDto(Shop shop, Product product, double score) {
+        this.product = new ProductDto(product);
+        this.shopId = shop.getShopId();
+        this.shopName = shop.getShopName();
+        this.score = score;
+    }
+
+    // Getters and setters
+
+    public ProductDto getProduct() {
+        return product;
+    }
+
+    public void setProduct(ProductDto newProduct) {
+        this.product = newProduct;
+    }
+
+    public Integer getShopId() {
+        return shopId;
+    }
+
+    public void setShopId(Integer newShopId) {
+        this.shopId = newShopId;
+    }
+
+    public String getShopName() {
+        return shopName;
+    }
+
+    public void setShopName(String newShopName) {
+        this.shopName = newShopName;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double newScore) {
+        this.score = newScore;
+    }
+}
@@ -29,6 +29,14 @@ public class ShopDto {
         this.shopAddress = shopAddress;
         this.shopRating = shopRating;
     }
+
+    // used by the JPQL projection of the shop repository
+    public ShopDto(Integer shopId, String shopName, String bankDetails, String shopAddress, Double shopRating,
+            Integer shopRatersCounter, boolean isShopClosed) {
+        this(shopId, shopName, bankDetails, shopAddress, shopRating);
+        this.shopRatersCounter = shopRatersCounter;
+        this.isShopClosed = isShopClosed;
+    }
     
 
     public void setShopId(Integer shopId) {
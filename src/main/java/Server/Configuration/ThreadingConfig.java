@@ -0,0 +1,42 @@
+package Server.Configuration;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import Domain.ExternalServices.VirtualThreads;
+
+/**
+ * Reports how the requests of the controllers are executed.
+ *
+ * With spring.threads.virtual.enabled (VIRTUAL_THREADS=true) on a Java 21
+ * runtime, Spring Boot runs every Tomcat request - the handlers of
+ * ShopController, UserController and SystemController - on its own virtual
+ * thread, so requests that wait for the database, BCrypt or the external
+ * services don't hold a platform thread. On an older runtime Spring Boot
+ * ignores the setting silently, so this warns about it.
+ */
+@Component
+public class ThreadingConfig {
+
+    private static final Logger logger = Logger.getLogger(ThreadingConfig.class.getName());
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean _virtualThreads;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void logThreadingMode() {
+        if (!_virtualThreads) {
+            logger.log(Level.INFO, "ThreadingConfig - logThreadingMode: requests run on the Tomcat thread pool");
+        } else if (VirtualThreads.isSupported()) {
+            logger.log(Level.INFO, "ThreadingConfig - logThreadingMode: requests run on virtual threads");
+        } else {
+            logger.log(Level.WARNING, "ThreadingConfig - logThreadingMode: virtual threads need Java 21, running on "
+                    + "Java " + Runtime.version().feature() + ", requests run on the Tomcat thread pool");
+        }
+    }
+}
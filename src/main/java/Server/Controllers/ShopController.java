@@ -90,27 +90,68 @@ public class ShopController {
                 productSearchDto.getKeywords());
     }
 
+    // The shop is given by its name, so the search takes a single request
+    @PostMapping("/searchProductsInShopNamed")
+    public ResponseEntity<Response> searchProductsInShopNamed(@RequestHeader("Authorization") String token,
+            @RequestParam(required = false) String shopName,
+            @RequestBody ProductSearchDto productSearchDto) {
+        return _shopService.searchProductsInShopNamed(token, shopName, productSearchDto);
+    }
+
+    // Every filter of the search dto that is set must match
+    @PostMapping("/searchProducts")
+    public ResponseEntity<Response> searchProducts(@RequestHeader("Authorization") String token,
+            @RequestBody ProductSearchDto productSearchDto) {
+        return _shopService.searchProducts(token, productSearchDto.getShopId(), productSearchDto.getCategory(),
+                productSearchDto.getKeywords(), productSearchDto.getMinPrice(), productSearchDto.getMaxPrice());
+    }
+
+    // The best products matching the filters of the search dto, best first
+    @PostMapping("/searchProductsRanked")
+    public ResponseEntity<Response> searchProductsRanked(@RequestHeader("Authorization") String token,
+            @RequestBody ProductSearchDto productSearchDto,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "0") int offset) {
+        return _shopService.searchProductsRanked(token, productSearchDto.getShopId(), productSearchDto.getCategory(),
+                productSearchDto.getKeywords(), productSearchDto.getMinPrice(), productSearchDto.getMaxPrice(), limit,
+                offset);
+    }
+
+    @GetMapping("/searchCacheStatistics")
+    public ResponseEntity<Response> getSearchCacheStatistics(@RequestHeader("Authorization") String token) {
+        return _shopService.getSearchCacheStatistics(token);
+    }
+
     @PostMapping("/getShopIdByName")
     public ResponseEntity<Response> getShopIdByName(@RequestHeader("Authorization") String token,
             @RequestBody String shopName) {
         return _shopService.getShopIdByName(token, shopName);
     }
 
-    // @GetMapping("/searchProductsInShopByPriceRange")
-    // public ResponseEntity<Response>
-    // searchProductsInShopByPriceRange(@RequestHeader("Authorization") String
-    // token,
-    // @RequestParam(required = false) Integer shopId,
-    // @RequestParam Double minPrice,
-    // @RequestParam Double maxPrice) {
-    // return _shopService.searchProductsInShopByPriceRange(token, shopId, minPrice,
-    // maxPrice);
-    // }
+    @GetMapping("/searchProductsInShopByPriceRange")
+    public ResponseEntity<Response> searchProductsInShopByPriceRange(@RequestHeader("Authorization") String token,
+            @RequestParam(required = false) Integer shopId,
+            @RequestParam Double minPrice,
+            @RequestParam Double maxPrice) {
+        return _shopService.searchProductsInShopByPriceRange(token, shopId, minPrice, maxPrice);
+    }
 
+    // With a pageSize the history is returned in pages: pass the nextCursor of a
+    // page as the cursor of the request for the next one.
     @GetMapping("/getShopPurchaseHistory")
     public ResponseEntity<Response> getShopPurchaseHistory(@RequestHeader("Authorization") String token,
+            @RequestParam Integer shopId,
+            @RequestParam(required = false) Integer cursor,
+            @RequestParam(required = false) Integer pageSize) {
+        if (pageSize == null)
+            return _shopService.getShopPurchaseHistory(token, shopId);
+        return _shopService.getShopPurchaseHistoryPage(token, shopId, cursor, pageSize);
+    }
+
+    @GetMapping("/exportShopPurchaseHistory")
+    public ResponseEntity<?> exportShopPurchaseHistory(@RequestHeader("Authorization") String token,
             @RequestParam Integer shopId) {
-        return _shopService.getShopPurchaseHistory(token, shopId);
+        return _shopService.exportShopPurchaseHistory(token, shopId);
     }
 
 
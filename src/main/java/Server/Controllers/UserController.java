@@ -64,11 +64,29 @@ public class UserController {
         return _userService.viewShoppingCart(token, username);
     }
 
+    // With a pageSize the history is returned in pages, ordered by order id
     @GetMapping("/viewOrderHistory")
     public ResponseEntity<Response> viewOrderHistory(
             @RequestParam String username,
+            @RequestParam(required = false) Integer cursor,
+            @RequestParam(required = false) Integer pageSize,
             @RequestHeader(value = "Authorization") String token) {
-        return _userService.viewOrderHistory(token, username);
+        if (pageSize == null)
+            return _userService.viewOrderHistory(token, username);
+        return _userService.viewOrderHistoryPage(token, username, cursor, pageSize);
+    }
+
+    @GetMapping("/exportOrderHistory")
+    public ResponseEntity<?> exportOrderHistory(
+            @RequestParam String username,
+            @RequestHeader(value = "Authorization") String token) {
+        return _userService.exportOrderHistory(token, username);
+    }
+
+    @GetMapping("/passwordHashingStatistics")
+    public ResponseEntity<Response> getPasswordHashingStatistics(
+            @RequestHeader(value = "Authorization") String token) {
+        return _userService.getPasswordHashingStatistics(token);
     }
 
     @PostMapping("/purchaseCart")
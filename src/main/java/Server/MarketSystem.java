@@ -224,7 +224,7 @@ public class MarketSystem {
             InterfaceShopOrderRepository shopOrderRepository = new MemoryShopOrderRepository();
             InterfacePolicyRepository policyRepository = new MemoryPolicyRepository();
  
-            shoppingCartFacade.setShoppingCartFacadeRepositories(shoppingCartRepository, orderRepository, guestRepository, userRepository, shoppingBasketRepository, shopOrderRepository);
+            shoppingCartFacade.setShoppingCartFacadeRepositories(shoppingCartRepository, orderRepository, guestRepository, userRepository, shoppingBasketRepository, shopOrderRepository, productRepository);
             shopFacade.setShopFacadeRepositories(shopRepository, productRepository, roleRepository, discountRepository, policyRepository);
             userFacade.setUserFacadeRepositories(userRepository, guestRepository, orderRepository, shoppingCartRepository);
             notificationHandler.setNotificationFacadeRepositories(userRepository);
@@ -8,7 +8,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import Server.Configuration.LoggerConfig;
 
 @SpringBootApplication
-@ComponentScan({ "Server", "Server.notification", "ServiceLayer", "Domain.Facades", "Domain.Repositories", "Domain.ExternalServices", "Domain.Authenticators"})
+@ComponentScan({ "Server", "Server.notification", "ServiceLayer", "Domain.Facades", "Domain.Repositories", "Domain.ExternalServices", "Domain.Authenticators", "Domain.Reservations"})
 @EnableJpaRepositories("Domain.Repositories")
 @EntityScan("Domain.Entities")
 public class Server {
@@ -0,0 +1,289 @@
+package Server.notifications;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import Domain.Entities.User;
+import Domain.Repositories.DbUserRepository;
+import Domain.Repositories.InterfaceUserRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Delivers the notifications off the request thread.
+ *
+ * The messages are put in a bounded queue and a single worker thread drains it
+ * in batches. A batch is grouped by recipient: every recipient gets its
+ * messages written to its web socket session, and the messages of the whole
+ * batch are persisted in a single transaction with a single flush, so the
+ * inserts into user_messages go out as JDBC batches.
+ *
+ * When the queue is full the message is delivered on the caller thread, so a
+ * burst of alerts slows the callers down instead of losing messages. The
+ * messages are always persisted in a new transaction, since the caller may be
+ * in the afterCommit of its own transaction, which can no longer commit.
+ */
+@Service
+public class NotificationDispatcher {
+
+    private static final Logger logger = Logger.getLogger(NotificationDispatcher.class.getName());
+
+    private static final int DEFAULT_CAPACITY = 10_000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final WebSocketServer _webSocketServer;
+    // replaced at test time, read by the worker thread
+    private volatile InterfaceUserRepository _userRepository;
+    private volatile TransactionTemplate _transactionTemplate;
+    private final BlockingQueue<PendingNotification> _queue;
+    private final int _batchSize;
+    private final Thread _worker;
+    private volatile boolean _running = true;
+
+    // metrics
+    private final AtomicLong _enqueued = new AtomicLong();
+    private final AtomicLong _delivered = new AtomicLong();
+    private final AtomicLong _overflowed = new AtomicLong();
+    private final AtomicLong _failed = new AtomicLong();
+    private final AtomicLong _batches = new AtomicLong();
+    private final AtomicLong _totalLatencyNanos = new AtomicLong();
+    private final AtomicLong _maxLatencyNanos = new AtomicLong();
+
+    @Autowired
+    public NotificationDispatcher(WebSocketServer webSocketServer, DbUserRepository dbUserRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${notifications.queue.capacity:" + DEFAULT_CAPACITY + "}") int capacity,
+            @Value("${notifications.batch.size:" + DEFAULT_BATCH_SIZE + "}") int batchSize) {
+        this(webSocketServer, dbUserRepository, newTransactionTemplate(transactionManager), capacity, batchSize);
+    }
+
+    // without a transaction manager, used at test time with the Memory repositories
+    public NotificationDispatcher(WebSocketServer webSocketServer, InterfaceUserRepository userRepository,
+            int capacity, int batchSize) {
+        this(webSocketServer, userRepository, null, capacity, batchSize);
+    }
+
+    private static TransactionTemplate newTransactionTemplate(PlatformTransactionManager transactionManager) {
+        if (transactionManager == null)
+            return null;
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transactionTemplate;
+    }
+
+    private NotificationDispatcher(WebSocketServer webSocketServer, InterfaceUserRepository userRepository,
+            TransactionTemplate transactionTemplate, int capacity, int batchSize) {
+        if (capacity <= 0 || batchSize <= 0)
+            throw new IllegalArgumentException("Queue capacity and batch size must be positive.");
+        _webSocketServer = webSocketServer;
+        _userRepository = userRepository;
+        _transactionTemplate = transactionTemplate;
+        _queue = new ArrayBlockingQueue<>(capacity);
+        _batchSize = batchSize;
+        _worker = new Thread(this::run, "notification-dispatcher");
+        _worker.setDaemon(true);
+        _worker.start();
+    }
+
+    // set the repository to be used test time, the Memory repositories save
+    // without a transaction
+    public void setUserRepository(InterfaceUserRepository userRepository) {
+        _transactionTemplate = null;
+        _userRepository = userRepository;
+    }
+
+    /**
+     * Queue a message to a user. If the caller runs inside a transaction the
+     * message is queued only after the transaction commits, so an alert is never
+     * sent about something that was rolled back.
+     *
+     * @param username the recipient.
+     * @param message  the message.
+     */
+    public void enqueue(String username, String message) {
+        PendingNotification notification = new PendingNotification(username, message);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(notification);
+                }
+            });
+        } else {
+            offer(notification);
+        }
+    }
+
+    private void offer(PendingNotification notification) {
+        _enqueued.incrementAndGet();
+        if (_running && _queue.offer(notification))
+            return;
+        _overflowed.incrementAndGet();
+        logger.warning("NotificationDispatcher - offer: queue is full, delivering to "
+                + notification.username + " on the caller thread.");
+        List<PendingNotification> single = new ArrayList<>(1);
+        single.add(notification);
+        deliver(single);
+    }
+
+    private void run() {
+        List<PendingNotification> batch = new ArrayList<>(_batchSize);
+        while (_running || !_queue.isEmpty()) {
+            try {
+                PendingNotification first = _queue.poll(1, TimeUnit.SECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                _queue.drainTo(batch, _batchSize - 1);
+                deliver(batch);
+            } catch (InterruptedException e) {
+                if (!_running)
+                    break;
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "NotificationDispatcher - run: failed to deliver a batch of "
+                        + batch.size() + " notifications.", e);
+                _failed.addAndGet(batch.size());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // send and persist a batch, grouped by recipient
+    private void deliver(List<PendingNotification> batch) {
+        Map<String, List<String>> messagesByUser = new LinkedHashMap<>();
+        for (PendingNotification notification : batch) {
+            messagesByUser.computeIfAbsent(notification.username, k -> new ArrayList<>())
+                    .add(notification.message);
+        }
+
+        for (Map.Entry<String, List<String>> entry : messagesByUser.entrySet()) {
+            for (String message : entry.getValue()) {
+                _webSocketServer.sendMessage(entry.getKey(), message);
+            }
+        }
+
+        TransactionTemplate transactionTemplate = _transactionTemplate;
+        Set<String> saved = transactionTemplate != null
+                ? transactionTemplate.execute(status -> persist(messagesByUser))
+                : persist(messagesByUser);
+
+        // the messages of unknown users were already counted as failed
+        long now = System.nanoTime();
+        for (PendingNotification notification : batch) {
+            if (!saved.contains(notification.username))
+                continue;
+            recordLatency(now - notification.enqueuedAt);
+            _delivered.incrementAndGet();
+        }
+        _batches.incrementAndGet();
+    }
+
+    // returns the recipients whose messages were saved
+    private Set<String> persist(Map<String, List<String>> messagesByUser) {
+        InterfaceUserRepository userRepository = _userRepository;
+        Set<String> saved = new HashSet<>();
+        for (Map.Entry<String, List<String>> entry : messagesByUser.entrySet()) {
+            User user = userRepository.findByusername(entry.getKey());
+            if (user == null) {
+                logger.warning("NotificationDispatcher - persist: user " + entry.getKey()
+                        + " does not exist, " + entry.getValue().size() + " messages were not saved.");
+                _failed.addAndGet(entry.getValue().size());
+                continue;
+            }
+            for (String message : entry.getValue()) {
+                user.addMessage(message);
+            }
+            saved.add(entry.getKey());
+        }
+        userRepository.flush();
+        return saved;
+    }
+
+    private void recordLatency(long latencyNanos) {
+        _totalLatencyNanos.addAndGet(latencyNanos);
+        _maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    /**
+     * Stop taking new messages and deliver what is still in the queue.
+     */
+    @PreDestroy
+    public void shutdown() {
+        _running = false;
+        try {
+            _worker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (_worker.isAlive())
+            logger.warning("NotificationDispatcher - shutdown: " + _queue.size()
+                    + " notifications were not delivered.");
+    }
+
+    // the amount of messages waiting for the worker
+    public int getQueueDepth() {
+        return _queue.size();
+    }
+
+    public long getEnqueuedCount() {
+        return _enqueued.get();
+    }
+
+    public long getDeliveredCount() {
+        return _delivered.get();
+    }
+
+    // messages that found the queue full and were delivered on the caller thread
+    public long getOverflowCount() {
+        return _overflowed.get();
+    }
+
+    public long getFailedCount() {
+        return _failed.get();
+    }
+
+    public long getBatchCount() {
+        return _batches.get();
+    }
+
+    // the time from enqueue until the message was sent and persisted
+    public double getAverageLatencyMillis() {
+        long delivered = _delivered.get();
+        return delivered == 0 ? 0 : _totalLatencyNanos.get() / (delivered * 1_000_000.0);
+    }
+
+    public double getMaxLatencyMillis() {
+        return _maxLatencyNanos.get() / 1_000_000.0;
+    }
+
+    private static class PendingNotification {
+        private final String username;
+        private final String message;
+        private final long enqueuedAt;
+
+        private PendingNotification(String username, String message) {
+            this.username = username;
+            this.message = message;
+            this.enqueuedAt = System.nanoTime();
+        }
+    }
+}
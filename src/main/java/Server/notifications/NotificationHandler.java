@@ -21,26 +21,36 @@ public class NotificationHandler {
 
     private WebSocketServer wServer;
     private InterfaceUserRepository _userRepository;
+    private NotificationDispatcher _dispatcher;
 
     @Autowired
-    private NotificationHandler(WebSocketServer wServer, DbUserRepository dbUserRepository) {
+    private NotificationHandler(WebSocketServer wServer, DbUserRepository dbUserRepository,
+            NotificationDispatcher dispatcher) {
         this.wServer = wServer;
         this._userRepository = dbUserRepository;
+        this._dispatcher = dispatcher;
     }
 
     // set the repositories to be used test time
     public void setNotificationFacadeRepositories(InterfaceUserRepository userRepository) {
         this._userRepository = userRepository;
+        if (_dispatcher != null)
+            _dispatcher.setUserRepository(userRepository);
+    }
+
+    // without a dispatcher the messages are sent and saved on the caller thread
+    public void setNotificationDispatcher(NotificationDispatcher dispatcher) {
+        this._dispatcher = dispatcher;
     }
 
     public NotificationHandler() {
     }
 
     /**
-     * 
-     * /**
      * Sends an alert message to a specified user via the WebSocket server.
      * Converts the Alert object to a string message before sending.
+     * When a dispatcher is set the message is only queued, and it is sent and
+     * saved to the user by the dispatcher thread.
      *
      * @param targetUsername The username of the recipient.
      * @param alert          The Alert object containing the message to be sent.
@@ -49,6 +59,12 @@ public class NotificationHandler {
     @Transactional
     public void sendMessage(String targetUsername, Alert alert) throws StockMarketException {
         String message = alert.getMessage();
+        if (_dispatcher != null) {
+            if (targetUsername == null)
+                throw new UserException("Username is null.");
+            _dispatcher.enqueue(targetUsername, message);
+            return;
+        }
         wServer.sendMessage(targetUsername, message);
 
         User user = getUserByUsername(targetUsername);
@@ -101,6 +117,12 @@ public class NotificationHandler {
     @Transactional
     public void sendMessageToAllUsers(Alert alert) throws StockMarketException {
         String message = alert.getMessage();
+        if (_dispatcher != null) {
+            for (User user : getAllUsers()) {
+                _dispatcher.enqueue(user.getUserName(), message);
+            }
+            return;
+        }
         for (User user : getAllUsers()) {
             wServer.sendMessage(user.getUserName(), message);
             user.addMessage(message);
@@ -139,6 +161,16 @@ public class NotificationHandler {
     @Transactional
     public void sendMessageToGroup(List<String> usernames, Alert alert) throws StockMarketException {
         String message = alert.getMessage();
+        if (_dispatcher != null) {
+            for (String username : usernames) {
+                if (username == null)
+                    throw new UserException("Username is null.");
+            }
+            for (String username : usernames) {
+                _dispatcher.enqueue(username, message);
+            }
+            return;
+        }
         for (String username : usernames) {
             wServer.sendMessage(username, message);
             User user = getUserByUsername(username);
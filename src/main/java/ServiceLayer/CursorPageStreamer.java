@@ -0,0 +1,57 @@
+package ServiceLayer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Dtos.CursorPageDto;
+import Exceptions.StockMarketException;
+
+/**
+ * Streams a list that is read in cursor pages as newline delimited JSON, one
+ * item per line. Only one page is held in memory at a time, and every page is
+ * read by its own facade call, so the persistence context doesn't grow with the
+ * size of the list either.
+ */
+public final class CursorPageStreamer {
+
+    private static final Logger logger = Logger.getLogger(CursorPageStreamer.class.getName());
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final byte[] NEW_LINE = { '\n' };
+
+    // reads the page that comes after the given cursor
+    @FunctionalInterface
+    public interface PageReader<T> {
+        CursorPageDto<T> readPage(Integer cursor) throws StockMarketException;
+    }
+
+    private CursorPageStreamer() {
+    }
+
+    public static <T> StreamingResponseBody stream(PageReader<T> pageReader) {
+        return (OutputStream out) -> {
+            Integer cursor = null;
+            do {
+                CursorPageDto<T> page;
+                try {
+                    page = pageReader.readPage(cursor);
+                } catch (StockMarketException e) {
+                    logger.log(Level.SEVERE, "CursorPageStreamer - stream: failed to read a page after cursor "
+                            + cursor + ": " + e.getMessage(), e);
+                    throw new IOException(e.getMessage(), e);
+                }
+                for (T item : page.getItems()) {
+                    out.write(objectMapper.writeValueAsBytes(item));
+                    out.write(NEW_LINE);
+                }
+                out.flush();
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+        };
+    }
+}
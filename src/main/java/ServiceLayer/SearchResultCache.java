@@ -0,0 +1,211 @@
+package ServiceLayer;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import Domain.Entities.enums.Category;
+import Dtos.ProductDto;
+import Dtos.ProductSearchDto;
+
+/**
+ * Bounded LRU cache of product search responses.
+ *
+ * The key is the normalized search: the kind of search and the fields of the
+ * ProductSearchDto it uses, with the keywords lowercased and sorted. Every
+ * entry remembers the catalog version it was computed at - of the searched
+ * shop, or the global version for a search in all the shops - and is used only
+ * while that version didn't change.
+ */
+@Component
+public class SearchResultCache {
+
+    public static final int DEFAULT_CAPACITY = 1_000;
+
+    public enum SearchType {
+        NAME, CATEGORY, KEYWORDS, PRICE_RANGE, COMBINED
+    }
+
+    private final Map<Key, Entry> _entries;
+
+    // metrics
+    private final AtomicLong _hits = new AtomicLong();
+    private final AtomicLong _misses = new AtomicLong();
+    private final AtomicLong _stale = new AtomicLong();
+    private final AtomicLong _evictions = new AtomicLong();
+
+    @Autowired
+    public SearchResultCache(@Value("${search.cache.capacity:" + DEFAULT_CAPACITY + "}") int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Search cache capacity must be positive.");
+        _entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= capacity)
+                    return false;
+                _evictions.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached result of a search if it was computed at the given
+     * catalog version.
+     *
+     * @param key     the normalized search
+     * @param version the current catalog version of the searched shops
+     * @return the cached result, or null
+     */
+    public synchronized Map<String, List<ProductDto>> get(Key key, long version) {
+        Entry entry = _entries.get(key);
+        if (entry == null) {
+            _misses.incrementAndGet();
+            return null;
+        }
+        if (entry.version != version) {
+            _entries.remove(key);
+            _stale.incrementAndGet();
+            _misses.incrementAndGet();
+            return null;
+        }
+        _hits.incrementAndGet();
+        return entry.result;
+    }
+
+    /**
+     * Cache the result of a search.
+     *
+     * @param key     the normalized search
+     * @param version the catalog version read before the search was computed
+     * @param result  the result of the search
+     * @return the cached, unmodifiable result
+     */
+    public synchronized Map<String, List<ProductDto>> put(Key key, long version,
+            Map<String, List<ProductDto>> result) {
+        Map<String, List<ProductDto>> unmodifiable = Collections.unmodifiableMap(result);
+        _entries.put(key, new Entry(version, unmodifiable));
+        return unmodifiable;
+    }
+
+    public synchronized void clear() {
+        _entries.clear();
+    }
+
+    public synchronized int size() {
+        return _entries.size();
+    }
+
+    public long getHitCount() {
+        return _hits.get();
+    }
+
+    public long getMissCount() {
+        return _misses.get();
+    }
+
+    // misses of entries that were there, but computed at an older catalog version
+    public long getStaleCount() {
+        return _stale.get();
+    }
+
+    public long getEvictionCount() {
+        return _evictions.get();
+    }
+
+    public double getHitRate() {
+        long hits = _hits.get();
+        long total = hits + _misses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    // the metrics as a map, for the response of the statistics endpoint
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("size", size());
+        statistics.put("hits", getHitCount());
+        statistics.put("misses", getMissCount());
+        statistics.put("stale", getStaleCount());
+        statistics.put("evictions", getEvictionCount());
+        statistics.put("hitRate", getHitRate());
+        return statistics;
+    }
+
+    private static class Entry {
+        private final long version;
+        private final Map<String, List<ProductDto>> result;
+
+        private Entry(long version, Map<String, List<ProductDto>> result) {
+            this.version = version;
+            this.result = result;
+        }
+    }
+
+    /**
+     * A normalized search. Only the fields that the type of search uses are
+     * kept, so e.g. a name search doesn't miss because of leftover keywords.
+     */
+    public static final class Key {
+        private final SearchType type;
+        private final Integer shopId;
+        private final String productName;
+        private final Category category;
+        private final TreeSet<String> keywords;
+        private final Double minPrice;
+        private final Double maxPrice;
+
+        private Key(SearchType type, ProductSearchDto search) {
+            boolean combined = type == SearchType.COMBINED;
+            this.type = type;
+            this.shopId = search.getShopId();
+            this.productName = type == SearchType.NAME ? search.getProductName() : null;
+            this.category = type == SearchType.CATEGORY || combined ? search.getCategory() : null;
+            this.keywords = type == SearchType.KEYWORDS || combined ? normalize(search.getKeywords()) : null;
+            this.minPrice = type == SearchType.PRICE_RANGE || combined ? search.getMinPrice() : null;
+            this.maxPrice = type == SearchType.PRICE_RANGE || combined ? search.getMaxPrice() : null;
+        }
+
+        public static Key of(SearchType type, ProductSearchDto search) {
+            return new Key(type, search);
+        }
+
+        // the keyword search ignores case and order
+        private static TreeSet<String> normalize(List<String> keywords) {
+            if (keywords == null)
+                return null;
+            TreeSet<String> normalized = new TreeSet<>();
+            for (String keyword : keywords) {
+                if (keyword != null)
+                    normalized.add(keyword.toLowerCase(Locale.ROOT));
+            }
+            return normalized;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return type == other.type && Objects.equals(shopId, other.shopId)
+                    && Objects.equals(productName, other.productName) && category == other.category
+                    && Objects.equals(keywords, other.keywords) && Objects.equals(minPrice, other.minPrice)
+                    && Objects.equals(maxPrice, other.maxPrice);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, shopId, productName, category, keywords, minPrice, maxPrice);
+        }
+    }
+}
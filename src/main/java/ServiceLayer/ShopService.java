@@ -11,18 +11,23 @@ import java.util.logging.Logger;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import Domain.Entities.Product;
 import Domain.Entities.enums.Category;
+import Domain.Facades.ProductRanker;
 import Domain.Facades.ShopFacade;
 import Domain.Facades.UserFacade;
 import Dtos.BasicDiscountDto;
 import Dtos.ConditionalDiscountDto;
 import Dtos.ProductDto;
 import Dtos.ProductGetterDto;
+import Dtos.ProductSearchDto;
+import Dtos.RankedProductDto;
 import Dtos.Rules.ProductPolicyRuleList;
 import Dtos.Rules.ShopPolicyRulesList;
 import Dtos.Rules.ShoppingBasketRuleDto;
@@ -32,6 +37,7 @@ import Dtos.ShopGetterDto;
 import Dtos.ShopManagerDto;
 import Dtos.ShopOrderDto;
 import Exceptions.StockMarketException;
+import ServiceLayer.SearchResultCache.SearchType;
 
 @SuppressWarnings({"rawtypes" , "unchecked"})
 @Service
@@ -40,6 +46,10 @@ public class ShopService {
     private TokenService _tokenService;
     private UserFacade _userFacade;
 
+    // the responses of the product searches, replaced by the configured bean
+    // when running in Spring
+    private SearchResultCache _searchCache = new SearchResultCache(SearchResultCache.DEFAULT_CAPACITY);
+
     private static final Logger logger = Logger.getLogger(ShopFacade.class.getName());
 
     @Autowired
@@ -49,6 +59,41 @@ public class ShopService {
         _userFacade = userFacade;
     }
 
+    @Autowired(required = false)
+    public void setSearchResultCache(SearchResultCache searchCache) {
+        _searchCache = searchCache;
+    }
+
+    // a product search of the facade, by shop id
+    private interface ProductSearch {
+        Map<Integer, List<Product>> search() throws StockMarketException;
+    }
+
+    // Run a product search through the search cache. The catalog version is read
+    // before the search, so a change during the search makes the entry stale.
+    private Map<String, List<ProductDto>> cachedSearch(SearchType type, ProductSearchDto query,
+            ProductSearch search) throws StockMarketException {
+        SearchResultCache.Key key = SearchResultCache.Key.of(type, query);
+        long version = _shopFacade.getCatalogVersion(query.getShopId());
+        Map<String, List<ProductDto>> cached = _searchCache.get(key, version);
+        if (cached != null)
+            return cached;
+
+        Map<Integer, List<Product>> products = search.search();
+        Map<String, List<ProductDto>> productDtosPerShop = new HashMap<>();
+        if (products != null) {
+            for (Map.Entry<Integer, List<Product>> entry : products.entrySet()) {
+                String shopString = _shopFacade.getShopStringForSearchById(entry.getKey());
+                List<ProductDto> productDtoList = new ArrayList<>();
+                for (Product product : entry.getValue()) {
+                    productDtoList.add(new ProductDto(product));
+                }
+                productDtosPerShop.put(shopString, productDtoList);
+            }
+        }
+        return _searchCache.put(key, version, productDtosPerShop);
+    }
+
     /**
      * Opens a new shop with the specified shop ID and user name.
      * 
@@ -326,18 +371,12 @@ public class ShopService {
         String shopIDString = (shopId == null ? "all shops" : "shop ID " + shopId.toString());
         try {
             if (_tokenService.validateToken(token)) {
-                Map<Integer, List<Product>> products = _shopFacade.getProductInShopByName(shopId, productName);
-                Map<String, List<ProductDto>> productDtosPerShop = new HashMap<>();
-                if (products != null && !products.isEmpty()) {
-                    for (Map.Entry<Integer, List<Product>> entry : products.entrySet()) {
-                        String shopString = _shopFacade.getShopStringForSearchById(entry.getKey());
-                        List<ProductDto> productDtoList = new ArrayList<>();
-                        for (Product product : entry.getValue()) {
-                            ProductDto productDto = new ProductDto(product);
-                            productDtoList.add(productDto);
-                        }
-                        productDtosPerShop.put(shopString, productDtoList);
-                    }
+                ProductSearchDto query = new ProductSearchDto();
+                query.setShopId(shopId);
+                query.setProductName(productName);
+                Map<String, List<ProductDto>> productDtosPerShop = cachedSearch(SearchType.NAME, query,
+                        () -> _shopFacade.getProductInShopByName(shopId, productName));
+                if (!productDtosPerShop.isEmpty()) {
                     logger.info(String.format("Products named %s were found in %s", productName, shopIDString));
                 } else {
                     logger.info(String.format("Products named %s were not found in %s", productName, shopIDString));
@@ -355,6 +394,35 @@ public class ShopService {
         }
     }
 
+    /**
+     * searches products in a shop given by its name, in one call instead of
+     * getShopIdByName followed by a search. The search is by the product name
+     * if it is set, otherwise by the category if it is set, otherwise by the
+     * keywords.
+     * 
+     * @param token            The session token of the user performing the search.
+     * @param shopName         The name of the shop to search in OR null to search
+     *                         in all shops.
+     * @param productSearchDto The search, its shop ID is ignored.
+     * @return A response indicating the success of the operation, containing a dictionary of shopString and ProductDTOs, or indicating failure.
+     */
+    public ResponseEntity<Response> searchProductsInShopNamed(String token, String shopName,
+            ProductSearchDto productSearchDto) {
+        Integer shopId = null;
+        if (shopName != null) {
+            ResponseEntity<Response> shopIdResponse = getShopIdByName(token, shopName);
+            if (!shopIdResponse.getStatusCode().is2xxSuccessful())
+                return shopIdResponse;
+            shopId = (Integer) shopIdResponse.getBody().getReturnValue();
+        }
+        String productName = productSearchDto.getProductName();
+        if (productName != null && !productName.isEmpty())
+            return searchProductInShopByName(token, shopId, productName);
+        if (productSearchDto.getCategory() != null)
+            return searchProductInShopByCategory(token, shopId, productSearchDto.getCategory());
+        return searchProductsInShopByKeywords(token, shopId, productSearchDto.getKeywords());
+    }
+
     /**
      * searches products by their Category.
      * 
@@ -369,18 +437,12 @@ public class ShopService {
         String shopIDString = (shopId == null ? "all shops" : "shop ID " + shopId.toString());
         try {
             if (_tokenService.validateToken(token)) {
-                Map<Integer, List<Product>> products = _shopFacade.getProductInShopByCategory(shopId, productCategory);
-                Map<String, List<ProductDto>> productDtosPerShop = new HashMap<>();
-                if (products != null && !products.isEmpty()) {
-                    for (Map.Entry<Integer, List<Product>> entry : products.entrySet()) {
-                        String shopString = _shopFacade.getShopStringForSearchById(entry.getKey());
-                        List<ProductDto> productDtoList = new ArrayList<>();
-                        for (Product product : entry.getValue()) {
-                            ProductDto productDto = new ProductDto(product);
-                            productDtoList.add(productDto);
-                        }
-                        productDtosPerShop.put(shopString, productDtoList);
-                    }
+                ProductSearchDto query = new ProductSearchDto();
+                query.setShopId(shopId);
+                query.setCategory(productCategory);
+                Map<String, List<ProductDto>> productDtosPerShop = cachedSearch(SearchType.CATEGORY, query,
+                        () -> _shopFacade.getProductInShopByCategory(shopId, productCategory));
+                if (!productDtosPerShop.isEmpty()) {
                     logger.info(String.format("Products in the category of %s were found in %s",
                             productCategory.toString(), shopIDString));
                 } else {
@@ -421,18 +483,12 @@ public class ShopService {
         String keywordsString = keywordsBuilder.toString();
         try {
             if (_tokenService.validateToken(token)) {
-                Map<Integer, List<Product>> products = _shopFacade.getProductsInShopByKeywords(shopId, keywords);
-                Map<String, List<ProductDto>> productDtosPerShop = new HashMap<>();
-                if (products != null && !products.isEmpty()) {
-                    for (Map.Entry<Integer, List<Product>> entry : products.entrySet()) {
-                        String shopString = _shopFacade.getShopStringForSearchById(entry.getKey());
-                        List<ProductDto> productDtoList = new ArrayList<>();
-                        for (Product product : entry.getValue()) {
-                            ProductDto productDto = new ProductDto(product);
-                            productDtoList.add(productDto);
-                        }
-                        productDtosPerShop.put(shopString, productDtoList);
-                    }
+                ProductSearchDto query = new ProductSearchDto();
+                query.setShopId(shopId);
+                query.setKeywords(keywords);
+                Map<String, List<ProductDto>> productDtosPerShop = cachedSearch(SearchType.KEYWORDS, query,
+                        () -> _shopFacade.getProductsInShopByKeywords(shopId, keywords));
+                if (!productDtosPerShop.isEmpty()) {
                     logger.info(String.format("Products taged by the keywords: %s were found in %s", keywordsString,
                             shopIDString));
                 } else {
@@ -469,23 +525,17 @@ public class ShopService {
         String shopIDString = (shopId == null ? "all shops" : "shop ID " + shopId.toString());
         try {
             if (_tokenService.validateToken(token)) {
-                Map<Integer, List<Product>> products = _shopFacade.getProductsInShopByPriceRange(shopId, minPrice,
-                        maxPrice);
-                Map<String, List<ProductDto>> productDtosPerShop = new HashMap<>();
-                if (products != null && !products.isEmpty()) {
-                    for (Map.Entry<Integer, List<Product>> entry : products.entrySet()) {
-                        String shopString = _shopFacade.getShopStringForSearchById(entry.getKey());                       
-                        List<ProductDto> productDtoList = new ArrayList<>();
-                        for (Product product : entry.getValue()) {
-                            ProductDto productDto = new ProductDto(product);
-                            productDtoList.add(productDto);
-                        }
-                        productDtosPerShop.put(shopString, productDtoList);
-                    }
-                    logger.info(String.format("Products in the price range of %d - %d were found in %s", minPrice,
+                ProductSearchDto query = new ProductSearchDto();
+                query.setShopId(shopId);
+                query.setMinPrice(minPrice);
+                query.setMaxPrice(maxPrice);
+                Map<String, List<ProductDto>> productDtosPerShop = cachedSearch(SearchType.PRICE_RANGE, query,
+                        () -> _shopFacade.getProductsInShopByPriceRange(shopId, minPrice, maxPrice));
+                if (!productDtosPerShop.isEmpty()) {
+                    logger.info(String.format("Products in the price range of %.2f - %.2f were found in %s", minPrice,
                             maxPrice, shopIDString));
                 } else {
-                    logger.info(String.format("Products in the price range of %d - %d were not found in %s", minPrice,
+                    logger.info(String.format("Products in the price range of %.2f - %.2f were not found in %s", minPrice,
                             maxPrice, shopIDString));
                 }
                 response.setReturnValue(productDtosPerShop);
@@ -494,14 +544,113 @@ public class ShopService {
                 return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
             }
         } catch (Exception e) {
-            response.setErrorMessage(String
-                    .format(String.format("Failed to search products in the price range of %d - %d in %s . Error:",
-                            minPrice, maxPrice, shopIDString, e.getMessage())));
+            response.setErrorMessage(
+                    String.format("Failed to search products in the price range of %.2f - %.2f in %s . Error: %s",
+                            minPrice, maxPrice, shopIDString, e.getMessage()));
             logger.log(Level.SEVERE, e.getMessage(), e);
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * searches products by a combination of filters: the products must match
+     * all the given filters.
+     * 
+     * @param shopId   The ID of the shop to search in OR null to search in all
+     *                 shops.
+     * @param category The category of the product OR null for any category.
+     * @param keywords The list of keywords OR null.
+     * @param minPrice The minimum price of the product OR null for any price.
+     * @param maxPrice The maximum price of the product OR null for any price.
+     * @return A response indicating the success of the operation, containing a dictionary of shopString and ProductDTOs, or indicating failure.
+     */
+    // shopString contains shopID, name and Rating for response, for example " */Id/* 1 */Name/* shop1 */Rating/* 4.5"
+    public ResponseEntity<Response> searchProducts(String token, Integer shopId, Category category,
+            List<String> keywords, Double minPrice, Double maxPrice) {
+        Response response = new Response();
+        String shopIDString = (shopId == null ? "all shops" : "shop ID " + shopId.toString());
+        try {
+            if (_tokenService.validateToken(token)) {
+                ProductSearchDto query = new ProductSearchDto();
+                query.setShopId(shopId);
+                query.setCategory(category);
+                query.setKeywords(keywords);
+                query.setMinPrice(minPrice);
+                query.setMaxPrice(maxPrice);
+                Map<String, List<ProductDto>> productDtosPerShop = cachedSearch(SearchType.COMBINED, query,
+                        () -> _shopFacade.searchProducts(shopId, category, keywords, minPrice, maxPrice));
+                logger.info(String.format("Products matching the filters were found in %d shops of %s",
+                        productDtosPerShop.size(), shopIDString));
+                response.setReturnValue(productDtosPerShop);
+                return new ResponseEntity<>(response, HttpStatus.OK);
+            } else {
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+        } catch (Exception e) {
+            response.setErrorMessage(String.format("Failed to search products in %s . Error: %s", shopIDString,
+                    e.getMessage()));
+            logger.log(Level.SEVERE, e.getMessage(), e);
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * searches products by a combination of filters and returns a page of the
+     * best matches, ranked by keyword matches, product rating, shop rating and
+     * stock availability.
+     * 
+     * @param shopId   The ID of the shop to search in OR null to search in all
+     *                 shops.
+     * @param category The category of the product OR null for any category.
+     * @param keywords The list of keywords OR null.
+     * @param minPrice The minimum price of the product OR null for any price.
+     * @param maxPrice The maximum price of the product OR null for any price.
+     * @param limit    The amount of products to return.
+     * @param offset   The amount of best products to skip.
+     * @return A response containing a list of RankedProductDtos, best first, or indicating failure.
+     */
+    public ResponseEntity<Response> searchProductsRanked(String token, Integer shopId, Category category,
+            List<String> keywords, Double minPrice, Double maxPrice, int limit, int offset) {
+        Response response = new Response();
+        String shopIDString = (shopId == null ? "all shops" : "shop ID " + shopId.toString());
+        try {
+            if (_tokenService.validateToken(token)) {
+                List<RankedProductDto> rankedProducts = new ArrayList<>();
+                for (ProductRanker.Ranked ranked : _shopFacade.searchProductsRanked(shopId, category, keywords,
+                        minPrice, maxPrice, limit, offset)) {
+                    rankedProducts.add(new RankedProductDto(ranked.getShop(), ranked.getProduct(), ranked.getScore()));
+                }
+                logger.info(String.format("%d ranked products were found in %s (offset %d, limit %d)",
+                        rankedProducts.size(), shopIDString, offset, limit));
+                response.setReturnValue(rankedProducts);
+                return new ResponseEntity<>(response, HttpStatus.OK);
+            } else {
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+        } catch (Exception e) {
+            response.setErrorMessage(String.format("Failed to search ranked products in %s . Error: %s",
+                    shopIDString, e.getMessage()));
+            logger.log(Level.SEVERE, e.getMessage(), e);
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Returns the metrics of the product search cache: size, hits, misses, stale
+     * entries, evictions and hit rate.
+     * 
+     * @param token The session token of the user.
+     * @return A response containing the metrics, or indicating failure.
+     */
+    public ResponseEntity<Response> getSearchCacheStatistics(String token) {
+        Response response = new Response();
+        if (!_tokenService.validateToken(token)) {
+            return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+        }
+        response.setReturnValue(_searchCache.getStatistics());
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     /**
      * Checks if the given user is the owner of the given shop.
      * @param shopId
@@ -540,36 +689,42 @@ public class ShopService {
         Response response = new Response();
 
         try {
-            if (_tokenService.validateToken(token)) {
-                if (!_tokenService.isUserAndLoggedIn(token)) {
-                    response.setErrorMessage("User is not logged in");
-                    logger.log(Level.SEVERE, "User is not logged in");
-                    return new ResponseEntity<>(response, HttpStatus.FORBIDDEN);
-                }
-                // check if the shop exist with
-                if (!_shopFacade.isShopIdExist(shopId)) {
-                    response.setErrorMessage("Shop not found");
-                    logger.log(Level.SEVERE, "Shop not found");
-                    return new ResponseEntity<>(response, HttpStatus.FORBIDDEN);
-                }
-
-                String userId = _tokenService.extractUsername(token);
-                boolean isAdmin = _userFacade.isAdmin(userId);
-                if (!_shopFacade.isShopOwner(shopId, userId) && !isAdmin) {
-                    response.setErrorMessage("User has no permission to access the shop purchase history");
-                    logger.log(Level.SEVERE, "User has no permission to access the shop purchase history");
-                    return new ResponseEntity<>(response, HttpStatus.FORBIDDEN);
-                } else {
-                    // get purchase history of a shop
-                    List<ShopOrderDto> purchasHistory = _shopFacade.getPurchaseHistoryDto(shopId);
-                    response.setReturnValue(purchasHistory);
-                    return new ResponseEntity<>(response, HttpStatus.OK);
-                }
+            ResponseEntity<Response> denied = checkPurchaseHistoryAccess(token, shopId, response);
+            if (denied != null)
+                return denied;
+            // get purchase history of a shop
+            List<ShopOrderDto> purchasHistory = _shopFacade.getPurchaseHistoryDto(shopId);
+            response.setReturnValue(purchasHistory);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (Exception e) {
+            response.setErrorMessage("Failed to get purchase history: " + e.getMessage());
+            logger.log(Level.SEVERE, "Failed to get purchase history: " + e.getMessage(), e);
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 
-            } else {
-                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
-            }
+    /**
+     * Gets a page of the purchase history of a shop, ordered by order id.
+     * The same users that can see the whole history can page through it.
+     *
+     * @param token    The session token of the user.
+     * @param shopId   The ID of the shop.
+     * @param cursor   The nextCursor of the previous page, or null for the first
+     *                 page.
+     * @param pageSize The maximal amount of orders in the page.
+     * @return A Response object containing a CursorPageDto of ShopOrderDto.
+     */
+    @Transactional
+    public ResponseEntity<Response> getShopPurchaseHistoryPage(String token, Integer shopId, Integer cursor,
+            int pageSize) {
+        Response response = new Response();
 
+        try {
+            ResponseEntity<Response> denied = checkPurchaseHistoryAccess(token, shopId, response);
+            if (denied != null)
+                return denied;
+            response.setReturnValue(_shopFacade.getPurchaseHistoryPage(shopId, cursor, pageSize));
+            return new ResponseEntity<>(response, HttpStatus.OK);
         } catch (Exception e) {
             response.setErrorMessage("Failed to get purchase history: " + e.getMessage());
             logger.log(Level.SEVERE, "Failed to get purchase history: " + e.getMessage(), e);
@@ -577,6 +732,60 @@ public class ShopService {
         }
     }
 
+    /**
+     * Exports the whole purchase history of a shop as newline delimited JSON,
+     * one ShopOrderDto per line. The history is read page by page while it is
+     * written, so the size of the history doesn't matter.
+     *
+     * @param token  The session token of the user.
+     * @param shopId The ID of the shop.
+     * @return The streamed history, or a Response with the error.
+     */
+    public ResponseEntity<?> exportShopPurchaseHistory(String token, Integer shopId) {
+        Response response = new Response();
+
+        try {
+            ResponseEntity<Response> denied = checkPurchaseHistoryAccess(token, shopId, response);
+            if (denied != null)
+                return denied;
+        } catch (Exception e) {
+            response.setErrorMessage("Failed to export purchase history: " + e.getMessage());
+            logger.log(Level.SEVERE, "Failed to export purchase history: " + e.getMessage(), e);
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        StreamingResponseBody body = CursorPageStreamer.stream(
+                cursor -> _shopFacade.getPurchaseHistoryPage(shopId, cursor, ShopFacade.MAX_HISTORY_PAGE_SIZE));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Checks that the token belongs to a logged in owner of the shop or to an
+    // admin. Returns the error response, or null when the access is allowed.
+    private ResponseEntity<Response> checkPurchaseHistoryAccess(String token, Integer shopId, Response response)
+            throws StockMarketException {
+        if (!_tokenService.validateToken(token))
+            return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+        if (!_tokenService.isUserAndLoggedIn(token)) {
+            response.setErrorMessage("User is not logged in");
+            logger.log(Level.SEVERE, "User is not logged in");
+            return new ResponseEntity<>(response, HttpStatus.FORBIDDEN);
+        }
+        // check if the shop exist with
+        if (!_shopFacade.isShopIdExist(shopId)) {
+            response.setErrorMessage("Shop not found");
+            logger.log(Level.SEVERE, "Shop not found");
+            return new ResponseEntity<>(response, HttpStatus.FORBIDDEN);
+        }
+
+        String userId = _tokenService.extractUsername(token);
+        boolean isAdmin = _userFacade.isAdmin(userId);
+        if (!_shopFacade.isShopOwner(shopId, userId) && !isAdmin) {
+            response.setErrorMessage("User has no permission to access the shop purchase history");
+            logger.log(Level.SEVERE, "User has no permission to access the shop purchase history");
+            return new ResponseEntity<>(response, HttpStatus.FORBIDDEN);
+        }
+        return null;
+    }
+
     // /**
     //  * Adds a basic discount to a shop.
     //  * 
@@ -1,9 +1,14 @@
 package ServiceLayer;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import io.jsonwebtoken.SignatureAlgorithm;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
-import java.util.function.Function;
 
 import javax.crypto.SecretKey;
 import io.jsonwebtoken.security.Keys;
@@ -13,6 +18,7 @@ import org.springframework.stereotype.Service;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 
 // this class is responsible for generating tokens for the users in the system
@@ -25,10 +31,29 @@ public class TokenService {
 
     private final long expirationTime = 1000 * 60 * 60 * 24;
     private SecretKey key;
+    private final JwtParser parser;
+
+    // Verified tokens, by the hash of the token. A token is verified once and
+    // then served from here until it expires or CACHE_TTL_MILLIS pass, so the
+    // validateToken / isUserAndLoggedIn / extractUsername calls of a request
+    // and the next requests with the same token don't check the signature again.
+    // The cache is access ordered, when it is full the least recently used token
+    // is dropped, so a new token always gets in.
+    public static final long CACHE_TTL_MILLIS = 1000 * 60 * 10;
+    public static final int CACHE_CAPACITY = 10_000;
+    private final Map<String, Principal> verifiedTokens = new LinkedHashMap<String, Principal>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Principal> eldest) {
+            return size() > CACHE_CAPACITY;
+        }
+    };
 
     public TokenService() {
         // Initialize the key securely
         this.key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
     }
 
     private static class SingletonHelper {
@@ -60,43 +85,85 @@ public class TokenService {
     }
     
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return getPrincipal(token).getUsername();
     }
     
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return getPrincipal(token).getExpiration();
     }
     
     public String extractGuestId(String token) {
-        return extractClaim(token, claims -> claims.get("guestId", String.class));
-    }
-    
-    private <T> T extractClaim(String token, Function<Claims, T> ClaimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return ClaimsResolver.apply(claims);
+        return getPrincipal(token).getGuestId();
     }
     
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
-    
-    // this function validates the token
-    public boolean validateToken(String token) {
+
+    /**
+     * Verify a token and return who it belongs to.
+     *
+     * @param token the token of the request
+     * @return the user or the guest of the token, or null if the token is not
+     *         valid or expired
+     */
+    public Principal authenticate(String token) {
         try {
-            System.out.println("Server is checking Token: "+token);
-            Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            return getPrincipal(token);
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
+        }
+    }
+
+    // the principal of the token, from the cache or by verifying it
+    // throws JwtException or IllegalArgumentException if the token is not valid
+    private Principal getPrincipal(String token) {
+        if (token == null)
+            throw new IllegalArgumentException("Token is null");
+        String tokenHash = hash(token);
+        long now = System.currentTimeMillis();
+        Principal principal;
+        synchronized (verifiedTokens) {
+            principal = verifiedTokens.get(tokenHash);
+            if (principal != null) {
+                if (now < principal.cachedUntil)
+                    return principal;
+                verifiedTokens.remove(tokenHash);
+            }
+        }
+
+        Claims claims = extractAllClaims(token);
+        long cachedUntil = now + CACHE_TTL_MILLIS;
+        if (claims.getExpiration() != null)
+            cachedUntil = Math.min(cachedUntil, claims.getExpiration().getTime());
+        principal = new Principal(claims.getSubject(), claims.get("guestId", String.class), claims.getExpiration(),
+                cachedUntil);
+        synchronized (verifiedTokens) {
+            verifiedTokens.put(tokenHash, principal);
+        }
+        return principal;
+    }
+
+    // the tokens themselves are not kept in memory, only their hashes
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
     }
+
+    public int getCachedTokenCount() {
+        synchronized (verifiedTokens) {
+            return verifiedTokens.size();
+        }
+    }
+    
+    // this function validates the token
+    public boolean validateToken(String token) {
+        return authenticate(token) != null;
+    }
     
     // check according to the token if this is a user in the system, and the user is
     // logged in
@@ -108,4 +175,40 @@ public class TokenService {
     public boolean isGuest(String token) {
         return extractUsername(token) == null;
     }
-}
\ No newline at end of file
+
+    /**
+     * The user or the guest a verified token belongs to.
+     */
+    public static class Principal {
+        private final String username;
+        private final String guestId;
+        private final Date expiration;
+        // until when the verification of the token is trusted
+        private final long cachedUntil;
+
+        private Principal(String username, String guestId, Date expiration, long cachedUntil) {
+            this.username = username;
+            this.guestId = guestId;
+            this.expiration = expiration;
+            this.cachedUntil = cachedUntil;
+        }
+
+        // null for a guest
+        public String getUsername() {
+            return username;
+        }
+
+        // null for a user
+        public String getGuestId() {
+            return guestId;
+        }
+
+        public Date getExpiration() {
+            return expiration;
+        }
+
+        public boolean isGuest() {
+            return username == null;
+        }
+    }
+}
@@ -5,15 +5,22 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import Domain.Entities.Order;
+import Domain.ExternalServices.CheckoutPipeline;
 import Domain.Facades.ShoppingCartFacade;
 import Domain.Facades.UserFacade;
 import Dtos.PurchaseCartDetailsDto;
 import Dtos.UserDto;
+import Exceptions.PaymentFailedException;
+import Exceptions.StockMarketException;
 import Server.notifications.NotificationHandler;
 import Server.notifications.WebSocketServer;
 import jakarta.transaction.Transactional;
@@ -31,6 +38,13 @@ public class UserService {
     private ShoppingCartFacade _shoppingCartFacade;
     private static final Logger logger = Logger.getLogger(UserService.class.getName());
 
+    // a purchase that conflicts with a concurrent update of the same shop or
+    // product is run again, at most this many times in total
+    public static final int MAX_PURCHASE_ATTEMPTS = 3;
+
+    // runs every purchase attempt in its own transaction, null without Spring
+    private TransactionTemplate _transactionTemplate;
+
     @Autowired
     public UserService(UserFacade userFacade, TokenService tokenService,
             ShoppingCartFacade shoppingCartFacade, NotificationHandler notificationHandler,
@@ -42,6 +56,11 @@ public class UserService {
         _webSocketServer = webSocketServer;
     }
 
+    @Autowired(required = false)
+    public void setTransactionTemplate(TransactionTemplate transactionTemplate) {
+        _transactionTemplate = transactionTemplate;
+    }
+
     // this function is responsible for logging in a user to the system by checking
     // the credentials and generating a token for the user
     @Transactional
@@ -130,20 +149,21 @@ public class UserService {
 
     // this function is responsible for purchasing the cart of a user or a guest
     // by checking the token and the user type and then calling the purchaseCart
-    // function
-    @Transactional
+    // function. The purchase runs in its own transaction, and is retried when it
+    // conflicts with a concurrent update.
     public ResponseEntity<Response> purchaseCart(String token, PurchaseCartDetailsDto purchaseCartDetails) {
         Response response = new Response();
         try {
             if (_tokenService.validateToken(token)) {
                 if (_tokenService.isGuest(token)) {
                     logger.log(Level.INFO, "Start purchasing cart for guest.");
-                    _shoppingCartFacade.purchaseCartGuest(_tokenService.extractGuestId(token), purchaseCartDetails);
+                    String guestId = _tokenService.extractGuestId(token);
+                    purchaseWithRetry(() -> _shoppingCartFacade.purchaseCartGuest(guestId, purchaseCartDetails));
                     response.setReturnValue("Guest bought card succeed");
                 } else {
                     String userName = _tokenService.extractUsername(token);
                     logger.log(Level.INFO, "Start purchasing cart for user: " + userName);
-                    _shoppingCartFacade.purchaseCartUser(userName, purchaseCartDetails);
+                    purchaseWithRetry(() -> _shoppingCartFacade.purchaseCartUser(userName, purchaseCartDetails));
                     response.setReturnValue("User bought card succeed");
                     Alert alert = new PurchaseFromShopUserAlert(userName);
                     _notificationHandler.sendMessage(userName, alert);
@@ -159,6 +179,63 @@ public class UserService {
         }
     }
 
+    private interface Purchase {
+        void run() throws StockMarketException;
+    }
+
+    // Run a purchase in a new transaction, and again in another new transaction
+    // when it fails on an optimistic lock while taking the stock. The pending
+    // changes are flushed before paying, so most conflicts are raised there; a
+    // purchase that fails after it was paid is canceled and never retried.
+    private void purchaseWithRetry(Purchase purchase) throws StockMarketException {
+        for (int attempt = 1;; attempt++) {
+            try {
+                runInTransaction(purchase);
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_PURCHASE_ATTEMPTS)
+                    throw e;
+                logger.log(Level.WARNING, "UserService - purchaseWithRetry: purchase conflicted on attempt "
+                        + attempt + ", retrying. " + e.getMessage());
+            }
+        }
+    }
+
+    private void runInTransaction(Purchase purchase) throws StockMarketException {
+        if (_transactionTemplate == null) {
+            purchase.run();
+            return;
+        }
+        boolean[] paid = { false };
+        try {
+            _transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    purchase.run();
+                } catch (StockMarketException e) {
+                    throw new PurchaseFailedException(e);
+                } finally {
+                    paid[0] = CheckoutPipeline.isPaidInTransaction();
+                }
+            });
+        } catch (PurchaseFailedException e) {
+            throw (StockMarketException) e.getCause();
+        } catch (RuntimeException e) {
+            if (!paid[0])
+                throw e;
+            // the rollback canceled the payment and the delivery, a retry would charge again
+            logger.log(Level.SEVERE, "UserService - runInTransaction: purchase failed after it was paid, "
+                    + "the payment and the delivery were canceled. " + e.getMessage(), e);
+            throw new PaymentFailedException("The purchase could not be saved, the payment was canceled");
+        }
+    }
+
+    // carries a failed purchase out of the transaction callback, and rolls it back
+    private static class PurchaseFailedException extends RuntimeException {
+        private PurchaseFailedException(StockMarketException cause) {
+            super(cause);
+        }
+    }
+
     // this function is responsible for checking if a user is a system admin
     @Transactional
     public ResponseEntity<Response> isSystemAdmin(String token, String userId) {
@@ -481,6 +558,61 @@ public class UserService {
         }
     }
 
+    // A page of the order history of the user, see UserFacade.viewOrderHistoryPage
+    public ResponseEntity<Response> viewOrderHistoryPage(String token, String username, Integer cursor,
+            int pageSize) {
+        Response response = new Response();
+        try {
+            if (_tokenService.validateToken(token) && _tokenService.isUserAndLoggedIn(token)) {
+                response.setReturnValue(_userFacade.viewOrderHistoryPage(username, cursor, pageSize));
+                return new ResponseEntity<>(response, HttpStatus.OK);
+            } else {
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+        } catch (Exception e) {
+            response.setErrorMessage("Failed to view order history: " + e.getMessage());
+            logger.log(Level.SEVERE, "Failed to view order history: " + e.getMessage(), e);
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // The whole order history of the user as newline delimited JSON, read and
+    // written one page at a time
+    public ResponseEntity<?> exportOrderHistory(String token, String username) {
+        Response response = new Response();
+        if (!_tokenService.validateToken(token) || !_tokenService.isUserAndLoggedIn(token))
+            return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+        StreamingResponseBody body = CursorPageStreamer.stream(
+                cursor -> _userFacade.viewOrderHistoryPage(username, cursor, UserFacade.MAX_HISTORY_PAGE_SIZE));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Returns the metrics of the password hashing: hashes, rejected calls,
+     * outdated hashes, queue size, and the average and max hash time and queue
+     * wait. Only for system admins.
+     *
+     * @param token The session token of the admin.
+     * @return A response containing the metrics, or indicating failure.
+     */
+    public ResponseEntity<Response> getPasswordHashingStatistics(String token) {
+        Response response = new Response();
+        try {
+            if (!_tokenService.validateToken(token) || !_tokenService.isUserAndLoggedIn(token))
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            if (!_userFacade.isAdmin(_tokenService.extractUsername(token))) {
+                response.setErrorMessage("Only a system admin can view the password hashing statistics.");
+                return new ResponseEntity<>(response, HttpStatus.FORBIDDEN);
+            }
+            response.setReturnValue(_userFacade.getPasswordHashingStatistics());
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (Exception e) {
+            response.setErrorMessage("Failed to get the password hashing statistics: " + e.getMessage());
+            logger.log(Level.SEVERE, e.getMessage(), e);
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @Transactional
     public ResponseEntity<Response> reportToAdmin(String token,String message) {
         Response response = new Response();
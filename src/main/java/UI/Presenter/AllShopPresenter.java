@@ -28,7 +28,7 @@ public class AllShopPresenter {
 
     @SuppressWarnings("rawtypes")
     public void getAllShops(){
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
 
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
@@ -51,7 +51,7 @@ public class AllShopPresenter {
                                 Response responseBody = response.getBody();
     
                                 if (responseBody.getErrorMessage() == null) {
-                                    ObjectMapper objectMapper = new ObjectMapper();
+                                    ObjectMapper objectMapper = RestClients.objectMapper();
                                     List<ShopDto> shopDtoList = objectMapper.convertValue(
                                             responseBody.getReturnValue(),
                                             TypeFactory.defaultInstance().constructCollectionType(List.class, ShopDto.class));
@@ -36,7 +36,7 @@ public class BasePresenter {
     }
 
     private void fetchAndStoreToken() {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         String serverUrl = "http://localhost:" + SERVER_PORT + "/api/system/enterSystem";
 
         try {
@@ -44,7 +44,7 @@ public class BasePresenter {
             String responseBody = response.getBody();
 
             // Parse the response to extract the token
-            ObjectMapper objectMapper = new ObjectMapper();
+            ObjectMapper objectMapper = RestClients.objectMapper();
             JsonNode responseJson = objectMapper.readTree(responseBody);
             String token = responseJson.get("returnValue").asText();
 
@@ -30,8 +30,8 @@ public final class ErrorMessageGenerator {
         // Extract the JSON substring
         String jsonString = errorMessageString.substring(jsonStartIndex);
 
-        // Create an ObjectMapper instance
-        ObjectMapper objectMapper = new ObjectMapper();
+        // The shared ObjectMapper
+        ObjectMapper objectMapper = RestClients.objectMapper();
 
         // Parse the JSON string to a JsonNode
         JsonNode jsonNode = objectMapper.readTree(jsonString);
@@ -30,7 +30,7 @@ public class HeaderPresenter {
     
     @SuppressWarnings("rawtypes")
     public void loginUser(String username, String password, Consumer<String> callback) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
     
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
@@ -82,7 +82,7 @@ public class HeaderPresenter {
 
     @SuppressWarnings("rawtypes")
     private void checkIfAdmin(String token, String username) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         HttpHeaders headers = new HttpHeaders();
         headers.add("Authorization", token);
 
@@ -117,7 +117,7 @@ public class HeaderPresenter {
     
     @SuppressWarnings("rawtypes")
     public void registerUser(String username, String email, String password, Date birDate) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UserDto userDto = new UserDto(username, email, password, birDate);
     
         HttpHeaders headers = new HttpHeaders();
@@ -154,7 +154,7 @@ public class HeaderPresenter {
     
     @SuppressWarnings("rawtypes")
     public void logoutUser() {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -32,7 +32,7 @@ public class ProductPresenter {
     }
 
     public void productInfo(String shopId, String productId) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -53,7 +53,7 @@ public class ProductPresenter {
                             );
 
                             if (response.getStatusCode().is2xxSuccessful()) {
-                                ObjectMapper objectMapper = new ObjectMapper();
+                                ObjectMapper objectMapper = RestClients.objectMapper();
                                 Response responseBody = objectMapper.readValue(response.getBody(), Response.class);
 
                                 if (responseBody.getErrorMessage() == null) {
@@ -84,7 +84,7 @@ public class ProductPresenter {
     }
 
     public void getDetailedProduct(int shopId, int productId) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
 
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
@@ -109,7 +109,7 @@ public class ProductPresenter {
                                 Response responseBody = response.getBody();
 
                                 if (responseBody.getErrorMessage() == null) {
-                                    ObjectMapper objectMapper = new ObjectMapper();
+                                    ObjectMapper objectMapper = RestClients.objectMapper();
                                     ProductGetterDto productGetterDto = objectMapper.convertValue(responseBody.getReturnValue(), ProductGetterDto.class);
                                     _view.displayAllProductDetails(productGetterDto);
                                     _view.showSuccessMessage("product details are displayed successfully");
@@ -133,7 +133,7 @@ public class ProductPresenter {
     }
 
     public void addProductToCart(int shopId, int productId, int quantity) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
 
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
@@ -181,7 +181,7 @@ public class ProductPresenter {
 
         @SuppressWarnings("deprecation")
         public void fetchProductPolicy(Integer shopId, Integer productId, Consumer<List<UserRuleDto>> callback){
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -202,7 +202,7 @@ public class ProductPresenter {
                                 Response responseBody = response.getBody();
                                 _view.showSuccessMessage("Product with id "+ productId+" policy loaded successfully");
                                 if (responseBody.getErrorMessage() == null) {
-                                    ObjectMapper objectMapper = new ObjectMapper();
+                                    ObjectMapper objectMapper = RestClients.objectMapper();
                                     List<UserRuleDto> rules = objectMapper.convertValue(
                                         responseBody.getReturnValue(),
                                         TypeFactory.defaultInstance().constructCollectionType(List.class, UserRuleDto.class));
@@ -0,0 +1,46 @@
+package UI.Presenter;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The REST client and the JSON mapper shared by all the presenters.
+ *
+ * Both are thread safe, so one of each serves every UI session. The client is
+ * backed by a single JDK HttpClient that keeps its connections to the server
+ * alive and reuses them, instead of a new client and connection per call.
+ */
+public final class RestClients {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final RestTemplate REST_TEMPLATE = createRestTemplate();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private RestClients() {
+    }
+
+    private static RestTemplate createRestTemplate() {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(READ_TIMEOUT);
+        return new RestTemplate(requestFactory);
+    }
+
+    public static RestTemplate restTemplate() {
+        return REST_TEMPLATE;
+    }
+
+    public static ObjectMapper objectMapper() {
+        return OBJECT_MAPPER;
+    }
+}
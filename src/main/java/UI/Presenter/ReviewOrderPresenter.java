@@ -22,7 +22,7 @@ public class ReviewOrderPresenter {
 
     public void addShopRating(Integer shopId, Integer rating)
     {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -72,7 +72,7 @@ public class ReviewOrderPresenter {
 
     public void addProductRatingAndReview(Integer shopId, Integer productId, Integer rating, String Review)
     {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
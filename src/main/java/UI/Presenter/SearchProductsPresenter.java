@@ -2,6 +2,7 @@ package UI.Presenter;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -10,8 +11,8 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vaadin.flow.component.UI;
 
@@ -39,43 +40,27 @@ public class SearchProductsPresenter {
 
     @SuppressWarnings("deprecation")
     public void searchProducts(String shopName, String productName, String category, List<String> keywords) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
-                            Integer shopId = null;
                             HttpHeaders headers = new HttpHeaders();
                             headers.add("Authorization", token);
                             headers.setContentType(MediaType.APPLICATION_JSON); // Set content type
-                            ObjectMapper objectMapper = new ObjectMapper();
+                            ObjectMapper objectMapper = RestClients.objectMapper();
                             try {
-                                if (shopName != null) {
-                                    String url = "http://localhost:" + _serverPort + "/api/shop/getShopIdByName";
-                                    HttpEntity<String> requestEntity1 = new HttpEntity<>(shopName, headers);
-                                    
-                                    // 1st request : getID
-                                    ResponseEntity<String> response = restTemplate.exchange(
-                                        url,
-                                        HttpMethod.POST,
-                                        requestEntity1,
-                                        String.class);
-
-                                    if (response.getStatusCode().is2xxSuccessful()) {
-                                        // Parse JSON response to extract shop ID
-                                        JsonNode rootNode = objectMapper.readTree(response.getBody());
-                                        shopId = (rootNode.path("returnValue").asInt());
-                                    } else {
-                                        searchProductsResultsView.displayResponseShopNotFound(shopName);
-                                        headerView.showErrorMessage("Shop ID loading failed with status code: " + response.getStatusCode().value());
-                                    }
-                                }
-                                ProductSearchDto productSearchDto = new ProductSearchDto(shopId, productName, category, keywords);
-                                String url = createUrlBySearchType(productSearchDto);
-                                HttpEntity<ProductSearchDto> requestEntity2 = new HttpEntity<>(productSearchDto, headers);
+                                // one request: the server finds the shop by its name and searches it
+                                ProductSearchDto productSearchDto = new ProductSearchDto(null, productName, category, keywords);
+                                String url = UriComponentsBuilder
+                                        .fromHttpUrl("http://localhost:" + _serverPort + "/api/shop/searchProductsInShopNamed")
+                                        .queryParamIfPresent("shopName", Optional.ofNullable(shopName))
+                                        .encode()
+                                        .toUriString();
+                                HttpEntity<ProductSearchDto> requestEntity = new HttpEntity<>(productSearchDto, headers);
                                 ResponseEntity<String> response = restTemplate.exchange(
                                     url,
                                     HttpMethod.POST,
-                                    requestEntity2,
+                                    requestEntity,
                                     String.class);
 
                                 String responseBody = response.getBody();
@@ -112,24 +97,9 @@ public class SearchProductsPresenter {
                 });
     }
 
-    // Send search products request
-    private String createUrlBySearchType(ProductSearchDto productSearchDto) {
-        if (productSearchDto.getProductName() != null && !productSearchDto.getProductName().isEmpty()) {
-            return "http://localhost:" + _serverPort + "/api/shop/searchProductsInShopByName";
-        }
-        // Search by category
-        else if (productSearchDto.getCategory() != null) {
-           return "http://localhost:" + _serverPort + "/api/shop/searchProductsInShopByCategory";
-        }
-        // Search by keywords
-        else {
-            return "http://localhost:" + _serverPort + "/api/shop/searchProductsInShopByKeywords";
-        }
-    }
-
     @SuppressWarnings("rawtypes")
     public void addProductToCart(int shopId, int productId, int quantity) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
 
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
@@ -34,7 +34,7 @@ public class SearchShopPresenter {
 
     @SuppressWarnings("deprecation")
     public void searchShop(Integer shopId, String shopName) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -49,7 +49,7 @@ public class SearchShopPresenter {
                         }
 
                         HttpEntity<String> requestEntity = new HttpEntity<>(headers);
-                        ObjectMapper objectMapper = new ObjectMapper();
+                        ObjectMapper objectMapper = RestClients.objectMapper();
 
                         try {
                             ResponseEntity<String> response = restTemplate.exchange(
@@ -46,7 +46,7 @@ public class ShopManagerPresenter {
 
     public void fetchManagerPermissions(String username){
         // Fetch the permissions of the manager
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -61,7 +61,7 @@ public class ShopManagerPresenter {
                                 requestEntity,
                                 String.class);
 
-                        ObjectMapper objectMapper = new ObjectMapper();
+                        ObjectMapper objectMapper = RestClients.objectMapper();
 
                         
                             JsonNode responseJson = objectMapper.readTree(response.getBody());
@@ -93,7 +93,7 @@ public class ShopManagerPresenter {
 
 
     public void appointManager(String newManagerUsername, Set<Permission> selectedPermissions) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -123,7 +123,7 @@ public class ShopManagerPresenter {
                             );
 
                             if (response.getStatusCode().is2xxSuccessful()) {
-                                ObjectMapper objectMapper = new ObjectMapper();
+                                ObjectMapper objectMapper = RestClients.objectMapper();
                                 JsonNode responseJson = objectMapper.readTree(response.getBody());
 
                                 if (responseJson.get("errorMessage").isNull()) {
@@ -147,7 +147,7 @@ public class ShopManagerPresenter {
     }
 
     public void fetchShopManagers(Consumer<List<ShopManagerDto>> callback){
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -167,7 +167,7 @@ public class ShopManagerPresenter {
                                 Response responseBody = response.getBody();
                                 view.showSuccessMessage("Managers loaded successfully");
                                 if (responseBody.getErrorMessage() == null) {
-                                    ObjectMapper objectMapper = new ObjectMapper();
+                                    ObjectMapper objectMapper = RestClients.objectMapper();
                                     List<ShopManagerDto> managers = objectMapper.convertValue(
                                         responseBody.getReturnValue(),
                                         TypeFactory.defaultInstance().constructCollectionType(List.class, ShopManagerDto.class));
@@ -194,7 +194,7 @@ public class ShopManagerPresenter {
 
 
     public void fetchMySubordinates(Consumer<List<ShopManagerDto>> callback) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -214,7 +214,7 @@ public class ShopManagerPresenter {
                                 Response responseBody = response.getBody();
                                 view.showSuccessMessage("Subordinates loaded successfully");
                                 if (responseBody.getErrorMessage() == null) {
-                                    ObjectMapper objectMapper = new ObjectMapper();
+                                    ObjectMapper objectMapper = RestClients.objectMapper();
                                     List<ShopManagerDto> managers = objectMapper.convertValue(
                                         responseBody.getReturnValue(),
                                         TypeFactory.defaultInstance().constructCollectionType(List.class, ShopManagerDto.class));
@@ -240,7 +240,7 @@ public class ShopManagerPresenter {
 
 
     public void appointOwner(String newOwnerUsername){
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -264,7 +264,7 @@ public class ShopManagerPresenter {
                             );
 
                             if (response.getStatusCode().is2xxSuccessful()) {
-                                ObjectMapper objectMapper = new ObjectMapper();
+                                ObjectMapper objectMapper = RestClients.objectMapper();
                                 JsonNode responseJson = objectMapper.readTree(response.getBody());
 
                                 if (responseJson.get("errorMessage").isNull()) {
@@ -289,7 +289,7 @@ public class ShopManagerPresenter {
 
     public void addNewProduct(String productName, Category category, double price)
     {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -319,7 +319,7 @@ public class ShopManagerPresenter {
                             );
 
                             if (response.getStatusCode().is2xxSuccessful()) {
-                                ObjectMapper objectMapper = new ObjectMapper();
+                                ObjectMapper objectMapper = RestClients.objectMapper();
                                 JsonNode responseJson = objectMapper.readTree(response.getBody());
 
                                 if (responseJson.get("errorMessage").isNull()) {
@@ -343,7 +343,7 @@ public class ShopManagerPresenter {
     }
 
     public void fetchShopDiscounts(Consumer<List<ShopDiscountDto>> callback){
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -364,7 +364,7 @@ public class ShopManagerPresenter {
                                 Response responseBody = response.getBody();
                                 view.showSuccessMessage("Discounts loaded successfully");
                                 if (responseBody.getErrorMessage() == null) {
-                                    ObjectMapper objectMapper = new ObjectMapper();
+                                    ObjectMapper objectMapper = RestClients.objectMapper();
                                     List<ShopDiscountDto> discounts = objectMapper.convertValue(
                                         responseBody.getReturnValue(),
                                         TypeFactory.defaultInstance().constructCollectionType(List.class, ShopDiscountDto.class));
@@ -390,7 +390,7 @@ public class ShopManagerPresenter {
 
     public void addDiscount(boolean isPercentage, Double discountValue, Date expirationDate,
         Integer productId, Category category, Consumer<Boolean> callback){
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         ShopDiscountDto discountDto = new ShopDiscountDto(productId, isPercentage, discountValue, expirationDate, category, -1); 
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
@@ -433,7 +433,7 @@ public class ShopManagerPresenter {
     }
 
     public void deleteDiscount(ShopDiscountDto discountDto, Consumer<Boolean> callback){
-        RestTemplate restTemplate = new RestTemplate(); 
+        RestTemplate restTemplate = RestClients.restTemplate(); 
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -475,7 +475,7 @@ public class ShopManagerPresenter {
     }
 
     public void updatePermissions(String managerUserName, Set<Permission> permissions, Consumer<Boolean> callback) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -505,7 +505,7 @@ public class ShopManagerPresenter {
                             );
 
                             if (response.getStatusCode().is2xxSuccessful()) {
-                                ObjectMapper objectMapper = new ObjectMapper();
+                                ObjectMapper objectMapper = RestClients.objectMapper();
                                 JsonNode responseJson = objectMapper.readTree(response.getBody());
 
                                 if (responseJson.get("errorMessage").isNull()) {
@@ -535,7 +535,7 @@ public class ShopManagerPresenter {
     }
     
     public void closeShop(String shopId) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -576,7 +576,7 @@ public class ShopManagerPresenter {
 
     public void reopenShop(String shopId)
     {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -617,7 +617,7 @@ public class ShopManagerPresenter {
 
 
     public void fetchShopPolicy(Consumer<List<ShoppingBasketRuleDto>> callback){
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -638,7 +638,7 @@ public class ShopManagerPresenter {
                                 Response responseBody = response.getBody();
                                 view.showSuccessMessage("Shop Policy loaded successfully");
                                 if (responseBody.getErrorMessage() == null) {
-                                    ObjectMapper objectMapper = new ObjectMapper();
+                                    ObjectMapper objectMapper = RestClients.objectMapper();
                                     List<ShoppingBasketRuleDto> rules = objectMapper.convertValue(
                                         responseBody.getReturnValue(),
                                         TypeFactory.defaultInstance().constructCollectionType(List.class, ShoppingBasketRuleDto.class));
@@ -663,7 +663,7 @@ public class ShopManagerPresenter {
     }
 
     public void updateShopPolicy(List<ShoppingBasketRuleDto> newRules, Consumer<Boolean> callback) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -677,7 +677,7 @@ public class ShopManagerPresenter {
                             requestBody.add(rule);
                         }
 
-                        ObjectMapper objectMapper = new ObjectMapper();
+                        ObjectMapper objectMapper = RestClients.objectMapper();
                         // DEBUG: Log request body before serialization
                         try {
                             String requestBodyJson = objectMapper.writeValueAsString(requestBody);
@@ -698,7 +698,7 @@ public class ShopManagerPresenter {
                             );
 
                             if (response.getStatusCode().is2xxSuccessful()) {
-                                ObjectMapper objectMapper2 = new ObjectMapper();
+                                ObjectMapper objectMapper2 = RestClients.objectMapper();
                                 JsonNode responseJson = objectMapper2.readTree(response.getBody());
 
                                 if (responseJson.get("errorMessage").isNull()) {
@@ -728,7 +728,7 @@ public class ShopManagerPresenter {
     }
 
     public void updateProductPolicy(List<UserRuleDto> newRules, ProductDto product, Consumer<Boolean> callback) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -742,7 +742,7 @@ public class ShopManagerPresenter {
                             requestBody.add(rule);
                         }
 
-                        ObjectMapper objectMapper = new ObjectMapper();
+                        ObjectMapper objectMapper = RestClients.objectMapper();
                         // DEBUG: Log request body before serialization
                         try {
                             String requestBodyJson = objectMapper.writeValueAsString(requestBody);
@@ -762,7 +762,7 @@ public class ShopManagerPresenter {
                             );
 
                             if (response.getStatusCode().is2xxSuccessful()) {
-                                ObjectMapper objectMapper2 = new ObjectMapper();
+                                ObjectMapper objectMapper2 = RestClients.objectMapper();
                                 JsonNode responseJson = objectMapper2.readTree(response.getBody());
 
                                 if (responseJson.get("errorMessage").isNull()) {
@@ -795,7 +795,7 @@ public class ShopManagerPresenter {
 
 
     public void fetchProductPolicy(ProductDto product, Consumer<List<UserRuleDto>> callback){
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -816,7 +816,7 @@ public class ShopManagerPresenter {
                                 Response responseBody = response.getBody();
                                 view.showSuccessMessage("Product with id "+product.getProductId()+" policy loaded successfully");
                                 if (responseBody.getErrorMessage() == null) {
-                                    ObjectMapper objectMapper = new ObjectMapper();
+                                    ObjectMapper objectMapper = RestClients.objectMapper();
                                     List<UserRuleDto> rules = objectMapper.convertValue(
                                         responseBody.getReturnValue(),
                                         TypeFactory.defaultInstance().constructCollectionType(List.class, UserRuleDto.class));
@@ -844,7 +844,7 @@ public class ShopManagerPresenter {
 
     public void updateProductQuantity(Integer shopId, Integer productId, Integer quantity)
     {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -893,7 +893,7 @@ public class ShopManagerPresenter {
 
     public void updateProductPrice(Integer shopId, Integer productId, Double price)
     {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -941,7 +941,7 @@ public class ShopManagerPresenter {
 
     public void updateProductName(Integer shopId, Integer productId, String name)
     {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -990,7 +990,7 @@ public class ShopManagerPresenter {
 
     public void updateProductCategory(Integer shopId, Integer productId, Category category)
     {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -1038,7 +1038,7 @@ public class ShopManagerPresenter {
     }
 
 public void getShopPurchaseHistory(Integer shopId) {
-    RestTemplate restTemplate = new RestTemplate();
+    RestTemplate restTemplate = RestClients.restTemplate();
 
     UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
             .then(String.class, token -> {
@@ -1063,7 +1063,7 @@ public void getShopPurchaseHistory(Integer shopId) {
                             Response responseBody = response.getBody();
 
                             if (responseBody.getErrorMessage() == null) {
-                                ObjectMapper objectMapper = new ObjectMapper();
+                                ObjectMapper objectMapper = RestClients.objectMapper();
                                 List<ShopOrderDto> orderDtoList = objectMapper.convertValue(
                                         responseBody.getReturnValue(),
                                         TypeFactory.defaultInstance().constructCollectionType(List.class,
@@ -1091,7 +1091,7 @@ public void getShopPurchaseHistory(Integer shopId) {
 }
     
     public void fetchShopProducts(Consumer<List<ProductDto>> callback) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -1112,7 +1112,7 @@ public void getShopPurchaseHistory(Integer shopId) {
                                 Response responseBody = response.getBody();
                                 view.showSuccessMessage("Shop products loaded successfully");
                                 if (responseBody.getErrorMessage() == null) {
-                                    ObjectMapper objectMapper = new ObjectMapper();
+                                    ObjectMapper objectMapper = RestClients.objectMapper();
                                     List<ProductDto> productDtoList = objectMapper.convertValue(
                                                                         responseBody.getReturnValue(),
                                                                         TypeFactory.defaultInstance().constructCollectionType(List.class, ProductDto.class));
@@ -1137,7 +1137,7 @@ public void getShopPurchaseHistory(Integer shopId) {
     }
 
     public void deleteProduct(ProductDto productDto, Consumer<Boolean> callback){
-        RestTemplate restTemplate = new RestTemplate(); 
+        RestTemplate restTemplate = RestClients.restTemplate(); 
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
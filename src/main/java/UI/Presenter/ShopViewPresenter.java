@@ -30,7 +30,7 @@ public class ShopViewPresenter {
     }
 
     public void getShopProducts() {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
 
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
@@ -53,7 +53,7 @@ public class ShopViewPresenter {
                             Response responseBody = response.getBody();
 
                             if (responseBody.getErrorMessage() == null) {
-                                ObjectMapper objectMapper = new ObjectMapper();
+                                ObjectMapper objectMapper = RestClients.objectMapper();
                                 List<ProductDto> productDtoList = objectMapper.convertValue(
                                         responseBody.getReturnValue(),
                                         TypeFactory.defaultInstance().constructCollectionType(List.class,
@@ -76,7 +76,7 @@ public class ShopViewPresenter {
 
 
     public void openComplain(String message) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
 
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
@@ -119,7 +119,7 @@ public class ShopViewPresenter {
     }
 
     public void addProductToCart(int shopId, int productId, int quantity) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
 
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
@@ -30,7 +30,7 @@ public class ShoppingCartPagePresentor {
 
     @SuppressWarnings("rawtypes")
     public void viewCart(){
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
 
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
@@ -55,7 +55,7 @@ public class ShoppingCartPagePresentor {
                                 Response responseBody = response.getBody();
 
                                 if (responseBody.getErrorMessage() == null) {
-                                    ObjectMapper objectMapper = new ObjectMapper();
+                                    ObjectMapper objectMapper = RestClients.objectMapper();
                                     List<BasketDto> basketDtoList = objectMapper.convertValue(
                                             responseBody.getReturnValue(),
                                             TypeFactory.defaultInstance().constructCollectionType(List.class, BasketDto.class));
@@ -84,7 +84,7 @@ public class ShoppingCartPagePresentor {
 
     @SuppressWarnings("rawtypes")
     public void purchaseCart(PaymentInfoDto paymentInfoDto, SupplyInfoDto supplyInfoDto ,List<Integer> selectedIndexes) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         PurchaseCartDetailsDto details = new PurchaseCartDetailsDto(paymentInfoDto, supplyInfoDto, selectedIndexes);
 
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
@@ -131,7 +131,7 @@ public class ShoppingCartPagePresentor {
 
     @SuppressWarnings("rawtypes")
     public void removeItemFromCart(int shopID, int productID, int quantity) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
 
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
@@ -25,7 +25,7 @@ public class SystemAdminPresenter {
     }
 
     public void closeShop(String shopId) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -65,7 +65,7 @@ public class SystemAdminPresenter {
 
     @SuppressWarnings("rawtypes")
     public void getShopPurchaseHistory(String shopId) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
  
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
         .then(String.class, token -> {
@@ -89,7 +89,7 @@ public class SystemAdminPresenter {
                         Response responseBody = response.getBody();
  
                         if (responseBody.getErrorMessage() == null) {
-                            ObjectMapper objectMapper = new ObjectMapper();
+                            ObjectMapper objectMapper = RestClients.objectMapper();
                             List<ShopOrderDto> orderDtoList = objectMapper.convertValue(
                                 responseBody.getReturnValue(),
                                 TypeFactory.defaultInstance().constructCollectionType(List.class,
@@ -118,7 +118,7 @@ public class SystemAdminPresenter {
  
     @SuppressWarnings("rawtypes")
     public void getUserPurchaseHistory(String username) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
 
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
@@ -143,7 +143,7 @@ public class SystemAdminPresenter {
                                 Response responseBody = response.getBody();
 
                                 if (responseBody.getErrorMessage() == null) {
-                                    ObjectMapper objectMapper = new ObjectMapper();
+                                    ObjectMapper objectMapper = RestClients.objectMapper();
                                     List<OrderDto> orderDtoList = objectMapper.convertValue(
                                             responseBody.getReturnValue(),
                                             TypeFactory.defaultInstance().constructCollectionType(List.class,
@@ -170,7 +170,7 @@ public class SystemAdminPresenter {
     }
 
     public void sendAlertNotification(String targetUser, String message) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -30,7 +30,7 @@ public class UserMainPagePresenter {
     }
 
     public void openNewShop(String shopName, String bankDetails, String shopAddress){
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         ShopDto shopDto = new ShopDto(shopName, bankDetails, shopAddress);
 
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
@@ -74,7 +74,7 @@ public class UserMainPagePresenter {
 
 @SuppressWarnings("rawtypes")
 public void getUserInfo() {
-    RestTemplate restTemplate = new RestTemplate();
+    RestTemplate restTemplate = RestClients.restTemplate();
 
     UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
             .then(String.class, token -> {
@@ -94,7 +94,7 @@ public void getUserInfo() {
                             Response responseBody = response.getBody();
 
                             if (responseBody.getErrorMessage() == null) {
-                                ObjectMapper objectMapper = new ObjectMapper();
+                                ObjectMapper objectMapper = RestClients.objectMapper();
                                 UserDto userDto = objectMapper.convertValue(responseBody.getReturnValue(), UserDto.class);
                                 view.usernameField.setValue(userDto.getUsername());
                                 view.emailField.setValue(userDto.getEmail());
@@ -123,7 +123,7 @@ public void getUserInfo() {
             
     @SuppressWarnings("rawtypes")
     public void updateUserInfo(UserDto userDto) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         HttpHeaders headers = new HttpHeaders();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
@@ -159,7 +159,7 @@ public void getUserInfo() {
 
     @SuppressWarnings("rawtypes")
     public void openReport(String message) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
     
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
@@ -26,7 +26,7 @@ public class UserOrderHistoryPresenter {
 
     @SuppressWarnings("rawtypes")
     public void viewOrderHistory() {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
 
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
@@ -52,7 +52,7 @@ public class UserOrderHistoryPresenter {
                                 Response responseBody = response.getBody();
 
                                 if (responseBody.getErrorMessage() == null) {
-                                    ObjectMapper objectMapper = new ObjectMapper();
+                                    ObjectMapper objectMapper = RestClients.objectMapper();
                                     List<OrderDto> orderDtoList = objectMapper.convertValue(
                                             responseBody.getReturnValue(),
                                             TypeFactory.defaultInstance().constructCollectionType(List.class,
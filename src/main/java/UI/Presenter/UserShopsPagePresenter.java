@@ -26,7 +26,7 @@ public class UserShopsPagePresenter {
 
     @SuppressWarnings("deprecation")
     public void fetchShops(String username) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -41,7 +41,7 @@ public class UserShopsPagePresenter {
                                 requestEntity,
                                 String.class);
 
-                        ObjectMapper objectMapper = new ObjectMapper();
+                        ObjectMapper objectMapper = RestClients.objectMapper();
 
                         try{
                             JsonNode responseJson = objectMapper.readTree(response.getBody());
@@ -74,7 +74,7 @@ public class UserShopsPagePresenter {
 
     @SuppressWarnings("deprecation")
     public void fetchShopsNames(List<Integer> shops) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = RestClients.restTemplate();
         UI.getCurrent().getPage().executeJs("return localStorage.getItem('authToken');")
                 .then(String.class, token -> {
                     if (token != null && !token.isEmpty()) {
@@ -89,7 +89,7 @@ public class UserShopsPagePresenter {
                                 requestEntity,
                                 String.class);
 
-                        ObjectMapper objectMapper = new ObjectMapper();
+                        ObjectMapper objectMapper = RestClients.objectMapper();
 
                         try{
                             JsonNode responseJson = objectMapper.readTree(response.getBody());
@@ -0,0 +1,192 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import Domain.ExternalServices.CheckoutPipeline;
+import Domain.ExternalServices.HandshakeCache;
+import Domain.ExternalServices.VirtualThreads;
+import Domain.ExternalServices.PaymentService.AdapterPaymentInterface;
+import Domain.ExternalServices.SupplyService.AdapterSupplyInterface;
+import Dtos.PaymentInfoDto;
+import Dtos.SupplyInfoDto;
+import Exceptions.PaymentFailedException;
+import Exceptions.ShippingFailedException;
+import Exceptions.StockMarketException;
+
+public class CheckoutPipelineTests {
+
+    private CheckoutPipeline _pipeline;
+    private AdapterPaymentInterface _paymentMock;
+    private AdapterSupplyInterface _supplyMock;
+    private PaymentInfoDto _paymentInfo;
+    private SupplyInfoDto _supplyInfo;
+
+    @BeforeEach
+    public void setUp() {
+        _pipeline = new CheckoutPipeline(4);
+        _paymentMock = Mockito.mock(AdapterPaymentInterface.class);
+        _supplyMock = Mockito.mock(AdapterSupplyInterface.class);
+        _paymentInfo = new PaymentInfoDto("abc", "abc", "abc", "abc", "abc", "982", "abc");
+        _supplyInfo = new SupplyInfoDto("abc", "abc", "abc", "abc", "abc");
+        when(_paymentMock.handshake()).thenReturn(true);
+        when(_supplyMock.handshake()).thenReturn(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        _pipeline.shutdown();
+    }
+
+    @Test
+    public void testCheckout_whenBothSucceed_thenReturnsBothTransactions() throws StockMarketException {
+        // Arrange
+        when(_paymentMock.payment(_paymentInfo, 100)).thenReturn(10001);
+        when(_supplyMock.supply(_supplyInfo)).thenReturn(20002);
+
+        // Act
+        CheckoutPipeline.Transactions result = _pipeline.checkout(_paymentMock, _supplyMock, _paymentInfo, 100,
+                _supplyInfo);
+
+        // Assert
+        assertEquals(10001, result.getPaymentTransactionId());
+        assertEquals(20002, result.getSupplyTransactionId());
+    }
+
+    @Test
+    public void testCheckout_whenHandshakesWaitForEachOther_thenSentConcurrently() throws StockMarketException {
+        // Arrange - each handshake succeeds only if the other one was already sent
+        CountDownLatch paymentSent = new CountDownLatch(1);
+        CountDownLatch supplySent = new CountDownLatch(1);
+        when(_paymentMock.handshake()).thenAnswer(invocation -> {
+            paymentSent.countDown();
+            return supplySent.await(5, TimeUnit.SECONDS);
+        });
+        when(_supplyMock.handshake()).thenAnswer(invocation -> {
+            supplySent.countDown();
+            return paymentSent.await(5, TimeUnit.SECONDS);
+        });
+        when(_paymentMock.payment(_paymentInfo, 100)).thenReturn(10001);
+        when(_supplyMock.supply(_supplyInfo)).thenReturn(20002);
+
+        // Act
+        CheckoutPipeline.Transactions result = _pipeline.checkout(_paymentMock, _supplyMock, _paymentInfo, 100,
+                _supplyInfo);
+
+        // Assert
+        assertEquals(10001, result.getPaymentTransactionId());
+    }
+
+    @Test
+    public void testCheckout_whenSupplyFails_thenPaymentCanceledAndThrows() {
+        // Arrange
+        when(_paymentMock.payment(_paymentInfo, 100)).thenReturn(10001);
+        when(_supplyMock.supply(_supplyInfo)).thenReturn(-1);
+
+        // Act & Assert
+        assertThrows(ShippingFailedException.class,
+                () -> _pipeline.checkout(_paymentMock, _supplyMock, _paymentInfo, 100, _supplyInfo));
+        verify(_paymentMock).cancel_pay(10001);
+    }
+
+    @Test
+    public void testCheckout_whenPaymentThrows_thenSupplyCanceledAndThrows() {
+        // Arrange
+        when(_paymentMock.payment(_paymentInfo, 100)).thenThrow(new IllegalStateException("timeout"));
+        when(_supplyMock.supply(_supplyInfo)).thenReturn(20002);
+
+        // Act & Assert
+        assertThrows(PaymentFailedException.class,
+                () -> _pipeline.checkout(_paymentMock, _supplyMock, _paymentInfo, 100, _supplyInfo));
+        verify(_supplyMock).cancel_supply(20002);
+    }
+
+    @Test
+    public void testCheckout_whenPaymentHandshakeFails_thenNothingIsCharged() {
+        // Arrange
+        when(_paymentMock.handshake()).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(PaymentFailedException.class,
+                () -> _pipeline.checkout(_paymentMock, _supplyMock, _paymentInfo, 100, _supplyInfo));
+        verify(_paymentMock, never()).payment(_paymentInfo, 100);
+        verify(_supplyMock, never()).supply(_supplyInfo);
+    }
+
+    @Test
+    public void testCheckout_whenVirtualThreadsRequested_thenRunsOnAnyRuntime() throws StockMarketException {
+        // Arrange - falls back to the platform pool before Java 21
+        CheckoutPipeline pipeline = new CheckoutPipeline(4, true);
+        when(_paymentMock.payment(_paymentInfo, 100)).thenReturn(10001);
+        when(_supplyMock.supply(_supplyInfo)).thenReturn(20002);
+
+        try {
+            // Act
+            CheckoutPipeline.Transactions result = pipeline.checkout(_paymentMock, _supplyMock, _paymentInfo, 100,
+                    _supplyInfo);
+
+            // Assert
+            assertEquals(10001, result.getPaymentTransactionId());
+            assertEquals(20002, result.getSupplyTransactionId());
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    public void testVirtualThreads_whenRuntimeChecked_thenSupportedFromJava21() {
+        // Act
+        boolean supported = VirtualThreads.isSupported();
+
+        // Assert
+        assertEquals(Runtime.version().feature() >= 21, supported);
+        if (!supported)
+            assertThrows(UnsupportedOperationException.class, () -> VirtualThreads.newThreadPerTaskExecutor("test-"));
+    }
+
+    @Test
+    public void testHandshakeCache_whenHandshakeSucceeded_thenNotSentAgainWithinWindow() {
+        // Arrange
+        HandshakeCache cache = new HandshakeCache(60_000);
+        AtomicInteger handshakes = new AtomicInteger();
+
+        // Act
+        boolean first = cache.check(() -> handshakes.incrementAndGet() > 0);
+        boolean second = cache.check(() -> handshakes.incrementAndGet() > 0);
+
+        // Assert
+        assertTrue(first);
+        assertTrue(second);
+        assertEquals(1, handshakes.get());
+    }
+
+    @Test
+    public void testHandshakeCache_whenHandshakeFailed_thenSentAgain() {
+        // Arrange
+        HandshakeCache cache = new HandshakeCache(60_000);
+        AtomicInteger handshakes = new AtomicInteger();
+
+        // Act
+        boolean first = cache.check(() -> handshakes.incrementAndGet() > 1);
+        boolean second = cache.check(() -> handshakes.incrementAndGet() > 1);
+
+        // Assert
+        assertFalse(first);
+        assertTrue(second);
+        assertEquals(2, handshakes.get());
+    }
+}
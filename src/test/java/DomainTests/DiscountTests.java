@@ -8,13 +8,20 @@ import static org.mockito.Mockito.*;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
+import Domain.Entities.Product;
 import Domain.Entities.ShoppingBasket;
+import Domain.Entities.Discounts.CategoryPercentageDiscount;
 import Domain.Entities.Discounts.ConditionalDiscount;
+import Domain.Entities.Discounts.Discount;
+import Domain.Entities.Discounts.DiscountPlan;
 import Domain.Entities.Discounts.ProductFixedDiscount;
 import Domain.Entities.Discounts.ProductPercentageDiscount;
+import Domain.Entities.Discounts.ShopPercentageDiscount;
+import Domain.Entities.enums.Category;
 
 public class DiscountTests {
     /***************** Precentage Discount Tests *****************/
@@ -296,4 +303,55 @@ public class DiscountTests {
         assertEquals(1, priceToAmount1.get(9.0)); // the price was updated
     }
 
+    /***************** Discount Plan Tests *****************/
+    @Test
+    public void testDiscountPlan_whenBasketHasSomeProducts_thenOnlyTheirDiscountsInOrder() {
+        // Arrange
+        Product product1 = new Product("product1", Category.ELECTRONICS, 10.0, null, 1);
+        when(_basketMock.getDistinctProducts()).thenReturn(Set.of(product1));
+        Discount shopDiscount = new ShopPercentageDiscount(getFutureDate(), 10, 1);
+        Discount product1Discount = new ProductPercentageDiscount(getFutureDate(), 10, 1, 2);
+        Discount product2Discount = new ProductPercentageDiscount(getFutureDate(), 10, 2, 3);
+        Discount electronicsDiscount = new CategoryPercentageDiscount(getFutureDate(), 10, Category.ELECTRONICS, 4);
+        Discount clothingDiscount = new CategoryPercentageDiscount(getFutureDate(), 10, Category.CLOTHING, 5);
+        DiscountPlan plan = new DiscountPlan(List.of(product1Discount, shopDiscount, product2Discount,
+                clothingDiscount, electronicsDiscount));
+
+        // Act
+        List<Discount> applicable = plan.getApplicableDiscounts(_basketMock);
+
+        // Assert - the order of the shop is kept
+        assertEquals(List.of(product1Discount, shopDiscount, electronicsDiscount), applicable);
+    }
+
+    @Test
+    public void testDiscountPlan_whenDiscountExpired_thenPlanReportsExpired() {
+        // Arrange
+        Date past = new Date(System.currentTimeMillis() - 1000);
+        DiscountPlan plan = new DiscountPlan(List.of(new ProductPercentageDiscount(getFutureDate(), 10, 1, 1),
+                new ProductPercentageDiscount(past, 10, 2, 2)));
+
+        // Act & Assert
+        assertTrue(plan.hasExpiredDiscounts(new Date()));
+    }
+
+    @Test
+    public void testApplyDiscount_whenDiscountApplied_thenRuleEvaluatedOnce() {
+        // Arrange
+        ProductPercentageDiscount discount = new ProductPercentageDiscount(getFutureDate(), 10, 1, 1);
+        when(_basketMock.getProductCount(1)).thenReturn(1);
+        SortedMap<Double, Integer> priceToAmount = new TreeMap<>();
+        priceToAmount.put(10.0, 1);
+        when(_basketMock.getProductPriceToAmount(1)).thenReturn(priceToAmount);
+
+        // Act
+        assertDoesNotThrow(() -> {
+            discount.applyDiscount(_basketMock, new Date());
+        });
+
+        // Assert
+        verify(_basketMock, times(1)).getProductCount(1);
+        assertTrue(priceToAmount.containsKey(9.0));
+    }
+
 }
\ No newline at end of file
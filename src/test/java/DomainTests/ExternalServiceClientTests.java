@@ -0,0 +1,143 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import Domain.ExternalServices.CircuitBreaker;
+import Domain.ExternalServices.ExternalServiceClient;
+import Domain.ExternalServices.PaymentService.RealPayment;
+
+public class ExternalServiceClientTests {
+
+    private HttpServer _server;
+    private String _url;
+    private AtomicInteger _requests;
+    private volatile long _delayMillis;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        _requests = new AtomicInteger();
+        _delayMillis = 0;
+        _server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        _server.createContext("/", exchange -> {
+            _requests.incrementAndGet();
+            try {
+                Thread.sleep(_delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "OK".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        _server.start();
+        _url = "http://localhost:" + _server.getAddress().getPort() + "/";
+    }
+
+    @AfterEach
+    public void tearDown() {
+        _server.stop(0);
+    }
+
+    private RealPayment paymentWith(long readTimeoutMillis, CircuitBreaker breaker) {
+        return new RealPayment(new ExternalServiceClient(_url, readTimeoutMillis, 4, 100, breaker));
+    }
+
+    @Test
+    public void testHandshake_whenServiceAnswersOk_thenReturnsTrue() {
+        // Arrange
+        RealPayment payment = paymentWith(1_000, new CircuitBreaker("payment service", 3, 60_000));
+
+        // Act
+        boolean result = payment.handshake();
+
+        // Assert
+        assertTrue(result);
+        assertEquals(1, _requests.get());
+    }
+
+    @Test
+    public void testHandshake_whenServiceIsSlowerThanDeadline_thenReturnsFalse() {
+        // Arrange
+        _delayMillis = 1_000;
+        RealPayment payment = paymentWith(100, new CircuitBreaker("payment service", 3, 60_000));
+
+        // Act
+        boolean result = payment.handshake();
+
+        // Assert
+        assertFalse(result);
+    }
+
+    @Test
+    public void testHandshake_whenFailuresReachThreshold_thenBreakerOpensAndFailsFast() {
+        // Arrange
+        _delayMillis = 500;
+        CircuitBreaker breaker = new CircuitBreaker("payment service", 2, 60_000);
+        RealPayment payment = paymentWith(50, breaker);
+        payment.handshake();
+        payment.handshake();
+        int requestsBeforeOpen = _requests.get();
+
+        // Act
+        boolean result = payment.handshake();
+
+        // Assert
+        assertFalse(result);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(payment.isAvailable());
+        assertEquals(requestsBeforeOpen, _requests.get());
+    }
+
+    @Test
+    public void testCircuitBreaker_whenOpenTimePassed_thenSingleTrialCallAllowed() throws InterruptedException {
+        // Arrange
+        CircuitBreaker breaker = new CircuitBreaker("supply service", 1, 50);
+        breaker.onFailure();
+        assertFalse(breaker.allowRequest());
+        Thread.sleep(100);
+
+        // Act
+        boolean trial = breaker.allowRequest();
+        boolean secondDuringTrial = breaker.allowRequest();
+        breaker.onSuccess();
+
+        // Assert
+        assertTrue(trial);
+        assertFalse(secondDuringTrial);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void testCircuitBreaker_whenTrialCallFails_thenOpensAgain() throws InterruptedException {
+        // Arrange
+        CircuitBreaker breaker = new CircuitBreaker("supply service", 3, 50);
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onFailure();
+        Thread.sleep(100);
+        assertTrue(breaker.allowRequest());
+
+        // Act
+        breaker.onFailure();
+
+        // Assert
+        assertFalse(breaker.allowRequest());
+    }
+}
@@ -0,0 +1,122 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Domain.Entities.Shop;
+import Domain.Repositories.MemoryShopRepository;
+import Exceptions.StockMarketException;
+
+public class MemoryShopRepositoryTests {
+
+    private MemoryShopRepository _repository;
+
+    @BeforeEach
+    public void setUp() {
+        _repository = new MemoryShopRepository(new ArrayList<>());
+    }
+
+    private Shop newShop(String shopName) {
+        Shop shop = new Shop();
+        shop.setShopName(shopName);
+        return shop;
+    }
+
+    @Test
+    public void testSave_whenShopSavedAgain_thenKeepsItsIdAndNameEntry() {
+        // Arrange
+        Shop shop = _repository.save(newShop("shop1"));
+        int shopId = shop.getShopId();
+
+        // Act
+        _repository.save(shop);
+
+        // Assert
+        assertEquals(shopId, shop.getShopId());
+        assertEquals(1, _repository.findAll().size());
+        assertSame(shop, _repository.findByShopId(shopId));
+        assertSame(shop, _repository.findByShopName("shop1"));
+    }
+
+    @Test
+    public void testSave_whenShopRenamed_thenOldNameDropped() {
+        // Arrange
+        Shop shop = _repository.save(newShop("shop1"));
+
+        // Act
+        shop.setShopName("shop2");
+        _repository.save(shop);
+
+        // Assert
+        assertNull(_repository.findByShopName("shop1"));
+        assertSame(shop, _repository.findByShopName("shop2"));
+        assertEquals(1, _repository.findAll().size());
+    }
+
+    @Test
+    public void testSave_whenOtherInstanceOfSameShopSaved_thenIndexesPointToIt() {
+        // Arrange
+        Shop shop = _repository.save(newShop("shop1"));
+        Shop update = newShop("shop1");
+        update.setShopId(shop.getShopId());
+
+        // Act
+        _repository.save(update);
+
+        // Assert
+        assertSame(update, _repository.findByShopId(shop.getShopId()));
+        assertSame(update, _repository.findByShopName("shop1"));
+        assertEquals(1, _repository.findAll().size());
+    }
+
+    @Test
+    public void testSave_whenNameTakenByOtherShop_thenNameKeepsItsShop() {
+        // Arrange
+        Shop shop1 = _repository.save(newShop("shop1"));
+
+        // Act
+        Shop shop2 = _repository.save(newShop("shop1"));
+
+        // Assert
+        assertNotEquals(shop1.getShopId(), shop2.getShopId());
+        assertSame(shop1, _repository.findByShopName("shop1"));
+    }
+
+    @Test
+    public void testSave_whenShopHasId_thenNewShopsGetOtherIds() throws StockMarketException {
+        // Arrange
+        Shop shopWithId = new Shop("shop1", "founder1", "bank1", "address1", 5);
+
+        // Act
+        _repository.save(shopWithId);
+        Shop newShop = _repository.save(newShop("shop2"));
+
+        // Assert
+        assertSame(shopWithId, _repository.findByShopId(5));
+        assertEquals(6, newShop.getShopId());
+        assertEquals(2, _repository.findAll().size());
+    }
+
+    @Test
+    public void testDelete_whenShopRenamedBeforeDelete_thenBothIndexesCleared() {
+        // Arrange
+        Shop shop = _repository.save(newShop("shop1"));
+        shop.setShopName("shop2");
+
+        // Act
+        _repository.delete(shop);
+
+        // Assert
+        assertNull(_repository.findByShopId(shop.getShopId()));
+        assertNull(_repository.findByShopName("shop1"));
+        assertNull(_repository.findByShopName("shop2"));
+        assertEquals(0, _repository.findAll().size());
+    }
+}
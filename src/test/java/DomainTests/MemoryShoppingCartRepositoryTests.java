@@ -0,0 +1,58 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Domain.Entities.ShoppingCart;
+import Domain.Entities.User;
+import Domain.Repositories.MemoryShoppingCartRepository;
+
+public class MemoryShoppingCartRepositoryTests {
+
+    private MemoryShoppingCartRepository _cartRepository;
+
+    @BeforeEach
+    public void setUp() {
+        _cartRepository = new MemoryShoppingCartRepository();
+    }
+
+    private User newUser(String username) {
+        return new User(username, "password", "email@example.com", new Date());
+    }
+
+    @Test
+    public void testSave_whenOwnerGetsNewCart_thenOldCartDroppedFromIdIndex() {
+        // Arrange
+        User user = newUser("user1");
+        ShoppingCart oldCart = _cartRepository.save(new ShoppingCart(user));
+
+        // Act
+        ShoppingCart newCart = _cartRepository.save(new ShoppingCart(user));
+
+        // Assert
+        assertSame(newCart, _cartRepository.getCartByUsername("user1"));
+        assertFalse(_cartRepository.findById(oldCart.getId()).isPresent());
+        assertSame(newCart, _cartRepository.findById(newCart.getId()).get());
+        assertEquals(1, _cartRepository.findAll().size());
+    }
+
+    @Test
+    public void testDelete_whenCartDeleted_thenBothIndexesCleared() {
+        // Arrange
+        ShoppingCart cart = _cartRepository.save(new ShoppingCart(newUser("user1")));
+
+        // Act
+        _cartRepository.delete(cart);
+
+        // Assert
+        assertNull(_cartRepository.getCartByUsername("user1"));
+        assertFalse(_cartRepository.findById(cart.getId()).isPresent());
+    }
+}
@@ -0,0 +1,73 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Domain.Entities.User;
+import Domain.Repositories.MemoryUserRepository;
+
+public class MemoryUserRepositoryTests {
+
+    private MemoryUserRepository _userRepository;
+
+    @BeforeEach
+    public void setUp() {
+        _userRepository = new MemoryUserRepository();
+    }
+
+    private User newUser(String username) {
+        return new User(username, "password", "email@example.com", new Date());
+    }
+
+    @Test
+    public void testSave_whenUserSavedAgain_thenKeepsItsIdAndUsernameEntry() {
+        // Arrange
+        User user = _userRepository.save(newUser("user1"));
+        Object userId = user.getId();
+
+        // Act
+        _userRepository.save(user);
+
+        // Assert
+        assertEquals(userId, user.getId());
+        assertEquals(1, _userRepository.findAll().size());
+        assertSame(user, _userRepository.findById((Integer) userId).get());
+        assertSame(user, _userRepository.findByusername("user1"));
+    }
+
+    @Test
+    public void testSave_whenOtherInstanceOfSameUserSaved_thenIndexesPointToIt() {
+        // Arrange
+        User user = _userRepository.save(newUser("user1"));
+        User update = newUser("user1");
+        update.setId((Integer) user.getId());
+
+        // Act
+        _userRepository.save(update);
+
+        // Assert
+        assertSame(update, _userRepository.findById((Integer) user.getId()).get());
+        assertSame(update, _userRepository.findByusername("user1"));
+        assertEquals(1, _userRepository.findAll().size());
+    }
+
+    @Test
+    public void testDelete_whenUserDeleted_thenBothIndexesCleared() {
+        // Arrange
+        User user = _userRepository.save(newUser("user1"));
+
+        // Act
+        _userRepository.delete(user);
+
+        // Assert
+        assertFalse(_userRepository.findById((Integer) user.getId()).isPresent());
+        assertNull(_userRepository.findByusername("user1"));
+    }
+}
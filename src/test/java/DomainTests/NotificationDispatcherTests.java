@@ -0,0 +1,141 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import Domain.Entities.User;
+import Domain.Entities.Alerts.GeneralAlert;
+import Domain.Repositories.DbUserRepository;
+import Domain.Repositories.MemoryUserRepository;
+import Exceptions.StockMarketException;
+import Server.notifications.NotificationDispatcher;
+import Server.notifications.NotificationHandler;
+import Server.notifications.WebSocketServer;
+
+public class NotificationDispatcherTests {
+
+    // private fields.
+    private MemoryUserRepository _userRepository;
+    private NotificationDispatcher _dispatcher;
+    private NotificationHandler _notificationHandler;
+
+    // mock fields.
+    private WebSocketServer _webSocketServerMock;
+
+    @BeforeEach
+    public void setUp() {
+        List<User> users = new ArrayList<>();
+        users.add(new User("owner1", "password", "owner1@example.com", new Date()));
+        users.add(new User("owner2", "password", "owner2@example.com", new Date()));
+        _userRepository = new MemoryUserRepository(users);
+        _webSocketServerMock = mock(WebSocketServer.class);
+        _dispatcher = new NotificationDispatcher(_webSocketServerMock, _userRepository, 100, 10);
+        _notificationHandler = new NotificationHandler();
+        _notificationHandler.setNotificationFacadeRepositories(_userRepository);
+        _notificationHandler.setNotificationDispatcher(_dispatcher);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        _dispatcher.shutdown();
+    }
+
+    @Test
+    public void testSendMessage_whenDispatcherSet_thenMessagesSentAndSaved() throws StockMarketException {
+        // Arrange - a few alerts to two owners
+        _notificationHandler.sendMessage("owner1", new GeneralAlert("buyer", "owner1", "first"));
+        _notificationHandler.sendMessage("owner2", new GeneralAlert("buyer", "owner2", "second"));
+        _notificationHandler.sendMessage("owner1", new GeneralAlert("buyer", "owner1", "third"));
+
+        // Act - wait for the dispatcher to drain the queue
+        _dispatcher.shutdown();
+
+        // Assert - every message was sent and saved to its recipient, in order
+        verify(_webSocketServerMock, times(3)).sendMessage(anyString(), anyString());
+        assertEquals(2, _userRepository.findByusername("owner1").getMessages().size());
+        assertEquals(1, _userRepository.findByusername("owner2").getMessages().size());
+        assertTrue(_userRepository.findByusername("owner1").getMessages().get(0).contains("third"));
+        assertEquals(3, _dispatcher.getDeliveredCount());
+        assertEquals(0, _dispatcher.getQueueDepth());
+        assertEquals(0, _dispatcher.getOverflowCount());
+    }
+
+    @Test
+    public void testSendMessage_whenUserDoesNotExist_thenCountedAsFailed() throws StockMarketException {
+        // Arrange - an alert to a user that is not registered
+        _notificationHandler.sendMessage("nobody", new GeneralAlert("buyer", "nobody", "message"));
+
+        // Act - wait for the dispatcher to drain the queue
+        _dispatcher.shutdown();
+
+        // Assert - the message was not saved to anyone
+        assertEquals(1, _dispatcher.getFailedCount());
+        assertEquals(0, _dispatcher.getDeliveredCount());
+        assertEquals(0, _userRepository.findByusername("owner1").getMessages().size());
+    }
+
+    @Test
+    public void testEnqueue_whenDeliveredOnCallerThread_thenSavedInNewTransaction() {
+        // Arrange - a stopped dispatcher delivers on the caller thread, as on overflow
+        DbUserRepository userRepositoryMock = mock(DbUserRepository.class);
+        User owner = new User("owner1", "password", "owner1@example.com", new Date());
+        when(userRepositoryMock.findByusername("owner1")).thenReturn(owner);
+        PlatformTransactionManager transactionManagerMock = mock(PlatformTransactionManager.class);
+        when(transactionManagerMock.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        NotificationDispatcher dispatcher = new NotificationDispatcher(_webSocketServerMock, userRepositoryMock,
+                transactionManagerMock, 100, 10);
+        dispatcher.shutdown();
+
+        // Act
+        dispatcher.enqueue("owner1", "message");
+
+        // Assert
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManagerMock).getTransaction(definition.capture());
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, definition.getValue().getPropagationBehavior());
+        verify(transactionManagerMock).commit(any());
+        assertEquals(1, owner.getMessages().size());
+        assertEquals(1, dispatcher.getDeliveredCount());
+        assertEquals(1, dispatcher.getOverflowCount());
+    }
+
+    @Test
+    public void testSendMessage_whenMemoryRepositoriesSet_thenMessageSavedToMemoryUser() throws StockMarketException {
+        // Arrange - the dispatcher spring builds, switched to memory mode as in MarketSystem.set_database
+        DbUserRepository dbUserRepositoryMock = mock(DbUserRepository.class);
+        NotificationDispatcher dispatcher = new NotificationDispatcher(_webSocketServerMock, dbUserRepositoryMock,
+                mock(PlatformTransactionManager.class), 100, 10);
+        NotificationHandler notificationHandler = new NotificationHandler();
+        notificationHandler.setNotificationDispatcher(dispatcher);
+        notificationHandler.setNotificationFacadeRepositories(_userRepository);
+
+        // Act
+        notificationHandler.sendMessage("owner1", new GeneralAlert("buyer", "owner1", "message"));
+        dispatcher.shutdown();
+
+        // Assert
+        assertEquals(1, _userRepository.findByusername("owner1").getMessages().size());
+        assertEquals(1, dispatcher.getDeliveredCount());
+        assertEquals(0, dispatcher.getFailedCount());
+        verify(dbUserRepositoryMock, never()).findByusername(anyString());
+    }
+}
@@ -0,0 +1,141 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Domain.Entities.Product;
+import Domain.Entities.Shop;
+import Domain.Entities.enums.Category;
+import Domain.Indexes.ProductCategoryIndex;
+import Domain.Repositories.MemoryProductRepository;
+import Exceptions.StockMarketException;
+
+public class ProductCategoryIndexTests {
+
+    private ProductCategoryIndex _index;
+    private Shop _shop1;
+    private Shop _shop2;
+
+    @BeforeEach
+    public void setUp() throws StockMarketException {
+        _index = new ProductCategoryIndex();
+        _shop1 = new Shop("shopName1", "founder1", "bank1", "address1", 1);
+        _shop2 = new Shop("shopName2", "founder2", "bank2", "address2", 2);
+        _shop1.setCategoryIndex(_index);
+        _shop2.setCategoryIndex(_index);
+        _index.indexShop(_shop1);
+        _index.indexShop(_shop2);
+    }
+
+    @Test
+    public void testSearch_whenCategoryInSeveralShops_thenReturnsAllShops() throws StockMarketException {
+        // Arrange
+        _shop1.addProductToShop("founder1", new Product("Shirt", Category.CLOTHING, 10.0, _shop1, 1));
+        _shop1.addProductToShop("founder1", new Product("Phone", Category.ELECTRONICS, 10.0, _shop1, 2));
+        _shop2.addProductToShop("founder2", new Product("Pants", Category.CLOTHING, 10.0, _shop2, 3));
+
+        // Act
+        Map<Integer, List<Integer>> result = _index.search(Category.CLOTHING);
+
+        // Assert
+        assertEquals(Map.of(1, List.of(1), 2, List.of(3)), result);
+        assertEquals(List.of(2), _index.search(1, Category.ELECTRONICS));
+        assertTrue(_index.search(2, Category.ELECTRONICS).isEmpty());
+    }
+
+    @Test
+    public void testSetCategory_whenCategoryChanges_thenProductMovesToTheNewCategory() throws StockMarketException {
+        // Arrange
+        Product product = new Product("Shirt", Category.CLOTHING, 10.0, _shop1, 1);
+        _shop1.addProductToShop("founder1", product);
+
+        // Act
+        product.setCategory(Category.SPORTS);
+
+        // Assert
+        assertTrue(_index.search(Category.CLOTHING).isEmpty());
+        assertEquals(List.of(1), _index.search(1, Category.SPORTS));
+        assertEquals(1, _shop1.getProductsByCategory(Category.SPORTS).size());
+    }
+
+    @Test
+    public void testToBitmap_whenIntersectedWithCategory_thenKeepsOnlyProductsInBoth() throws StockMarketException {
+        // Arrange
+        _shop1.addProductToShop("founder1", new Product("Shirt", Category.CLOTHING, 10.0, _shop1, 1));
+        _shop1.addProductToShop("founder1", new Product("Phone", Category.ELECTRONICS, 10.0, _shop1, 2));
+        _shop2.addProductToShop("founder2", new Product("Pants", Category.CLOTHING, 10.0, _shop2, 3));
+        BitSet otherFilter = _index.toBitmap(Map.of(1, Set.of(1, 2)));
+
+        // Act
+        BitSet matches = _index.bitmap(Category.CLOTHING);
+        matches.and(otherFilter);
+
+        // Assert
+        assertEquals(Map.of(1, List.of(1)), _index.resolve(matches));
+    }
+
+    @Test
+    public void testRemoveProductFromShop_whenProductRemoved_thenNotReturned() throws StockMarketException {
+        // Arrange
+        _shop1.addProductToShop("founder1", new Product("Shirt", Category.CLOTHING, 10.0, _shop1, 1));
+        _shop1.addProductToShop("founder1", new Product("Hat", Category.CLOTHING, 10.0, _shop1, 2));
+
+        // Act
+        _shop1.removeProductFromShop("founder1", "Shirt", new MemoryProductRepository());
+
+        // Assert
+        assertEquals(Map.of(1, List.of(2)), _index.search(Category.CLOTHING));
+    }
+
+    @Test
+    public void testIndexShops_whenShopIndexedAgain_thenRemovedProductsDropped() throws StockMarketException {
+        // Arrange
+        _shop1.addProductToShop("founder1", new Product("Shirt", Category.CLOTHING, 10.0, _shop1, 1));
+        _shop1.addProductToShop("founder1", new Product("Phone", Category.ELECTRONICS, 10.0, _shop1, 2));
+        _shop2.addProductToShop("founder2", new Product("Pants", Category.CLOTHING, 10.0, _shop2, 3));
+        ProductCategoryIndex bulkIndex = new ProductCategoryIndex();
+        bulkIndex.indexShops(List.of(_shop1, _shop2));
+        _shop1.removeProductFromShop("founder1", "Shirt", new MemoryProductRepository());
+
+        // Act
+        bulkIndex.indexShop(_shop1);
+
+        // Assert
+        assertEquals(Map.of(2, List.of(3)), bulkIndex.search(Category.CLOTHING));
+        assertEquals(List.of(2), bulkIndex.search(1, Category.ELECTRONICS));
+    }
+
+    @Test
+    public void testRemoveProduct_whenMostOrdinalsDead_thenIndexCompacted() throws StockMarketException {
+        // Arrange
+        _shop1.addProductToShop("founder1", new Product("Shirt", Category.CLOTHING, 10.0, _shop1, 1));
+        int products = 1500;
+        for (int productId = 2; productId < products + 2; productId++) {
+            _index.indexProduct(2, new Product("Product" + productId, Category.GROCERY, 10.0, _shop2, productId));
+        }
+        long epochBefore = _index.getOrdinalEpoch();
+
+        // Act - keep only the last 100 products of the second shop
+        for (int productId = 2; productId < products - 98; productId++) {
+            _index.removeProduct(2, productId);
+        }
+
+        // Assert
+        assertTrue(_index.getOrdinalEpoch() > epochBefore);
+        assertEquals(0, _index.getOrdinalEpoch() % 2);
+        assertTrue(_index.shopBitmap(2).length() < products);
+        assertEquals(List.of(1), _index.search(1, Category.CLOTHING));
+        assertEquals(100, _index.search(2, Category.GROCERY).size());
+        assertEquals(products - 98, (int) _index.search(2, Category.GROCERY).get(0));
+        BitSet found = _index.toBitmap(Map.of(2, Set.of(products + 1)));
+        assertEquals(Map.of(2, List.of(products + 1)), _index.resolve(found));
+    }
+}
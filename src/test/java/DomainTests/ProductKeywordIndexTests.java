@@ -0,0 +1,122 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Domain.Entities.Product;
+import Domain.Entities.Shop;
+import Domain.Entities.enums.Category;
+import Domain.Indexes.ProductKeywordIndex;
+import Domain.Repositories.MemoryProductRepository;
+import Exceptions.StockMarketException;
+
+public class ProductKeywordIndexTests {
+
+    private ProductKeywordIndex _index;
+    private Shop _shop1;
+    private Shop _shop2;
+
+    @BeforeEach
+    public void setUp() throws StockMarketException {
+        _index = new ProductKeywordIndex();
+        _shop1 = new Shop("shopName1", "founder1", "bank1", "address1", 1);
+        _shop2 = new Shop("shopName2", "founder2", "bank2", "address2", 2);
+        _shop1.setKeywordIndex(_index);
+        _shop2.setKeywordIndex(_index);
+    }
+
+    @Test
+    public void testAddProductToShop_whenProductAdded_thenIndexedByNameAndCategory() throws StockMarketException {
+        // Arrange
+        Product product = new Product("Shirt", Category.CLOTHING, 10.0, _shop1, 1);
+
+        // Act
+        _shop1.addProductToShop("founder1", product);
+
+        // Assert - the search is case insensitive
+        assertEquals(Set.of(1), _index.search(1, List.of("shirt")));
+        assertEquals(Set.of(1), _index.search(1, List.of("Clothing")));
+    }
+
+    @Test
+    public void testSearch_whenKeywordInSeveralShops_thenReturnsAllShops() throws StockMarketException {
+        // Arrange
+        _shop1.addProductToShop("founder1", new Product("Shirt", Category.CLOTHING, 10.0, _shop1, 1));
+        _shop1.addProductToShop("founder1", new Product("Phone", Category.ELECTRONICS, 10.0, _shop1, 2));
+        _shop2.addProductToShop("founder2", new Product("Pants", Category.CLOTHING, 10.0, _shop2, 3));
+
+        // Act
+        Map<Integer, Set<Integer>> result = _index.search(List.of("clothing"));
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(Set.of(1), result.get(1));
+        assertEquals(Set.of(3), result.get(2));
+    }
+
+    @Test
+    public void testAddKeywordsToProduct_whenKeywordsAdded_thenProductFoundByNewKeywords()
+            throws StockMarketException {
+        // Arrange
+        _shop1.addProductToShop("founder1", new Product("Shirt", Category.CLOTHING, 10.0, _shop1, 1));
+
+        // Act
+        _shop1.addKeywordsToProduct("founder1", 1, List.of("Summer", "cotton"));
+
+        // Assert
+        assertEquals(Set.of(1), _index.search(1, List.of("summer")));
+        assertEquals(Set.of(1), _index.search(1, List.of("COTTON")));
+    }
+
+    @Test
+    public void testRemoveProductFromShop_whenProductRemoved_thenNotFound() throws StockMarketException {
+        // Arrange
+        Product product = new Product("Shirt", Category.CLOTHING, 10.0, _shop1, 1);
+        _shop1.addProductToShop("founder1", product);
+
+        // Act
+        _shop1.removeProductFromShop("founder1", "Shirt", new MemoryProductRepository());
+
+        // Assert
+        assertTrue(_index.search(List.of("shirt", "clothing")).isEmpty());
+    }
+
+    @Test
+    public void testIndexProduct_whenKeywordRemovedFromProduct_thenStalePostingRemoved() throws StockMarketException {
+        // Arrange
+        Product product = new Product("Shirt", Category.CLOTHING, 10.0, _shop1, 1);
+        _shop1.addProductToShop("founder1", product);
+
+        // Act
+        product.removeKeywords("Shirt");
+        _index.indexProduct(1, product);
+
+        // Assert
+        assertTrue(_index.search(1, List.of("shirt")).isEmpty());
+        assertEquals(Set.of(1), _index.search(1, List.of("clothing")));
+    }
+
+    @Test
+    public void testIndexShop_whenShopHasProducts_thenAllProductsIndexed() throws StockMarketException {
+        // Arrange - products added before the index was attached
+        Shop shop = new Shop("shopName3", "founder3", "bank3", "address3", 3);
+        shop.addProductToShop("founder3", new Product("Shirt", Category.CLOTHING, 10.0, shop, 1));
+        shop.addProductToShop("founder3", new Product("Pants", Category.CLOTHING, 10.0, shop, 2));
+        assertFalse(_index.isShopIndexed(3));
+
+        // Act
+        _index.indexShop(shop);
+
+        // Assert
+        assertTrue(_index.isShopIndexed(3));
+        assertEquals(Set.of(1, 2), _index.search(3, List.of("clothing")));
+    }
+}
@@ -0,0 +1,108 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Domain.Entities.Product;
+import Domain.Entities.Shop;
+import Domain.Entities.enums.Category;
+import Domain.Indexes.ProductPriceIndex;
+import Domain.Repositories.MemoryProductRepository;
+import Exceptions.StockMarketException;
+
+public class ProductPriceIndexTests {
+
+    private ProductPriceIndex _index;
+    private Shop _shop1;
+    private Shop _shop2;
+
+    @BeforeEach
+    public void setUp() throws StockMarketException {
+        _index = new ProductPriceIndex();
+        _shop1 = new Shop("shopName1", "founder1", "bank1", "address1", 1);
+        _shop2 = new Shop("shopName2", "founder2", "bank2", "address2", 2);
+        _shop1.setPriceIndex(_index);
+        _shop2.setPriceIndex(_index);
+        _index.indexShop(_shop1);
+        _index.indexShop(_shop2);
+    }
+
+    @Test
+    public void testSearch_whenProductsInRange_thenReturnsThemByAscendingPrice() throws StockMarketException {
+        // Arrange
+        _shop1.addProductToShop("founder1", new Product("Shirt", Category.CLOTHING, 30.0, _shop1, 1));
+        _shop1.addProductToShop("founder1", new Product("Phone", Category.ELECTRONICS, 500.0, _shop1, 2));
+        _shop1.addProductToShop("founder1", new Product("Hat", Category.CLOTHING, 10.0, _shop1, 3));
+        _shop2.addProductToShop("founder2", new Product("Pants", Category.CLOTHING, 20.0, _shop2, 4));
+
+        // Act
+        List<Integer> shopResult = _index.search(1, 10.0, 100.0);
+        Map<Integer, List<Integer>> globalResult = _index.search(15.0, 100.0);
+
+        // Assert - the bounds are inclusive
+        assertEquals(List.of(3, 1), shopResult);
+        assertEquals(List.of(1), globalResult.get(1));
+        assertEquals(List.of(4), globalResult.get(2));
+        assertEquals(List.of(2, 1), List.copyOf(globalResult.keySet()));
+    }
+
+    @Test
+    public void testSetPrice_whenPriceChanges_thenProductMovesInTheIndex() throws StockMarketException {
+        // Arrange
+        Product product = new Product("Shirt", Category.CLOTHING, 30.0, _shop1, 1);
+        _shop1.addProductToShop("founder1", product);
+
+        // Act
+        product.setPrice(150.0);
+
+        // Assert
+        assertTrue(_index.search(1, 0.0, 100.0).isEmpty());
+        assertEquals(List.of(1), _index.search(1, 100.0, 200.0));
+        assertEquals(1, _shop1.getProductsByPriceRange(100.0, 200.0).size());
+    }
+
+    @Test
+    public void testRemoveProductFromShop_whenProductRemoved_thenNotReturned() throws StockMarketException {
+        // Arrange
+        _shop1.addProductToShop("founder1", new Product("Shirt", Category.CLOTHING, 30.0, _shop1, 1));
+        _shop1.addProductToShop("founder1", new Product("Hat", Category.CLOTHING, 40.0, _shop1, 2));
+
+        // Act
+        _shop1.removeProductFromShop("founder1", "Shirt", new MemoryProductRepository());
+
+        // Assert
+        assertEquals(List.of(2), _index.search(1, 0.0, 100.0));
+        assertEquals(Map.of(1, List.of(2)), _index.search(0.0, 100.0));
+    }
+
+    @Test
+    public void testIndexShops_whenShopsIndexedInBulk_thenSameOrderAsSingleEdits() throws StockMarketException {
+        // Arrange
+        _shop1.addProductToShop("founder1", new Product("Shirt", Category.CLOTHING, 30.0, _shop1, 1));
+        _shop1.addProductToShop("founder1", new Product("Hat", Category.CLOTHING, 10.0, _shop1, 2));
+        _shop2.addProductToShop("founder2", new Product("Pants", Category.CLOTHING, 20.0, _shop2, 3));
+        _shop2.addProductToShop("founder2", new Product("Socks", Category.CLOTHING, 10.0, _shop2, 4));
+        ProductPriceIndex bulkIndex = new ProductPriceIndex();
+        bulkIndex.indexShop(_shop1);
+
+        // Act - the shop that is indexed again replaces its entries
+        bulkIndex.indexShops(List.of(_shop1, _shop2));
+        Product hat = _shop1.getProductById(2);
+        hat.setPrice(50.0);
+        bulkIndex.indexProduct(1, hat);
+
+        // Assert
+        assertEquals(List.of(1, 2), bulkIndex.search(1, 0.0, 100.0));
+        assertEquals(List.of(4, 3), bulkIndex.search(2, 0.0, 100.0));
+        Map<Integer, List<Integer>> globalResult = bulkIndex.search(0.0, 100.0);
+        assertEquals(List.of(2, 1), List.copyOf(globalResult.keySet()));
+        assertEquals(List.of(1, 2), globalResult.get(1));
+        assertEquals(List.of(4, 3), globalResult.get(2));
+    }
+}
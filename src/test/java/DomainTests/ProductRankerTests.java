@@ -0,0 +1,82 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Domain.Entities.Product;
+import Domain.Entities.Shop;
+import Domain.Entities.enums.Category;
+import Domain.Facades.ProductRanker;
+import Exceptions.StockMarketException;
+
+public class ProductRankerTests {
+
+    private Shop _shop;
+
+    @BeforeEach
+    public void setUp() throws StockMarketException {
+        _shop = new Shop("shopName1", "founder1", "bank1", "address1", 1);
+    }
+
+    private Product product(int productId, int rating, int quantity) throws StockMarketException {
+        Product product = new Product("product" + productId, Category.CLOTHING, 10.0, _shop, productId);
+        product.addProductRating(rating);
+        product.updateProductQuantity(quantity);
+        return product;
+    }
+
+    @Test
+    public void testGetResults_whenMoreProductsThanLimit_thenReturnsBestFirst() throws StockMarketException {
+        // Arrange
+        ProductRanker ranker = new ProductRanker(null, 0, 2);
+
+        // Act
+        for (int i = 1; i <= 5; i++) {
+            ranker.offer(_shop, product(i, i, 1));
+        }
+
+        // Assert
+        List<ProductRanker.Ranked> results = ranker.getResults();
+        assertEquals(2, results.size());
+        assertEquals(5, results.get(0).getProduct().getProductId());
+        assertEquals(4, results.get(1).getProduct().getProductId());
+    }
+
+    @Test
+    public void testGetResults_whenOffsetGiven_thenSkipsTheBestProducts() throws StockMarketException {
+        // Arrange
+        ProductRanker ranker = new ProductRanker(null, 2, 2);
+
+        // Act
+        for (int i = 1; i <= 5; i++) {
+            ranker.offer(_shop, product(i, i, 1));
+        }
+
+        // Assert
+        List<ProductRanker.Ranked> results = ranker.getResults();
+        assertEquals(List.of(3, 2), results.stream().map(r -> r.getProduct().getProductId()).toList());
+    }
+
+    @Test
+    public void testScore_whenKeywordsMatchAndInStock_thenRankedAboveBetterRatedProduct()
+            throws StockMarketException {
+        // Arrange - product 1 matches the keyword and is in stock, product 2 is better rated but sold out
+        ProductRanker ranker = new ProductRanker(List.of("clothing"), 0, 1);
+        Product matching = product(1, 3, 5);
+        Product soldOut = product(2, 5, 0);
+        soldOut.removeKeywords(Category.CLOTHING.toString());
+
+        // Act
+        ranker.offer(_shop, soldOut);
+        ranker.offer(_shop, matching);
+
+        // Assert
+        assertEquals(1, ranker.getResults().get(0).getProduct().getProductId());
+        assertTrue(ranker.score(_shop, matching) > ranker.score(_shop, soldOut));
+    }
+}
@@ -6,6 +6,11 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -158,4 +163,69 @@ public class ProductTests {
         assertEquals("good product", product.getReviews().get("user1"));
         assertEquals("bad product", product.getReviews().get("user2"));
     }
+
+    @Test
+    public void testTryReserve_whenEnoughStock_thenWholeAmountTaken() {
+        // Arrange - Create a new Product object.
+        Product product = new Product("product1", Category.ELECTRONICS, 100.0, shop, 1);
+        product.updateProductQuantity(10);
+
+        // Act
+        boolean reserved = product.tryReserve(7);
+
+        // Assert
+        assertTrue(reserved);
+        assertEquals(3, product.getProductQuantity());
+    }
+
+    @Test
+    public void testTryReserve_whenNotEnoughStock_thenNothingTaken() {
+        // Arrange - Create a new Product object.
+        Product product = new Product("product1", Category.ELECTRONICS, 100.0, shop, 1);
+        product.updateProductQuantity(5);
+
+        // Act
+        boolean reserved = product.tryReserve(6);
+
+        // Assert
+        assertFalse(reserved);
+        assertEquals(5, product.getProductQuantity());
+    }
+
+    @Test
+    public void testRelease_whenAmountReleased_thenStockRestored() {
+        // Arrange - Create a new Product object.
+        Product product = new Product("product1", Category.ELECTRONICS, 100.0, shop, 1);
+        product.updateProductQuantity(10);
+        product.tryReserve(4);
+
+        // Act
+        product.release(4);
+
+        // Assert
+        assertEquals(10, product.getProductQuantity());
+    }
+
+    @Test
+    public void testTryReserve_whenManyBuyersConcurrently_thenStockNeverOversold() throws InterruptedException {
+        // Arrange - 100 units, 50 buyers that want 3 units each
+        Product product = new Product("product1", Category.ELECTRONICS, 100.0, shop, 1);
+        product.updateProductQuantity(100);
+        AtomicInteger successfulBuyers = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        for (int i = 0; i < 50; i++) {
+            executor.execute(() -> {
+                if (product.tryReserve(3))
+                    successfulBuyers.incrementAndGet();
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(60, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(33, successfulBuyers.get());
+        assertEquals(1, product.getProductQuantity());
+    }
 }
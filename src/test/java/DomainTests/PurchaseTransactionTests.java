@@ -0,0 +1,162 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import Domain.ExternalServices.CheckoutPipeline;
+import Domain.ExternalServices.PaymentService.AdapterPaymentInterface;
+import Domain.ExternalServices.SupplyService.AdapterSupplyInterface;
+import Domain.Facades.ShoppingCartFacade;
+import Domain.Facades.UserFacade;
+import Dtos.PaymentInfoDto;
+import Dtos.PurchaseCartDetailsDto;
+import Dtos.SupplyInfoDto;
+import Server.notifications.NotificationHandler;
+import Server.notifications.WebSocketServer;
+import ServiceLayer.Response;
+import ServiceLayer.TokenService;
+import ServiceLayer.UserService;
+
+public class PurchaseTransactionTests {
+
+    private static final String TOKEN = "token";
+    private static final String USERNAME = "user";
+
+    private UserService _userService;
+    private ShoppingCartFacade _shoppingCartFacadeMock;
+    private AdapterPaymentInterface _paymentMock;
+    private AdapterSupplyInterface _supplyMock;
+    private CheckoutPipeline _pipeline;
+    private FakeTransactionManager _transactionManager;
+    private PurchaseCartDetailsDto _purchaseDetails;
+
+    @BeforeEach
+    public void setUp() {
+        TokenService tokenServiceMock = mock(TokenService.class);
+        when(tokenServiceMock.validateToken(TOKEN)).thenReturn(true);
+        when(tokenServiceMock.isGuest(TOKEN)).thenReturn(false);
+        when(tokenServiceMock.extractUsername(TOKEN)).thenReturn(USERNAME);
+        _shoppingCartFacadeMock = mock(ShoppingCartFacade.class);
+        _userService = new UserService(mock(UserFacade.class), tokenServiceMock, _shoppingCartFacadeMock,
+                mock(NotificationHandler.class), mock(WebSocketServer.class));
+        _transactionManager = new FakeTransactionManager();
+        _userService.setTransactionTemplate(new TransactionTemplate(_transactionManager));
+
+        _paymentMock = mock(AdapterPaymentInterface.class);
+        _supplyMock = mock(AdapterSupplyInterface.class);
+        _pipeline = new CheckoutPipeline(2);
+        _purchaseDetails = new PurchaseCartDetailsDto(
+                new PaymentInfoDto("abc", "abc", "abc", "abc", "abc", "982", "abc"),
+                new SupplyInfoDto("abc", "abc", "abc", "abc", "abc"), List.of(0));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        _pipeline.shutdown();
+    }
+
+    // a purchase that is paid: the cart registers the cancel of the checkout
+    private AtomicInteger purchaseThatPays() throws Exception {
+        AtomicInteger purchases = new AtomicInteger();
+        doAnswer(invocation -> {
+            purchases.incrementAndGet();
+            _pipeline.cancelOnRollback(_paymentMock, _supplyMock, new CheckoutPipeline.Transactions(10001, 20002));
+            return null;
+        }).when(_shoppingCartFacadeMock).purchaseCartUser(anyString(), any());
+        return purchases;
+    }
+
+    @Test
+    public void testPurchaseCart_whenCommitConflictsAfterPayment_thenCanceledAndNotRetried() throws Exception {
+        // Arrange
+        AtomicInteger purchases = purchaseThatPays();
+        _transactionManager.failCommit = true;
+
+        // Act
+        ResponseEntity<Response> response = _userService.purchaseCart(TOKEN, _purchaseDetails);
+
+        // Assert
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals(1, purchases.get());
+        verify(_paymentMock, times(1)).cancel_pay(10001);
+        verify(_supplyMock, times(1)).cancel_supply(20002);
+    }
+
+    @Test
+    public void testPurchaseCart_whenCommitSucceeds_thenPaymentNotCanceled() throws Exception {
+        // Arrange
+        AtomicInteger purchases = purchaseThatPays();
+
+        // Act
+        ResponseEntity<Response> response = _userService.purchaseCart(TOKEN, _purchaseDetails);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, purchases.get());
+        verify(_paymentMock, never()).cancel_pay(10001);
+    }
+
+    @Test
+    public void testPurchaseCart_whenStockConflictsBeforePayment_thenRetried() throws Exception {
+        // Arrange - the first attempt conflicts while taking the stock
+        AtomicInteger purchases = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (purchases.incrementAndGet() == 1)
+                throw new OptimisticLockingFailureException("stock conflict");
+            return null;
+        }).when(_shoppingCartFacadeMock).purchaseCartUser(anyString(), any());
+
+        // Act
+        ResponseEntity<Response> response = _userService.purchaseCart(TOKEN, _purchaseDetails);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, purchases.get());
+    }
+
+    // a transaction manager without a resource, whose commit can fail as on a
+    // version conflict
+    private static class FakeTransactionManager extends AbstractPlatformTransactionManager {
+        private boolean failCommit;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            if (failCommit)
+                throw new OptimisticLockingFailureException("version conflict at commit");
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
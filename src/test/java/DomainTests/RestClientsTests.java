@@ -0,0 +1,41 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import UI.Model.Response;
+import UI.Presenter.RestClients;
+
+public class RestClientsTests {
+
+    @Test
+    public void testObjectMapper_whenCalled_thenSharedInstanceReturned() {
+        // Act
+        ObjectMapper first = RestClients.objectMapper();
+        ObjectMapper second = RestClients.objectMapper();
+
+        // Assert
+        assertNotNull(first);
+        assertSame(first, second);
+        assertNotNull(RestClients.restTemplate());
+    }
+
+    @Test
+    public void testObjectMapper_whenResponseJson_thenReadsResponse() throws Exception {
+        // Arrange
+        String json = "{\"errorMessage\":null,\"returnValue\":\"token\"}";
+
+        // Act
+        Response<?> response = RestClients.objectMapper().readValue(json, Response.class);
+
+        // Assert
+        assertNull(response.getErrorMessage());
+        assertEquals("token", response.getReturnValue());
+    }
+}
@@ -0,0 +1,114 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Domain.Entities.Product;
+import Domain.Entities.Shop;
+import Domain.Entities.enums.Category;
+import Domain.Indexes.CatalogVersions;
+import Dtos.ProductDto;
+import Dtos.ProductSearchDto;
+import Exceptions.StockMarketException;
+import ServiceLayer.SearchResultCache;
+import ServiceLayer.SearchResultCache.SearchType;
+
+public class SearchResultCacheTests {
+
+    private SearchResultCache _cache;
+    private Map<String, List<ProductDto>> _result;
+
+    @BeforeEach
+    public void setUp() {
+        _cache = new SearchResultCache(2);
+        _result = new HashMap<>();
+        _result.put("shop1", List.of(new ProductDto("Shirt", Category.CLOTHING, 10.0, 5)));
+    }
+
+    private ProductSearchDto keywordSearch(Integer shopId, List<String> keywords) {
+        ProductSearchDto search = new ProductSearchDto();
+        search.setShopId(shopId);
+        search.setKeywords(keywords);
+        return search;
+    }
+
+    @Test
+    public void testGet_whenSameKeywordsInOtherOrderAndCase_thenHit() {
+        // Arrange
+        _cache.put(SearchResultCache.Key.of(SearchType.KEYWORDS, keywordSearch(1, List.of("red", "Shirt"))), 0,
+                _result);
+
+        // Act
+        Map<String, List<ProductDto>> cached = _cache.get(
+                SearchResultCache.Key.of(SearchType.KEYWORDS, keywordSearch(1, List.of("shirt", "RED"))), 0);
+
+        // Assert
+        assertNotNull(cached);
+        assertEquals(1, _cache.getHitCount());
+        assertEquals(1.0, _cache.getHitRate());
+    }
+
+    @Test
+    public void testGet_whenCatalogVersionChanged_thenMissAndEntryDropped() {
+        // Arrange
+        SearchResultCache.Key key = SearchResultCache.Key.of(SearchType.KEYWORDS, keywordSearch(1, List.of("red")));
+        _cache.put(key, 3, _result);
+
+        // Act
+        Map<String, List<ProductDto>> cached = _cache.get(key, 4);
+
+        // Assert
+        assertNull(cached);
+        assertEquals(1, _cache.getStaleCount());
+        assertEquals(0, _cache.size());
+    }
+
+    @Test
+    public void testPut_whenCapacityExceeded_thenLeastRecentlyUsedEvicted() {
+        // Arrange
+        SearchResultCache.Key key1 = SearchResultCache.Key.of(SearchType.KEYWORDS, keywordSearch(1, List.of("a")));
+        SearchResultCache.Key key2 = SearchResultCache.Key.of(SearchType.KEYWORDS, keywordSearch(1, List.of("b")));
+        SearchResultCache.Key key3 = SearchResultCache.Key.of(SearchType.KEYWORDS, keywordSearch(1, List.of("c")));
+        _cache.put(key1, 0, _result);
+        _cache.put(key2, 0, _result);
+        _cache.get(key1, 0);
+
+        // Act
+        _cache.put(key3, 0, _result);
+
+        // Assert - key2 was used less recently than key1
+        assertEquals(1, _cache.getEvictionCount());
+        assertNotNull(_cache.get(key1, 0));
+        assertNull(_cache.get(key2, 0));
+    }
+
+    @Test
+    public void testCatalogVersions_whenProductOfShopChanges_thenShopAndGlobalVersionsMove()
+            throws StockMarketException {
+        // Arrange
+        CatalogVersions versions = new CatalogVersions();
+        Shop shop = new Shop("shopName1", "founder1", "bank1", "address1", 1);
+        shop.setCatalogVersions(versions);
+        Product product = new Product("Shirt", Category.CLOTHING, 10.0, shop, 1);
+        shop.addProductToShop("founder1", product);
+        long shopVersion = versions.getVersion(1);
+        long globalVersion = versions.getVersion(null);
+
+        // Act
+        product.updateProductQuantity(7);
+
+        // Assert
+        assertNotEquals(shopVersion, versions.getVersion(1));
+        assertNotEquals(globalVersion, versions.getVersion(null));
+        assertEquals(0, versions.getVersion(2));
+    }
+}
@@ -48,8 +48,10 @@ import Domain.Entities.ShopOrder;
 import Domain.Entities.ShoppingBasket;
 import Domain.Entities.User;
 import Domain.Entities.enums.Category;
+import Dtos.CursorPageDto;
 import Dtos.ProductDto;
 import Dtos.ShopDto;
+import Dtos.ShopOrderDto;
 import Exceptions.ProductOutOfStockExepction;
 import Exceptions.StockMarketException;
 import Server.notifications.NotificationHandler;
@@ -777,6 +779,24 @@ public class ShopFacadeTests {
     }
 
 
+    @Test
+    public void testSearchProducts_whenCategoryAndPriceRange_thenReturnsProductsMatchingBoth() throws StockMarketException {
+        // Arrange - shop 2 and shop 3 both have a clothing product, only the one of shop 3 costs more than 50
+        _shopsList.add(_shop1);
+        _shopsList.add(_shop2);
+        _shopsList.add(_shop3);
+        ShopFacade _ShopFacadeUnderTests = new ShopFacade(_dbShopRepositoryMock, _dbProductRepositoryMock, _dbRoleRepositoryMock, _userFacadeMock, _notificationHandlerMock, _dbDiscountRepositoryMock, _DbPolicyRepositoryMock);
+        _ShopFacadeUnderTests.setShopFacadeRepositories(new MemoryShopRepository(_shopsList), new MemoryProductRepository(), new MemoryRoleRepository(), new MemoryDiscountRepository(), new MemoryPolicyRepository());
+
+        // Act
+        Map<Integer, List<Product>> productsByShop = _ShopFacadeUnderTests.searchProducts(null, Category.CLOTHING,
+                null, 50.0, 100.0);
+
+        // Assert
+        assertEquals(1, productsByShop.size());
+        assertEquals(List.of(_product3), productsByShop.get(_shop3.getShopId()));
+    }
+
     @Test
     public void testGetProductsInShopByKeywords_whenShopIdIsValid_thenSearchInSpecificShop() throws StockMarketException {
         // Arrange - Create a new ShopFacade object
@@ -1165,4 +1185,51 @@ public class ShopFacadeTests {
 
     }
 
+    @Test
+    public void testGetAllShopsDto_whenShopsExist_thenReturnsShopColumns() throws StockMarketException {
+        // Arrange - Create a new ShopFacade object with two shops, one of them closed
+        _shopsList.add(_shop1);
+        _shopsList.add(_shop2);
+        ShopFacade _ShopFacadeUnderTests = new ShopFacade(_dbShopRepositoryMock, _dbProductRepositoryMock, _dbRoleRepositoryMock, _userFacadeMock, _notificationHandlerMock, _dbDiscountRepositoryMock, _DbPolicyRepositoryMock);
+        _ShopFacadeUnderTests.setShopFacadeRepositories(new MemoryShopRepository(_shopsList), new MemoryProductRepository(), new MemoryRoleRepository(), new MemoryDiscountRepository(), new MemoryPolicyRepository());
+        _ShopFacadeUnderTests.closeShop(_shop2.getShopId(), _shop2.getFounderName());
+
+        // Act - get all the shops as DTOs
+        List<ShopDto> shops = _ShopFacadeUnderTests.getAllShopsDto();
+
+        // Assert - Verify that every shop is returned with its columns
+        assertEquals(2, shops.size());
+        for (ShopDto shop : shops) {
+            Shop expected = shop.shopId == 1 ? _shop1 : _shop2;
+            assertEquals(expected.getShopName(), shop.shopName);
+            assertEquals(expected.getBankDetails(), shop.bankDetails);
+            assertEquals(expected.isShopClosed(), shop.isShopClosed);
+        }
+    }
+
+    @Test
+    public void testGetPurchaseHistoryPage_whenMoreOrdersThanPageSize_thenPagesFollowCursor() throws StockMarketException {
+        // Arrange - Create a new ShopFacade object with a shop that has 5 orders
+        _shopsList.add(_shop1);
+        for (int i = 0; i < 5; i++) {
+            ShopOrder order = new ShopOrder(_shop1.getShopId(), new ShoppingBasket(_shop1));
+            order.setId(i);
+            _shop1.addOrderToOrderHistory(order);
+        }
+        ShopFacade _ShopFacadeUnderTests = new ShopFacade(_dbShopRepositoryMock, _dbProductRepositoryMock, _dbRoleRepositoryMock, _userFacadeMock, _notificationHandlerMock, _dbDiscountRepositoryMock, _DbPolicyRepositoryMock);
+        _ShopFacadeUnderTests.setShopFacadeRepositories(new MemoryShopRepository(_shopsList), new MemoryProductRepository(), new MemoryRoleRepository(), new MemoryDiscountRepository(), new MemoryPolicyRepository());
+
+        // Act - read the history in pages of 2 orders
+        CursorPageDto<ShopOrderDto> first = _ShopFacadeUnderTests.getPurchaseHistoryPage(_shop1.getShopId(), null, 2);
+        CursorPageDto<ShopOrderDto> second = _ShopFacadeUnderTests.getPurchaseHistoryPage(_shop1.getShopId(), first.getNextCursor(), 2);
+        CursorPageDto<ShopOrderDto> last = _ShopFacadeUnderTests.getPurchaseHistoryPage(_shop1.getShopId(), second.getNextCursor(), 2);
+
+        // Assert - Verify that every order is returned once, in id order
+        assertEquals(2, first.getItems().size());
+        assertEquals(0, first.getItems().get(0).getOrderId());
+        assertEquals(3, second.getItems().get(1).getOrderId());
+        assertEquals(1, last.getItems().size());
+        assertEquals(4, last.getItems().get(0).getOrderId());
+        assertEquals(null, last.getNextCursor());
+    }
 }
@@ -0,0 +1,85 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import org.junit.jupiter.api.Test;
+
+import Domain.Entities.Shop;
+import Domain.Locks.ShopLockRegistry;
+
+public class ShopLockRegistryTests {
+
+    @Test
+    public void testGetLock_whenSameShopId_thenReturnsSameLock() {
+        // Arrange
+        ShopLockRegistry registry = new ShopLockRegistry();
+
+        // Act
+        ReadWriteLock first = registry.getLock(7);
+        ReadWriteLock second = registry.getLock(7);
+
+        // Assert
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testConstructor_whenStripesNotPowerOfTwo_thenRoundedUp() {
+        // Act
+        ShopLockRegistry registry = new ShopLockRegistry(100);
+
+        // Assert
+        assertEquals(128, registry.getStripeCount());
+    }
+
+    @Test
+    public void testConstructor_whenStripesNotPositive_thenThrows() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new ShopLockRegistry(0));
+    }
+
+    @Test
+    public void testShopReaders_whenAnotherInstanceOfTheShopHoldsWriteLock_thenBlocked() throws Exception {
+        // Arrange - two instances of the same shop, as loaded by two transactions
+        ShopLockRegistry registry = new ShopLockRegistry();
+        Shop first = new Shop("shop", "founder", "bank", "address", 1);
+        Shop second = new Shop("shop", "founder", "bank", "address", 1);
+        first.setLockRegistry(registry);
+        second.setLockRegistry(registry);
+        ReadWriteLock lock = registry.getLock(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+
+        try {
+            // Act
+            lock.writeLock().lock();
+            Future<Boolean> read;
+            try {
+                read = executor.submit(() -> {
+                    started.countDown();
+                    return second.isProductNameExist("product");
+                });
+                assertTrue(started.await(5, TimeUnit.SECONDS));
+                Thread.sleep(100);
+
+                // Assert - the reader waits for the writer
+                assertFalse(read.isDone());
+            } finally {
+                lock.writeLock().unlock();
+            }
+            assertFalse(read.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Domain.Entities.Shop;
+import Domain.Indexes.ShopNameIndex;
+import Exceptions.StockMarketException;
+
+public class ShopNameIndexTests {
+
+    private ShopNameIndex _index;
+
+    @BeforeEach
+    public void setUp() {
+        _index = new ShopNameIndex();
+        _index.indexShop(1, "Tel Aviv Books");
+        _index.indexShop(2, "Haifa Bookstore");
+        _index.indexShop(3, "Electronics");
+    }
+
+    @Test
+    public void testSearchContaining_whenTextInSeveralNames_thenReturnsAllShopsIgnoringCase() {
+        // Act
+        List<Integer> result = _index.searchContaining("BOOK");
+
+        // Assert
+        assertEquals(List.of(1, 2), result);
+    }
+
+    @Test
+    public void testSearchContaining_whenAllTrigramsMatchButNotTheSubstring_thenNotReturned() {
+        // Arrange - "abc", "bca" and "cab" are all in the name, "abcab" is not
+        _index.indexShop(4, "Abca Cab");
+
+        // Act
+        List<Integer> result = _index.searchContaining("abcab");
+
+        // Assert
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void testSearchContaining_whenTextShorterThanTrigram_thenScansNames() {
+        // Act
+        List<Integer> result = _index.searchContaining("fa");
+
+        // Assert
+        assertEquals(List.of(2), result);
+    }
+
+    @Test
+    public void testSetShopName_whenShopRenamed_thenIndexedByTheNewName() throws StockMarketException {
+        // Arrange
+        Shop shop = new Shop("Electronics", "founder1", "bank1", "address1", 3);
+        shop.setShopNameIndex(_index);
+
+        // Act
+        shop.setShopName("Gadgets");
+
+        // Assert
+        assertNull(_index.findShopId("Electronics"));
+        assertEquals(3, _index.findShopId("Gadgets"));
+        assertTrue(_index.searchContaining("tronic").isEmpty());
+        assertEquals(List.of(3), _index.searchContaining("gadg"));
+    }
+}
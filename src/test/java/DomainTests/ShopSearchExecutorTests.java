@@ -0,0 +1,73 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Domain.Entities.Product;
+import Domain.Entities.Shop;
+import Domain.Entities.enums.Category;
+import Domain.Facades.ShopSearchExecutor;
+import Exceptions.StockMarketException;
+
+public class ShopSearchExecutorTests {
+
+    private List<Shop> _shops;
+    private ShopSearchExecutor _executor;
+
+    @BeforeEach
+    public void setUp() throws StockMarketException {
+        _shops = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            Shop shop = new Shop("shopName" + i, "founder" + i, "bank" + i, "address" + i, i);
+            shop.addProductToShop("founder" + i, new Product("Shirt", Category.CLOTHING, 10.0, shop, i * 10));
+            if (i % 2 == 0)
+                shop.addProductToShop("founder" + i, new Product("Hat", Category.CLOTHING, 10.0, shop, i * 10 + 1));
+            _shops.add(shop);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (_executor != null)
+            _executor.shutdown();
+    }
+
+    @Test
+    public void testSearch_whenMoreShopsThanThreshold_thenMergesTheResultsOfAllChunks() {
+        // Arrange - a chunk of at most 2 shops, so the search is split
+        _executor = new ShopSearchExecutor(4, 2);
+
+        // Act
+        Map<Integer, List<Product>> result = _executor.search(_shops, shop -> shop.getProductsByName("Hat"));
+
+        // Assert
+        assertEquals(5, result.size());
+        for (Integer shopId : List.of(2, 4, 6, 8, 10)) {
+            assertEquals(shopId * 10 + 1, result.get(shopId).get(0).getProductId());
+        }
+    }
+
+    @Test
+    public void testSearch_whenFewerShopsThanThreshold_thenSameResultAsParallel() {
+        // Arrange
+        _executor = new ShopSearchExecutor(4, 100);
+        ShopSearchExecutor parallelExecutor = new ShopSearchExecutor(4, 1);
+
+        // Act
+        Map<Integer, List<Product>> sequential = _executor.search(_shops, shop -> shop.getProductsByName("Shirt"));
+        Map<Integer, List<Product>> parallel = parallelExecutor.search(_shops,
+                shop -> shop.getProductsByName("Shirt"));
+        parallelExecutor.shutdown();
+
+        // Assert
+        assertEquals(10, sequential.size());
+        assertEquals(sequential, parallel);
+    }
+}
@@ -13,6 +13,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
@@ -934,6 +939,22 @@ public class ShopTests {
         assertEquals(1, shop.getShopProducts().size());
     }
 
+    @Test
+    public void testGetShopProducts_whenReturnedMapChanged_thenShopProductsUnchanged() throws StockMarketException {
+        // Arrange
+        String username = "user1";
+        Shop shop = new Shop("shopName1", "user1", "bank1", "adderss1", 1);
+        shop.addProductToShop(username, new Product("product1", Category.CLOTHING, 100, shop, 1));
+
+        // Act
+        Map<Integer, Product> products = shop.getShopProducts();
+        products.clear();
+
+        // Assert
+        assertEquals(1, shop.getShopProducts().size());
+        assertEquals(1, shop.getAllProducts().size());
+    }
+
     @Test
     public void testsAddProductToShop_whenProductAlreadyExists_thenFails() throws StockMarketException {
         // Arrange
@@ -1407,4 +1428,41 @@ public class ShopTests {
         // Assert
         assertEquals(0, shop.getShopPolicy().getRules().size());
     }
+
+    @Test
+    public void testAppointOwnerAndAddDiscount_whenReadConcurrently_thenNoConcurrentModification() throws Exception {
+        // Arrange
+        Shop shop = new Shop("shopName1", "user1", "bank1", "adderss1", 1);
+        Product product = new Product("product1", Category.CLOTHING, 100, shop, 1);
+        shop.addProductToShop("user1", product);
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.YEAR, 1);
+        Date expiration = calendar.getTime();
+        int writes = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // Act
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < writes; i++) {
+                shop.AppointOwner("user1", "owner" + i);
+                shop.addDiscount(new ProductPercentageDiscount(expiration, 0.1, product.getProductId(), i + 1));
+            }
+            return null;
+        });
+        Future<?> reader = executor.submit(() -> {
+            while (!writer.isDone()) {
+                shop.getRolesInfo("user1");
+                shop.getDiscountsOfProduct(product.getProductId());
+                shop.getDiscountDtos();
+            }
+            return null;
+        });
+        writer.get(30, TimeUnit.SECONDS);
+        reader.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Assert
+        assertEquals(writes + 1, shop.getUserToRoleMap("user1", false).size());
+        assertEquals(writes, shop.getShopDiscountsInfo().split("\n").length);
+    }
 }
@@ -19,13 +19,16 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import Domain.Entities.Product;
 import Domain.Entities.Shop;
 import Domain.Entities.ShoppingBasket;
 import Domain.Entities.User;
+import Domain.Entities.Discounts.ProductPercentageDiscount;
 import Domain.Entities.enums.Category;
+import Domain.Repositories.InterfaceProductRepository;
 import Exceptions.ProdcutPolicyException;
 import Exceptions.ProductDoesNotExistsException;
 import Exceptions.ShopPolicyException;
@@ -810,4 +813,156 @@ public class ShoppingBasketTests {
         assertEquals(price, 300);
     }
 
+    @Test
+    public void testAddProductToShoppingBasket_whenManyUnitsAdded_thenStoredAsOneEntryWithQuantity() throws StockMarketException {
+        // Arrange
+        Product product = new Product("Product 1", Category.ELECTRONICS, 10.0, shopMock, 1);
+        when(shopMock.getProductById(1)).thenReturn(product);
+        shoppingBasketUnderTest = new ShoppingBasket(shopMock);
+
+        // Act
+        shoppingBasketUnderTest.addProductToShoppingBasket(userMock, 1, 500);
+        shoppingBasketUnderTest.addProductToShoppingBasket(userMock, 1, 20);
+        shoppingBasketUnderTest.removeProductFromShoppingBasket(product, 120);
+
+        // Assert
+        assertEquals(1, shoppingBasketUnderTest.getProductToQuantity().size());
+        assertEquals(400, shoppingBasketUnderTest.getProductCount(1));
+        assertEquals(400, shoppingBasketUnderTest.getProductsList().size());
+        assertEquals(4000.0, shoppingBasketUnderTest.calculateShoppingBasketPrice());
+    }
+
+    @Test
+    public void testRemoveProductFromShoppingBasket_whenRemovingMoreThanInBasket_thenThrowsAndBasketNotChanged() throws StockMarketException {
+        // Arrange
+        Product product = new Product("Product 1", Category.ELECTRONICS, 10.0, shopMock, 1);
+        when(shopMock.getProductById(1)).thenReturn(product);
+        shoppingBasketUnderTest = new ShoppingBasket(shopMock);
+        shoppingBasketUnderTest.addProductToShoppingBasket(userMock, 1, 3);
+
+        // Act & Assert
+        assertThrows(ProductDoesNotExistsException.class, () -> {
+            shoppingBasketUnderTest.removeProductFromShoppingBasket(product, 4);
+        });
+        assertEquals(3, shoppingBasketUnderTest.getProductCount(1));
+    }
+
+    @Test
+    public void testPurchaseBasket_whenManyUnitsOfProduct_thenStockUpdatedByQuantity() throws StockMarketException {
+        // Arrange
+        Date date = new Date();
+        date.setTime(0);
+        User buyer = new User("username1", "password1", "email1", date);
+        Shop shop = new Shop("shopName1", "ownerUsername", "bank1", "address1",1);
+        shop.setNotificationHandler(_notificationHandlerMock);
+        ShoppingBasket shoppingBasket = new ShoppingBasket(shop);
+        Product product = new Product("product1", Category.ELECTRONICS, 100.0, shop,1);
+        product.updateProductQuantity(600);
+        shop.addProductToShop("ownerUsername", product);
+        shoppingBasket.addProductToShoppingBasket(buyer, product.getProductId(), 500);
+
+        // Act
+        boolean result = shoppingBasket.purchaseBasket(buyer.getUserName());
+        shoppingBasket.cancelPurchase();
+
+        // Assert
+        assertTrue(result);
+        assertEquals(600, product.getProductQuantity());
+    }
+
+    @Test
+    public void testGetShoppingBasketPrice_whenNothingChanged_thenDiscountsNotAppliedAgain() throws StockMarketException {
+        // Arrange
+        Date date = new Date();
+        date.setTime(0);
+        User buyer = new User("username1", "password1", "email1", date);
+        Shop shop = Mockito.spy(new Shop("shopName1", "ownerUsername", "bank1", "address1",1));
+        ShoppingBasket shoppingBasket = new ShoppingBasket(shop);
+        Product product = new Product("product1", Category.ELECTRONICS, 100.0, shop,1);
+        shop.addProductToShop("ownerUsername", product);
+        shoppingBasket.addProductToShoppingBasket(buyer, product.getProductId(), 2);
+
+        // Act
+        double first = shoppingBasket.getShoppingBasketPrice();
+        double second = shoppingBasket.getShoppingBasketPrice();
+
+        // Assert
+        assertEquals(200.0, first);
+        assertEquals(200.0, second);
+        Mockito.verify(shop, Mockito.times(1)).applyDiscounts(shoppingBasket);
+    }
+
+    @Test
+    public void testGetShoppingBasketPrice_whenContentsPriceOrDiscountsChange_thenPriceRecalculated() throws StockMarketException {
+        // Arrange
+        Date date = new Date();
+        date.setTime(0);
+        User buyer = new User("username1", "password1", "email1", date);
+        Shop shop = new Shop("shopName1", "ownerUsername", "bank1", "address1",1);
+        ShoppingBasket shoppingBasket = new ShoppingBasket(shop);
+        Product product = new Product("product1", Category.ELECTRONICS, 100.0, shop,1);
+        shop.addProductToShop("ownerUsername", product);
+        shoppingBasket.addProductToShoppingBasket(buyer, product.getProductId(), 1);
+        assertEquals(100.0, shoppingBasket.getShoppingBasketPrice());
+
+        // Act & Assert - basket contents changed
+        shoppingBasket.addProductToShoppingBasket(buyer, product.getProductId(), 1);
+        assertEquals(200.0, shoppingBasket.getShoppingBasketPrice());
+
+        // Act & Assert - product price changed
+        product.setPrice(50.0);
+        assertEquals(100.0, shoppingBasket.getShoppingBasketPrice());
+
+        // Act & Assert - discount added
+        shop.addDiscount(new ProductPercentageDiscount(new Date(System.currentTimeMillis() + 1000 * 60 * 60), 10, 1, 1));
+        assertEquals(95.0, shoppingBasket.getShoppingBasketPrice());
+    }
+
+    @Test
+    public void testGetShoppingBasketPrice_whenBasketIsEmpty_thenZeroIsCachedToo() throws StockMarketException {
+        // Arrange
+        Shop shop = new Shop("shopName1", "ownerUsername", "bank1", "address1",1);
+        ShoppingBasket shoppingBasket = new ShoppingBasket(shop);
+
+        // Act
+        double first = shoppingBasket.getShoppingBasketPrice();
+        double second = shoppingBasket.getShoppingBasketPrice();
+
+        // Assert
+        assertEquals(0.0, first);
+        assertEquals(0.0, second);
+    }
+
+    @Test
+    public void testPurchaseBasket_whenRepositorySetAndStockTakenByAnotherNode_thenReturnedFalseAndRestockProducts() throws StockMarketException {
+        // Arrange - the loaded entities still show the stock, the database doesn't
+        Date date = new Date();
+        date.setTime(0);
+        User buyer = new User("username1", "password1", "email1", date);
+        Shop shop = new Shop("shopName1", "ownerUsername", "bank1", "address1", 1);
+        shop.setNotificationHandler(_notificationHandlerMock);
+        ShoppingBasket shoppingBasket = new ShoppingBasket(shop);
+        Product product = new Product("product1", Category.ELECTRONICS, 100.0, shop, 1);
+        product.updateProductQuantity(3);
+        shop.addProductToShop("ownerUsername", product);
+        Product product2 = new Product("product2", Category.ELECTRONICS, 100.0, shop, 2);
+        product2.updateProductQuantity(3);
+        shop.addProductToShop("ownerUsername", product2);
+        shoppingBasket.addProductToShoppingBasket(buyer, product.getProductId(), 1);
+        shoppingBasket.addProductToShoppingBasket(buyer, product2.getProductId(), 1);
+        InterfaceProductRepository productRepository = Mockito.mock(InterfaceProductRepository.class);
+        when(productRepository.decrementStock(1, 1)).thenReturn(1);
+        when(productRepository.decrementStock(2, 1)).thenReturn(0);
+        shoppingBasket.setProductRepository(productRepository);
+
+        // Act
+        boolean result = shoppingBasket.purchaseBasket(buyer.getUserName());
+
+        // Assert
+        assertFalse(result);
+        verify(productRepository).incrementStock(1, 1);
+        assertEquals(3, product.getProductQuantity());
+        assertEquals(3, product2.getProductQuantity());
+    }
+
 }
@@ -0,0 +1,198 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.ClassPathBeanDefinitionScanner;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import Domain.Facades.ShopFacade;
+import Domain.Facades.ShoppingCartFacade;
+import Domain.Facades.UserFacade;
+import Domain.Repositories.DbGuestRepository;
+import Domain.Repositories.DbOrderRepository;
+import Domain.Repositories.DbShopOrderRepository;
+import Domain.Repositories.DbShoppingBasketRepository;
+import Domain.Repositories.DbShoppingCartRepository;
+import Domain.Repositories.DbUserRepository;
+import Domain.Reservations.StockReservation;
+import Domain.Reservations.StockReservationManager;
+import Server.Server;
+
+public class StockReservationTests {
+
+    private StockReservationManager _manager;
+
+    @BeforeEach
+    public void setUp() {
+        _manager = new StockReservationManager(50, 10);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        _manager.shutdown();
+    }
+
+    @Test
+    public void testRelease_whenReleasedTwice_thenStockReturnedOnce() {
+        // Arrange
+        AtomicInteger releases = new AtomicInteger();
+        StockReservation reservation = new StockReservation(releases::incrementAndGet);
+
+        // Act
+        boolean first = reservation.release();
+        boolean second = reservation.release();
+
+        // Assert
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(1, releases.get());
+        assertFalse(reservation.confirm());
+    }
+
+    @Test
+    public void testConfirm_whenHeld_thenReleaseDoesNothing() {
+        // Arrange
+        AtomicInteger releases = new AtomicInteger();
+        StockReservation reservation = new StockReservation(releases::incrementAndGet);
+
+        // Act
+        boolean confirmed = reservation.confirm();
+        boolean released = reservation.release();
+
+        // Assert
+        assertTrue(confirmed);
+        assertFalse(released);
+        assertEquals(0, releases.get());
+        assertEquals(StockReservation.State.CONFIRMED, reservation.getState());
+    }
+
+    @Test
+    public void testReserve_whenTtlPassesWithoutConfirm_thenStockReturnedBySweeper() throws InterruptedException {
+        // Arrange
+        CountDownLatch released = new CountDownLatch(1);
+
+        // Act
+        StockReservation reservation = _manager.reserve(released::countDown);
+
+        // Assert
+        assertTrue(released.await(5, TimeUnit.SECONDS));
+        assertEquals(StockReservation.State.RELEASED, reservation.getState());
+        assertFalse(reservation.confirm());
+    }
+
+    @Test
+    public void testReserve_whenConfirmedBeforeTtl_thenNeverReleased() throws InterruptedException {
+        // Arrange
+        AtomicInteger releases = new AtomicInteger();
+        CountDownLatch expired = new CountDownLatch(1);
+        StockReservation reservation = _manager.reserve(releases::incrementAndGet);
+        _manager.reserve(expired::countDown);
+
+        // Act
+        boolean confirmed = reservation.confirm();
+
+        // Assert - by the time the second reservation expired the first one was due too
+        assertTrue(confirmed);
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        assertEquals(0, releases.get());
+        assertEquals(StockReservation.State.CONFIRMED, reservation.getState());
+    }
+
+    // complete a transaction with the given status around the action
+    private void inTransaction(Runnable action, int status) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            action.run();
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), status);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testRevokeOnRollback_whenTransactionRollsBack_thenStockReturnedOnce() {
+        // Arrange
+        AtomicInteger releases = new AtomicInteger();
+        StockReservation reservation = new StockReservation(releases::incrementAndGet);
+        reservation.confirm();
+
+        // Act
+        inTransaction(reservation::revokeOnRollback, TransactionSynchronization.STATUS_ROLLED_BACK);
+        boolean revokedAgain = reservation.revoke();
+
+        // Assert
+        assertEquals(1, releases.get());
+        assertFalse(revokedAgain);
+        assertEquals(StockReservation.State.RELEASED, reservation.getState());
+    }
+
+    @Test
+    public void testRevokeOnRollback_whenTransactionCommits_thenStockStaysSold() {
+        // Arrange
+        AtomicInteger releases = new AtomicInteger();
+        StockReservation reservation = new StockReservation(releases::incrementAndGet);
+        reservation.confirm();
+
+        // Act
+        inTransaction(reservation::revokeOnRollback, TransactionSynchronization.STATUS_COMMITTED);
+
+        // Assert
+        assertEquals(0, releases.get());
+        assertEquals(StockReservation.State.CONFIRMED, reservation.getState());
+    }
+
+    @Test
+    public void testRevoke_whenReservationHeld_thenNothingReturned() {
+        // Arrange
+        AtomicInteger releases = new AtomicInteger();
+        StockReservation reservation = new StockReservation(releases::incrementAndGet);
+
+        // Act
+        boolean revoked = reservation.revoke();
+
+        // Assert
+        assertFalse(revoked);
+        assertEquals(0, releases.get());
+        assertTrue(reservation.isHeld());
+    }
+
+    @Test
+    public void testServerComponentScan_whenContextStarts_thenShoppingCartFacadeGetsReservationManager() {
+        // Arrange - the manager is found only through the packages the server scans
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(context, false);
+            scanner.addIncludeFilter(new AssignableTypeFilter(StockReservationManager.class));
+            scanner.scan(Server.class.getAnnotation(ComponentScan.class).value());
+            context.registerBean(ShoppingCartFacade.class, () -> new ShoppingCartFacade(
+                    mock(DbShoppingCartRepository.class), mock(DbOrderRepository.class),
+                    mock(DbGuestRepository.class), mock(DbUserRepository.class),
+                    mock(DbShoppingBasketRepository.class), mock(DbShopOrderRepository.class),
+                    mock(UserFacade.class), mock(ShopFacade.class)));
+
+            // Act
+            context.refresh();
+
+            // Assert
+            assertSame(context.getBean(StockReservationManager.class),
+                    ReflectionTestUtils.getField(context.getBean(ShoppingCartFacade.class), "_reservationManager"));
+        }
+    }
+}
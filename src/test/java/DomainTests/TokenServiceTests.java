@@ -0,0 +1,114 @@
+package DomainTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ServiceLayer.TokenService;
+import io.jsonwebtoken.JwtException;
+
+public class TokenServiceTests {
+
+    private TokenService _tokenService;
+
+    @BeforeEach
+    public void setUp() {
+        _tokenService = new TokenService();
+    }
+
+    @Test
+    public void testAuthenticate_whenUserToken_thenReturnsUsername() {
+        // Arrange
+        String token = _tokenService.generateUserToken("user1");
+
+        // Act
+        TokenService.Principal principal = _tokenService.authenticate(token);
+
+        // Assert
+        assertNotNull(principal);
+        assertEquals("user1", principal.getUsername());
+        assertFalse(principal.isGuest());
+        assertTrue(_tokenService.isUserAndLoggedIn(token));
+    }
+
+    @Test
+    public void testAuthenticate_whenGuestToken_thenReturnsGuestId() {
+        // Arrange
+        String token = _tokenService.generateGuestToken();
+
+        // Act
+        TokenService.Principal principal = _tokenService.authenticate(token);
+
+        // Assert
+        assertNotNull(principal);
+        assertTrue(principal.isGuest());
+        assertNotNull(principal.getGuestId());
+        assertEquals(principal.getGuestId(), _tokenService.extractGuestId(token));
+        assertTrue(_tokenService.isGuest(token));
+    }
+
+    @Test
+    public void testValidateToken_whenCalledRepeatedly_thenTokenCachedOnce() {
+        // Arrange
+        String token = _tokenService.generateUserToken("user1");
+
+        // Act
+        _tokenService.validateToken(token);
+        _tokenService.isUserAndLoggedIn(token);
+        _tokenService.extractUsername(token);
+
+        // Assert
+        assertEquals(1, _tokenService.getCachedTokenCount());
+    }
+
+    @Test
+    public void testAuthenticate_whenTokenTampered_thenReturnsNullAndNotCached() {
+        // Arrange
+        String token = _tokenService.generateUserToken("user1");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        // Act
+        TokenService.Principal principal = _tokenService.authenticate(tampered);
+
+        // Assert
+        assertNull(principal);
+        assertFalse(_tokenService.validateToken(tampered));
+        assertEquals(0, _tokenService.getCachedTokenCount());
+    }
+
+    @Test
+    public void testExtractUsername_whenTokenSignedByOtherService_thenThrows() {
+        // Arrange
+        String token = new TokenService().generateUserToken("user1");
+
+        // Act & Assert
+        assertFalse(_tokenService.validateToken(token));
+        assertThrows(JwtException.class, () -> _tokenService.extractUsername(token));
+    }
+
+    @Test
+    public void testAuthenticate_whenCacheFull_thenLeastRecentlyUsedTokenDropped() {
+        // Arrange
+        String firstToken = _tokenService.generateUserToken("user0");
+        _tokenService.authenticate(firstToken);
+        for (int i = 1; i < TokenService.CACHE_CAPACITY; i++) {
+            _tokenService.authenticate(_tokenService.generateUserToken("user" + i));
+        }
+
+        // Act
+        TokenService.Principal principal = _tokenService
+                .authenticate(_tokenService.generateUserToken("user" + TokenService.CACHE_CAPACITY));
+
+        // Assert
+        assertNotNull(principal);
+        assertEquals(TokenService.CACHE_CAPACITY, _tokenService.getCachedTokenCount());
+        assertEquals("user0", _tokenService.extractUsername(firstToken));
+        assertEquals(TokenService.CACHE_CAPACITY, _tokenService.getCachedTokenCount());
+    }
+}
@@ -13,6 +13,7 @@ import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -337,6 +338,73 @@ public class UserFacadeTests {
         assertTrue( _userFacadeUnderTest.AreCredentialsCorrect(userTest,password));
     }
 
+    @Test
+    public void testAreCredentialsCorrect_whenHashCostIsOutdated_thenPasswordRehashed() throws StockMarketException {
+        // Arrange - the user was hashed with cost 4, the facade hashes with cost 5
+        String userTest = "john_doe";
+        String password = "password123";
+        String oldHash = new PasswordEncoderUtil(4, 1, 10).encodePassword(password);
+        _registeredUsers.add(new User(userTest, oldHash, "john.doe@example.com", new Date()));
+        PasswordEncoderUtil passwordEncoder = new PasswordEncoderUtil(5, 1, 10);
+
+        _userFacadeUnderTest = new UserFacade(_registeredUsers, _guestIds, passwordEncoder, _emailValidator, _dbUserRepoMock, _DbGuestRepositoryMock, _DbShoppingCartRepositoryMock, _DbOrderRepositoryMock, _NotificationHandlerMock);
+        _userFacadeUnderTest.setUserFacadeRepositories(new MemoryUserRepository(_registeredUsers), new MemoryGuestRepository(_guests), new MemoryOrderRepository(), new MemoryShoppingCartRepository());
+
+        // Act
+        boolean result = _userFacadeUnderTest.AreCredentialsCorrect(userTest, password);
+
+        // Assert
+        String newHash = _userFacadeUnderTest.getUserByUsername(userTest).getPassword();
+        assertTrue(result);
+        assertNotEquals(oldHash, newHash);
+        assertFalse(passwordEncoder.needsRehash(newHash));
+        assertTrue(passwordEncoder.matches(password, newHash));
+        assertEquals(3L, _userFacadeUnderTest.getPasswordHashingStatistics().get("hashes"));
+    }
+
+    @Test
+    public void testRegister_whenHashingTakesTooLong_thenServerBusy() {
+        // Arrange - a cost 14 hash takes far longer than the 10 ms the call may wait
+        PasswordEncoderUtil passwordEncoder = new PasswordEncoderUtil(14, 1, 10, 10);
+        _userFacadeUnderTest = new UserFacade(_registeredUsers, _guestIds, passwordEncoder, _emailValidator, _dbUserRepoMock, _DbGuestRepositoryMock, _DbShoppingCartRepositoryMock, _DbOrderRepositoryMock, _NotificationHandlerMock);
+        _userFacadeUnderTest.setUserFacadeRepositories(new MemoryUserRepository(_registeredUsers), new MemoryGuestRepository(_guests), new MemoryOrderRepository(), new MemoryShoppingCartRepository());
+        UserDto userDto = new UserDto(userName, password, "john.doe@example.com", new Date());
+
+        // Act
+        UserException exception = assertThrowsExactly(UserException.class, () -> _userFacadeUnderTest.register(userDto));
+
+        // Assert
+        assertEquals("The server is busy, please try again later.", exception.getMessage());
+        assertEquals(1L, passwordEncoder.getTimedOutCount());
+        assertFalse(_userFacadeUnderTest.doesUserExist(userName));
+        passwordEncoder.shutdown();
+    }
+
+    @Test
+    public void testRegister_whenHashingQueueIsFull_thenServerBusy() throws InterruptedException {
+        // Arrange - one call hashes and one waits in the queue of size 1
+        PasswordEncoderUtil passwordEncoder = new PasswordEncoderUtil(15, 1, 1, 60_000);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        callers.submit(() -> passwordEncoder.encodePassword(password));
+        callers.submit(() -> passwordEncoder.encodePassword(password));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (passwordEncoder.getQueueSize() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+        assertEquals(1, passwordEncoder.getQueueSize());
+        _userFacadeUnderTest = new UserFacade(_registeredUsers, _guestIds, passwordEncoder, _emailValidator, _dbUserRepoMock, _DbGuestRepositoryMock, _DbShoppingCartRepositoryMock, _DbOrderRepositoryMock, _NotificationHandlerMock);
+        _userFacadeUnderTest.setUserFacadeRepositories(new MemoryUserRepository(_registeredUsers), new MemoryGuestRepository(_guests), new MemoryOrderRepository(), new MemoryShoppingCartRepository());
+        UserDto userDto = new UserDto(userName, password, "john.doe@example.com", new Date());
+
+        // Act
+        UserException exception = assertThrowsExactly(UserException.class, () -> _userFacadeUnderTest.register(userDto));
+
+        // Assert
+        assertEquals("The server is busy, please try again later.", exception.getMessage());
+        assertEquals(1L, passwordEncoder.getRejectedCount());
+        callers.shutdownNow();
+        passwordEncoder.shutdown();
+    }
+
     @Test
     public void testAddOrderToUser_whenOrderIsNull_thenError() throws StockMarketException {
         // Arrange
@@ -1,16 +1,49 @@
 package SystemTests;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 
+import Domain.Authenticators.EmailValidator;
+import Domain.Authenticators.PasswordEncoderUtil;
+import Domain.Entities.enums.Category;
+import Domain.ExternalServices.CheckoutPipeline;
 import Domain.Facades.ShopFacade;
 import Domain.Facades.ShoppingCartFacade;
 import Domain.Facades.UserFacade;
+import Domain.Repositories.DbDiscountRepository;
+import Domain.Repositories.DbGuestRepository;
+import Domain.Repositories.DbOrderRepository;
+import Domain.Repositories.DbPolicyRepository;
+import Domain.Repositories.DbProductRepository;
+import Domain.Repositories.DbRoleRepository;
+import Domain.Repositories.DbShopOrderRepository;
+import Domain.Repositories.DbShopRepository;
+import Domain.Repositories.DbShoppingBasketRepository;
+import Domain.Repositories.DbShoppingCartRepository;
+import Domain.Repositories.DbUserRepository;
+import Dtos.PaymentInfoDto;
+import Dtos.ProductDto;
+import Dtos.PurchaseCartDetailsDto;
+import Dtos.ShopDto;
+import Dtos.SupplyInfoDto;
+import Dtos.UserDto;
 import Exceptions.StockMarketException;
 import Server.MarketSystem;
 import Server.notifications.NotificationHandler;
@@ -174,4 +207,45 @@ public class ConfigurationsTests {
         // Act and verify that the data was set successfully
         assertDoesNotThrow(() -> marketSystemUnderTest.init_data_to_market(url), "The method should not throw any exception");
     }
+
+    @Test
+    public void testSetDatabase_whenTestsDatabase_thenCartPurchasedFromMemoryStock() throws Exception {
+        // Arrange - facades built by spring, with a product repository that has no rows
+        String url = "src/test/java/SystemTests/instructions_config/instructions_empty.txt";
+        DbProductRepository dbProductRepositoryMock = mock(DbProductRepository.class);
+        UserFacade userFacade = new UserFacade(new ArrayList<>(), new ArrayList<>(), new PasswordEncoderUtil(),
+                new EmailValidator(), mock(DbUserRepository.class), mock(DbGuestRepository.class),
+                mock(DbShoppingCartRepository.class), mock(DbOrderRepository.class), mock(NotificationHandler.class));
+        ShopFacade shopFacade = new ShopFacade(mock(DbShopRepository.class), dbProductRepositoryMock,
+                mock(DbRoleRepository.class), userFacade, mock(NotificationHandler.class),
+                mock(DbDiscountRepository.class), mock(DbPolicyRepository.class));
+        ShoppingCartFacade shoppingCartFacade = new ShoppingCartFacade(mock(DbShoppingCartRepository.class),
+                mock(DbOrderRepository.class), mock(DbGuestRepository.class), mock(DbUserRepository.class),
+                mock(DbShoppingBasketRepository.class), mock(DbShopOrderRepository.class), userFacade, shopFacade);
+        shoppingCartFacade.setProductRepository(dbProductRepositoryMock);
+        CheckoutPipeline checkoutPipelineMock = mock(CheckoutPipeline.class);
+        when(checkoutPipelineMock.checkout(any(), any(), any(), anyDouble(), any()))
+                .thenReturn(new CheckoutPipeline.Transactions(1, 1));
+        shoppingCartFacade.setCheckoutPipeline(checkoutPipelineMock);
+        marketSystemUnderTest = new MarketSystem(shopFacade, userFacade, shoppingCartFacade, mock(NotificationHandler.class), mock(WebSocketServer.class), external_system_url, url, real_system_config_path);
+        marketSystemUnderTest.set_database("database:tests");
+
+        userFacade.register(new UserDto("founder", "password1", "founder@example.com", new Date()));
+        int shopId = shopFacade.openNewShop("founder", new ShopDto("shop1", "bank1", "address1"));
+        shopFacade.addProductToShop(shopId, new ProductDto("product1", Category.CLOTHING, 100, 5), "founder");
+        int productId = shopFacade.getShopByShopId(shopId).getAllProductsList().get(0).getProductId();
+        userFacade.addNewGuest("guest");
+        shoppingCartFacade.addCartForGuest("guest");
+        shoppingCartFacade.addProductToGuestCart("guest", productId, shopId, 1);
+        PurchaseCartDetailsDto purchaseCartDetails = new PurchaseCartDetailsDto(
+                new PaymentInfoDto("abc", "abc", "abc", "abc", "abc", "982", "abc"),
+                new SupplyInfoDto("abc", "abc", "abc", "abc", "abc"), List.of(0));
+
+        // Act
+        shoppingCartFacade.purchaseCartGuest("guest", purchaseCartDetails);
+
+        // Assert - the stock was taken from the product in memory, not from the database
+        assertEquals(4, shopFacade.getShopByShopId(shopId).getAllProducts().get(productId).getProductQuantity());
+        verify(dbProductRepositoryMock, never()).decrementStock(anyInt(), anyInt());
+    }
 }